@@ -106,7 +106,12 @@ public class AllocationBenchmark {
         "       10|     10|        2|    50",
         "      100|      1|        2|    50",
         "      100|      3|        2|    50",
-        "      100|     10|        2|    50"
+        "      100|     10|        2|    50",
+
+        // large clusters with 100k shards
+        "    10000|      5|        1|   100",
+        "     5000|     10|        1|   200",
+        "     1000|     50|        1|   500"
     })
     public String indicesShardsReplicasNodes = "10|1|0|1";
 
@@ -114,6 +119,7 @@ public class AllocationBenchmark {
 
     private AllocationService strategy;
     private ClusterState initialClusterState;
+    private ClusterState allocatedClusterState;
 
     @Setup
     public void setUp() throws Exception {
@@ -149,6 +155,7 @@ public class AllocationBenchmark {
         initialClusterState = ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY))
             .metaData(metaData).routingTable(routingTable).nodes
                 (nb).build();
+        allocatedClusterState = measureAllocation();
     }
 
     private int toInt(String v) {
@@ -165,4 +172,13 @@ public class AllocationBenchmark {
         }
         return clusterState;
     }
+
+    /**
+     * Measures a reroute of a cluster whose shards are all allocated and started, which is what the master does on most
+     * cluster state updates of a large cluster.
+     */
+    @Benchmark
+    public ClusterState measureRerouteOfAllocatedCluster() {
+        return strategy.reroute(allocatedClusterState, "reroute");
+    }
 }
@@ -23,6 +23,8 @@ import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
@@ -56,6 +58,12 @@ import static org.elasticsearch.repositories.s3.S3Repository.MIN_PART_SIZE_USING
 
 class S3BlobContainer extends AbstractBlobContainer {
 
+    /**
+     * Maximum number of deletes in a {@link DeleteObjectsRequest}.
+     * @see <a href="https://docs.aws.amazon.com/AmazonS3/latest/API/multiobjectdeleteapi.html">S3 Documentation</a>.
+     */
+    private static final int MAX_BULK_DELETES = 1000;
+
     private final S3BlobStore blobStore;
     private final String keyPath;
 
@@ -123,6 +131,26 @@ class S3BlobContainer extends AbstractBlobContainer {
         }
     }
 
+    @Override
+    public void deleteBlobsIgnoringIfNotExists(List<String> blobNames) throws IOException {
+        if (blobNames.isEmpty()) {
+            return;
+        }
+        try (AmazonS3Reference clientReference = blobStore.clientReference()) {
+            // S3 deletes at most 1000 objects per request and reports no error for keys that do not exist
+            for (int i = 0; i < blobNames.size(); i += MAX_BULK_DELETES) {
+                final List<KeyVersion> keys = new ArrayList<>();
+                for (String blobName : blobNames.subList(i, Math.min(blobNames.size(), i + MAX_BULK_DELETES))) {
+                    keys.add(new KeyVersion(buildKey(blobName)));
+                }
+                final DeleteObjectsRequest request = new DeleteObjectsRequest(blobStore.bucket()).withKeys(keys);
+                SocketAccess.doPrivilegedVoid(() -> clientReference.client().deleteObjects(request));
+            }
+        } catch (final AmazonClientException e) {
+            throw new IOException("Exception when deleting blobs " + blobNames, e);
+        }
+    }
+
     @Override
     public Map<String, BlobMetaData> listBlobsByPrefix(@Nullable String blobNamePrefix) throws IOException {
         final MapBuilder<String, BlobMetaData> blobsBuilder = MapBuilder.newMapBuilder();
@@ -249,6 +249,17 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         }
     }
 
+    @Override
+    protected void onDiscardedShardResult(Result result) {
+        try {
+            SearchShardTarget searchShardTarget = result.getSearchShardTarget();
+            Transport.Connection connection = getConnection(searchShardTarget.getClusterAlias(), searchShardTarget.getNodeId());
+            sendReleaseSearchContext(result.getRequestId(), connection, searchShardTarget.getOriginalIndices());
+        } catch (Exception e) {
+            logger.trace("failed to release context", e);
+        }
+    }
+
     @Override
     public final void onPhaseDone() {
         executeNextPhase(this, getNextPhase(results, this));
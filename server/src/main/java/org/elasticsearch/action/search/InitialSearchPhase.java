@@ -25,6 +25,8 @@ import org.elasticsearch.action.support.TransportActions;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.FutureUtils;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.search.SearchPhaseResult;
@@ -34,6 +36,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
@@ -206,8 +209,11 @@ abstract class InitialSearchPhase<FirstResult extends SearchPhaseResult> extends
          * we can continue (cf. InitialSearchPhase#maybeFork).
          */
         final Thread thread = Thread.currentThread();
+        final SearchHedgingService hedgingService = getHedgingService();
         if (shard == null) {
             fork(() -> onShardFailure(shardIndex, null, null, shardIt, new NoShardAvailableActionException(shardIt.shardId())));
+        } else if (hedgingService != null) {
+            new HedgedShardExecution(shardIndex, shardIt, hedgingService).start(shard);
         } else {
             try {
                 executePhaseOnShard(shardIt, shard, new SearchActionListener<FirstResult>(new SearchShardTarget(shard.currentNodeId(),
@@ -233,6 +239,10 @@ abstract class InitialSearchPhase<FirstResult extends SearchPhaseResult> extends
     }
 
     private void onShardResult(FirstResult result, SearchShardIterator shardIt) {
+        onShardResult(result, shardIt, 1);
+    }
+
+    private void onShardResult(FirstResult result, SearchShardIterator shardIt, int attempts) {
         assert result.getShardIndex() != -1 : "shard index is not set";
         assert result.getSearchShardTarget() != null : "search shard target must not be null";
         onShardSuccess(result);
@@ -241,15 +251,23 @@ abstract class InitialSearchPhase<FirstResult extends SearchPhaseResult> extends
         // cause the successor to read a wrong value from successfulOps if second phase is very fast ie. count etc.
         // increment all the "future" shards to update the total ops since we some may work and some may not...
         // and when that happens, we break on total ops, so we must maintain them
-        successfulShardExecution(shardIt);
+        successfulShardExecution(shardIt, attempts);
     }
 
     private void successfulShardExecution(SearchShardIterator shardsIt) {
+        successfulShardExecution(shardsIt, 1);
+    }
+
+    /**
+     * @param attempts the number of copies of the shard that were successful or are still in flight and whose responses will be
+     *                 ignored, this is greater than one if the request to the shard was hedged
+     */
+    private void successfulShardExecution(SearchShardIterator shardsIt, int attempts) {
         final int remainingOpsOnIterator;
         if (shardsIt.skip()) {
             remainingOpsOnIterator = shardsIt.remaining();
         } else {
-            remainingOpsOnIterator = shardsIt.remaining() + 1;
+            remainingOpsOnIterator = shardsIt.remaining() + attempts;
         }
         final int xTotalOps = totalOps.addAndGet(remainingOpsOnIterator);
         if (xTotalOps == expectedTotalOps) {
@@ -287,6 +305,22 @@ abstract class InitialSearchPhase<FirstResult extends SearchPhaseResult> extends
      */
     abstract void onShardSuccess(FirstResult result);
 
+    /**
+     * Returns the service used to hedge shard requests that are slow to respond, or <code>null</code> if this phase never hedges
+     * its shard requests. Only phases whose shard requests are idempotent and whose results can be discarded should hedge.
+     */
+    @Nullable
+    protected SearchHedgingService getHedgingService() {
+        return null;
+    }
+
+    /**
+     * Executed for every successful shard level response that is not used because another copy of the same shard answered first.
+     * @param result the result returned from the shard
+     */
+    protected void onDiscardedShardResult(FirstResult result) {
+    }
+
     /**
      * Sends the request to the actual shard.
      * @param shardIt the shards iterator
@@ -377,4 +411,132 @@ abstract class InitialSearchPhase<FirstResult extends SearchPhaseResult> extends
         successfulShardExecution(iterator);
     }
 
+    /**
+     * Executes the request for a single shard with hedging: if the copy the request was sent to is slower to respond than the
+     * hedge delay of its node, the request is also sent to the next copy of the shard and the first successful response is used.
+     * The other response is discarded. Only if all in-flight requests fail does the execution move on to the remaining copies.
+     */
+    private final class HedgedShardExecution {
+        private final int shardIndex;
+        private final SearchShardIterator shardIt;
+        private final SearchHedgingService hedgingService;
+        // guarded by this
+        private boolean done;
+        private int pendingAttempts;
+        private ScheduledFuture<?> scheduledHedge;
+
+        HedgedShardExecution(int shardIndex, SearchShardIterator shardIt, SearchHedgingService hedgingService) {
+            this.shardIndex = shardIndex;
+            this.shardIt = shardIt;
+            this.hedgingService = hedgingService;
+        }
+
+        void start(ShardRouting shard) {
+            final String nodeId = shard.currentNodeId();
+            final TimeValue hedgeDelay = shardIt.remaining() > 0 ? hedgingService.getHedgeDelay(nodeId) : null;
+            synchronized (this) {
+                pendingAttempts = 1;
+                if (hedgeDelay != null) {
+                    scheduledHedge = hedgingService.schedule(hedgeDelay, () -> fork(() -> maybeHedge(nodeId)));
+                }
+            }
+            sendAttempt(shard, null);
+        }
+
+        private void maybeHedge(String slowNodeId) {
+            final ShardRouting nextShard;
+            synchronized (this) {
+                if (done || shardIt.remaining() == 0 || hedgingService.tryStartHedge(slowNodeId) == false) {
+                    return;
+                }
+                nextShard = shardIt.nextOrNull();
+                assert nextShard != null : "iterator has remaining copies but returned null";
+                pendingAttempts++;
+            }
+            logger.trace("{}: hedging request to [{}] on [{}]", shardIt.shardId(), slowNodeId, nextShard.currentNodeId());
+            sendAttempt(nextShard, slowNodeId);
+        }
+
+        /**
+         * @param slowNodeId the node that was slow to respond if this attempt is a hedge, <code>null</code> otherwise
+         */
+        private void sendAttempt(ShardRouting shard, @Nullable String slowNodeId) {
+            final Thread thread = Thread.currentThread();
+            final long startNanos = System.nanoTime();
+            try {
+                executePhaseOnShard(shardIt, shard, new SearchActionListener<FirstResult>(new SearchShardTarget(shard.currentNodeId(),
+                    shardIt.shardId(), shardIt.getClusterAlias(), shardIt.getOriginalIndices()), shardIndex) {
+                    @Override
+                    public void innerOnResponse(FirstResult result) {
+                        hedgingService.onShardResponse(shard.currentNodeId(), System.nanoTime() - startNanos);
+                        maybeFork(thread, () -> onAttemptResult(result, slowNodeId));
+                    }
+
+                    @Override
+                    public void onFailure(Exception t) {
+                        maybeFork(thread, () -> onAttemptFailure(shard, slowNodeId, t));
+                    }
+                });
+            } catch (final Exception e) {
+                fork(() -> onAttemptFailure(shard, slowNodeId, e));
+            }
+        }
+
+        private void onAttemptResult(FirstResult result, @Nullable String slowNodeId) {
+            final int attempts;
+            synchronized (this) {
+                if (done) {
+                    attempts = 0;
+                } else {
+                    done = true;
+                    attempts = pendingAttempts;
+                    pendingAttempts = 0;
+                    FutureUtils.cancel(scheduledHedge);
+                }
+            }
+            if (slowNodeId != null) {
+                hedgingService.onHedgeCompleted(slowNodeId, attempts > 0);
+            }
+            if (attempts == 0) {
+                // another copy answered first, this result is not needed anymore
+                onDiscardedShardResult(result);
+            } else {
+                onShardResult(result, shardIt, attempts);
+            }
+        }
+
+        private void onAttemptFailure(ShardRouting shard, @Nullable String slowNodeId, Exception e) {
+            final boolean ignore;
+            final boolean lastAttempt;
+            synchronized (this) {
+                ignore = done;
+                lastAttempt = done == false && --pendingAttempts == 0;
+                if (lastAttempt) {
+                    done = true;
+                    FutureUtils.cancel(scheduledHedge);
+                }
+            }
+            if (slowNodeId != null) {
+                hedgingService.onHedgeCompleted(slowNodeId, false);
+            }
+            if (ignore) {
+                // another copy answered first, this attempt is already accounted for
+                return;
+            }
+            if (lastAttempt) {
+                // no other request is in flight for this shard, fail over to the remaining copies as usual
+                onShardFailure(shardIndex, shard, shard.currentNodeId(), shardIt, e);
+            } else {
+                // the other in-flight request may still succeed, just count this copy as done
+                logger.trace(() -> new ParameterizedMessage("{}: Failed to execute [{}] while another copy is still in flight",
+                    shard.shortSummary(), request), e);
+                onShardFailure(shardIndex, new SearchShardTarget(shard.currentNodeId(), shardIt.shardId(), shardIt.getClusterAlias(),
+                    shardIt.getOriginalIndices()), e);
+                final int xTotalOps = totalOps.incrementAndGet();
+                assert xTotalOps < expectedTotalOps : "a request for the shard is still in flight but total ops reached ["
+                    + xTotalOps + "]";
+            }
+        }
+    }
+
 }
@@ -0,0 +1,298 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterStateListener;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides when a shard-level search request that is slow to respond is also sent to another copy of the shard
+ * ("hedged"), so that the first of the two responses can be used. A request is hedged once it has been outstanding for
+ * longer than a configurable percentile of the recent response times of the node it was sent to. The number of hedged
+ * requests that can be in flight from this node at any time is bounded.
+ */
+public class SearchHedgingService extends AbstractComponent implements ClusterStateListener {
+
+    public static final Setting<Boolean> HEDGING_ENABLED_SETTING =
+        Setting.boolSetting("search.hedging.enabled", false, Property.Dynamic, Property.NodeScope);
+    public static final Setting<Double> HEDGING_LATENCY_PERCENTILE_SETTING =
+        Setting.doubleSetting("search.hedging.latency_percentile", 95.0, 0.0, 100.0, Property.Dynamic, Property.NodeScope);
+    public static final Setting<TimeValue> HEDGING_MIN_DELAY_SETTING =
+        Setting.timeSetting("search.hedging.min_delay", TimeValue.timeValueMillis(10), TimeValue.ZERO,
+            Property.Dynamic, Property.NodeScope);
+    public static final Setting<Integer> HEDGING_MAX_IN_FLIGHT_SETTING =
+        Setting.intSetting("search.hedging.max_in_flight", 16, 0, Property.Dynamic, Property.NodeScope);
+
+    /** The number of recent response times that are kept per node to compute the latency percentile. */
+    static final int SAMPLE_SIZE = 128;
+    /** Requests to a node are not hedged until this many response times have been recorded for it. */
+    static final int MIN_SAMPLES = 16;
+
+    private final ThreadPool threadPool;
+    private final ConcurrentMap<String, NodeLatencies> nodeLatencies = ConcurrentCollections.newConcurrentMap();
+    private final AtomicInteger inFlightHedges = new AtomicInteger();
+
+    private volatile boolean enabled;
+    private volatile double latencyPercentile;
+    private volatile TimeValue minDelay;
+    private volatile int maxInFlight;
+
+    public SearchHedgingService(Settings settings, ClusterService clusterService, ThreadPool threadPool) {
+        super(settings);
+        final ClusterSettings clusterSettings = clusterService.getClusterSettings();
+        this.threadPool = threadPool;
+        this.enabled = HEDGING_ENABLED_SETTING.get(settings);
+        this.latencyPercentile = HEDGING_LATENCY_PERCENTILE_SETTING.get(settings);
+        this.minDelay = HEDGING_MIN_DELAY_SETTING.get(settings);
+        this.maxInFlight = HEDGING_MAX_IN_FLIGHT_SETTING.get(settings);
+        clusterSettings.addSettingsUpdateConsumer(HEDGING_ENABLED_SETTING, this::setEnabled);
+        clusterSettings.addSettingsUpdateConsumer(HEDGING_LATENCY_PERCENTILE_SETTING, this::setLatencyPercentile);
+        clusterSettings.addSettingsUpdateConsumer(HEDGING_MIN_DELAY_SETTING, this::setMinDelay);
+        clusterSettings.addSettingsUpdateConsumer(HEDGING_MAX_IN_FLIGHT_SETTING, this::setMaxInFlight);
+        clusterService.addListener(this);
+    }
+
+    private void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    private void setLatencyPercentile(double latencyPercentile) {
+        this.latencyPercentile = latencyPercentile;
+    }
+
+    private void setMinDelay(TimeValue minDelay) {
+        this.minDelay = minDelay;
+    }
+
+    private void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Returns <code>true</code> if shard-level search requests may be hedged.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void clusterChanged(ClusterChangedEvent event) {
+        if (event.nodesRemoved()) {
+            for (DiscoveryNode removedNode : event.nodesDelta().removedNodes()) {
+                nodeLatencies.remove(removedNode.getId());
+            }
+        }
+    }
+
+    /**
+     * Records the time it took the given node to answer a shard-level search request.
+     */
+    void onShardResponse(String nodeId, long tookInNanos) {
+        if (enabled) {
+            nodeLatencies.computeIfAbsent(nodeId, k -> new NodeLatencies()).record(tookInNanos);
+        }
+    }
+
+    /**
+     * Returns how long to wait for a response from the given node before hedging the request, or <code>null</code> if
+     * requests to this node should not be hedged.
+     */
+    @Nullable
+    TimeValue getHedgeDelay(String nodeId) {
+        if (enabled == false || maxInFlight == 0) {
+            return null;
+        }
+        final NodeLatencies latencies = nodeLatencies.get(nodeId);
+        if (latencies == null) {
+            return null;
+        }
+        final long percentileNanos = latencies.percentile(latencyPercentile);
+        if (percentileNanos < 0) {
+            return null;
+        }
+        return TimeValue.timeValueNanos(Math.max(minDelay.nanos(), percentileNanos));
+    }
+
+    ScheduledFuture<?> schedule(TimeValue delay, Runnable command) {
+        return threadPool.schedule(delay, ThreadPool.Names.SAME, command);
+    }
+
+    /**
+     * Tries to take a hedge out of the budget of this node. Every successful call must be followed by exactly one call to
+     * {@link #onHedgeCompleted(String, boolean)}.
+     *
+     * @param slowNodeId the node that was slow to respond to the request that should be hedged
+     * @return <code>true</code> if the request may be hedged
+     */
+    boolean tryStartHedge(String slowNodeId) {
+        final NodeLatencies latencies = nodeLatencies.computeIfAbsent(slowNodeId, k -> new NodeLatencies());
+        while (true) {
+            final int current = inFlightHedges.get();
+            if (current >= maxInFlight) {
+                latencies.rejectedHedges.increment();
+                return false;
+            }
+            if (inFlightHedges.compareAndSet(current, current + 1)) {
+                latencies.hedges.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns a hedge to the budget once its request completed.
+     *
+     * @param slowNodeId the node that was slow to respond to the hedged request
+     * @param won whether the hedged request answered before the original one
+     */
+    void onHedgeCompleted(String slowNodeId, boolean won) {
+        final int remaining = inFlightHedges.decrementAndGet();
+        assert remaining >= 0 : "more hedges completed than started";
+        if (won) {
+            final NodeLatencies latencies = nodeLatencies.get(slowNodeId);
+            if (latencies != null) {
+                latencies.wonHedges.increment();
+            }
+        }
+    }
+
+    int getInFlightHedges() {
+        return inFlightHedges.get();
+    }
+
+    /**
+     * Returns the hedging statistics per node that requests were hedged for.
+     */
+    public Map<String, HedgingStats> getHedgingStats() {
+        final Map<String, HedgingStats> stats = new HashMap<>(nodeLatencies.size());
+        nodeLatencies.forEach((nodeId, latencies) -> stats.put(nodeId,
+            new HedgingStats(latencies.hedges.sum(), latencies.wonHedges.sum(), latencies.rejectedHedges.sum())));
+        return stats;
+    }
+
+    /**
+     * The recent response times of a node, kept in a ring buffer, and the hedging counters for that node.
+     */
+    private static final class NodeLatencies {
+        private final long[] samples = new long[SAMPLE_SIZE];
+        private int count;
+        private int next;
+
+        final LongAdder hedges = new LongAdder();
+        final LongAdder wonHedges = new LongAdder();
+        final LongAdder rejectedHedges = new LongAdder();
+
+        synchronized void record(long tookInNanos) {
+            samples[next] = tookInNanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        /**
+         * Returns the given percentile of the recorded response times, or <code>-1</code> if not enough response times
+         * have been recorded yet.
+         */
+        long percentile(double percentile) {
+            final long[] sorted;
+            synchronized (this) {
+                if (count < MIN_SAMPLES) {
+                    return -1;
+                }
+                sorted = Arrays.copyOf(samples, count);
+            }
+            Arrays.sort(sorted);
+            final int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.min(Math.max(index, 0), sorted.length - 1)];
+        }
+    }
+
+    /**
+     * Hedging statistics for requests that were sent to a single node.
+     */
+    public static class HedgingStats implements Writeable {
+
+        private final long hedgedRequests;
+        private final long wonHedgedRequests;
+        private final long rejectedHedgedRequests;
+
+        public HedgingStats(long hedgedRequests, long wonHedgedRequests, long rejectedHedgedRequests) {
+            this.hedgedRequests = hedgedRequests;
+            this.wonHedgedRequests = wonHedgedRequests;
+            this.rejectedHedgedRequests = rejectedHedgedRequests;
+        }
+
+        public HedgingStats(StreamInput in) throws IOException {
+            this.hedgedRequests = in.readVLong();
+            this.wonHedgedRequests = in.readVLong();
+            this.rejectedHedgedRequests = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(hedgedRequests);
+            out.writeVLong(wonHedgedRequests);
+            out.writeVLong(rejectedHedgedRequests);
+        }
+
+        /**
+         * The number of requests to this node that were also sent to another copy because this node was slow to respond.
+         */
+        public long getHedgedRequests() {
+            return hedgedRequests;
+        }
+
+        /**
+         * The number of hedged requests for which the other copy answered first.
+         */
+        public long getWonHedgedRequests() {
+            return wonHedgedRequests;
+        }
+
+        /**
+         * The number of requests to this node that would have been hedged but were not because the hedge budget was exhausted.
+         */
+        public long getRejectedHedgedRequests() {
+            return rejectedHedgedRequests;
+        }
+    }
+}
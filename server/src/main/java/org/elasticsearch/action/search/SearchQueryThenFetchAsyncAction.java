@@ -55,6 +55,17 @@ final class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<Se
             buildShardSearchRequest(shardIt), getTask(), listener);
     }
 
+    @Override
+    protected SearchHedgingService getHedgingService() {
+        // the contexts of scroll requests are kept open on the shards, so they must not be sent to more than one copy
+        if (getRequest().scroll() != null || getSearchTransport() == null) {
+            return null;
+        }
+        final SearchHedgingService hedgingService = getSearchTransport().getHedgingService();
+        // when hedging is disabled shard requests go through the plain, unhedged path
+        return hedgingService != null && hedgingService.isEnabled() ? hedgingService : null;
+    }
+
     @Override
     protected SearchPhase getNextPhase(final SearchPhaseResults<SearchPhaseResult> results, final SearchPhaseContext context) {
         return new FetchSearchPhase(results, searchPhaseController, context);
@@ -22,13 +22,17 @@ package org.elasticsearch.action.search;
 import org.elasticsearch.tasks.CancellableTask;
 import org.elasticsearch.tasks.TaskId;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Task storing information about a currently running search request.
  */
 public class SearchTask extends CancellableTask {
 
+    private final List<Runnable> cancellationListeners = new CopyOnWriteArrayList<>();
+
     public SearchTask(long id, String type, String action, String description, TaskId parentTaskId, Map<String, String> headers) {
         super(id, type, action, description, parentTaskId, headers);
     }
@@ -38,4 +42,29 @@ public class SearchTask extends CancellableTask {
         return true;
     }
 
+    /**
+     * Registers a listener that is called once this task is cancelled, or right away if it is already cancelled.
+     */
+    public void addCancellationListener(Runnable listener) {
+        cancellationListeners.add(listener);
+        if (isCancelled() && cancellationListeners.remove(listener)) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Unregisters a listener that was registered with {@link #addCancellationListener(Runnable)}, if it was not called yet.
+     */
+    public void removeCancellationListener(Runnable listener) {
+        cancellationListeners.remove(listener);
+    }
+
+    @Override
+    protected void onCancelled() {
+        for (Runnable listener : cancellationListeners) {
+            if (cancellationListeners.remove(listener)) {
+                listener.run();
+            }
+        }
+    }
 }
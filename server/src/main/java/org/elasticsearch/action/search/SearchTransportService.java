@@ -27,6 +27,7 @@ import org.elasticsearch.action.OriginalIndices;
 import org.elasticsearch.action.support.HandledTransportAction.ChannelActionListener;
 import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -61,6 +62,7 @@ import org.elasticsearch.transport.TransportResponse;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.BiFunction;
@@ -87,12 +89,21 @@ public class SearchTransportService extends AbstractComponent {
     private final TransportService transportService;
     private final BiFunction<Transport.Connection, SearchActionListener, ActionListener> responseWrapper;
     private final Map<String, Long> clientConnections = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
+    @Nullable
+    private final SearchHedgingService hedgingService;
 
     public SearchTransportService(Settings settings, TransportService transportService,
                                   BiFunction<Transport.Connection, SearchActionListener, ActionListener> responseWrapper) {
+        this(settings, transportService, responseWrapper, null);
+    }
+
+    public SearchTransportService(Settings settings, TransportService transportService,
+                                  BiFunction<Transport.Connection, SearchActionListener, ActionListener> responseWrapper,
+                                  @Nullable SearchHedgingService hedgingService) {
         super(settings);
         this.transportService = transportService;
         this.responseWrapper = responseWrapper;
+        this.hedgingService = hedgingService;
     }
 
     public void sendFreeContext(Transport.Connection connection, final long contextId, OriginalIndices originalIndices) {
@@ -210,6 +221,21 @@ public class SearchTransportService extends AbstractComponent {
         return new HashMap<>(clientConnections);
     }
 
+    /**
+     * Returns the service that hedges slow shard-level search requests, or <code>null</code> if requests are never hedged.
+     */
+    @Nullable
+    public SearchHedgingService getHedgingService() {
+        return hedgingService;
+    }
+
+    /**
+     * Returns the hedging statistics per node, or an empty map if requests are never hedged.
+     */
+    public Map<String, SearchHedgingService.HedgingStats> getHedgingStats() {
+        return hedgingService == null ? Collections.emptyMap() : hedgingService.getHedgingStats();
+    }
+
     static class ScrollFreeContextRequest extends TransportRequest {
         private long id;
 
@@ -21,6 +21,7 @@ package org.elasticsearch.cluster;
 
 import com.carrotsearch.hppc.cursors.ObjectObjectCursor;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -34,9 +35,9 @@ import java.io.IOException;
 import java.util.Map;
 /**
  * ClusterInfo is an object representing a map of nodes to {@link DiskUsage}
- * and a map of shard ids to shard sizes, see
+ * and maps of shard ids to shard sizes and loads, see
  * <code>InternalClusterInfoService.shardIdentifierFromRouting(String)</code>
- * for the key used in the shardSizes map
+ * for the key used in the shardSizes and load maps
  */
 public class ClusterInfo implements ToXContentFragment, Writeable {
     private final ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsage;
@@ -44,6 +45,8 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
     final ImmutableOpenMap<String, Long> shardSizes;
     public static final ClusterInfo EMPTY = new ClusterInfo();
     final ImmutableOpenMap<ShardRouting, String> routingToDataPath;
+    final ImmutableOpenMap<String, Double> shardWriteLoads;
+    final ImmutableOpenMap<String, Double> shardSearchLoads;
 
     protected ClusterInfo() {
        this(ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of());
@@ -61,10 +64,33 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
     public ClusterInfo(ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsage,
             ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsage, ImmutableOpenMap<String, Long> shardSizes,
             ImmutableOpenMap<ShardRouting, String> routingToDataPath) {
+        this(leastAvailableSpaceUsage, mostAvailableSpaceUsage, shardSizes, routingToDataPath, ImmutableOpenMap.of(),
+            ImmutableOpenMap.of());
+    }
+
+    /**
+     * Creates a new ClusterInfo instance.
+     *
+     * @param leastAvailableSpaceUsage a node id to disk usage mapping for the path that has the least available space on the node.
+     * @param mostAvailableSpaceUsage  a node id to disk usage mapping for the path that has the most available space on the node.
+     * @param shardSizes a shardkey to size in bytes mapping per shard.
+     * @param routingToDataPath the shard routing to datapath mapping
+     * @param shardWriteLoads a shardkey to write load mapping per shard, the average number of threads that were busy indexing
+     *                        into the shard
+     * @param shardSearchLoads a shardkey to search load mapping per shard, the average number of threads that were busy
+     *                         searching the shard
+     * @see #shardIdentifierFromRouting
+     */
+    public ClusterInfo(ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsage,
+            ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsage, ImmutableOpenMap<String, Long> shardSizes,
+            ImmutableOpenMap<ShardRouting, String> routingToDataPath, ImmutableOpenMap<String, Double> shardWriteLoads,
+            ImmutableOpenMap<String, Double> shardSearchLoads) {
         this.leastAvailableSpaceUsage = leastAvailableSpaceUsage;
         this.shardSizes = shardSizes;
         this.mostAvailableSpaceUsage = mostAvailableSpaceUsage;
         this.routingToDataPath = routingToDataPath;
+        this.shardWriteLoads = shardWriteLoads;
+        this.shardSearchLoads = shardSearchLoads;
     }
 
     public ClusterInfo(StreamInput in) throws IOException {
@@ -81,6 +107,17 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
         this.shardSizes = sizeBuilder.putAll(sizeMap).build();
         ImmutableOpenMap.Builder<ShardRouting, String> routingBuilder = ImmutableOpenMap.builder();
         this.routingToDataPath = routingBuilder.putAll(routingMap).build();
+        if (in.getVersion().onOrAfter(Version.V_6_5_0)) {
+            Map<String, Double> writeLoadMap = in.readMap(StreamInput::readString, StreamInput::readDouble);
+            Map<String, Double> searchLoadMap = in.readMap(StreamInput::readString, StreamInput::readDouble);
+            ImmutableOpenMap.Builder<String, Double> writeLoadBuilder = ImmutableOpenMap.builder();
+            this.shardWriteLoads = writeLoadBuilder.putAll(writeLoadMap).build();
+            ImmutableOpenMap.Builder<String, Double> searchLoadBuilder = ImmutableOpenMap.builder();
+            this.shardSearchLoads = searchLoadBuilder.putAll(searchLoadMap).build();
+        } else {
+            this.shardWriteLoads = ImmutableOpenMap.of();
+            this.shardSearchLoads = ImmutableOpenMap.of();
+        }
     }
 
     @Override
@@ -109,6 +146,18 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
             c.key.writeTo(out);
             out.writeString(c.value);
         }
+        if (out.getVersion().onOrAfter(Version.V_6_5_0)) {
+            writeLoads(out, shardWriteLoads);
+            writeLoads(out, shardSearchLoads);
+        }
+    }
+
+    private static void writeLoads(StreamOutput out, ImmutableOpenMap<String, Double> loads) throws IOException {
+        out.writeVInt(loads.size());
+        for (ObjectObjectCursor<String, Double> c : loads) {
+            out.writeString(c.key);
+            out.writeDouble(c.value);
+        }
     }
 
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
@@ -144,6 +193,20 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
             }
         }
         builder.endObject(); // end "shard_paths"
+        if (shardWriteLoads.isEmpty() == false || shardSearchLoads.isEmpty() == false) {
+            builder.startObject("shard_write_loads"); {
+                for (ObjectObjectCursor<String, Double> c : this.shardWriteLoads) {
+                    builder.field(c.key, c.value);
+                }
+            }
+            builder.endObject(); // end "shard_write_loads"
+            builder.startObject("shard_search_loads"); {
+                for (ObjectObjectCursor<String, Double> c : this.shardSearchLoads) {
+                    builder.field(c.key, c.value);
+                }
+            }
+            builder.endObject(); // end "shard_search_loads"
+        }
         return builder;
     }
 
@@ -183,6 +246,24 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
         return shardSize == null ? defaultValue : shardSize;
     }
 
+    /**
+     * Returns the write load of the given shard routing, the average number of threads that were busy indexing into the shard,
+     * or <code>defaultValue</code> if that metric is not available.
+     */
+    public double getShardWriteLoad(ShardRouting shardRouting, double defaultValue) {
+        Double writeLoad = shardWriteLoads.get(shardIdentifierFromRouting(shardRouting));
+        return writeLoad == null ? defaultValue : writeLoad;
+    }
+
+    /**
+     * Returns the search load of the given shard routing, the average number of threads that were busy searching the shard,
+     * or <code>defaultValue</code> if that metric is not available.
+     */
+    public double getShardSearchLoad(ShardRouting shardRouting, double defaultValue) {
+        Double searchLoad = shardSearchLoads.get(shardIdentifierFromRouting(shardRouting));
+        return searchLoad == null ? defaultValue : searchLoad;
+    }
+
     /**
      * Method that incorporates the ShardId for the shard into a string that
      * includes a 'p' or 'r' depending on whether the shard is a primary.
@@ -42,11 +42,15 @@ import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.search.stats.SearchStats;
 import org.elasticsearch.monitor.fs.FsInfo;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.ReceiveTimeoutTransportException;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
@@ -72,12 +76,20 @@ public class InternalClusterInfoService extends AbstractComponent
         Setting.positiveTimeSetting("cluster.info.update.timeout", TimeValue.timeValueSeconds(15),
             Property.Dynamic, Property.NodeScope);
 
+    /**
+     * The weight of the latest load of a shard in its smoothed load.
+     */
+    static final double LOAD_SMOOTHING_FACTOR = 0.3;
+
     private volatile TimeValue updateFrequency;
 
     private volatile ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsages;
     private volatile ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsages;
     private volatile ImmutableOpenMap<ShardRouting, String> shardRoutingToDataPath;
     private volatile ImmutableOpenMap<String, Long> shardSizes;
+    private volatile ImmutableOpenMap<String, Double> shardWriteLoads;
+    private volatile ImmutableOpenMap<String, Double> shardSearchLoads;
+    private volatile Map<String, ShardLoadSample> shardLoadSamples;
     private volatile boolean isMaster = false;
     private volatile boolean enabled;
     private volatile TimeValue fetchTimeout;
@@ -93,6 +105,9 @@ public class InternalClusterInfoService extends AbstractComponent
         this.mostAvailableSpaceUsages = ImmutableOpenMap.of();
         this.shardRoutingToDataPath = ImmutableOpenMap.of();
         this.shardSizes = ImmutableOpenMap.of();
+        this.shardWriteLoads = ImmutableOpenMap.of();
+        this.shardSearchLoads = ImmutableOpenMap.of();
+        this.shardLoadSamples = Collections.emptyMap();
         this.clusterService = clusterService;
         this.threadPool = threadPool;
         this.client = client;
@@ -198,7 +213,8 @@ public class InternalClusterInfoService extends AbstractComponent
 
     @Override
     public ClusterInfo getClusterInfo() {
-        return new ClusterInfo(leastAvailableSpaceUsages, mostAvailableSpaceUsages, shardSizes, shardRoutingToDataPath);
+        return new ClusterInfo(leastAvailableSpaceUsages, mostAvailableSpaceUsages, shardSizes, shardRoutingToDataPath,
+            shardWriteLoads, shardSearchLoads);
     }
 
     /**
@@ -261,6 +277,8 @@ public class InternalClusterInfoService extends AbstractComponent
         final IndicesStatsRequest indicesStatsRequest = new IndicesStatsRequest();
         indicesStatsRequest.clear();
         indicesStatsRequest.store(true);
+        indicesStatsRequest.indexing(true);
+        indicesStatsRequest.search(true);
 
         client.admin().indices().stats(indicesStatsRequest, new LatchedActionListener<>(listener, latch));
         return latch;
@@ -322,6 +340,12 @@ public class InternalClusterInfoService extends AbstractComponent
                 buildShardLevelInfo(logger, stats, newShardSizes, newShardRoutingToDataPath, clusterService.state());
                 shardSizes = newShardSizes.build();
                 shardRoutingToDataPath = newShardRoutingToDataPath.build();
+                ImmutableOpenMap.Builder<String, Double> newShardWriteLoads = ImmutableOpenMap.builder();
+                ImmutableOpenMap.Builder<String, Double> newShardSearchLoads = ImmutableOpenMap.builder();
+                shardLoadSamples = buildShardLoads(stats, shardLoadSamples, threadPool.relativeTimeInMillis(),
+                    newShardWriteLoads, newShardSearchLoads);
+                shardWriteLoads = newShardWriteLoads.build();
+                shardSearchLoads = newShardSearchLoads.build();
             }
 
             @Override
@@ -339,6 +363,9 @@ public class InternalClusterInfoService extends AbstractComponent
                     // we empty the usages list, to be safe - we don't know what's going on.
                     shardSizes = ImmutableOpenMap.of();
                     shardRoutingToDataPath = ImmutableOpenMap.of();
+                    shardWriteLoads = ImmutableOpenMap.of();
+                    shardSearchLoads = ImmutableOpenMap.of();
+                    shardLoadSamples = Collections.emptyMap();
                 }
             }
         });
@@ -378,6 +405,73 @@ public class InternalClusterInfoService extends AbstractComponent
         }
     }
 
+    /**
+     * Computes the write and search loads of the shards from the time that was spent indexing into and searching them since
+     * the previous samples. The loads are smoothed with an exponentially weighted moving average so that short bursts don't
+     * cause shards to be moved around. Replicas of the same shard are reported with the highest load of any copy.
+     *
+     * @return the samples to compute the loads from on the next refresh, by allocation id
+     */
+    static Map<String, ShardLoadSample> buildShardLoads(ShardStats[] stats, Map<String, ShardLoadSample> previousSamples,
+                                                        long nowInMillis, ImmutableOpenMap.Builder<String, Double> newShardWriteLoads,
+                                                        ImmutableOpenMap.Builder<String, Double> newShardSearchLoads) {
+        final Map<String, ShardLoadSample> samples = new HashMap<>(stats.length);
+        for (ShardStats s : stats) {
+            final ShardRouting shardRouting = s.getShardRouting();
+            if (shardRouting.allocationId() == null || s.getStats().getIndexing() == null || s.getStats().getSearch() == null) {
+                continue;
+            }
+            final long indexTimeInMillis = s.getStats().getIndexing().getTotal().getIndexTime().millis();
+            final SearchStats.Stats searchStats = s.getStats().getSearch().getTotal();
+            final long searchTimeInMillis = searchStats.getQueryTimeInMillis() + searchStats.getFetchTimeInMillis();
+            final ShardLoadSample previous = previousSamples.get(shardRouting.allocationId().getId());
+            final ShardLoadSample sample;
+            if (previous == null || nowInMillis <= previous.timestampInMillis
+                || indexTimeInMillis < previous.indexTimeInMillis || searchTimeInMillis < previous.searchTimeInMillis) {
+                // we need two samples of the same shard copy to compute its load
+                sample = new ShardLoadSample(nowInMillis, indexTimeInMillis, searchTimeInMillis, Double.NaN, Double.NaN);
+            } else {
+                final double elapsedMillis = nowInMillis - previous.timestampInMillis;
+                final double writeLoad = smoothLoad(previous.writeLoad, (indexTimeInMillis - previous.indexTimeInMillis) / elapsedMillis);
+                final double searchLoad = smoothLoad(previous.searchLoad,
+                    (searchTimeInMillis - previous.searchTimeInMillis) / elapsedMillis);
+                sample = new ShardLoadSample(nowInMillis, indexTimeInMillis, searchTimeInMillis, writeLoad, searchLoad);
+                final String sid = ClusterInfo.shardIdentifierFromRouting(shardRouting);
+                newShardWriteLoads.put(sid, Math.max(writeLoad, newShardWriteLoads.getOrDefault(sid, 0d)));
+                newShardSearchLoads.put(sid, Math.max(searchLoad, newShardSearchLoads.getOrDefault(sid, 0d)));
+            }
+            samples.put(shardRouting.allocationId().getId(), sample);
+        }
+        return samples;
+    }
+
+    private static double smoothLoad(double previousLoad, double load) {
+        if (Double.isNaN(previousLoad)) {
+            return load;
+        }
+        return LOAD_SMOOTHING_FACTOR * load + (1 - LOAD_SMOOTHING_FACTOR) * previousLoad;
+    }
+
+    /**
+     * The time that was spent indexing into and searching a shard copy up to a point in time, and the loads of the shard
+     * copy that were computed at that point.
+     */
+    static final class ShardLoadSample {
+        final long timestampInMillis;
+        final long indexTimeInMillis;
+        final long searchTimeInMillis;
+        final double writeLoad;
+        final double searchLoad;
+
+        ShardLoadSample(long timestampInMillis, long indexTimeInMillis, long searchTimeInMillis, double writeLoad, double searchLoad) {
+            this.timestampInMillis = timestampInMillis;
+            this.indexTimeInMillis = indexTimeInMillis;
+            this.searchTimeInMillis = searchTimeInMillis;
+            this.writeLoad = writeLoad;
+            this.searchLoad = searchLoad;
+        }
+    }
+
     static void fillDiskUsagePerNode(Logger logger, List<NodeStats> nodeStatsArray,
             ImmutableOpenMap.Builder<String, DiskUsage> newLeastAvaiableUsages,
             ImmutableOpenMap.Builder<String, DiskUsage> newMostAvaiableUsages) {
@@ -22,9 +22,12 @@ package org.elasticsearch.cluster.routing.allocation.allocator;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.IntroSorter;
+import org.elasticsearch.cluster.ClusterInfo;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
+import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
 import org.elasticsearch.cluster.routing.RoutingNode;
 import org.elasticsearch.cluster.routing.RoutingNodes;
 import org.elasticsearch.cluster.routing.ShardRouting;
@@ -40,6 +43,7 @@ import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
 import org.elasticsearch.cluster.routing.allocation.decider.Decision;
 import org.elasticsearch.cluster.routing.allocation.decider.Decision.Type;
 import org.elasticsearch.cluster.routing.allocation.decider.DiskThresholdDecider;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
@@ -60,6 +64,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.ToDoubleFunction;
 
 import static org.elasticsearch.cluster.routing.ShardRoutingState.RELOCATING;
 
@@ -71,6 +76,8 @@ import static org.elasticsearch.cluster.routing.ShardRoutingState.RELOCATING;
  * for shards allocated on a {@link RoutingNode}</li>
  * <li><code>cluster.routing.allocation.balance.index</code> - The <b>index balance</b> defines a factor to the number
  * of {@link org.elasticsearch.cluster.routing.ShardRouting}s per index allocated on a specific node</li>
+ * <li><code>cluster.routing.allocation.balance.load</code> - The <b>load balance</b> defines a factor to the write and
+ * search load of the shards allocated on a specific node, see {@link ClusterInfo#getShardWriteLoad}</li>
  * <li><code>cluster.routing.allocation.balance.threshold</code> - A <b>threshold</b> to set the minimal optimization
  * value of operations that should be performed</li>
  * </ul>
@@ -84,6 +91,8 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
         Setting.floatSetting("cluster.routing.allocation.balance.index", 0.55f, 0.0f, Property.Dynamic, Property.NodeScope);
     public static final Setting<Float> SHARD_BALANCE_FACTOR_SETTING =
         Setting.floatSetting("cluster.routing.allocation.balance.shard", 0.45f, 0.0f, Property.Dynamic, Property.NodeScope);
+    public static final Setting<Float> LOAD_BALANCE_FACTOR_SETTING =
+        Setting.floatSetting("cluster.routing.allocation.balance.load", 0.0f, 0.0f, Property.Dynamic, Property.NodeScope);
     public static final Setting<Float> THRESHOLD_SETTING =
         Setting.floatSetting("cluster.routing.allocation.balance.threshold", 1.0f, 0.0f,
             Property.Dynamic, Property.NodeScope);
@@ -98,14 +107,20 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
     @Inject
     public BalancedShardsAllocator(Settings settings, ClusterSettings clusterSettings) {
         super(settings);
-        setWeightFunction(INDEX_BALANCE_FACTOR_SETTING.get(settings), SHARD_BALANCE_FACTOR_SETTING.get(settings));
+        weightFunction = new WeightFunction(INDEX_BALANCE_FACTOR_SETTING.get(settings), SHARD_BALANCE_FACTOR_SETTING.get(settings),
+            LOAD_BALANCE_FACTOR_SETTING.get(settings));
         setThreshold(THRESHOLD_SETTING.get(settings));
         clusterSettings.addSettingsUpdateConsumer(INDEX_BALANCE_FACTOR_SETTING, SHARD_BALANCE_FACTOR_SETTING, this::setWeightFunction);
+        clusterSettings.addSettingsUpdateConsumer(LOAD_BALANCE_FACTOR_SETTING, this::setLoadBalance);
         clusterSettings.addSettingsUpdateConsumer(THRESHOLD_SETTING, this::setThreshold);
     }
 
     private void setWeightFunction(float indexBalance, float shardBalanceFactor) {
-        weightFunction = new WeightFunction(indexBalance, shardBalanceFactor);
+        weightFunction = new WeightFunction(indexBalance, shardBalanceFactor, weightFunction.loadBalance);
+    }
+
+    private void setLoadBalance(float loadBalance) {
+        weightFunction = new WeightFunction(weightFunction.indexBalance, weightFunction.shardBalance, loadBalance);
     }
 
     private void setThreshold(float threshold) {
@@ -162,6 +177,13 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
         return weightFunction.shardBalance;
     }
 
+    /**
+     * Returns the load related weight factor.
+     */
+    public float getLoadBalance() {
+        return weightFunction.loadBalance;
+    }
+
 
     /**
      * This class is the primary weight function used to create balanced over nodes and shards in the cluster.
@@ -169,6 +191,7 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
      * <ul>
      * <li><code>index balance</code> - balance property over shards per index</li>
      * <li><code>shard balance</code> - balance property over shards per cluster</li>
+     * <li><code>load balance</code> - balance property over the write and search load per cluster</li>
      * </ul>
      * <p>
      * Each of these properties are expressed as factor such that the properties factor defines the relative importance of the property for the
@@ -183,26 +206,52 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
      * <li>
      * <code>weight<sub>node</sub>(node, index) = shardBalance * (node.numShards() - avgShardsPerNode)</code>
      * </li>
+     * <li>
+     * <code>weight<sub>load</sub>(node, index) = loadBalance * (node.load() - avgLoadPerNode) / avgLoadPerShard</code>
+     * </li>
      * </ul>
-     * <code>weight(node, index) = weight<sub>index</sub>(node, index) + weight<sub>node</sub>(node, index)</code>
+     * <code>weight(node, index) = weight<sub>index</sub>(node, index) + weight<sub>node</sub>(node, index)
+     * + weight<sub>load</sub>(node, index)</code>
+     * <p>
+     * The load of a node is the sum of the write and search loads of its shards, where every shard of an index is assumed to
+     * carry the average load of the copies of the index. Dividing by the average load per shard expresses the load in
+     * shards, so a node that carries the load of an average shard more than another node weighs like it held one more shard.
+     * The loads are smoothed over time by the {@link org.elasticsearch.cluster.ClusterInfoService} so that load spikes don't
+     * move shards around, and moves must still improve the balance by more than the threshold.
+     * </p>
      */
     public static class WeightFunction {
 
         private final float indexBalance;
         private final float shardBalance;
+        private final float loadBalance;
         private final float theta0;
         private final float theta1;
+        private final float theta2;
 
 
         public WeightFunction(float indexBalance, float shardBalance) {
-            float sum = indexBalance + shardBalance;
+            this(indexBalance, shardBalance, 0.0f);
+        }
+
+        public WeightFunction(float indexBalance, float shardBalance, float loadBalance) {
+            float sum = indexBalance + shardBalance + loadBalance;
             if (sum <= 0.0f) {
                 throw new IllegalArgumentException("Balance factors must sum to a value > 0 but was: " + sum);
             }
             theta0 = shardBalance / sum;
             theta1 = indexBalance / sum;
+            theta2 = loadBalance / sum;
             this.indexBalance = indexBalance;
             this.shardBalance = shardBalance;
+            this.loadBalance = loadBalance;
+        }
+
+        /**
+         * Returns whether the weights depend on the load of the nodes.
+         */
+        boolean isLoadAware() {
+            return theta2 > 0.0f;
         }
 
         public float weight(Balancer balancer, ModelNode node, String index) {
@@ -218,9 +267,24 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
         }
 
         private float weight(Balancer balancer, ModelNode node, String index, int numAdditionalShards) {
-            final float weightShard = node.numShards() + numAdditionalShards - balancer.avgShardsPerNode();
             final float weightIndex = node.numShards(index) + numAdditionalShards - balancer.avgShardsPerNode(index);
-            return theta0 * weightShard + theta1 * weightIndex;
+            return nodeWeight(balancer, node, index, numAdditionalShards) + theta1 * weightIndex;
+        }
+
+        /**
+         * Returns the part of the weight of the node that doesn't depend on the number of shards of an index on the node.
+         */
+        float nodeWeight(Balancer balancer, ModelNode node) {
+            return nodeWeight(balancer, node, null, 0);
+        }
+
+        private float nodeWeight(Balancer balancer, ModelNode node, String index, int numAdditionalShards) {
+            final float weightShard = node.numShards() + numAdditionalShards - balancer.avgShardsPerNode();
+            if (theta2 == 0.0f) {
+                return theta0 * weightShard;
+            }
+            final float weightLoad = balancer.loadWeight(node, index, numAdditionalShards);
+            return theta0 * weightShard + theta2 * weightLoad;
         }
     }
 
@@ -237,6 +301,9 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
         private final float threshold;
         private final MetaData metaData;
         private final float avgShardsPerNode;
+        private final Map<String, Double> shardLoads;
+        private final double avgLoadPerNode;
+        private final double avgLoadPerShard;
         private final NodeSorter sorter;
 
         public Balancer(Logger logger, RoutingAllocation allocation, WeightFunction weight, float threshold) {
@@ -247,10 +314,66 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             this.routingNodes = allocation.routingNodes();
             this.metaData = allocation.metaData();
             avgShardsPerNode = ((float) metaData.getTotalNumberOfShards()) / routingNodes.size();
+            if (weight.isLoadAware()) {
+                shardLoads = buildShardLoads();
+                double totalLoad = 0;
+                for (IndexMetaData indexMetaData : metaData) {
+                    totalLoad += shardLoad(indexMetaData.getIndex().getName()) * indexMetaData.getTotalNumberOfShards();
+                }
+                avgLoadPerNode = totalLoad / routingNodes.size();
+                avgLoadPerShard = totalLoad / metaData.getTotalNumberOfShards();
+            } else {
+                shardLoads = Collections.emptyMap();
+                avgLoadPerNode = 0;
+                avgLoadPerShard = 0;
+            }
             nodes = Collections.unmodifiableMap(buildModelFromAssigned());
             sorter = newNodeSorter();
         }
 
+        /**
+         * Returns the average write and search load of the assigned copies of each index, see {@link ClusterInfo}.
+         */
+        private Map<String, Double> buildShardLoads() {
+            final ClusterInfo clusterInfo = allocation.clusterInfo();
+            final Map<String, Double> shardLoads = new HashMap<>();
+            for (IndexRoutingTable indexRoutingTable : allocation.routingTable()) {
+                double load = 0;
+                int copies = 0;
+                for (IndexShardRoutingTable shardRoutingTable : indexRoutingTable) {
+                    for (ShardRouting shard : shardRoutingTable) {
+                        if (shard.assignedToNode()) {
+                            load += clusterInfo.getShardWriteLoad(shard, 0) + clusterInfo.getShardSearchLoad(shard, 0);
+                            copies++;
+                        }
+                    }
+                }
+                if (copies > 0 && load > 0) {
+                    shardLoads.put(indexRoutingTable.getIndex().getName(), load / copies);
+                }
+            }
+            return shardLoads;
+        }
+
+        /**
+         * Returns the load of a shard of the given index, or {@code 0} if it is unknown
+         */
+        double shardLoad(String index) {
+            return shardLoads.getOrDefault(index, 0d);
+        }
+
+        /**
+         * Returns the difference between the load of the given node with the given number of additional shards of the given
+         * index and the average load per node, in multiples of the average load per shard.
+         */
+        float loadWeight(ModelNode node, @Nullable String index, int numAdditionalShards) {
+            if (avgLoadPerShard <= 0) {
+                return 0.0f;
+            }
+            final double load = node.load() + (index == null ? 0 : numAdditionalShards * shardLoad(index));
+            return (float) ((load - avgLoadPerNode) / avgLoadPerShard);
+        }
+
         /**
          * Returns an array view on the nodes in the balancer. Nodes should not be removed from this list.
          */
@@ -484,7 +607,13 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             final AllocationDeciders deciders = allocation.deciders();
             final ModelNode[] modelNodes = sorter.modelNodes;
             final float[] weights = sorter.weights;
-            for (String index : buildWeightOrderedIndices()) {
+            final WeightRanges weightRanges = new WeightRanges(nodesArray(), weight, this);
+            for (String index : buildWeightOrderedIndices(weightRanges)) {
+                if (lessThan(weightRanges.delta(index), threshold)) {
+                    // the delta between any two nodes is within the threshold so no relocation would bring us closer to the
+                    // balance, we don't need to find the relevant nodes and sort them
+                    continue;
+                }
                 IndexMetaData indexMetaData = metaData.index(index);
 
                 // find nodes that have a shard of this index or where shards of this index are allowed to be allocated to,
@@ -542,15 +671,17 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
                         }
                         /* pass the delta to the replication function to prevent relocations that only swap the weights of the two nodes.
                          * a relocation must bring us closer to the balance if we only achieve the same delta the relocation is useless */
-                        if (tryRelocateShard(minNode, maxNode, index, delta)) {
-                            /*
-                             * TODO we could be a bit smarter here, we don't need to fully sort necessarily
-                             * we could just find the place to insert linearly but the win might be minor
-                             * compared to the added complexity
-                             */
-                            weights[lowIdx] = sorter.weight(modelNodes[lowIdx]);
-                            weights[highIdx] = sorter.weight(modelNodes[highIdx]);
-                            sorter.sort(0, relevantNodes);
+                        final int maxNodeShards = maxNode.numShards();
+                        final boolean relocated = tryRelocateShard(minNode, maxNode, index, delta);
+                        if (maxNode.numShards() != maxNodeShards) {
+                            // the shard was moved on the model, which also happens if the relocation is throttled
+                            weightRanges.shardMoved(minNode, maxNode, index);
+                        }
+                        if (relocated) {
+                            /* only the weights of the two nodes changed, so we move them to their new place rather than sorting
+                             * all relevant nodes again. The min node moves towards the max node and may pass it. */
+                            final int minNodePosition = sorter.update(lowIdx, 0, relevantNodes);
+                            sorter.update(minNodePosition >= highIdx ? highIdx - 1 : highIdx, 0, relevantNodes);
                             lowIdx = 0;
                             highIdx = relevantNodes - 1;
                             continue;
@@ -589,12 +720,11 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
          * average. To re-balance we need to move shards back eventually likely
          * to the nodes we relocated them from.
          */
-        private String[] buildWeightOrderedIndices() {
+        private String[] buildWeightOrderedIndices(WeightRanges weightRanges) {
             final String[] indices = allocation.routingTable().indicesRouting().keys().toArray(String.class);
             final float[] deltas = new float[indices.length];
             for (int i = 0; i < deltas.length; i++) {
-                sorter.reset(indices[i]);
-                deltas[i] = sorter.delta();
+                deltas[i] = weightRanges.delta(indices[i]);
             }
             new IntroSorter() {
 
@@ -740,7 +870,7 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
         private Map<String, ModelNode> buildModelFromAssigned() {
             Map<String, ModelNode> nodes = new HashMap<>();
             for (RoutingNode rn : routingNodes) {
-                ModelNode node = new ModelNode(rn);
+                ModelNode node = new ModelNode(rn, this::shardLoad);
                 nodes.put(rn.nodeId(), node);
                 for (ShardRouting shard : rn) {
                     assert rn.nodeId().equals(shard.currentNodeId());
@@ -1050,10 +1180,17 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
     static class ModelNode implements Iterable<ModelIndex> {
         private final Map<String, ModelIndex> indices = new HashMap<>();
         private int numShards = 0;
+        private double load = 0;
         private final RoutingNode routingNode;
+        private final ToDoubleFunction<String> shardLoad;
 
         ModelNode(RoutingNode routingNode) {
+            this(routingNode, index -> 0);
+        }
+
+        ModelNode(RoutingNode routingNode, ToDoubleFunction<String> shardLoad) {
             this.routingNode = routingNode;
+            this.shardLoad = shardLoad;
         }
 
         public ModelIndex getIndex(String indexId) {
@@ -1077,6 +1214,10 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             return index == null ? 0 : index.numShards();
         }
 
+        public double load() {
+            return load;
+        }
+
         public int highestPrimary(String index) {
             ModelIndex idx = indices.get(index);
             if (idx != null) {
@@ -1093,6 +1234,7 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             }
             index.addShard(shard);
             numShards++;
+            load += shardLoad.applyAsDouble(shard.getIndexName());
         }
 
         public void removeShard(ShardRouting shard) {
@@ -1104,6 +1246,7 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
                 }
             }
             numShards--;
+            load -= shardLoad.applyAsDouble(shard.getIndexName());
         }
 
         @Override
@@ -1177,6 +1320,107 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
         }
     }
 
+    /**
+     * Tracks the nodes ordered by the part of their weight that doesn't depend on an index, see
+     * {@link WeightFunction#nodeWeight}, and the nodes that hold shards of each index, so that the range of the weights of
+     * the nodes for an index can be calculated without calculating the weight of every node. The nodes that hold no shard
+     * of an index are ordered by their weight for that index like they are ordered by their node weight, so the range is
+     * spanned by the nodes that hold shards of the index and the first and last of the other nodes. Both structures are
+     * updated when a shard is moved on the model rather than being rebuilt for every index.
+     */
+    static final class WeightRanges {
+
+        private final ModelNode[] nodesByWeight;
+        private final float[] nodeWeights;
+        private final Map<ModelNode, Integer> positions;
+        private final Map<String, Set<ModelNode>> nodesByIndex = new HashMap<>();
+        private final WeightFunction function;
+        private final Balancer balancer;
+
+        WeightRanges(ModelNode[] modelNodes, WeightFunction function, Balancer balancer) {
+            this.function = function;
+            this.balancer = balancer;
+            this.nodesByWeight = modelNodes;
+            ArrayUtil.timSort(nodesByWeight, Comparator.comparingDouble(node -> function.nodeWeight(balancer, node)));
+            this.nodeWeights = new float[nodesByWeight.length];
+            this.positions = new IdentityHashMap<>(nodesByWeight.length);
+            for (int i = 0; i < nodesByWeight.length; i++) {
+                final ModelNode node = nodesByWeight[i];
+                nodeWeights[i] = function.nodeWeight(balancer, node);
+                positions.put(node, i);
+                for (ModelIndex index : node) {
+                    nodesByIndex.computeIfAbsent(index.getIndexId(), k -> new HashSet<>()).add(node);
+                }
+            }
+        }
+
+        /**
+         * Returns the delta between the maximum and the minimum weight of all nodes for the given index.
+         */
+        float delta(String index) {
+            float min = Float.POSITIVE_INFINITY;
+            float max = Float.NEGATIVE_INFINITY;
+            final Set<ModelNode> holders = nodesByIndex.getOrDefault(index, Collections.emptySet());
+            for (ModelNode node : holders) {
+                final float weight = function.weight(balancer, node, index);
+                min = Math.min(min, weight);
+                max = Math.max(max, weight);
+            }
+            if (holders.size() < nodesByWeight.length) {
+                for (int i = 0; i < nodesByWeight.length; i++) {
+                    if (holders.contains(nodesByWeight[i]) == false) {
+                        min = Math.min(min, function.weight(balancer, nodesByWeight[i], index));
+                        break;
+                    }
+                }
+                for (int i = nodesByWeight.length - 1; i >= 0; i--) {
+                    if (holders.contains(nodesByWeight[i]) == false) {
+                        max = Math.max(max, function.weight(balancer, nodesByWeight[i], index));
+                        break;
+                    }
+                }
+            }
+            return max - min;
+        }
+
+        /**
+         * Updates the structures after a shard of the given index was moved from one node to another on the model.
+         */
+        void shardMoved(ModelNode toNode, ModelNode fromNode, String index) {
+            nodesByIndex.computeIfAbsent(index, k -> new HashSet<>()).add(toNode);
+            if (fromNode.numShards(index) == 0) {
+                nodesByIndex.get(index).remove(fromNode);
+            }
+            update(toNode);
+            update(fromNode);
+        }
+
+        private void update(ModelNode node) {
+            int i = positions.get(node);
+            final float weight = function.nodeWeight(balancer, node);
+            nodeWeights[i] = weight;
+            while (i > 0 && nodeWeights[i - 1] > weight) {
+                swap(i - 1, i);
+                i--;
+            }
+            while (i < nodesByWeight.length - 1 && nodeWeights[i + 1] < weight) {
+                swap(i, i + 1);
+                i++;
+            }
+        }
+
+        private void swap(int i, int j) {
+            final ModelNode tmpNode = nodesByWeight[i];
+            nodesByWeight[i] = nodesByWeight[j];
+            nodesByWeight[j] = tmpNode;
+            final float tmpWeight = nodeWeights[i];
+            nodeWeights[i] = nodeWeights[j];
+            nodeWeights[j] = tmpWeight;
+            positions.put(nodesByWeight[i], i);
+            positions.put(nodesByWeight[j], j);
+        }
+    }
+
     static final class NodeSorter extends IntroSorter {
 
         final ModelNode[] modelNodes;
@@ -1214,6 +1458,26 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             return function.weight(balancer, node, index);
         }
 
+        /**
+         * Recalculates the weight of the node at the given position after shards were added to or removed from it and
+         * moves it to its place in the sorted range, shifting the nodes in between.
+         *
+         * @return the new position of the node
+         */
+        public int update(int i, int from, int to) {
+            final float weight = weight(modelNodes[i]);
+            weights[i] = weight;
+            while (i > from && weights[i - 1] > weight) {
+                swap(i - 1, i);
+                i--;
+            }
+            while (i < to - 1 && weights[i + 1] < weight) {
+                swap(i, i + 1);
+                i++;
+            }
+            return i;
+        }
+
         @Override
         protected void swap(int i, int j) {
             final ModelNode tmpNode = modelNodes[i];
@@ -1238,9 +1502,5 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
         protected int comparePivot(int j) {
             return Float.compare(pivotWeight, weights[j]);
         }
-
-        public float delta() {
-            return weights[weights.length - 1] - weights[0];
-        }
     }
 }
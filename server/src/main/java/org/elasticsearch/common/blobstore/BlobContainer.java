@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.NoSuchFileException;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -102,6 +103,56 @@ public interface BlobContainer {
         writeBlob(blobName, inputStream, blobSize, failIfAlreadyExists);
     }
 
+    /**
+     * Returns whether this container supports reading a range of a blob with {@link #readBlob(String, long, long)}.
+     */
+    default boolean supportsRangedReads() {
+        return false;
+    }
+
+    /**
+     * Creates a new {@link InputStream} that reads the given range of the blob with the given name. Ranges of the same
+     * blob may be read concurrently. Only supported if {@link #supportsRangedReads()} returns {@code true}.
+     *
+     * @param   blobName
+     *          The name of the blob to get an {@link InputStream} for.
+     * @param   position
+     *          The position in the blob to start reading at.
+     * @param   length
+     *          The number of bytes to read.
+     * @return  The {@code InputStream} to read the range of the blob.
+     * @throws  NoSuchFileException if the blob does not exist
+     * @throws  IOException if the blob can not be read.
+     */
+    default InputStream readBlob(String blobName, long position, long length) throws IOException {
+        throw new UnsupportedOperationException("ranged reads are not supported by [" + getClass().getSimpleName() + "]");
+    }
+
+    /**
+     * Returns whether this container supports writing a blob in parts with {@link #startMultipartWrite}.
+     */
+    default boolean supportsMultipartWrites() {
+        return false;
+    }
+
+    /**
+     * Starts writing a new blob with the given name whose parts are written with {@link MultipartBlobWriter#writePart},
+     * possibly concurrently. The blob only becomes visible once {@link MultipartBlobWriter#complete()} was called. Only
+     * supported if {@link #supportsMultipartWrites()} returns {@code true}.
+     *
+     * @param   blobName
+     *          The name of the blob to write.
+     * @param   blobSize
+     *          The size of the blob to be written, in bytes.
+     * @param   failIfAlreadyExists
+     *          whether to throw a FileAlreadyExistsException if the given blob already exists
+     * @return  The writer for the parts of the blob, which must be closed once the blob is completed or abandoned.
+     * @throws  IOException if the blob could not be created.
+     */
+    default MultipartBlobWriter startMultipartWrite(String blobName, long blobSize, boolean failIfAlreadyExists) throws IOException {
+        throw new UnsupportedOperationException("multipart writes are not supported by [" + getClass().getSimpleName() + "]");
+    }
+
     /**
      * Deletes a blob with giving name, if the blob exists. If the blob does not exist,
      * this method throws a NoSuchFileException.
@@ -128,6 +179,32 @@ public interface BlobContainer {
         }
     }
 
+    /**
+     * Deletes the blobs with the given names, ignoring blobs that do not exist. Deletion continues with the remaining
+     * blobs if a blob could not be deleted. Implementations may override this to delete the blobs with bulk requests.
+     *
+     * @param   blobNames
+     *          The names of the blobs to delete.
+     * @throws  IOException if any of the blobs exists but could not be deleted.
+     */
+    default void deleteBlobsIgnoringIfNotExists(List<String> blobNames) throws IOException {
+        IOException ioe = null;
+        for (String blobName : blobNames) {
+            try {
+                deleteBlobIgnoringIfNotExists(blobName);
+            } catch (IOException e) {
+                if (ioe == null) {
+                    ioe = e;
+                } else {
+                    ioe.addSuppressed(e);
+                }
+            }
+        }
+        if (ioe != null) {
+            throw ioe;
+        }
+    }
+
     /**
      * Lists all blobs in the container.
      *
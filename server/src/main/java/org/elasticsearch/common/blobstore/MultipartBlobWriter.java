@@ -0,0 +1,58 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.blobstore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Writes a blob in parts that may be written concurrently, see {@link BlobContainer#startMultipartWrite}.
+ */
+public interface MultipartBlobWriter extends Closeable {
+
+    /**
+     * Writes a part of the blob. Parts may be written in any order and concurrently, but must not overlap.
+     *
+     * @param   position
+     *          The position of the part in the blob.
+     * @param   inputStream
+     *          The input stream from which to retrieve the bytes of the part.
+     * @param   length
+     *          The length of the part, in bytes.
+     * @throws  IOException if the input stream could not be read, or the part could not be written.
+     */
+    void writePart(long position, InputStream inputStream, long length) throws IOException;
+
+    /**
+     * Makes the blob visible once all of its parts have been written.
+     *
+     * @throws  java.nio.file.FileAlreadyExistsException if the blob was started with {@code failIfAlreadyExists} and a
+     *          blob by the same name already exists
+     * @throws  IOException if the blob could not be completed.
+     */
+    void complete() throws IOException;
+
+    /**
+     * Releases the resources of this writer and discards the parts that were written if the blob was not completed.
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -22,16 +22,20 @@ package org.elasticsearch.common.blobstore.fs;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.blobstore.BlobMetaData;
 import org.elasticsearch.common.blobstore.BlobPath;
+import org.elasticsearch.common.blobstore.MultipartBlobWriter;
 import org.elasticsearch.common.blobstore.support.AbstractBlobContainer;
 import org.elasticsearch.common.blobstore.support.PlainBlobMetaData;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.core.internal.io.Streams;
 
 import java.io.BufferedInputStream;
+import java.io.EOFException;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileVisitResult;
@@ -123,6 +127,32 @@ public class FsBlobContainer extends AbstractBlobContainer {
         }
     }
 
+    @Override
+    public boolean supportsRangedReads() {
+        return true;
+    }
+
+    @Override
+    public InputStream readBlob(String name, long position, long length) throws IOException {
+        final FileChannel channel = FileChannel.open(path.resolve(name), StandardOpenOption.READ);
+        return new BufferedInputStream(new RangeInputStream(channel, position, length), blobStore.bufferSizeInBytes());
+    }
+
+    @Override
+    public boolean supportsMultipartWrites() {
+        return true;
+    }
+
+    @Override
+    public MultipartBlobWriter startMultipartWrite(String blobName, long blobSize, boolean failIfAlreadyExists) throws IOException {
+        if (failIfAlreadyExists && Files.exists(path.resolve(blobName))) {
+            throw new FileAlreadyExistsException("blob [" + path.resolve(blobName) + "] already exists, cannot overwrite");
+        }
+        final String tempBlob = tempBlobName(blobName);
+        final FileChannel channel = FileChannel.open(path.resolve(tempBlob), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        return new FsMultipartBlobWriter(blobName, tempBlob, channel, failIfAlreadyExists);
+    }
+
     @Override
     public void writeBlob(String blobName, InputStream inputStream, long blobSize, boolean failIfAlreadyExists) throws IOException {
         if (failIfAlreadyExists == false) {
@@ -187,4 +217,100 @@ public class FsBlobContainer extends AbstractBlobContainer {
     public static boolean isTempBlobName(final String blobName) {
         return blobName.startsWith(TEMP_FILE_PREFIX);
     }
+
+    /**
+     * Reads a range of a file with positional reads, so that several ranges of the same file can be read concurrently.
+     */
+    private static final class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private long remaining;
+
+        RangeInputStream(FileChannel channel, long position, long length) {
+            this.channel = channel;
+            this.position = position;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            final int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)), position);
+            if (read > 0) {
+                position += read;
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes the parts of a blob with positional writes into a temporary file that is atomically moved to the blob once
+     * all parts were written.
+     */
+    private final class FsMultipartBlobWriter implements MultipartBlobWriter {
+        private final String blobName;
+        private final String tempBlob;
+        private final FileChannel channel;
+        private final boolean failIfAlreadyExists;
+        private volatile boolean completed;
+
+        FsMultipartBlobWriter(String blobName, String tempBlob, FileChannel channel, boolean failIfAlreadyExists) {
+            this.blobName = blobName;
+            this.tempBlob = tempBlob;
+            this.channel = channel;
+            this.failIfAlreadyExists = failIfAlreadyExists;
+        }
+
+        @Override
+        public void writePart(long position, InputStream inputStream, long length) throws IOException {
+            final byte[] buffer = new byte[(int) Math.min(blobStore.bufferSizeInBytes(), Math.max(length, 1))];
+            long remaining = length;
+            long writePosition = position;
+            while (remaining > 0) {
+                final int read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read == -1) {
+                    throw new EOFException("part of blob [" + blobName + "] at [" + position + "] ended before [" + length + "] bytes");
+                }
+                final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+                while (byteBuffer.hasRemaining()) {
+                    writePosition += channel.write(byteBuffer, writePosition);
+                }
+                remaining -= read;
+            }
+        }
+
+        @Override
+        public void complete() throws IOException {
+            channel.force(true);
+            channel.close();
+            moveBlobAtomic(tempBlob, blobName, failIfAlreadyExists);
+            completed = true;
+            IOUtils.fsync(path, true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (completed == false) {
+                try {
+                    channel.close();
+                } finally {
+                    deleteBlobIgnoringIfNotExists(tempBlob);
+                }
+            }
+        }
+    }
 }
@@ -92,12 +92,23 @@ public class EsExecutors {
     public static EsThreadPoolExecutor newAutoQueueFixed(String name, int size, int initialQueueCapacity, int minQueueSize,
                                                          int maxQueueSize, int frameSize, TimeValue targetedResponseTime,
                                                          ThreadFactory threadFactory, ThreadContext contextHolder) {
+        return newAutoQueueFixed(name, size, initialQueueCapacity, minQueueSize, maxQueueSize, frameSize, targetedResponseTime,
+            threadFactory, contextHolder, ConcurrentCollections.newBlockingQueue());
+    }
+
+    /**
+     * Return a new executor that will automatically adjust the queue size based on queue throughput, with the given
+     * unbounded queue deciding the order in which queued tasks are executed.
+     */
+    public static EsThreadPoolExecutor newAutoQueueFixed(String name, int size, int initialQueueCapacity, int minQueueSize,
+                                                         int maxQueueSize, int frameSize, TimeValue targetedResponseTime,
+                                                         ThreadFactory threadFactory, ThreadContext contextHolder,
+                                                         BlockingQueue<Runnable> unboundedQueue) {
         if (initialQueueCapacity <= 0) {
             throw new IllegalArgumentException("initial queue capacity for [" + name + "] executor must be positive, got: " +
                             initialQueueCapacity);
         }
-        ResizableBlockingQueue<Runnable> queue =
-                new ResizableBlockingQueue<>(ConcurrentCollections.<Runnable>newBlockingQueue(), initialQueueCapacity);
+        ResizableBlockingQueue<Runnable> queue = new ResizableBlockingQueue<>(unboundedQueue, initialQueueCapacity);
         return new QueueResizingEsThreadPoolExecutor(name, size, size, 0, TimeUnit.MILLISECONDS,
                 queue, minQueueSize, maxQueueSize, TimedRunnable::new, frameSize, targetedResponseTime, threadFactory,
                 new EsAbortPolicy(), contextHolder);
@@ -23,7 +23,7 @@ package org.elasticsearch.common.util.concurrent;
  * A class used to wrap a {@code Runnable} that allows capturing the time of the task since creation
  * through execution as well as only execution time.
  */
-class TimedRunnable extends AbstractRunnable {
+class TimedRunnable extends AbstractRunnable implements WrappedRunnable {
     private final Runnable original;
     private final long creationTimeNanos;
     private long startTimeNanos;
@@ -94,4 +94,9 @@ class TimedRunnable extends AbstractRunnable {
         return Math.max(finishTimeNanos - startTimeNanos, 1);
     }
 
+    @Override
+    public Runnable unwrap() {
+        return original;
+    }
+
 }
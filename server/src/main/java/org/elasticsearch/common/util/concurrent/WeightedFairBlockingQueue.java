@@ -0,0 +1,283 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * An unbounded blocking queue that splits its elements into classes and hands them out with weighted fair queuing: while
+ * several classes have elements waiting, each class gets a share of the dequeues that is proportional to its weight,
+ * interleaved as evenly as possible (smooth weighted round-robin). Elements within a class are handed out in FIFO order.
+ * The class of an element is determined by a classifier that is called with the element when it is added, so tasks should
+ * carry their class rather than have it derived from the thread that happens to add them.
+ */
+public final class WeightedFairBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    private final int[] weights;
+    private final ToIntFunction<? super E> classifier;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    // guarded by lock
+    private final ArrayDeque<E>[] queues;
+    private final int[] currentWeights;
+    private int size;
+
+    /**
+     * @param weights    the weight of every class, the class of an element is its index in this array
+     * @param classifier returns the class of an element
+     */
+    @SuppressWarnings("unchecked")
+    public WeightedFairBlockingQueue(int[] weights, ToIntFunction<? super E> classifier) {
+        if (weights.length == 0) {
+            throw new IllegalArgumentException("at least one class is required");
+        }
+        for (int weight : weights) {
+            if (weight <= 0) {
+                throw new IllegalArgumentException("weights must be positive but got [" + weight + "]");
+            }
+        }
+        this.weights = weights.clone();
+        this.classifier = classifier;
+        this.queues = new ArrayDeque[weights.length];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ArrayDeque<>();
+        }
+        this.currentWeights = new int[weights.length];
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        final int clazz = classifier.applyAsInt(e);
+        assert clazz >= 0 && clazz < queues.length : "unknown class [" + clazz + "]";
+        lock.lock();
+        try {
+            queues[clazz].add(e);
+            size++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) {
+        return offer(e);
+    }
+
+    @Override
+    public void put(E e) {
+        offer(e);
+    }
+
+    @Override
+    public E poll() {
+        lock.lock();
+        try {
+            return size == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Picks the class to dequeue from with smooth weighted round-robin over the classes that have elements waiting.
+     */
+    private E dequeue() {
+        assert lock.isHeldByCurrentThread();
+        assert size > 0;
+        int selected = -1;
+        int totalWeight = 0;
+        for (int i = 0; i < queues.length; i++) {
+            if (queues[i].isEmpty()) {
+                // classes without waiting elements don't accumulate credit
+                currentWeights[i] = 0;
+                continue;
+            }
+            currentWeights[i] += weights[i];
+            totalWeight += weights[i];
+            if (selected == -1 || currentWeights[i] > currentWeights[selected]) {
+                selected = i;
+            }
+        }
+        currentWeights[selected] -= totalWeight;
+        size--;
+        return queues[selected].poll();
+    }
+
+    @Override
+    public E peek() {
+        lock.lock();
+        try {
+            for (ArrayDeque<E> queue : queues) {
+                if (queue.isEmpty() == false) {
+                    return queue.peek();
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        lock.lock();
+        try {
+            for (ArrayDeque<E> queue : queues) {
+                if (queue.remove(o)) {
+                    size--;
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of elements waiting in the given class.
+     */
+    public int size(int clazz) {
+        lock.lock();
+        try {
+            return queues[clazz].size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        lock.lock();
+        try {
+            int drained = 0;
+            while (size > 0 && drained < maxElements) {
+                c.add(dequeue());
+                drained++;
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements in this queue.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        final List<E> snapshot;
+        lock.lock();
+        try {
+            snapshot = new ArrayList<>(size);
+            for (ArrayDeque<E> queue : queues) {
+                snapshot.addAll(queue);
+            }
+        } finally {
+            lock.unlock();
+        }
+        final Iterator<E> it = snapshot.iterator();
+        return new Iterator<E>() {
+            E current;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public E next() {
+                current = it.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                WeightedFairBlockingQueue.this.remove(current);
+            }
+        };
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.gateway;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.FailedNodeException;
+import org.elasticsearch.action.support.nodes.BaseNodeResponse;
+import org.elasticsearch.action.support.nodes.BaseNodesResponse;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.CheckedFunction;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.transport.TransportRequest;
+import org.elasticsearch.transport.TransportResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+
+/**
+ * A {@link AsyncShardFetch.Lister} that batches the fetches of many shards per node. Instead of sending a request to every
+ * node for every shard, the fetches are queued per node and sent as a single request for up to {@code batchSize} shards
+ * once the queue of a node is full or {@link #flush()} is called. The response of a node is passed to the listeners of
+ * its shards as soon as it arrives, independently of the responses of the other nodes, so that shards can be allocated
+ * while other nodes are still being fetched from. Nodes that do not support batched fetches are fetched from shard by
+ * shard.
+ */
+public class BatchedShardLister<NodesResponse extends BaseNodesResponse<NodeResponse>, NodeResponse extends BaseNodeResponse>
+    implements AsyncShardFetch.Lister<NodesResponse, NodeResponse> {
+
+    /**
+     * An action that lists the data of several shards on a single node.
+     */
+    public interface NodeLister<NodeResponse extends BaseNodeResponse> {
+        void listOnNode(DiscoveryNode node, List<ShardId> shardIds, ActionListener<ShardsResponse<NodeResponse>> listener);
+    }
+
+    private final AsyncShardFetch.Lister<NodesResponse, NodeResponse> shardLister;
+    private final NodeLister<NodeResponse> nodeLister;
+    private final BiFunction<List<NodeResponse>, List<FailedNodeException>, NodesResponse> responseFactory;
+    private final int batchSize;
+    private final Map<DiscoveryNode, List<PendingFetch<NodesResponse>>> pendingFetches = new HashMap<>();
+
+    public BatchedShardLister(AsyncShardFetch.Lister<NodesResponse, NodeResponse> shardLister, NodeLister<NodeResponse> nodeLister,
+                              BiFunction<List<NodeResponse>, List<FailedNodeException>, NodesResponse> responseFactory,
+                              int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batch size must be at least 1 but was [" + batchSize + "]");
+        }
+        this.shardLister = shardLister;
+        this.nodeLister = nodeLister;
+        this.responseFactory = responseFactory;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void list(ShardId shardId, DiscoveryNode[] nodes, ActionListener<NodesResponse> listener) {
+        final List<DiscoveryNode> shardByShardNodes = new ArrayList<>();
+        final List<Tuple<DiscoveryNode, List<PendingFetch<NodesResponse>>>> fullBatches = new ArrayList<>();
+        synchronized (this) {
+            for (DiscoveryNode node : nodes) {
+                if (node.getVersion().onOrAfter(Version.V_6_5_0)) {
+                    final List<PendingFetch<NodesResponse>> fetches = pendingFetches.computeIfAbsent(node, n -> new ArrayList<>());
+                    fetches.add(new PendingFetch<>(shardId, listener));
+                    if (fetches.size() >= batchSize) {
+                        fullBatches.add(Tuple.tuple(node, pendingFetches.remove(node)));
+                    }
+                } else {
+                    shardByShardNodes.add(node);
+                }
+            }
+        }
+        if (shardByShardNodes.isEmpty() == false) {
+            shardLister.list(shardId, shardByShardNodes.toArray(new DiscoveryNode[0]), listener);
+        }
+        for (Tuple<DiscoveryNode, List<PendingFetch<NodesResponse>>> batch : fullBatches) {
+            sendBatch(batch.v1(), batch.v2());
+        }
+    }
+
+    /**
+     * Sends the fetches that are queued for all nodes.
+     */
+    public void flush() {
+        final Map<DiscoveryNode, List<PendingFetch<NodesResponse>>> batches;
+        synchronized (this) {
+            if (pendingFetches.isEmpty()) {
+                return;
+            }
+            batches = new HashMap<>(pendingFetches);
+            pendingFetches.clear();
+        }
+        for (Map.Entry<DiscoveryNode, List<PendingFetch<NodesResponse>>> batch : batches.entrySet()) {
+            sendBatch(batch.getKey(), batch.getValue());
+        }
+    }
+
+    /**
+     * Returns the number of fetches that are queued and not yet sent.
+     */
+    public synchronized int getNumberOfPendingFetches() {
+        int count = 0;
+        for (List<PendingFetch<NodesResponse>> fetches : pendingFetches.values()) {
+            count += fetches.size();
+        }
+        return count;
+    }
+
+    private void sendBatch(DiscoveryNode node, List<PendingFetch<NodesResponse>> fetches) {
+        final List<ShardId> shardIds = new ArrayList<>(fetches.size());
+        for (PendingFetch<NodesResponse> fetch : fetches) {
+            shardIds.add(fetch.shardId);
+        }
+        nodeLister.listOnNode(node, shardIds, new ActionListener<ShardsResponse<NodeResponse>>() {
+            @Override
+            public void onResponse(ShardsResponse<NodeResponse> response) {
+                for (PendingFetch<NodesResponse> fetch : fetches) {
+                    final NodeResponse shardResponse = response.getResponses().get(fetch.shardId);
+                    if (shardResponse != null) {
+                        fetch.listener.onResponse(
+                            responseFactory.apply(Collections.singletonList(shardResponse), Collections.emptyList()));
+                    } else {
+                        final Exception failure = response.getFailures().get(fetch.shardId);
+                        fetch.listener.onResponse(responseFactory.apply(Collections.emptyList(), Collections.singletonList(
+                            new FailedNodeException(node.getId(), "Failed node [" + node.getId() + "]", failure))));
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                for (PendingFetch<NodesResponse> fetch : fetches) {
+                    fetch.listener.onResponse(responseFactory.apply(Collections.emptyList(), Collections.singletonList(
+                        new FailedNodeException(node.getId(), "total failure in fetching", e))));
+                }
+            }
+        });
+    }
+
+    /**
+     * Lists the data of the given shards on the local node for a {@link ShardsRequest}. Every shard is listed in its own task
+     * on the given executor, so that the shards of a batch are listed in parallel up to the size of the executor rather than
+     * one after the other on a single thread. The listener is notified once all shards are listed.
+     */
+    public static <NodeResponse extends BaseNodeResponse> void listShards(List<ShardId> shardIds, Executor executor,
+                                                                          CheckedFunction<ShardId, NodeResponse, Exception> shardLister,
+                                                                          Writeable.Writer<NodeResponse> responseWriter,
+                                                                          ActionListener<ShardsResponse<NodeResponse>> listener) {
+        final Map<ShardId, NodeResponse> responses = ConcurrentCollections.newConcurrentMap();
+        final Map<ShardId, Exception> failures = ConcurrentCollections.newConcurrentMap();
+        if (shardIds.isEmpty()) {
+            listener.onResponse(new ShardsResponse<>(responses, failures, responseWriter));
+            return;
+        }
+        final CountDown countDown = new CountDown(shardIds.size());
+        for (ShardId shardId : shardIds) {
+            executor.execute(new AbstractRunnable() {
+                @Override
+                protected void doRun() throws Exception {
+                    responses.put(shardId, shardLister.apply(shardId));
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    failures.put(shardId, e);
+                }
+
+                @Override
+                public void onAfter() {
+                    if (countDown.countDown()) {
+                        listener.onResponse(new ShardsResponse<>(responses, failures, responseWriter));
+                    }
+                }
+            });
+        }
+    }
+
+    private static final class PendingFetch<NodesResponse> {
+        private final ShardId shardId;
+        private final ActionListener<NodesResponse> listener;
+
+        PendingFetch(ShardId shardId, ActionListener<NodesResponse> listener) {
+            this.shardId = shardId;
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * The request to list the data of several shards on a single node.
+     */
+    public static class ShardsRequest extends TransportRequest {
+
+        private List<ShardId> shardIds;
+
+        public ShardsRequest() {
+        }
+
+        public ShardsRequest(List<ShardId> shardIds) {
+            this.shardIds = shardIds;
+        }
+
+        public List<ShardId> getShardIds() {
+            return shardIds;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            super.readFrom(in);
+            shardIds = in.readList(ShardId::readShardId);
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeList(shardIds);
+        }
+    }
+
+    /**
+     * The data of several shards on a single node, and the failures of the shards whose data could not be listed.
+     */
+    public static class ShardsResponse<NodeResponse extends BaseNodeResponse> extends TransportResponse {
+
+        private final Map<ShardId, NodeResponse> responses;
+        private final Map<ShardId, Exception> failures;
+        private final Writeable.Writer<NodeResponse> responseWriter;
+
+        public ShardsResponse(Map<ShardId, NodeResponse> responses, Map<ShardId, Exception> failures,
+                              Writeable.Writer<NodeResponse> responseWriter) {
+            this.responses = responses;
+            this.failures = failures;
+            this.responseWriter = responseWriter;
+        }
+
+        public ShardsResponse(StreamInput in, Writeable.Reader<NodeResponse> responseReader) throws IOException {
+            this.responses = in.readMap(ShardId::readShardId, responseReader);
+            this.failures = in.readMap(ShardId::readShardId, StreamInput::readException);
+            this.responseWriter = null;
+        }
+
+        public Map<ShardId, NodeResponse> getResponses() {
+            return responses;
+        }
+
+        public Map<ShardId, Exception> getFailures() {
+            return failures;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) {
+            throw new UnsupportedOperationException("usage of Streamable is to be replaced by Writeable");
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            assert responseWriter != null : "only responses that were created locally can be written";
+            out.writeMap(responses, (o, shardId) -> shardId.writeTo(o), responseWriter);
+            out.writeMap(failures, (o, shardId) -> shardId.writeTo(o), StreamOutput::writeException);
+        }
+    }
+}
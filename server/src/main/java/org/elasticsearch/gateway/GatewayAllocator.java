@@ -33,6 +33,8 @@ import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.shard.ShardId;
@@ -43,8 +45,19 @@ import java.util.concurrent.ConcurrentMap;
 
 public class GatewayAllocator extends AbstractComponent {
 
+    /**
+     * The maximum number of shards whose data is fetched from a node with a single request.
+     */
+    public static final Setting<Integer> FETCH_SHARD_BATCH_SIZE_SETTING =
+        Setting.intSetting("gateway.fetch_shard_batch_size", 100, 1, Property.NodeScope);
+
     private final RoutingService routingService;
 
+    private final BatchedShardLister<TransportNodesListGatewayStartedShards.NodesGatewayStartedShards,
+        TransportNodesListGatewayStartedShards.NodeGatewayStartedShards> startedLister;
+    private final BatchedShardLister<TransportNodesListShardStoreMetaData.NodesStoreFilesMetaData,
+        TransportNodesListShardStoreMetaData.NodeStoreFilesMetaData> storeLister;
+
     private final PrimaryShardAllocator primaryShardAllocator;
     private final ReplicaShardAllocator replicaShardAllocator;
 
@@ -56,8 +69,15 @@ public class GatewayAllocator extends AbstractComponent {
                             TransportNodesListGatewayStartedShards startedAction, TransportNodesListShardStoreMetaData storeAction) {
         super(settings);
         this.routingService = routingService;
-        this.primaryShardAllocator = new InternalPrimaryShardAllocator(settings, startedAction);
-        this.replicaShardAllocator = new InternalReplicaShardAllocator(settings, storeAction);
+        final int batchSize = FETCH_SHARD_BATCH_SIZE_SETTING.get(settings);
+        this.startedLister = new BatchedShardLister<>(startedAction, startedAction,
+            (responses, failures) -> new TransportNodesListGatewayStartedShards.NodesGatewayStartedShards(
+                clusterService.getClusterName(), responses, failures), batchSize);
+        this.storeLister = new BatchedShardLister<>(storeAction, storeAction,
+            (responses, failures) -> new TransportNodesListShardStoreMetaData.NodesStoreFilesMetaData(
+                clusterService.getClusterName(), responses, failures), batchSize);
+        this.primaryShardAllocator = new InternalPrimaryShardAllocator(settings, startedLister);
+        this.replicaShardAllocator = new InternalReplicaShardAllocator(settings, storeLister);
         clusterService.addStateApplier(event -> {
             boolean cleanCache = false;
             DiscoveryNode localNode = event.state().nodes().getLocalNode();
@@ -81,6 +101,8 @@ public class GatewayAllocator extends AbstractComponent {
     protected GatewayAllocator(Settings settings) {
         super(settings);
         this.routingService = null;
+        this.startedLister = null;
+        this.storeLister = null;
         this.primaryShardAllocator = null;
         this.replicaShardAllocator = null;
     }
@@ -111,7 +133,19 @@ public class GatewayAllocator extends AbstractComponent {
     }
 
     public void allocateUnassigned(final RoutingAllocation allocation) {
-        innerAllocatedUnassigned(allocation, primaryShardAllocator, replicaShardAllocator);
+        try {
+            innerAllocatedUnassigned(allocation, primaryShardAllocator, replicaShardAllocator);
+        } finally {
+            flushFetches();
+        }
+    }
+
+    /**
+     * Sends the fetches of shard data that were queued while allocating, batched per node.
+     */
+    private void flushFetches() {
+        startedLister.flush();
+        storeLister.flush();
     }
 
     // allow for testing infra to change shard allocators implementation
@@ -131,10 +165,14 @@ public class GatewayAllocator extends AbstractComponent {
      * {@link AllocateUnassignedDecision#NOT_TAKEN} is returned.
      */
     public AllocateUnassignedDecision decideUnassignedShardAllocation(ShardRouting unassignedShard, RoutingAllocation routingAllocation) {
-        if (unassignedShard.primary()) {
-            return primaryShardAllocator.makeAllocationDecision(unassignedShard, routingAllocation, logger);
-        } else {
-            return replicaShardAllocator.makeAllocationDecision(unassignedShard, routingAllocation, logger);
+        try {
+            if (unassignedShard.primary()) {
+                return primaryShardAllocator.makeAllocationDecision(unassignedShard, routingAllocation, logger);
+            } else {
+                return replicaShardAllocator.makeAllocationDecision(unassignedShard, routingAllocation, logger);
+            }
+        } finally {
+            flushFetches();
         }
     }
 
@@ -153,9 +191,12 @@ public class GatewayAllocator extends AbstractComponent {
 
     class InternalPrimaryShardAllocator extends PrimaryShardAllocator {
 
-        private final TransportNodesListGatewayStartedShards startedAction;
+        private final AsyncShardFetch.Lister<TransportNodesListGatewayStartedShards.NodesGatewayStartedShards,
+            TransportNodesListGatewayStartedShards.NodeGatewayStartedShards> startedAction;
 
-        InternalPrimaryShardAllocator(Settings settings, TransportNodesListGatewayStartedShards startedAction) {
+        InternalPrimaryShardAllocator(Settings settings,
+                                      AsyncShardFetch.Lister<TransportNodesListGatewayStartedShards.NodesGatewayStartedShards,
+                                          TransportNodesListGatewayStartedShards.NodeGatewayStartedShards> startedAction) {
             super(settings);
             this.startedAction = startedAction;
         }
@@ -176,9 +217,12 @@ public class GatewayAllocator extends AbstractComponent {
 
     class InternalReplicaShardAllocator extends ReplicaShardAllocator {
 
-        private final TransportNodesListShardStoreMetaData storeAction;
+        private final AsyncShardFetch.Lister<TransportNodesListShardStoreMetaData.NodesStoreFilesMetaData,
+            TransportNodesListShardStoreMetaData.NodeStoreFilesMetaData> storeAction;
 
-        InternalReplicaShardAllocator(Settings settings, TransportNodesListShardStoreMetaData storeAction) {
+        InternalReplicaShardAllocator(Settings settings,
+                                      AsyncShardFetch.Lister<TransportNodesListShardStoreMetaData.NodesStoreFilesMetaData,
+                                          TransportNodesListShardStoreMetaData.NodeStoreFilesMetaData> storeAction) {
             super(settings);
             this.storeAction = storeAction;
         }
@@ -25,6 +25,7 @@ import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.FailedNodeException;
 import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.HandledTransportAction;
 import org.elasticsearch.action.support.nodes.BaseNodeRequest;
 import org.elasticsearch.action.support.nodes.BaseNodeResponse;
 import org.elasticsearch.action.support.nodes.BaseNodesRequest;
@@ -48,6 +49,9 @@ import org.elasticsearch.index.shard.ShardStateMetaData;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportException;
+import org.elasticsearch.transport.TransportRequestOptions;
+import org.elasticsearch.transport.TransportResponseHandler;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
@@ -65,9 +69,11 @@ public class TransportNodesListGatewayStartedShards extends
         TransportNodesListGatewayStartedShards.NodeGatewayStartedShards>
     implements
     AsyncShardFetch.Lister<TransportNodesListGatewayStartedShards.NodesGatewayStartedShards,
-        TransportNodesListGatewayStartedShards.NodeGatewayStartedShards> {
+        TransportNodesListGatewayStartedShards.NodeGatewayStartedShards>,
+    BatchedShardLister.NodeLister<TransportNodesListGatewayStartedShards.NodeGatewayStartedShards> {
 
     public static final String ACTION_NAME = "internal:gateway/local/started_shards";
+    public static final String BATCH_ACTION_NAME = ACTION_NAME + "[batch]";
     private final NodeEnvironment nodeEnv;
     private final IndicesService indicesService;
     private final NamedXContentRegistry namedXContentRegistry;
@@ -85,6 +91,10 @@ public class TransportNodesListGatewayStartedShards extends
         this.nodeEnv = env;
         this.indicesService = indicesService;
         this.namedXContentRegistry = namedXContentRegistry;
+        // the shards of a batch are listed on the fetch shard started thread pool, see nodeBatchOperation
+        transportService.registerRequestHandler(BATCH_ACTION_NAME, BatchedShardLister.ShardsRequest::new, ThreadPool.Names.SAME,
+            (request, channel) -> nodeBatchOperation(request,
+                new HandledTransportAction.ChannelActionListener<>(channel, BATCH_ACTION_NAME, request)));
     }
 
     @Override
@@ -93,6 +103,41 @@ public class TransportNodesListGatewayStartedShards extends
         execute(new Request(shardId, nodes), listener);
     }
 
+    @Override
+    public void listOnNode(DiscoveryNode node, List<ShardId> shardIds,
+                           ActionListener<BatchedShardLister.ShardsResponse<NodeGatewayStartedShards>> listener) {
+        transportService.sendRequest(node, BATCH_ACTION_NAME, new BatchedShardLister.ShardsRequest(shardIds),
+            TransportRequestOptions.builder().withCompress(true).build(),
+            new TransportResponseHandler<BatchedShardLister.ShardsResponse<NodeGatewayStartedShards>>() {
+                @Override
+                public BatchedShardLister.ShardsResponse<NodeGatewayStartedShards> read(StreamInput in) throws IOException {
+                    return new BatchedShardLister.ShardsResponse<>(in, i -> NodeGatewayStartedShards.readShardState(node, i));
+                }
+
+                @Override
+                public void handleResponse(BatchedShardLister.ShardsResponse<NodeGatewayStartedShards> response) {
+                    listener.onResponse(response);
+                }
+
+                @Override
+                public void handleException(TransportException exp) {
+                    listener.onFailure(exp);
+                }
+
+                @Override
+                public String executor() {
+                    return ThreadPool.Names.SAME;
+                }
+            });
+    }
+
+    private void nodeBatchOperation(BatchedShardLister.ShardsRequest request,
+                                    ActionListener<BatchedShardLister.ShardsResponse<NodeGatewayStartedShards>> listener) {
+        // the node is the same for all shards and is not written for every shard
+        BatchedShardLister.listShards(request.getShardIds(), threadPool.executor(ThreadPool.Names.FETCH_SHARD_STARTED),
+            this::loadStartedShard, (out, response) -> response.writeShardState(out), listener);
+    }
+
     @Override
     protected boolean transportCompress() {
         return true; // this can become big...
@@ -116,11 +161,14 @@ public class TransportNodesListGatewayStartedShards extends
 
     @Override
     protected NodeGatewayStartedShards nodeOperation(NodeRequest request) {
+        return loadStartedShard(request.getShardId());
+    }
+
+    private NodeGatewayStartedShards loadStartedShard(ShardId shardId) {
         try {
-            final ShardId shardId = request.getShardId();
             logger.trace("{} loading local shard state info", shardId);
             ShardStateMetaData shardStateMetaData = ShardStateMetaData.FORMAT.loadLatestState(logger, namedXContentRegistry,
-                nodeEnv.availableShardPaths(request.shardId));
+                nodeEnv.availableShardPaths(shardId));
             if (shardStateMetaData != null) {
                 IndexMetaData metaData = clusterService.state().metaData().index(shardId.getIndex());
                 if (metaData == null) {
@@ -132,7 +180,7 @@ public class TransportNodesListGatewayStartedShards extends
                 }
                 if (metaData == null) {
                     ElasticsearchException e = new ElasticsearchException("failed to find local IndexMetaData");
-                    e.setShard(request.shardId);
+                    e.setShard(shardId);
                     throw e;
                 }
 
@@ -283,6 +331,31 @@ public class TransportNodesListGatewayStartedShards extends
             return this.storeException;
         }
 
+        /**
+         * Reads the state of a shard that was written with {@link #writeShardState(StreamOutput)} by the given node.
+         */
+        static NodeGatewayStartedShards readShardState(DiscoveryNode node, StreamInput in) throws IOException {
+            final String allocationId = in.readOptionalString();
+            final boolean primary = in.readBoolean();
+            final Exception storeException = in.readBoolean() ? in.readException() : null;
+            return new NodeGatewayStartedShards(node, allocationId, primary, storeException);
+        }
+
+        /**
+         * Writes the state of the shard without the node, for the responses of batched fetches which hold the states of
+         * many shards of the same node.
+         */
+        void writeShardState(StreamOutput out) throws IOException {
+            out.writeOptionalString(allocationId);
+            out.writeBoolean(primary);
+            if (storeException != null) {
+                out.writeBoolean(true);
+                out.writeException(storeException);
+            } else {
+                out.writeBoolean(false);
+            }
+        }
+
         @Override
         public void readFrom(StreamInput in) throws IOException {
             super.readFrom(in);
@@ -116,6 +116,7 @@ public final class IndexModule {
     private final SetOnce<BiFunction<IndexSettings, IndicesQueryCache, QueryCache>> forceQueryCacheProvider = new SetOnce<>();
     private final List<SearchOperationListener> searchOperationListeners = new ArrayList<>();
     private final List<IndexingOperationListener> indexOperationListeners = new ArrayList<>();
+    private final List<IndexWarmer.Listener> indexWarmerListeners = new ArrayList<>();
     private final AtomicBoolean frozen = new AtomicBoolean(false);
 
     /**
@@ -254,6 +255,24 @@ public final class IndexModule {
         this.indexOperationListeners.add(listener);
     }
 
+    /**
+     * Adds an {@link IndexWarmer.Listener} for this index. The listener is called to warm up the segments of every searcher
+     * that is opened after a refresh, before the searcher is exposed to searches. All listeners added here
+     * are maintained for the entire index lifecycle on this node. Once an index is closed or deleted these
+     * listeners go out of scope.
+     */
+    public void addIndexWarmerListener(IndexWarmer.Listener listener) {
+        ensureNotFrozen();
+        if (listener == null) {
+            throw new IllegalArgumentException("listener must not be null");
+        }
+        if (indexWarmerListeners.contains(listener)) {
+            throw new IllegalArgumentException("listener already added");
+        }
+
+        this.indexWarmerListeners.add(listener);
+    }
+
     /**
      * Registers the given {@link Similarity} with the given name.
      * The function takes as parameters:<ul>
@@ -398,7 +417,7 @@ public final class IndexModule {
                 new SimilarityService(indexSettings, scriptService, similarities),
                 shardStoreDeleter, analysisRegistry, engineFactory, circuitBreakerService, bigArrays, threadPool, scriptService,
                 client, queryCache, store, eventListener, searcherWrapperFactory, mapperRegistry,
-                indicesFieldDataCache, searchOperationListeners, indexOperationListeners, namedWriteableRegistry);
+                indicesFieldDataCache, searchOperationListeners, indexOperationListeners, indexWarmerListeners, namedWriteableRegistry);
     }
 
     private static IndexStore getIndexStore(
@@ -79,6 +79,7 @@ import org.elasticsearch.threadpool.ThreadPool;
 import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -155,6 +156,7 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
             IndicesFieldDataCache indicesFieldDataCache,
             List<SearchOperationListener> searchOperationListeners,
             List<IndexingOperationListener> indexingOperationListeners,
+            List<IndexWarmer.Listener> indexWarmerListeners,
             NamedWriteableRegistry namedWriteableRegistry) throws IOException {
         super(indexSettings);
         this.indexSettings = indexSettings;
@@ -187,8 +189,11 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
         this.indexStore = indexStore;
         indexFieldData.setListener(new FieldDataCacheListener(this));
         this.bitsetFilterCache = new BitsetFilterCache(indexSettings, new BitsetCacheListener(this));
+        final List<IndexWarmer.Listener> warmerListeners = new ArrayList<>();
+        warmerListeners.add(bitsetFilterCache.createListener(threadPool));
+        warmerListeners.addAll(indexWarmerListeners);
         this.warmer = new IndexWarmer(indexSettings.getSettings(), threadPool, indexFieldData,
-            bitsetFilterCache.createListener(threadPool));
+            warmerListeners.toArray(new IndexWarmer.Listener[0]));
         this.indexCache = new IndexCache(indexSettings, queryCache, bitsetFilterCache);
         this.engineFactory = Objects.requireNonNull(engineFactory);
         // initialize this last -- otherwise if the wrapper requires any other member to be non-null we fail with an NPE
@@ -247,6 +252,10 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
         return indexCache;
     }
 
+    public CircuitBreakerService getCircuitBreakerService() {
+        return circuitBreakerService;
+    }
+
     public IndexAnalyzers getIndexAnalyzers() {
         return this.mapperService.getIndexAnalyzers();
     }
@@ -82,6 +82,12 @@ public final class IndexSettings {
             (value) -> Translog.Durability.valueOf(value.toUpperCase(Locale.ROOT)), Property.Dynamic, Property.IndexScope);
     public static final Setting<Boolean> INDEX_WARMER_ENABLED_SETTING =
         Setting.boolSetting("index.warmer.enabled", true, Property.Dynamic, Property.IndexScope);
+    /**
+     * If enabled, eager global ordinals are built on the warmer thread pool without blocking the refresh that triggered the
+     * warm-up. Searches that need global ordinals before the build completes wait for the in-flight build instead.
+     */
+    public static final Setting<Boolean> INDEX_WARMER_ASYNC_GLOBAL_ORDINALS_SETTING =
+        Setting.boolSetting("index.warmer.global_ordinals.async", false, Property.Dynamic, Property.IndexScope);
     @Deprecated
     public static final Setting<Boolean> INDEX_TTL_DISABLE_PURGE_SETTING =
         Setting.boolSetting("index.ttl.disable_purge", false, Property.Dynamic, Property.IndexScope, Property.Deprecated);
@@ -334,6 +340,7 @@ public final class IndexSettings {
     private final boolean softDeleteEnabled;
     private volatile long softDeleteRetentionOperations;
     private volatile boolean warmerEnabled;
+    private volatile boolean asyncGlobalOrdinalsWarmup;
     private volatile int maxResultWindow;
     private volatile int maxInnerResultWindow;
     private volatile int maxAdjacencyMatrixFilters;
@@ -452,6 +459,7 @@ public final class IndexSettings {
         softDeleteEnabled = version.onOrAfter(Version.V_6_5_0) && scopedSettings.get(INDEX_SOFT_DELETES_SETTING);
         softDeleteRetentionOperations = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_OPERATIONS_SETTING);
         warmerEnabled = scopedSettings.get(INDEX_WARMER_ENABLED_SETTING);
+        asyncGlobalOrdinalsWarmup = scopedSettings.get(INDEX_WARMER_ASYNC_GLOBAL_ORDINALS_SETTING);
         maxResultWindow = scopedSettings.get(MAX_RESULT_WINDOW_SETTING);
         maxInnerResultWindow = scopedSettings.get(MAX_INNER_RESULT_WINDOW_SETTING);
         maxAdjacencyMatrixFilters = scopedSettings.get(MAX_ADJACENCY_MATRIX_FILTERS_SETTING);
@@ -496,6 +504,7 @@ public final class IndexSettings {
         scopedSettings.addSettingsUpdateConsumer(MAX_NGRAM_DIFF_SETTING, this::setMaxNgramDiff);
         scopedSettings.addSettingsUpdateConsumer(MAX_SHINGLE_DIFF_SETTING, this::setMaxShingleDiff);
         scopedSettings.addSettingsUpdateConsumer(INDEX_WARMER_ENABLED_SETTING, this::setEnableWarmer);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_WARMER_ASYNC_GLOBAL_ORDINALS_SETTING, this::setAsyncGlobalOrdinalsWarmup);
         scopedSettings.addSettingsUpdateConsumer(INDEX_GC_DELETES_SETTING, this::setGCDeletes);
         scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING, this::setTranslogFlushThresholdSize);
         scopedSettings.addSettingsUpdateConsumer(
@@ -677,6 +686,17 @@ public final class IndexSettings {
         this.warmerEnabled = enableWarmer;
     }
 
+    /**
+     * Returns <code>true</code> if eager global ordinals should be built without blocking the refresh.
+     */
+    public boolean isAsyncGlobalOrdinalsWarmup() {
+        return asyncGlobalOrdinalsWarmup;
+    }
+
+    private void setAsyncGlobalOrdinalsWarmup(boolean asyncGlobalOrdinalsWarmup) {
+        this.asyncGlobalOrdinalsWarmup = asyncGlobalOrdinalsWarmup;
+    }
+
     /**
      * Returns the translog sync interval. This is the interval in which the transaction log is asynchronously fsynced unless
      * the transaction log is fsyncing on every operations
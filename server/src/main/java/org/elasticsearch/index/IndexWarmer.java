@@ -33,6 +33,7 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -41,6 +42,7 @@ import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public final class IndexWarmer extends AbstractComponent {
 
@@ -127,13 +129,18 @@ public final class IndexWarmer extends AbstractComponent {
                 }
                 warmUpGlobalOrdinals.put(indexName, fieldType);
             }
+            final DirectoryReader reader = searcher.getDirectoryReader();
+            final boolean async = indexShard.indexSettings().isAsyncGlobalOrdinalsWarmup();
+            if (async && (warmUpGlobalOrdinals.isEmpty() || reader.tryIncRef() == false)) {
+                return TerminationHandle.NO_WAIT;
+            }
             final CountDownLatch latch = new CountDownLatch(warmUpGlobalOrdinals.size());
+            final AtomicInteger pendingAsyncBuilds = new AtomicInteger(warmUpGlobalOrdinals.size());
             for (final MappedFieldType fieldType : warmUpGlobalOrdinals.values()) {
                 executor.execute(() -> {
                     try {
                         final long start = System.nanoTime();
                         IndexFieldData.Global ifd = indexFieldDataService.getForField(fieldType);
-                        DirectoryReader reader = searcher.getDirectoryReader();
                         IndexFieldData<?> global = ifd.loadGlobal(reader);
                         if (reader.leaves().isEmpty() == false) {
                             global.load(reader.leaves().get(0));
@@ -152,11 +159,27 @@ public final class IndexWarmer extends AbstractComponent {
                             .warn(() -> new ParameterizedMessage("failed to warm-up global ordinals for [{}]", fieldType.name()), e);
                     } finally {
                         latch.countDown();
+                        if (async && pendingAsyncBuilds.decrementAndGet() == 0) {
+                            releaseReader(indexShard, reader);
+                        }
                     }
                 });
             }
+            if (async) {
+                // the reader is kept open until all builds are done, searches that need global ordinals in the
+                // meantime wait for the in-flight build through the field data cache
+                return TerminationHandle.NO_WAIT;
+            }
             return () -> latch.await();
         }
+
+        private static void releaseReader(IndexShard indexShard, DirectoryReader reader) {
+            try {
+                reader.decRef();
+            } catch (IOException e) {
+                indexShard.warmerService().logger().warn("failed to release reader after global ordinals warm-up", e);
+            }
+        }
     }
 
 }
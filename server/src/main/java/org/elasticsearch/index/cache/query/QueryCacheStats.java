@@ -20,6 +20,7 @@
 package org.elasticsearch.index.cache.query;
 
 import org.apache.lucene.search.DocIdSet;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -37,16 +38,23 @@ public class QueryCacheStats implements Streamable, ToXContentFragment {
     long missCount;
     long cacheCount;
     long cacheSize;
+    long admissionRejectedCount;
 
     public QueryCacheStats() {
     }
 
     public QueryCacheStats(long ramBytesUsed, long hitCount, long missCount, long cacheCount, long cacheSize) {
+        this(ramBytesUsed, hitCount, missCount, cacheCount, cacheSize, 0);
+    }
+
+    public QueryCacheStats(long ramBytesUsed, long hitCount, long missCount, long cacheCount, long cacheSize,
+                           long admissionRejectedCount) {
         this.ramBytesUsed = ramBytesUsed;
         this.hitCount = hitCount;
         this.missCount = missCount;
         this.cacheCount = cacheCount;
         this.cacheSize = cacheSize;
+        this.admissionRejectedCount = admissionRejectedCount;
     }
 
     public void add(QueryCacheStats stats) {
@@ -55,6 +63,7 @@ public class QueryCacheStats implements Streamable, ToXContentFragment {
         missCount += stats.missCount;
         cacheCount += stats.cacheCount;
         cacheSize += stats.cacheSize;
+        admissionRejectedCount += stats.admissionRejectedCount;
     }
 
     public long getMemorySizeInBytes() {
@@ -107,6 +116,14 @@ public class QueryCacheStats implements Streamable, ToXContentFragment {
         return cacheCount - cacheSize;
     }
 
+    /**
+     * The number of {@link DocIdSet}s that the caching policy would have cached but that were not cached because
+     * the query had not been used frequently enough.
+     */
+    public long getAdmissionRejectedCount() {
+        return admissionRejectedCount;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         ramBytesUsed = in.readLong();
@@ -114,6 +131,9 @@ public class QueryCacheStats implements Streamable, ToXContentFragment {
         missCount = in.readLong();
         cacheCount = in.readLong();
         cacheSize = in.readLong();
+        if (in.getVersion().onOrAfter(Version.V_6_5_0)) {
+            admissionRejectedCount = in.readLong();
+        }
     }
 
     @Override
@@ -123,6 +143,9 @@ public class QueryCacheStats implements Streamable, ToXContentFragment {
         out.writeLong(missCount);
         out.writeLong(cacheCount);
         out.writeLong(cacheSize);
+        if (out.getVersion().onOrAfter(Version.V_6_5_0)) {
+            out.writeLong(admissionRejectedCount);
+        }
     }
 
     @Override
@@ -135,6 +158,7 @@ public class QueryCacheStats implements Streamable, ToXContentFragment {
         builder.field(Fields.CACHE_SIZE, getCacheSize());
         builder.field(Fields.CACHE_COUNT, getCacheCount());
         builder.field(Fields.EVICTIONS, getEvictions());
+        builder.field(Fields.ADMISSION_REJECTED_COUNT, getAdmissionRejectedCount());
         builder.endObject();
         return builder;
     }
@@ -149,6 +173,7 @@ public class QueryCacheStats implements Streamable, ToXContentFragment {
         static final String CACHE_SIZE = "cache_size";
         static final String CACHE_COUNT = "cache_count";
         static final String EVICTIONS = "evictions";
+        static final String ADMISSION_REJECTED_COUNT = "admission_rejected_count";
     }
 
 }
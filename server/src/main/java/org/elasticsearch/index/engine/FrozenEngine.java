@@ -0,0 +1,176 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.engine;
+
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.core.internal.io.IOUtils;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * A {@link ReadOnlyEngine} for frozen indices that does not keep a reader open. A reader is opened when a searcher is
+ * acquired and is then kept in the node-wide {@link FrozenReaderCache}, which bounds the number of readers that frozen shards
+ * keep open on a node, so that the heap that a frozen shard uses while it is not searched is limited to its segment infos.
+ * Statistics are only computed on the reader of a shard if it is open already, so that they don't open readers.
+ * <p>
+ * An index has to be closed to be frozen, which flushes all its operations into the last commit. Frozen indices should also
+ * have a write block, since the engine rejects all writes.
+ */
+public final class FrozenEngine extends ReadOnlyEngine {
+
+    public static final Setting<Boolean> INDEX_FROZEN_SETTING = Setting.boolSetting("index.frozen", false, Property.IndexScope);
+
+    private final FrozenReaderCache readerCache;
+    private final CounterMetric readerOpens = new CounterMetric();
+    private final CounterMetric readerOpenTimeInNanos = new CounterMetric();
+    private final CounterMetric readerEvictions = new CounterMetric();
+
+    public FrozenEngine(EngineConfig config, FrozenReaderCache readerCache) {
+        super(config, null, null, true, Function.identity(), false);
+        this.readerCache = readerCache;
+    }
+
+    @Override
+    public Searcher acquireSearcher(String source, SearcherScope scope) throws EngineException {
+        return acquireSearcher(source, false);
+    }
+
+    @Override
+    protected Searcher acquireSearcherForStats(String source, SearcherScope scope) throws EngineException {
+        return acquireSearcher(source, true);
+    }
+
+    /**
+     * @param onlyIfOpen whether to return a searcher over an empty reader rather than to open a reader if none is cached
+     */
+    private Searcher acquireSearcher(String source, boolean onlyIfOpen) throws EngineException {
+        if (store.tryIncRef() == false) {
+            throw new AlreadyClosedException(shardId + " store is closed", failedEngine.get());
+        }
+        Releasable releasable = store::decRef;
+        try {
+            ensureOpen();
+            final IndexSearcher searcher;
+            if (onlyIfOpen) {
+                searcher = readerCache.acquireIfOpen(this);
+            } else {
+                searcher = readerCache.acquire(this);
+                if (isClosed.get()) {
+                    // the engine was closed while the reader was opened, make sure the cache does not keep it open
+                    readerCache.invalidate(this);
+                }
+            }
+            if (searcher == null) {
+                // the shard is not searched at the moment, statistics should reflect that it does not use any memory
+                releasable = null;
+                return new Searcher(source, new IndexSearcher(new MultiReader()), store::decRef);
+            }
+            final AtomicBoolean released = new AtomicBoolean(false);
+            final Searcher engineSearcher = new Searcher(source, searcher, () -> {
+                if (released.compareAndSet(false, true)) {
+                    try {
+                        searcher.getIndexReader().decRef();
+                    } finally {
+                        store.decRef();
+                    }
+                } else {
+                    logger.warn("Searcher was released twice", new IllegalStateException("Double release"));
+                }
+            });
+            releasable = null; // success - hand over the reference to the engine searcher
+            return engineSearcher;
+        } catch (AlreadyClosedException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            ensureOpen(ex); // throw EngineCloseException here if we are already closed
+            logger.error(() -> new ParameterizedMessage("failed to acquire searcher, source {}", source), ex);
+            throw new EngineException(shardId, "failed to acquire searcher, source " + source, ex);
+        } finally {
+            Releasables.close(releasable);
+        }
+    }
+
+    /**
+     * Opens a new searcher on the last commit of this shard. The caller owns the reference on the reader of the searcher.
+     */
+    IndexSearcher openSearcher() throws IOException {
+        ensureOpen();
+        final long startTime = System.nanoTime();
+        final DirectoryReader reader = openReader();
+        boolean success = false;
+        try {
+            final IndexSearcher searcher =
+                new RamAccountingSearcherFactory(engineConfig.getCircuitBreakerService()).newSearcher(reader, null);
+            readerOpens.inc();
+            readerOpenTimeInNanos.inc(System.nanoTime() - startTime);
+            success = true;
+            return searcher;
+        } finally {
+            if (success == false) {
+                IOUtils.close(reader);
+            }
+        }
+    }
+
+    void onReaderEvicted() {
+        readerEvictions.inc();
+    }
+
+    @Override
+    public boolean refreshNeeded() {
+        // frozen shards never change, and checking would open a reader
+        return false;
+    }
+
+    @Override
+    protected void writerSegmentStats(SegmentsStats stats) {
+        super.writerSegmentStats(stats);
+        stats.addFrozenReaderStats(readerCache.isOpen(this) ? 1 : 0, readerOpens.count(),
+            TimeUnit.NANOSECONDS.toMillis(readerOpenTimeInNanos.count()), readerEvictions.count());
+    }
+
+    @Override
+    protected void closeNoLock(String reason, CountDownLatch closedLatch) {
+        // the cached reader has to be closed after the engine is marked as closed, so that no reader can be cached for
+        // it anymore, but before the store is closed
+        store.incRef();
+        try {
+            super.closeNoLock(reason, closedLatch);
+        } finally {
+            try {
+                readerCache.invalidate(this);
+            } finally {
+                store.decRef();
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.engine;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.search.IndexSearcher;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A node-wide LRU cache of the readers of {@link FrozenEngine}s. The cache holds a reference on the reader of every cached
+ * searcher, which it releases once the searcher is evicted. Searches hold their own reference, so a reader that is evicted
+ * while it is searched is only closed once all its searches are done.
+ */
+public final class FrozenReaderCache implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(FrozenReaderCache.class);
+
+    public static final Setting<Integer> INDICES_FROZEN_READER_CACHE_SIZE_SETTING =
+        Setting.intSetting("indices.frozen.reader_cache.size", 100, 1, Property.NodeScope);
+
+    private final Cache<FrozenEngine, IndexSearcher> cache;
+
+    public FrozenReaderCache(Settings settings) {
+        this.cache = CacheBuilder.<FrozenEngine, IndexSearcher>builder()
+            .setMaximumWeight(INDICES_FROZEN_READER_CACHE_SIZE_SETTING.get(settings))
+            .removalListener(this::onRemoval)
+            .build();
+    }
+
+    private void onRemoval(RemovalNotification<FrozenEngine, IndexSearcher> notification) {
+        if (notification.getRemovalReason() == RemovalNotification.RemovalReason.EVICTED) {
+            notification.getKey().onReaderEvicted();
+        }
+        try {
+            notification.getValue().getIndexReader().decRef();
+        } catch (IOException e) {
+            logger.warn("failed to close frozen reader", e);
+        }
+    }
+
+    /**
+     * Returns the searcher of the given engine, opening it if it is not cached. The caller has to release the reference on the
+     * reader of the searcher once it is done with it.
+     */
+    IndexSearcher acquire(FrozenEngine engine) throws IOException {
+        while (true) {
+            final IndexSearcher searcher;
+            try {
+                searcher = cache.computeIfAbsent(engine, FrozenEngine::openSearcher);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw ExceptionsHelper.convertToRuntime((Exception) e.getCause());
+            }
+            if (searcher.getIndexReader().tryIncRef()) {
+                return searcher;
+            }
+            // the searcher was evicted and closed concurrently
+            cache.invalidate(engine, searcher);
+        }
+    }
+
+    /**
+     * Returns the searcher of the given engine if it is cached, or {@code null} otherwise. The caller has to release the reference
+     * on the reader of the searcher once it is done with it.
+     */
+    @Nullable
+    IndexSearcher acquireIfOpen(FrozenEngine engine) {
+        final IndexSearcher searcher = cache.get(engine);
+        if (searcher != null && searcher.getIndexReader().tryIncRef()) {
+            return searcher;
+        }
+        return null;
+    }
+
+    boolean isOpen(FrozenEngine engine) {
+        return cache.get(engine) != null;
+    }
+
+    void invalidate(FrozenEngine engine) {
+        cache.invalidate(engine);
+    }
+
+    /**
+     * Returns the number of readers that are held open by this cache.
+     */
+    public int count() {
+        return cache.count();
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+    }
+}
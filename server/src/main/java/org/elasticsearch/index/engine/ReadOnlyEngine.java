@@ -57,7 +57,7 @@ import java.util.stream.Stream;
  *
  * @see #ReadOnlyEngine(EngineConfig, SeqNoStats, TranslogStats, boolean, Function)
  */
-public final class ReadOnlyEngine extends Engine {
+public class ReadOnlyEngine extends Engine {
 
     private final SegmentInfos lastCommittedSegmentInfos;
     private final SeqNoStats seqNoStats;
@@ -66,6 +66,7 @@ public final class ReadOnlyEngine extends Engine {
     private final IndexCommit indexCommit;
     private final Lock indexWriterLock;
     private final DocsStats docsStats;
+    private final Function<DirectoryReader, DirectoryReader> readerWrapperFunction;
 
     /**
      * Creates a new ReadOnlyEngine. This ctor can also be used to open a read-only engine on top of an already opened
@@ -81,7 +82,20 @@ public final class ReadOnlyEngine extends Engine {
      */
     public ReadOnlyEngine(EngineConfig config, SeqNoStats seqNoStats, TranslogStats translogStats, boolean obtainLock,
                    Function<DirectoryReader, DirectoryReader> readerWrapperFunction) {
+        this(config, seqNoStats, translogStats, obtainLock, readerWrapperFunction, true);
+    }
+
+    /**
+     * Creates a new ReadOnlyEngine that optionally does not keep a reader open. Subclasses that don't keep the reader open must
+     * override {@link #acquireSearcher(String, SearcherScope)} and open readers on demand with {@link #openReader()}.
+     *
+     * @param keepReaderOpen if <code>false</code> the reader that is opened to initialize this engine is closed again right away
+     * @see #ReadOnlyEngine(EngineConfig, SeqNoStats, TranslogStats, boolean, Function)
+     */
+    protected ReadOnlyEngine(EngineConfig config, SeqNoStats seqNoStats, TranslogStats translogStats, boolean obtainLock,
+                             Function<DirectoryReader, DirectoryReader> readerWrapperFunction, boolean keepReaderOpen) {
         super(config);
+        this.readerWrapperFunction = readerWrapperFunction;
         try {
             Store store = config.getStore();
             store.incRef();
@@ -96,14 +110,15 @@ public final class ReadOnlyEngine extends Engine {
                 this.lastCommittedSegmentInfos = Lucene.readSegmentInfos(directory);
                 this.translogStats = translogStats == null ? new TranslogStats(0, 0, 0, 0, 0) : translogStats;
                 this.seqNoStats = seqNoStats == null ? buildSeqNoStats(lastCommittedSegmentInfos) : seqNoStats;
-                reader = ElasticsearchDirectoryReader.wrap(open(directory), config.getShardId());
-                if (config.getIndexSettings().isSoftDeleteEnabled()) {
-                    reader = new SoftDeletesDirectoryReaderWrapper(reader, Lucene.SOFT_DELETES_FIELD);
-                }
-                reader = readerWrapperFunction.apply(reader);
+                reader = openReader();
                 this.indexCommit = reader.getIndexCommit();
-                this.searcherManager = new SearcherManager(reader,
-                    new RamAccountingSearcherFactory(engineConfig.getCircuitBreakerService()));
+                if (keepReaderOpen) {
+                    this.searcherManager = new SearcherManager(reader,
+                        new RamAccountingSearcherFactory(engineConfig.getCircuitBreakerService()));
+                } else {
+                    this.searcherManager = null;
+                    reader.close();
+                }
                 this.docsStats = docsStats(lastCommittedSegmentInfos);
                 this.indexWriterLock = indexWriterLock;
                 success = true;
@@ -121,6 +136,27 @@ public final class ReadOnlyEngine extends Engine {
         return DirectoryReader.open(directory);
     }
 
+    /**
+     * Opens a new reader on the store of this engine, wrapped the same way as the readers that this engine searches.
+     */
+    protected final DirectoryReader openReader() throws IOException {
+        DirectoryReader reader = null;
+        boolean success = false;
+        try {
+            reader = ElasticsearchDirectoryReader.wrap(open(store.directory()), engineConfig.getShardId());
+            if (engineConfig.getIndexSettings().isSoftDeleteEnabled()) {
+                reader = new SoftDeletesDirectoryReaderWrapper(reader, Lucene.SOFT_DELETES_FIELD);
+            }
+            reader = readerWrapperFunction.apply(reader);
+            success = true;
+            return reader;
+        } finally {
+            if (success == false) {
+                IOUtils.close(reader);
+            }
+        }
+    }
+
     private DocsStats docsStats(final SegmentInfos lastCommittedSegmentInfos) {
         long numDocs = 0;
         long numDeletedDocs = 0;
@@ -21,11 +21,13 @@ package org.elasticsearch.index.engine;
 
 import com.carrotsearch.hppc.cursors.ObjectObjectCursor;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContent.Params;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -47,6 +49,10 @@ public class SegmentsStats implements Streamable, ToXContentFragment {
     private long versionMapMemoryInBytes;
     private long maxUnsafeAutoIdTimestamp = Long.MIN_VALUE;
     private long bitsetMemoryInBytes;
+    private long frozenReadersOpen;
+    private long frozenReaderOpenCount;
+    private long frozenReaderOpenTimeInMillis;
+    private long frozenReaderEvictions;
     private ImmutableOpenMap<String, Long> fileSizes = ImmutableOpenMap.of();
 
     /*
@@ -124,6 +130,16 @@ public class SegmentsStats implements Streamable, ToXContentFragment {
         this.bitsetMemoryInBytes += bitsetMemoryInBytes;
     }
 
+    /**
+     * Adds the statistics of the readers that frozen shards open on demand.
+     */
+    public void addFrozenReaderStats(long open, long openCount, long openTimeInMillis, long evictions) {
+        this.frozenReadersOpen += open;
+        this.frozenReaderOpenCount += openCount;
+        this.frozenReaderOpenTimeInMillis += openTimeInMillis;
+        this.frozenReaderEvictions += evictions;
+    }
+
     public void addFileSizes(ImmutableOpenMap<String, Long> fileSizes) {
         ImmutableOpenMap.Builder<String, Long> map = ImmutableOpenMap.builder(this.fileSizes);
 
@@ -155,6 +171,8 @@ public class SegmentsStats implements Streamable, ToXContentFragment {
         addIndexWriterMemoryInBytes(mergeStats.indexWriterMemoryInBytes);
         addVersionMapMemoryInBytes(mergeStats.versionMapMemoryInBytes);
         addBitsetMemoryInBytes(mergeStats.bitsetMemoryInBytes);
+        addFrozenReaderStats(mergeStats.frozenReadersOpen, mergeStats.frozenReaderOpenCount, mergeStats.frozenReaderOpenTimeInMillis,
+            mergeStats.frozenReaderEvictions);
         addFileSizes(mergeStats.fileSizes);
     }
 
@@ -275,6 +293,38 @@ public class SegmentsStats implements Streamable, ToXContentFragment {
         return new ByteSizeValue(bitsetMemoryInBytes);
     }
 
+    /**
+     * The number of frozen shards whose reader is currently open.
+     */
+    public long getFrozenReadersOpen() {
+        return frozenReadersOpen;
+    }
+
+    /**
+     * The total number of times that frozen shards opened a reader.
+     */
+    public long getFrozenReaderOpenCount() {
+        return frozenReaderOpenCount;
+    }
+
+    /**
+     * The total time that frozen shards spent opening readers.
+     */
+    public long getFrozenReaderOpenTimeInMillis() {
+        return frozenReaderOpenTimeInMillis;
+    }
+
+    public TimeValue getFrozenReaderOpenTime() {
+        return new TimeValue(frozenReaderOpenTimeInMillis);
+    }
+
+    /**
+     * The number of times that the reader of a frozen shard was closed to make room for the reader of another frozen shard.
+     */
+    public long getFrozenReaderEvictions() {
+        return frozenReaderEvictions;
+    }
+
     public ImmutableOpenMap<String, Long> getFileSizes() {
         return fileSizes;
     }
@@ -302,6 +352,12 @@ public class SegmentsStats implements Streamable, ToXContentFragment {
         builder.humanReadableField(Fields.VERSION_MAP_MEMORY_IN_BYTES, Fields.VERSION_MAP_MEMORY, getVersionMapMemory());
         builder.humanReadableField(Fields.FIXED_BIT_SET_MEMORY_IN_BYTES, Fields.FIXED_BIT_SET, getBitsetMemory());
         builder.field(Fields.MAX_UNSAFE_AUTO_ID_TIMESTAMP, maxUnsafeAutoIdTimestamp);
+        builder.startObject(Fields.FROZEN_READERS);
+        builder.field(Fields.OPEN, frozenReadersOpen);
+        builder.field(Fields.OPEN_TOTAL, frozenReaderOpenCount);
+        builder.humanReadableField(Fields.OPEN_TIME_IN_MILLIS, Fields.OPEN_TIME, getFrozenReaderOpenTime());
+        builder.field(Fields.EVICTIONS, frozenReaderEvictions);
+        builder.endObject();
         builder.startObject(Fields.FILE_SIZES);
         for (Iterator<ObjectObjectCursor<String, Long>> it = fileSizes.iterator(); it.hasNext();) {
             ObjectObjectCursor<String, Long> entry = it.next();
@@ -339,6 +395,12 @@ public class SegmentsStats implements Streamable, ToXContentFragment {
         static final String MAX_UNSAFE_AUTO_ID_TIMESTAMP = "max_unsafe_auto_id_timestamp";
         static final String FIXED_BIT_SET = "fixed_bit_set";
         static final String FIXED_BIT_SET_MEMORY_IN_BYTES = "fixed_bit_set_memory_in_bytes";
+        static final String FROZEN_READERS = "frozen_readers";
+        static final String OPEN = "open";
+        static final String OPEN_TOTAL = "open_total";
+        static final String OPEN_TIME = "open_time";
+        static final String OPEN_TIME_IN_MILLIS = "open_time_in_millis";
+        static final String EVICTIONS = "evictions";
         static final String FILE_SIZES = "file_sizes";
         static final String SIZE = "size";
         static final String SIZE_IN_BYTES = "size_in_bytes";
@@ -359,6 +421,12 @@ public class SegmentsStats implements Streamable, ToXContentFragment {
         versionMapMemoryInBytes = in.readLong();
         bitsetMemoryInBytes = in.readLong();
         maxUnsafeAutoIdTimestamp = in.readLong();
+        if (in.getVersion().onOrAfter(Version.V_6_5_0)) {
+            frozenReadersOpen = in.readVLong();
+            frozenReaderOpenCount = in.readVLong();
+            frozenReaderOpenTimeInMillis = in.readVLong();
+            frozenReaderEvictions = in.readVLong();
+        }
 
         int size = in.readVInt();
         ImmutableOpenMap.Builder<String, Long> map = ImmutableOpenMap.builder(size);
@@ -384,6 +452,12 @@ public class SegmentsStats implements Streamable, ToXContentFragment {
         out.writeLong(versionMapMemoryInBytes);
         out.writeLong(bitsetMemoryInBytes);
         out.writeLong(maxUnsafeAutoIdTimestamp);
+        if (out.getVersion().onOrAfter(Version.V_6_5_0)) {
+            out.writeVLong(frozenReadersOpen);
+            out.writeVLong(frozenReaderOpenCount);
+            out.writeVLong(frozenReaderOpenTimeInMillis);
+            out.writeVLong(frozenReaderEvictions);
+        }
 
         out.writeVInt(fileSizes.size());
         for (ObjectObjectCursor<String, Long> entry : fileSizes) {
@@ -263,6 +263,14 @@ public interface IndexFieldData<FD extends AtomicFieldData> extends IndexCompone
 
         IndexFieldData<FD> localGlobalDirect(DirectoryReader indexReader) throws Exception;
 
+        /**
+         * Same as {@link #localGlobalDirect(DirectoryReader)}, but gives the implementation the chance to reuse parts of
+         * <code>previous</code>, the global view that was most recently built for the same shard, if it is still valid.
+         */
+        default IndexFieldData<FD> localGlobalDirect(DirectoryReader indexReader, @Nullable IndexFieldData<FD> previous) throws Exception {
+            return localGlobalDirect(indexReader);
+        }
+
     }
 
 }
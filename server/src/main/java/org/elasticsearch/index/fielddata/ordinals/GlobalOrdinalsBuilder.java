@@ -22,10 +22,12 @@ package org.elasticsearch.index.fielddata.ordinals;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.IndexSettings;
@@ -53,29 +55,50 @@ public enum GlobalOrdinalsBuilder {
     public static IndexOrdinalsFieldData build(final IndexReader indexReader, IndexOrdinalsFieldData indexFieldData,
             IndexSettings indexSettings, CircuitBreakerService breakerService, Logger logger,
             Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction) throws IOException {
+        return build(indexReader, indexFieldData, indexSettings, breakerService, logger, scriptFunction, null);
+    }
+
+    /**
+     * Build global ordinals for the provided {@link IndexReader}. If <code>previous</code> global ordinals were built on
+     * exactly the same segment cores, which is the case after a refresh that only applied deletes, its {@link OrdinalMap}
+     * is reused instead of being rebuilt. The reused map is still charged to the field data circuit breaker for the new
+     * global ordinals, so that it stays accounted once the previous ones are removed from the cache.
+     */
+    public static IndexOrdinalsFieldData build(final IndexReader indexReader, IndexOrdinalsFieldData indexFieldData,
+            IndexSettings indexSettings, CircuitBreakerService breakerService, Logger logger,
+            Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction,
+            @Nullable IndexOrdinalsFieldData previous) throws IOException {
         assert indexReader.leaves().size() > 1;
         long startTimeNS = System.nanoTime();
 
         final AtomicOrdinalsFieldData[] atomicFD = new AtomicOrdinalsFieldData[indexReader.leaves().size()];
         final SortedSetDocValues[] subs = new SortedSetDocValues[indexReader.leaves().size()];
+        final IndexReader.CacheKey[] coreKeys = new IndexReader.CacheKey[indexReader.leaves().size()];
         for (int i = 0; i < indexReader.leaves().size(); ++i) {
             atomicFD[i] = indexFieldData.load(indexReader.leaves().get(i));
             subs[i] = atomicFD[i].getOrdinalsValues();
+            coreKeys[i] = coreCacheKey(indexReader.leaves().get(i));
         }
-        final OrdinalMap ordinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+        final boolean reused = previous instanceof GlobalOrdinalsIndexFieldData
+            && ((GlobalOrdinalsIndexFieldData) previous).hasSameSegmentCores(indexReader);
+        // Every global ordinals instance holding the map is charged for it, and the charge is released when the instance is
+        // removed from the cache. The previous instance usually goes away with the previous reader soon after this one is built,
+        // so the map is only counted twice for as long as both readers are open, as it would be if it was built again.
+        final OrdinalMap ordinalMap = reused ? previous.getOrdinalMap() : OrdinalMap.build(null, subs, PackedInts.DEFAULT);
         final long memorySizeInBytes = ordinalMap.ramBytesUsed();
         breakerService.getBreaker(CircuitBreaker.FIELDDATA).addWithoutBreaking(memorySizeInBytes);
 
         if (logger.isDebugEnabled()) {
             logger.debug(
-                    "global-ordinals [{}][{}] took [{}]",
+                    "global-ordinals [{}][{}] took [{}], reused [{}]",
                     indexFieldData.getFieldName(),
                     ordinalMap.getValueCount(),
-                    new TimeValue(System.nanoTime() - startTimeNS, TimeUnit.NANOSECONDS)
+                    new TimeValue(System.nanoTime() - startTimeNS, TimeUnit.NANOSECONDS),
+                    reused
             );
         }
         return new GlobalOrdinalsIndexFieldData(indexSettings, indexFieldData.getFieldName(),
-                atomicFD, ordinalMap, memorySizeInBytes, scriptFunction
+                atomicFD, ordinalMap, memorySizeInBytes, scriptFunction, coreKeys
         );
     }
 
@@ -84,6 +107,8 @@ public enum GlobalOrdinalsBuilder {
 
         final AtomicOrdinalsFieldData[] atomicFD = new AtomicOrdinalsFieldData[indexReader.leaves().size()];
         final SortedSetDocValues[] subs = new SortedSetDocValues[indexReader.leaves().size()];
+        // empty global ordinals are never cached, so there is no point in recording the segment cores
+        final IndexReader.CacheKey[] coreKeys = new IndexReader.CacheKey[indexReader.leaves().size()];
         for (int i = 0; i < indexReader.leaves().size(); ++i) {
             atomicFD[i] = new AbstractAtomicOrdinalsFieldData(AbstractAtomicOrdinalsFieldData.DEFAULT_SCRIPT_FUNCTION) {
                 @Override
@@ -109,8 +134,13 @@ public enum GlobalOrdinalsBuilder {
         }
         final OrdinalMap ordinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
         return new GlobalOrdinalsIndexFieldData(indexSettings, indexFieldData.getFieldName(),
-                atomicFD, ordinalMap, 0, AbstractAtomicOrdinalsFieldData.DEFAULT_SCRIPT_FUNCTION
+                atomicFD, ordinalMap, 0, AbstractAtomicOrdinalsFieldData.DEFAULT_SCRIPT_FUNCTION, coreKeys
         );
     }
 
+    static IndexReader.CacheKey coreCacheKey(LeafReaderContext context) {
+        final IndexReader.CacheHelper cacheHelper = context.reader().getCoreCacheHelper();
+        return cacheHelper == null ? null : cacheHelper.getKey();
+    }
+
 }
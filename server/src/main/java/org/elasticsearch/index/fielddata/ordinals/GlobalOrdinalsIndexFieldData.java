@@ -19,6 +19,7 @@
 package org.elasticsearch.index.fielddata.ordinals;
 
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.index.SortedSetDocValues;
@@ -50,15 +51,18 @@ public class GlobalOrdinalsIndexFieldData extends AbstractIndexComponent impleme
     private final OrdinalMap ordinalMap;
     private final Atomic[] atomicReaders;
     private final Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction;
+    private final IndexReader.CacheKey[] segmentCoreKeys;
 
 
     protected GlobalOrdinalsIndexFieldData(IndexSettings indexSettings, String fieldName, AtomicOrdinalsFieldData[] segmentAfd,
                                            OrdinalMap ordinalMap, long memorySizeInBytes, Function<SortedSetDocValues,
-                                           ScriptDocValues<?>> scriptFunction) {
+                                           ScriptDocValues<?>> scriptFunction, IndexReader.CacheKey[] segmentCoreKeys) {
         super(indexSettings);
+        assert segmentCoreKeys.length == segmentAfd.length;
         this.fieldName = fieldName;
         this.memorySizeInBytes = memorySizeInBytes;
         this.ordinalMap = ordinalMap;
+        this.segmentCoreKeys = segmentCoreKeys;
         this.atomicReaders = new Atomic[segmentAfd.length];
         for (int i = 0; i < segmentAfd.length; i++) {
             atomicReaders[i] = new Atomic(segmentAfd[i], ordinalMap, i);
@@ -117,6 +121,23 @@ public class GlobalOrdinalsIndexFieldData extends AbstractIndexComponent impleme
         return ordinalMap;
     }
 
+    /**
+     * Returns <code>true</code> if the segments of the given reader share exactly the same cores, in the same order, as the
+     * segments these global ordinals were built on. In that case the terms of every segment are unchanged (only deletes may
+     * differ) and the {@link OrdinalMap} can be reused as-is.
+     */
+    public boolean hasSameSegmentCores(IndexReader indexReader) {
+        if (indexReader.leaves().size() != segmentCoreKeys.length) {
+            return false;
+        }
+        for (int i = 0; i < segmentCoreKeys.length; i++) {
+            if (segmentCoreKeys[i] == null || segmentCoreKeys[i] != GlobalOrdinalsBuilder.coreCacheKey(indexReader.leaves().get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private final class Atomic extends AbstractAtomicOrdinalsFieldData {
 
         private final AtomicOrdinalsFieldData afd;
@@ -29,6 +29,7 @@ import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.fielddata.AtomicOrdinalsFieldData;
+import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsBuilder;
@@ -98,6 +99,14 @@ public abstract class AbstractIndexOrdinalsFieldData extends AbstractIndexFieldD
                 AbstractAtomicOrdinalsFieldData.DEFAULT_SCRIPT_FUNCTION);
     }
 
+    @Override
+    public IndexOrdinalsFieldData localGlobalDirect(DirectoryReader indexReader,
+                                                    IndexFieldData<AtomicOrdinalsFieldData> previous) throws Exception {
+        return GlobalOrdinalsBuilder.build(indexReader, this, indexSettings, breakerService, logger,
+                AbstractAtomicOrdinalsFieldData.DEFAULT_SCRIPT_FUNCTION,
+                previous instanceof IndexOrdinalsFieldData ? (IndexOrdinalsFieldData) previous : null);
+    }
+
     @Override
     protected AtomicOrdinalsFieldData empty(int maxDoc) {
         return AbstractAtomicOrdinalsFieldData.empty();
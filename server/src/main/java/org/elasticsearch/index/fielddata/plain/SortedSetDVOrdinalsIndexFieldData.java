@@ -32,6 +32,7 @@ import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.fielddata.AtomicOrdinalsFieldData;
+import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldData.XFieldComparatorSource.Nested;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
@@ -130,6 +131,13 @@ public class SortedSetDVOrdinalsIndexFieldData extends DocValuesIndexFieldData i
         return GlobalOrdinalsBuilder.build(indexReader, this, indexSettings, breakerService, logger, scriptFunction);
     }
 
+    @Override
+    public IndexOrdinalsFieldData localGlobalDirect(DirectoryReader indexReader,
+                                                    IndexFieldData<AtomicOrdinalsFieldData> previous) throws Exception {
+        return GlobalOrdinalsBuilder.build(indexReader, this, indexSettings, breakerService, logger, scriptFunction,
+            previous instanceof IndexOrdinalsFieldData ? (IndexOrdinalsFieldData) previous : null);
+    }
+
     @Override
     public OrdinalMap getOrdinalMap() {
         return null;
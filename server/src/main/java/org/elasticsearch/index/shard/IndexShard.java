@@ -1224,6 +1224,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                 try {
                     if (engine != null && flushEngine) {
                         engine.flushAndClose();
+                        persistStoreMetadata();
                     }
                 } finally {
                     // playing safe here and close the engine even if the above succeeds - close can be called multiple times
@@ -1235,6 +1236,18 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         }
     }
 
+    /**
+     * Loads the metadata of the last commit, which persists it next to the commit so that listing the store metadata of this
+     * shard copy is cheap once the shard is closed, for instance after a restart.
+     */
+    private void persistStoreMetadata() {
+        try {
+            store.getMetadata(null);
+        } catch (Exception e) {
+            logger.debug("failed to load the store metadata of the last commit", e);
+        }
+    }
+
     public IndexShard postRecovery(String reason) throws IndexShardStartedException, IndexShardRelocatedException, IndexShardClosedException {
         synchronized (mutex) {
             if (state == IndexShardState.CLOSED) {
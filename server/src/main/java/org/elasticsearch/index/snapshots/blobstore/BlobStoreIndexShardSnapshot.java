@@ -22,6 +22,7 @@ package org.elasticsearch.index.snapshots.blobstore;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.Version;
 import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.lucene.Lucene;
@@ -36,6 +37,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Shard snapshot metadata
@@ -53,6 +55,8 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
         private final long partBytes;
         private final long numberOfParts;
         private final StoreFileMetaData metadata;
+        @Nullable
+        private final List<ContentChunk> contentChunks;
 
         /**
          * Constructs a new instance of file info
@@ -81,6 +85,35 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             this.numberOfParts = numberOfParts;
             this.partSize = partSize;
             this.partBytes = partBytes;
+            this.contentChunks = null;
+        }
+
+        /**
+         * Constructs a new instance of file info for a file that is stored as content-defined chunks. The chunks are the
+         * parts of the file and may be shared with other files.
+         *
+         * @param name          file name, the file itself isn't stored under this name
+         * @param metaData      the files meta data
+         * @param contentChunks the chunks of the file in order
+         */
+        public FileInfo(String name, StoreFileMetaData metaData, List<ContentChunk> contentChunks) {
+            if (contentChunks.isEmpty()) {
+                throw new IllegalArgumentException("a file consists of at least one chunk");
+            }
+            long totalLength = 0;
+            for (ContentChunk chunk : contentChunks) {
+                totalLength += chunk.length();
+            }
+            if (totalLength != metaData.length()) {
+                throw new IllegalArgumentException("chunks of [" + name + "] have a length of [" + totalLength
+                    + "] but the file has a length of [" + metaData.length() + "]");
+            }
+            this.name = name;
+            this.metadata = metaData;
+            this.numberOfParts = contentChunks.size();
+            this.partSize = null;
+            this.partBytes = Long.MAX_VALUE;
+            this.contentChunks = Collections.unmodifiableList(new ArrayList<>(contentChunks));
         }
 
         /**
@@ -99,7 +132,9 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
          * @return part name
          */
         public String partName(long part) {
-            if (numberOfParts > 1) {
+            if (contentChunks != null) {
+                return contentChunks.get(Math.toIntExact(part)).name();
+            } else if (numberOfParts > 1) {
                 return name + ".part" + part;
             } else {
                 return name;
@@ -152,6 +187,9 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
          * @return the size (in bytes) of a given part
          */
         public long partBytes(int part) {
+            if (contentChunks != null) {
+                return contentChunks.get(part).length();
+            }
             if (numberOfParts == 1) {
                 return length();
             }
@@ -172,6 +210,14 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             return numberOfParts;
         }
 
+        /**
+         * Returns the content-defined chunks the file is stored as or {@code null} if it is stored in fixed size parts
+         */
+        @Nullable
+        public List<ContentChunk> contentChunks() {
+            return contentChunks;
+        }
+
         /**
          * Returns file md5 checksum provided by {@link org.elasticsearch.index.store.Store}
          *
@@ -214,6 +260,9 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             if (!name.equals(fileInfo.name)) {
                 return false;
             }
+            if (Objects.equals(contentChunks, fileInfo.contentChunks) == false) {
+                return false;
+            }
             if (partSize != null) {
                 if (!partSize.equals(fileInfo.partSize)) {
                     return false;
@@ -241,6 +290,7 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
         static final String PART_SIZE = "part_size";
         static final String WRITTEN_BY = "written_by";
         static final String META_HASH = "meta_hash";
+        static final String CONTENT_CHUNKS = "content_chunks";
 
         /**
          * Serializes file info into JSON
@@ -269,6 +319,17 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
                 BytesRef br = file.metadata.hash();
                 builder.field(META_HASH, br.bytes, br.offset, br.length);
             }
+
+            if (file.contentChunks != null) {
+                builder.startArray(CONTENT_CHUNKS);
+                for (ContentChunk chunk : file.contentChunks) {
+                    builder.startObject();
+                    builder.field(NAME, chunk.name());
+                    builder.field(LENGTH, chunk.length());
+                    builder.endObject();
+                }
+                builder.endArray();
+            }
             builder.endObject();
         }
 
@@ -288,6 +349,7 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             Version writtenBy = null;
             String writtenByStr = null;
             BytesRef metaHash = new BytesRef();
+            List<ContentChunk> contentChunks = null;
             if (token == XContentParser.Token.START_OBJECT) {
                 while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
                     if (token == XContentParser.Token.FIELD_NAME) {
@@ -314,6 +376,11 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
                             } else {
                                 throw new ElasticsearchParseException("unknown parameter [{}]", currentFieldName);
                             }
+                        } else if (token == XContentParser.Token.START_ARRAY && CONTENT_CHUNKS.equals(currentFieldName)) {
+                            contentChunks = new ArrayList<>();
+                            while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+                                contentChunks.add(ContentChunk.fromXContent(parser));
+                            }
                         } else {
                             throw new ElasticsearchParseException("unexpected token  [{}]", token);
                         }
@@ -335,7 +402,15 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             } else if (checksum == null) {
                 throw new ElasticsearchParseException("missing checksum for name [" + name + "]");
             }
-            return new FileInfo(name, new StoreFileMetaData(physicalName, length, checksum, writtenBy, metaHash), partSize);
+            final StoreFileMetaData metaData = new StoreFileMetaData(physicalName, length, checksum, writtenBy, metaHash);
+            if (contentChunks != null) {
+                try {
+                    return new FileInfo(name, metaData, contentChunks);
+                } catch (IllegalArgumentException e) {
+                    throw new ElasticsearchParseException("invalid content chunks for name [" + name + "]", e);
+                }
+            }
+            return new FileInfo(name, metaData, partSize);
         }
 
         @Override
@@ -344,10 +419,92 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
                        ", numberOfParts: " + numberOfParts +
                        ", partSize: " + partSize +
                        ", partBytes: " + partBytes +
+                       ", contentChunks: " + contentChunks +
                        ", metadata: " + metadata + "]";
         }
     }
 
+    /**
+     * A content-defined chunk of a snapshotted file. Chunks are stored under a name derived from their content, so that
+     * chunks with the same content are only stored once per shard.
+     */
+    public static class ContentChunk {
+
+        private final String name;
+        private final long length;
+
+        public ContentChunk(String name, long length) {
+            this.name = name;
+            this.length = length;
+        }
+
+        /**
+         * Returns the name of the blob the chunk is stored in
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Returns the length of the chunk in bytes
+         */
+        public long length() {
+            return length;
+        }
+
+        static ContentChunk fromXContent(XContentParser parser) throws IOException {
+            String name = null;
+            long length = -1;
+            XContentParser.Token token = parser.currentToken();
+            if (token != XContentParser.Token.START_OBJECT) {
+                throw new ElasticsearchParseException("unexpected token [{}]", token);
+            }
+            while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                if (token == XContentParser.Token.FIELD_NAME) {
+                    String currentFieldName = parser.currentName();
+                    parser.nextToken();
+                    if (FileInfo.NAME.equals(currentFieldName)) {
+                        name = parser.text();
+                    } else if (FileInfo.LENGTH.equals(currentFieldName)) {
+                        length = parser.longValue();
+                    } else {
+                        throw new ElasticsearchParseException("unknown parameter [{}]", currentFieldName);
+                    }
+                } else {
+                    throw new ElasticsearchParseException("unexpected token [{}]", token);
+                }
+            }
+            if (name == null || Strings.validFileName(name) == false) {
+                throw new ElasticsearchParseException("missing or invalid chunk name [" + name + "]");
+            } else if (length < 0) {
+                throw new ElasticsearchParseException("missing or invalid chunk length");
+            }
+            return new ContentChunk(name, length);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ContentChunk that = (ContentChunk) o;
+            return length == that.length && name.equals(that.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, length);
+        }
+
+        @Override
+        public String toString() {
+            return "[name: " + name + ", length: " + length + "]";
+        }
+    }
+
     private final String snapshot;
 
     private final long indexVersion;
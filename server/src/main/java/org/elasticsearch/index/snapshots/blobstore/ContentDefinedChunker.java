@@ -0,0 +1,148 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.snapshots.blobstore;
+
+import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Splits a stream into chunks whose boundaries are defined by the content of the stream rather than by offsets, so that
+ * data that is inserted or removed in one place only changes the chunks around that place. Boundaries are found with a
+ * gear rolling hash and normalized chunking: a boundary is less likely before and more likely after the average chunk
+ * size, which keeps the chunk sizes close to the average. Chunks are at least a quarter and at most four times the average
+ * chunk size long, except for the last chunk of a stream which may be shorter.
+ */
+public final class ContentDefinedChunker {
+
+    public static final int MIN_AVERAGE_CHUNK_SIZE = 1 << 10;
+    public static final int MAX_AVERAGE_CHUNK_SIZE = 1 << 26;
+
+    /**
+     * Random values for every byte value. Chunk boundaries must be the same on every node and in every version as they
+     * determine which chunks can be shared between snapshots, so the values are generated from a fixed seed with our own
+     * generator (SplitMix64).
+     */
+    private static final long[] GEAR = new long[256];
+
+    static {
+        long state = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < GEAR.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            long z = state;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            GEAR[i] = z ^ (z >>> 31);
+        }
+    }
+
+    private final int averageSize;
+    private final int minSize;
+    private final int maxSize;
+    private final long smallChunkMask;
+    private final long largeChunkMask;
+
+    /**
+     * @param averageSize the average chunk size, which is rounded down to a power of two
+     */
+    public ContentDefinedChunker(int averageSize) {
+        if (averageSize < MIN_AVERAGE_CHUNK_SIZE || averageSize > MAX_AVERAGE_CHUNK_SIZE) {
+            throw new IllegalArgumentException("average chunk size must be between [" + MIN_AVERAGE_CHUNK_SIZE + "] and ["
+                + MAX_AVERAGE_CHUNK_SIZE + "] bytes but was [" + averageSize + "]");
+        }
+        final int bits = 31 - Integer.numberOfLeadingZeros(averageSize);
+        this.averageSize = 1 << bits;
+        this.minSize = this.averageSize / 4;
+        this.maxSize = this.averageSize * 4;
+        // the high bits of the gear hash depend on the last 64 bytes, the low bits only on the last few bytes
+        this.smallChunkMask = -1L << (64 - (bits + 1));
+        this.largeChunkMask = -1L << (64 - (bits - 1));
+    }
+
+    public int averageSize() {
+        return averageSize;
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the length of the chunk that starts at the given offset. If no boundary is found, the chunk ends after
+     * the given length or the maximum chunk size, whichever comes first.
+     */
+    int nextChunkLength(byte[] bytes, int offset, int length) {
+        if (length <= minSize) {
+            return length;
+        }
+        final int end = Math.min(length, maxSize);
+        final int normal = Math.min(end, averageSize);
+        long hash = 0;
+        int i = minSize;
+        for (; i < normal; i++) {
+            hash = (hash << 1) + GEAR[bytes[offset + i] & 0xFF];
+            if ((hash & smallChunkMask) == 0) {
+                return i + 1;
+            }
+        }
+        for (; i < end; i++) {
+            hash = (hash << 1) + GEAR[bytes[offset + i] & 0xFF];
+            if ((hash & largeChunkMask) == 0) {
+                return i + 1;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Reads the given stream to its end and passes its chunks in order to the given consumer. The bytes that are passed
+     * to the consumer are only valid until it returns. An empty stream consists of a single empty chunk.
+     */
+    public void chunk(InputStream in, CheckedConsumer<BytesReference, IOException> consumer) throws IOException {
+        final byte[] buffer = new byte[maxSize];
+        int filled = 0;
+        boolean eof = false;
+        boolean empty = true;
+        while (true) {
+            while (eof == false && filled < buffer.length) {
+                final int read = in.read(buffer, filled, buffer.length - filled);
+                if (read == -1) {
+                    eof = true;
+                } else {
+                    filled += read;
+                }
+            }
+            if (filled == 0) {
+                if (empty) {
+                    consumer.accept(BytesArray.EMPTY);
+                }
+                return;
+            }
+            final int length = nextChunkLength(buffer, 0, filled);
+            consumer.accept(new BytesArray(buffer, 0, length));
+            empty = false;
+            System.arraycopy(buffer, length, buffer, 0, filled - length);
+            filled -= length;
+        }
+    }
+}
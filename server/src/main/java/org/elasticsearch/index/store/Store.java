@@ -51,6 +51,7 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.Version;
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.Streams;
@@ -90,6 +91,7 @@ import java.io.PrintStream;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -134,12 +136,17 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
     static final int VERSION = VERSION_WRITE_THROWABLE;
     // public is for test purposes
     public static final String CORRUPTED = "corrupted_";
+    /**
+     * The prefix of the files that hold the persisted metadata of the files of a commit, see {@link StoreMetadataCache}
+     */
+    public static final String METADATA_CACHE_FILE_PREFIX = "metadata_cache_";
     public static final Setting<TimeValue> INDEX_STORE_STATS_REFRESH_INTERVAL_SETTING =
         Setting.timeSetting("index.store.stats_refresh_interval", TimeValue.timeValueSeconds(10), Property.IndexScope);
 
     private final AtomicBoolean isClosed = new AtomicBoolean(false);
     private final StoreDirectory directory;
     private final ReentrantReadWriteLock metadataLock = new ReentrantReadWriteLock();
+    private final StoreMetadataCache metadataCache = new StoreMetadataCache();
     private final ShardLock shardLock;
     private final OnClose onClose;
 
@@ -164,6 +171,7 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
         this.directory = new StoreDirectory(sizeCachingDir, Loggers.getLogger("index.store.deletes", shardId));
         this.shardLock = shardLock;
         this.onClose = onClose;
+        StoreMetadataCache.deleteLeftovers(this.directory, logger);
 
         assert onClose != null;
         assert shardLock != null;
@@ -284,7 +292,7 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
         java.util.concurrent.locks.Lock lock = lockDirectory ? metadataLock.writeLock() : metadataLock.readLock();
         lock.lock();
         try (Closeable ignored = lockDirectory ? directory.obtainLock(IndexWriter.WRITE_LOCK_NAME) : () -> {} ) {
-            return new MetadataSnapshot(commit, directory, logger);
+            return new MetadataSnapshot(commit, directory, logger, metadataCache);
         } catch (CorruptIndexException | IndexFormatTooOldException | IndexFormatTooNewException ex) {
             markStoreCorrupted(ex);
             throw ex;
@@ -443,7 +451,7 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
         try (ShardLock lock = shardLocker.lock(shardId, TimeUnit.SECONDS.toMillis(5));
              Directory dir = new SimpleFSDirectory(indexLocation)) {
             failIfCorrupted(dir, shardId);
-            return new MetadataSnapshot(null, dir, logger);
+            return new MetadataSnapshot(null, dir, logger, new StoreMetadataCache());
         } catch (IndexNotFoundException ex) {
             // that's fine - happens all the time no need to log
         } catch (FileNotFoundException | NoSuchFileException ex) {
@@ -780,8 +788,8 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
             numDocs = 0;
         }
 
-        MetadataSnapshot(IndexCommit commit, Directory directory, Logger logger) throws IOException {
-            LoadedMetadata loadedMetadata = loadMetadata(commit, directory, logger);
+        MetadataSnapshot(IndexCommit commit, Directory directory, Logger logger, StoreMetadataCache metadataCache) throws IOException {
+            LoadedMetadata loadedMetadata = loadMetadata(commit, directory, logger, metadataCache);
             metadata = loadedMetadata.fileMetadata;
             commitUserData = loadedMetadata.userData;
             numDocs = loadedMetadata.numDocs;
@@ -843,12 +851,22 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
             }
         }
 
-        static LoadedMetadata loadMetadata(IndexCommit commit, Directory directory, Logger logger) throws IOException {
+        static LoadedMetadata loadMetadata(IndexCommit commit, Directory directory, Logger logger,
+                                           StoreMetadataCache metadataCache) throws IOException {
             long numDocs;
             Map<String, StoreFileMetaData> builder = new HashMap<>();
             Map<String, String> commitUserDataBuilder = new HashMap<>();
             try {
                 final SegmentInfos segmentCommitInfos = Store.readSegmentsInfo(commit, directory);
+                // only the entries of the latest commit are persisted, older commits are usually only listed once
+                final boolean latestCommit = commit == null
+                    || segmentCommitInfos.getGeneration() == SegmentInfos.getLastCommitGeneration(directory);
+                if (latestCommit && metadataCache.isPersisted(segmentCommitInfos.getGeneration()) == false) {
+                    metadataCache.readPersisted(directory, segmentCommitInfos, logger);
+                }
+                // the ids of the segments (and the commit) that the files belong to, for the files that can be cached
+                final Map<String, byte[]> ids = new HashMap<>();
+                boolean cacheMisses = false;
                 numDocs = Lucene.getNumDocs(segmentCommitInfos);
                 commitUserDataBuilder.putAll(segmentCommitInfos.getUserData());
                 Version maxVersion = segmentCommitInfos.getMinSegmentLuceneVersion(); // we don't know which version was used to write so we take the max version.
@@ -862,14 +880,23 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
                         maxVersion = version;
                     }
                     for (String file : info.files()) {
-                        checksumFromLuceneFile(directory, file, builder, logger, version, SEGMENT_INFO_EXTENSION.equals(IndexFileNames.getExtension(file)));
+                        cacheMisses |= loadFileMetaData(directory, file, info.info.getId(), metadataCache, builder, ids, logger,
+                            version, SEGMENT_INFO_EXTENSION.equals(IndexFileNames.getExtension(file)));
                     }
                 }
                 if (maxVersion == null) {
                     maxVersion = org.elasticsearch.Version.CURRENT.minimumIndexCompatibilityVersion().luceneVersion;
                 }
                 final String segmentsFile = segmentCommitInfos.getSegmentsFileName();
-                checksumFromLuceneFile(directory, segmentsFile, builder, logger, maxVersion, true);
+                cacheMisses |= loadFileMetaData(directory, segmentsFile, segmentCommitInfos.getId(), metadataCache, builder, ids,
+                    logger, maxVersion, true);
+                if (cacheMisses) {
+                    // forget about the files that were deleted since the last time the metadata was loaded
+                    metadataCache.retainAll(Arrays.asList(directory.listAll()));
+                }
+                if (latestCommit && (cacheMisses || metadataCache.isPersisted(segmentCommitInfos.getGeneration()) == false)) {
+                    metadataCache.persist(directory, segmentCommitInfos, builder, ids, logger);
+                }
             } catch (CorruptIndexException | IndexNotFoundException | IndexFormatTooOldException | IndexFormatTooNewException ex) {
                 // we either know the index is corrupted or it's just not there
                 throw ex;
@@ -892,6 +919,32 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
             return new LoadedMetadata(unmodifiableMap(builder), unmodifiableMap(commitUserDataBuilder), numDocs);
         }
 
+        /**
+         * Adds the metadata of the given file to the builder, using the cached metadata if the file is cached for the given
+         * segment or commit id.
+         *
+         * @return whether the metadata of the file had to be read from the file
+         */
+        private static boolean loadFileMetaData(Directory directory, String file, @Nullable byte[] id,
+                                                StoreMetadataCache metadataCache, Map<String, StoreFileMetaData> builder,
+                                                Map<String, byte[]> ids, Logger logger, Version version,
+                                                boolean readFileAsHash) throws IOException {
+            if (id == null) {
+                // segments and commits written before Lucene 5 have no ids, their files are not cached
+                checksumFromLuceneFile(directory, file, builder, logger, version, readFileAsHash);
+                return false;
+            }
+            ids.put(file, id);
+            final StoreFileMetaData cached = metadataCache.get(file, id, directory.fileLength(file));
+            if (cached != null) {
+                builder.put(file, cached);
+                return false;
+            }
+            checksumFromLuceneFile(directory, file, builder, logger, version, readFileAsHash);
+            metadataCache.put(id, builder.get(file));
+            return true;
+        }
+
         private static void checksumFromLuceneFile(Directory directory, String file, Map<String, StoreFileMetaData> builder,
                 Logger logger, Version version, boolean readFileAsHash) throws IOException {
             final String checksum;
@@ -1145,10 +1198,10 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
 
     /**
      * Returns true if the file is auto-generated by the store and shouldn't be deleted during cleanup.
-     * This includes write lock and checksum files
+     * This includes write lock and persisted metadata files
      */
     public static boolean isAutogenerated(String name) {
-        return IndexWriter.WRITE_LOCK_NAME.equals(name);
+        return IndexWriter.WRITE_LOCK_NAME.equals(name) || name.startsWith(METADATA_CACHE_FILE_PREFIX);
     }
 
     /**
@@ -0,0 +1,231 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.store;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.Version;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+
+import java.io.FileNotFoundException;
+import java.nio.file.NoSuchFileException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Caches the {@link StoreFileMetaData} of the files of a store, so that the metadata of a commit can be listed without
+ * reading the footers of all its files and the segment infos files in full. Lucene never modifies a file once it was
+ * written, so a cached entry stays valid as long as a file with the same name and length belongs to a segment (or a commit)
+ * with the same id. The entries of the latest commit are also persisted next to the commit so that they survive restarts. Note that
+ * the footers of files whose metadata is cached are not read again, so a file that got corrupted without changing its
+ * length is only detected once its content is read.
+ */
+final class StoreMetadataCache {
+
+    static final String CODEC = "store_metadata_cache";
+    static final int VERSION_START = 0;
+    static final int VERSION_CURRENT = VERSION_START;
+
+    private final Map<String, Entry> entries = ConcurrentCollections.newConcurrentMap();
+    private volatile long persistedGeneration = -1;
+
+    /**
+     * Returns the cached metadata of the given file, or {@code null} if the file is not cached or the cached entry belongs
+     * to another file with the same name.
+     */
+    @Nullable
+    StoreFileMetaData get(String file, byte[] id, long length) {
+        final Entry entry = entries.get(file);
+        if (entry != null && entry.metaData.length() == length && Arrays.equals(entry.id, id)) {
+            return entry.metaData;
+        }
+        return null;
+    }
+
+    void put(byte[] id, StoreFileMetaData metaData) {
+        entries.put(metaData.name(), new Entry(id, metaData));
+    }
+
+    /**
+     * Removes the entries of all files other than the given ones.
+     */
+    void retainAll(Collection<String> files) {
+        entries.keySet().retainAll(files);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns whether the entries of the commit with the given generation were persisted or read from the store.
+     */
+    boolean isPersisted(long generation) {
+        return persistedGeneration == generation;
+    }
+
+    static String fileName(long generation) {
+        return Store.METADATA_CACHE_FILE_PREFIX + Long.toString(generation, Character.MAX_RADIX);
+    }
+
+    /**
+     * Adds the persisted entries of the given commit to this cache, if there are any. Entries that cannot be read are
+     * ignored since they can always be computed again.
+     */
+    void readPersisted(Directory directory, SegmentInfos commit, Logger logger) {
+        final String fileName = fileName(commit.getGeneration());
+        try (ChecksumIndexInput in = directory.openChecksumInput(fileName, IOContext.READONCE)) {
+            CodecUtil.checkHeader(in, CODEC, VERSION_START, VERSION_CURRENT);
+            final int numEntries = in.readVInt();
+            final Entry[] read = new Entry[numEntries];
+            for (int i = 0; i < numEntries; i++) {
+                final String name = in.readString();
+                final byte[] id = new byte[in.readVInt()];
+                in.readBytes(id, 0, id.length);
+                final long length = in.readVLong();
+                final String checksum = in.readString();
+                final Version writtenBy = Version.parse(in.readString());
+                final byte[] hash = new byte[in.readVInt()];
+                in.readBytes(hash, 0, hash.length);
+                read[i] = new Entry(id, new StoreFileMetaData(name, length, checksum, writtenBy, new BytesRef(hash)));
+            }
+            CodecUtil.checkFooter(in);
+            for (Entry entry : read) {
+                entries.putIfAbsent(entry.metaData.name(), entry);
+            }
+            persistedGeneration = commit.getGeneration();
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            // nothing was persisted for this commit yet
+        } catch (Exception e) {
+            logger.debug(() -> new ParameterizedMessage("failed to read the persisted store metadata [{}]", fileName), e);
+        }
+    }
+
+    /**
+     * Persists the given metadata of the files of the given commit next to the commit, and deletes the persisted metadata
+     * of commits that no longer exist. Failures are logged and otherwise ignored since persisting the metadata is only an
+     * optimization. The metadata of a store can be loaded by several threads at once, so only one of them persists at a time.
+     */
+    synchronized void persist(Directory directory, SegmentInfos commit, Map<String, StoreFileMetaData> metaData, Map<String, byte[]> ids,
+                 Logger logger) {
+        final String fileName = fileName(commit.getGeneration());
+        String tempFileName = null;
+        try {
+            try (IndexOutput out = directory.createTempOutput(fileName, "tmp", IOContext.DEFAULT)) {
+                tempFileName = out.getName();
+                CodecUtil.writeHeader(out, CODEC, VERSION_CURRENT);
+                out.writeVInt(ids.size());
+                for (Map.Entry<String, byte[]> entry : ids.entrySet()) {
+                    final StoreFileMetaData fileMetaData = metaData.get(entry.getKey());
+                    out.writeString(fileMetaData.name());
+                    out.writeVInt(entry.getValue().length);
+                    out.writeBytes(entry.getValue(), entry.getValue().length);
+                    out.writeVLong(fileMetaData.length());
+                    out.writeString(fileMetaData.checksum());
+                    out.writeString(fileMetaData.writtenBy().toString());
+                    final BytesRef hash = fileMetaData.hash();
+                    out.writeVInt(hash.length);
+                    out.writeBytes(hash.bytes, hash.offset, hash.length);
+                }
+                CodecUtil.writeFooter(out);
+            }
+            final String[] files = directory.listAll();
+            for (String file : files) {
+                if (file.equals(tempFileName) == false && (file.equals(fileName) || isStale(file, files))) {
+                    directory.deleteFile(file);
+                }
+            }
+            directory.rename(tempFileName, fileName);
+            tempFileName = null;
+            persistedGeneration = commit.getGeneration();
+        } catch (Exception e) {
+            logger.debug(() -> new ParameterizedMessage("failed to persist the store metadata [{}]", fileName), e);
+        } finally {
+            if (tempFileName != null) {
+                try {
+                    directory.deleteFile(tempFileName);
+                } catch (Exception e) {
+                    logger.trace(() -> new ParameterizedMessage("failed to delete [{}]", fileName), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the temporary files of attempts to persist metadata that did not complete, for instance because the node
+     * stopped while writing them. Must be called before any metadata of the store is persisted.
+     */
+    static void deleteLeftovers(Directory directory, Logger logger) {
+        try {
+            for (String file : directory.listAll()) {
+                if (file.startsWith(Store.METADATA_CACHE_FILE_PREFIX) && file.endsWith(".tmp")) {
+                    directory.deleteFile(file);
+                }
+            }
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            // the store has no files yet
+        } catch (Exception e) {
+            logger.debug("failed to delete the leftovers of persisting store metadata", e);
+        }
+    }
+
+    /**
+     * Returns whether the given file holds the persisted metadata of a commit that no longer exists. Temporary files are not
+     * stale, see {@link #deleteLeftovers(Directory, Logger)}.
+     */
+    private static boolean isStale(String file, String[] files) {
+        if (file.startsWith(Store.METADATA_CACHE_FILE_PREFIX) == false || file.endsWith(".tmp")) {
+            return false;
+        }
+        final long generation;
+        try {
+            generation = Long.parseLong(file.substring(Store.METADATA_CACHE_FILE_PREFIX.length()), Character.MAX_RADIX);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        final String segmentsFileName = IndexFileNames.fileNameFromGeneration(IndexFileNames.SEGMENTS, "", generation);
+        for (String other : files) {
+            if (other.equals(segmentsFileName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Entry {
+        private final byte[] id;
+        private final StoreFileMetaData metaData;
+
+        Entry(byte[] id, StoreFileMetaData metaData) {
+            this.id = id;
+            this.metaData = metaData;
+        }
+    }
+}
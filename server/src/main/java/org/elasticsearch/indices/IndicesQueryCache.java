@@ -19,6 +19,7 @@
 
 package org.elasticsearch.indices;
 
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BulkScorer;
@@ -42,10 +43,13 @@ import org.elasticsearch.index.shard.ShardId;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.HashMap;
-import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Predicate;
 
 public class IndicesQueryCache extends AbstractComponent implements QueryCache, Closeable {
@@ -59,29 +63,47 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
     // enables caching on all segments instead of only the larger ones, for testing only
     public static final Setting<Boolean> INDICES_QUERIES_CACHE_ALL_SEGMENTS_SETTING = 
             Setting.boolSetting("indices.queries.cache.all_segments", false, Property.NodeScope);
-
-    private final LRUQueryCache cache;
+    // splits the cache into independently locked and evicted stripes, segments are assigned to stripes by their core key
+    public static final Setting<Integer> INDICES_QUERIES_CACHE_STRIPES_SETTING =
+            Setting.intSetting("indices.queries.cache.stripes", 1, 1, 256, Property.NodeScope);
+    // number of times a query must have been seen recently before it is admitted to the cache, 0 disables the admission filter
+    public static final Setting<Integer> INDICES_QUERIES_CACHE_ADMISSION_MIN_FREQUENCY_SETTING =
+            Setting.intSetting("indices.queries.cache.admission.min_frequency", 0, 0, QueryFrequencySketch.MAX_FREQUENCY,
+                Property.NodeScope);
+
+    private final LRUQueryCache[] stripes;
     private final ShardCoreKeyMap shardKeyMap = new ShardCoreKeyMap();
     private final Map<ShardId, Stats> shardStats = new ConcurrentHashMap<>();
-    private volatile long sharedRamBytesUsed;
+    private final AtomicLong sharedRamBytesUsed = new AtomicLong();
+    private final int minAdmissionFrequency;
+    private final QueryFrequencySketch frequencySketch;
 
     // This is a hack for the fact that the close listener for the
     // ShardCoreKeyMap will be called before onDocIdSetEviction
     // See onDocIdSetEviction for more info
-    private final Map<Object, StatsAndCount> stats2 = new IdentityHashMap<>();
+    // Reader core keys are compared by identity, and all entries of a core key live in the same stripe
+    private final Map<Object, StatsAndCount> stats2 = new ConcurrentHashMap<>();
 
     public IndicesQueryCache(Settings settings) {
         super(settings);
         final ByteSizeValue size = INDICES_CACHE_QUERY_SIZE_SETTING.get(settings);
         final int count = INDICES_CACHE_QUERY_COUNT_SETTING.get(settings);
-        logger.debug("using [node] query cache with size [{}] max filter count [{}]",
-                size, count);
-        if (INDICES_QUERIES_CACHE_ALL_SEGMENTS_SETTING.get(settings)) {
-            cache = new ElasticsearchLRUQueryCache(count, size.getBytes(), context -> true);
-        } else {
-            cache = new ElasticsearchLRUQueryCache(count, size.getBytes());
-        }
-        sharedRamBytesUsed = 0;
+        final int numStripes = INDICES_QUERIES_CACHE_STRIPES_SETTING.get(settings);
+        minAdmissionFrequency = INDICES_QUERIES_CACHE_ADMISSION_MIN_FREQUENCY_SETTING.get(settings);
+        logger.debug("using [node] query cache with size [{}] max filter count [{}] stripes [{}] admission min frequency [{}]",
+                size, count, numStripes, minAdmissionFrequency);
+        final boolean allSegments = INDICES_QUERIES_CACHE_ALL_SEGMENTS_SETTING.get(settings);
+        final int stripeCount = Math.max(1, count / numStripes);
+        final long stripeSize = size.getBytes() / numStripes;
+        stripes = new LRUQueryCache[numStripes];
+        for (int i = 0; i < numStripes; i++) {
+            if (allSegments) {
+                stripes[i] = new ElasticsearchLRUQueryCache(stripeCount, stripeSize, context -> true);
+            } else {
+                stripes[i] = new ElasticsearchLRUQueryCache(stripeCount, stripeSize);
+            }
+        }
+        frequencySketch = minAdmissionFrequency > 0 ? new QueryFrequencySketch(count) : null;
     }
 
     /** Get usage statistics for the given shard. */
@@ -106,7 +128,7 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
         final double weight = totalSize == 0
                 ? 1d / stats.size()
                 : ((double) shardStats.getCacheSize()) / totalSize;
-        final long additionalRamBytesUsed = Math.round(weight * sharedRamBytesUsed);
+        final long additionalRamBytesUsed = Math.round(weight * sharedRamBytesUsed.get());
         shardStats.add(new QueryCacheStats(additionalRamBytesUsed, 0, 0, 0, 0));
         return shardStats;
     }
@@ -114,55 +136,144 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
     @Override
     public Weight doCache(Weight weight, QueryCachingPolicy policy) {
         while (weight instanceof CachingWeightWrapper) {
-            weight = ((CachingWeightWrapper) weight).in;
+            weight = ((CachingWeightWrapper) weight).in[0];
+        }
+        final AdmissionQueryCachingPolicy admissionPolicy = stripes.length == 1 && frequencySketch == null
+            ? null : new AdmissionQueryCachingPolicy(policy);
+        final Weight[] in = new Weight[stripes.length];
+        for (int i = 0; i < stripes.length; i++) {
+            in[i] = stripes[i].doCache(weight, admissionPolicy == null ? policy : admissionPolicy);
         }
-        final Weight in = cache.doCache(weight, policy);
         // We wrap the weight to track the readers it sees and map them with
         // the shards they belong to
-        return new CachingWeightWrapper(in);
+        return new CachingWeightWrapper(in, admissionPolicy);
+    }
+
+    private int stripeIndex(Object coreKey) {
+        return coreKey == null ? 0 : Math.floorMod(coreKey.hashCode(), stripes.length);
+    }
+
+    private LRUQueryCache stripe(Object coreKey) {
+        return stripes[stripeIndex(coreKey)];
     }
 
     private class CachingWeightWrapper extends Weight {
 
-        private final Weight in;
+        // one weight per stripe, all wrapping the same uncached weight
+        private final Weight[] in;
+        private final AdmissionQueryCachingPolicy admissionPolicy;
 
-        protected CachingWeightWrapper(Weight in) {
-            super(in.getQuery());
+        protected CachingWeightWrapper(Weight[] in, AdmissionQueryCachingPolicy admissionPolicy) {
+            super(in[0].getQuery());
             this.in = in;
+            this.admissionPolicy = admissionPolicy;
+        }
+
+        private Weight in(LeafReaderContext context) {
+            if (in.length == 1) {
+                return in[0];
+            }
+            final IndexReader.CacheHelper cacheHelper = context.reader().getCoreCacheHelper();
+            return in[stripeIndex(cacheHelper == null ? null : cacheHelper.getKey())];
+        }
+
+        /**
+         * All leaves seen by a weight belong to the same shard, so admission rejections that the policy recorded
+         * while looking up any of them can be attributed to the shard of the given leaf.
+         */
+        private void onLookup(LeafReaderContext context) {
+            if (admissionPolicy == null) {
+                return;
+            }
+            final long rejected = admissionPolicy.rejectedCount.getAndSet(0);
+            if (rejected > 0) {
+                final IndexReader.CacheHelper cacheHelper = context.reader().getCoreCacheHelper();
+                final ShardId shardId = cacheHelper == null ? null : shardKeyMap.getShardId(cacheHelper.getKey());
+                if (shardId != null) {
+                    getOrCreateStats(shardId).admissionRejectedCount.add(rejected);
+                }
+            }
         }
 
         @Override
         public void extractTerms(Set<Term> terms) {
-            in.extractTerms(terms);
+            in[0].extractTerms(terms);
         }
 
         @Override
         public Explanation explain(LeafReaderContext context, int doc) throws IOException {
             shardKeyMap.add(context.reader());
-            return in.explain(context, doc);
+            return in(context).explain(context, doc);
         }
 
         @Override
         public Scorer scorer(LeafReaderContext context) throws IOException {
             shardKeyMap.add(context.reader());
-            return in.scorer(context);
+            final Scorer scorer = in(context).scorer(context);
+            onLookup(context);
+            return scorer;
         }
 
         @Override
         public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
             shardKeyMap.add(context.reader());
-            return in.scorerSupplier(context);
+            final ScorerSupplier scorerSupplier = in(context).scorerSupplier(context);
+            onLookup(context);
+            return scorerSupplier;
         }
 
         @Override
         public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
             shardKeyMap.add(context.reader());
-            return in.bulkScorer(context);
+            final BulkScorer bulkScorer = in(context).bulkScorer(context);
+            onLookup(context);
+            return bulkScorer;
         }
 
         @Override
         public boolean isCacheable(LeafReaderContext ctx) {
-            return in.isCacheable(ctx);
+            return in(ctx).isCacheable(ctx);
+        }
+    }
+
+    /**
+     * Wraps the caching policy of a single {@link #doCache} call. It makes sure that the wrapped policy sees a single
+     * {@link QueryCachingPolicy#onUse} call even though every stripe reports the use of the query, and if the admission
+     * filter is enabled, only lets the cache store a query once it has been used at least
+     * {@code indices.queries.cache.admission.min_frequency} times recently, as estimated by a node-wide
+     * {@link QueryFrequencySketch}. Queries that are already cached keep being served from the cache since the policy is
+     * only consulted on cache misses.
+     */
+    private class AdmissionQueryCachingPolicy implements QueryCachingPolicy {
+
+        private final QueryCachingPolicy in;
+        private final AtomicBoolean used = new AtomicBoolean();
+        private final AtomicLong rejectedCount = new AtomicLong();
+
+        AdmissionQueryCachingPolicy(QueryCachingPolicy in) {
+            this.in = in;
+        }
+
+        @Override
+        public void onUse(Query query) {
+            if (used.compareAndSet(false, true)) {
+                if (frequencySketch != null) {
+                    frequencySketch.increment(query);
+                }
+                in.onUse(query);
+            }
+        }
+
+        @Override
+        public boolean shouldCache(Query query) throws IOException {
+            if (in.shouldCache(query) == false) {
+                return false;
+            }
+            if (frequencySketch == null || frequencySketch.frequency(query) >= minAdmissionFrequency) {
+                return true;
+            }
+            rejectedCount.incrementAndGet();
+            return false;
         }
     }
 
@@ -170,15 +281,21 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
     public void clearIndex(String index) {
         final Set<Object> coreCacheKeys = shardKeyMap.getCoreKeysForIndex(index);
         for (Object coreKey : coreCacheKeys) {
-            cache.clearCoreCacheKey(coreKey);
+            stripe(coreKey).clearCoreCacheKey(coreKey);
         }
 
         // This cache stores two things: filters, and doc id sets. Calling
         // clear only removes the doc id sets, but if we reach the situation
         // that the cache does not contain any DocIdSet anymore, then it
         // probably means that the user wanted to remove everything.
-        if (cache.getCacheSize() == 0) {
-            cache.clear();
+        long cacheSize = 0;
+        for (LRUQueryCache stripe : stripes) {
+            cacheSize += stripe.getCacheSize();
+        }
+        if (cacheSize == 0) {
+            for (LRUQueryCache stripe : stripes) {
+                stripe.clear();
+            }
         }
     }
 
@@ -187,24 +304,34 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
         assert shardKeyMap.size() == 0 : shardKeyMap.size();
         assert shardStats.isEmpty() : shardStats.keySet();
         assert stats2.isEmpty() : stats2;
-        cache.clear();
+        for (LRUQueryCache stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    private Stats getOrCreateStats(ShardId shardId) {
+        return shardStats.computeIfAbsent(shardId, k -> new Stats());
     }
 
     private static class Stats implements Cloneable {
 
-        volatile long ramBytesUsed;
-        volatile long hitCount;
-        volatile long missCount;
-        volatile long cacheCount;
-        volatile long cacheSize;
+        // stats of a shard are shared by all stripes, so they need to support concurrent updates
+        final LongAdder ramBytesUsed = new LongAdder();
+        final LongAdder hitCount = new LongAdder();
+        final LongAdder missCount = new LongAdder();
+        final LongAdder cacheCount = new LongAdder();
+        final LongAdder cacheSize = new LongAdder();
+        final LongAdder admissionRejectedCount = new LongAdder();
 
         QueryCacheStats toQueryCacheStats() {
-            return new QueryCacheStats(ramBytesUsed, hitCount, missCount, cacheCount, cacheSize);
+            return new QueryCacheStats(ramBytesUsed.sum(), hitCount.sum(), missCount.sum(), cacheCount.sum(), cacheSize.sum(),
+                admissionRejectedCount.sum());
         }
     }
 
     private static class StatsAndCount {
         int count;
+        long ramBytesUsed;
         final Stats stats;
 
         StatsAndCount(Stats stats) {
@@ -217,7 +344,7 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
         if (stats == null) {
             return true;
         }
-        return stats.cacheSize == 0 && stats.ramBytesUsed == 0;
+        return stats.cacheSize.sum() == 0 && stats.ramBytesUsed.sum() == 0;
     }
 
     public void onClose(ShardId shardId) {
@@ -227,6 +354,9 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
 
     private class ElasticsearchLRUQueryCache extends LRUQueryCache {
 
+        // the part of sharedRamBytesUsed that is used by this stripe
+        private long stripeSharedRamBytesUsed;
+
         ElasticsearchLRUQueryCache(int maxSize, long maxRamBytesUsed, Predicate<LeafReaderContext> leavesToCache) {
             super(maxSize, maxRamBytesUsed, leavesToCache);
         }
@@ -245,46 +375,51 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
 
         private Stats getOrCreateStats(Object coreKey) {
             final ShardId shardId = shardKeyMap.getShardId(coreKey);
-            Stats stats = shardStats.get(shardId);
-            if (stats == null) {
-                stats = new Stats();
-                shardStats.put(shardId, stats);
-            }
-            return stats;
+            return IndicesQueryCache.this.getOrCreateStats(shardId);
         }
 
-        // It's ok to not protect these callbacks by a lock since it is
-        // done in LRUQueryCache
+        // These callbacks are protected by the lock of this stripe in
+        // LRUQueryCache. Per-segment state is only ever touched by the
+        // stripe that owns the segment, shared state must be thread-safe.
         @Override
         protected void onClear() {
             super.onClear();
-            for (Stats stats : shardStats.values()) {
-                // don't throw away hit/miss
-                stats.cacheSize = 0;
-                stats.ramBytesUsed = 0;
+            // only the entries of the segments of this stripe are cleared, the other stripes still hold theirs
+            for (Iterator<Map.Entry<Object, StatsAndCount>> it = stats2.entrySet().iterator(); it.hasNext(); ) {
+                final Map.Entry<Object, StatsAndCount> entry = it.next();
+                if (stripe(entry.getKey()) == this) {
+                    final StatsAndCount statsAndCount = entry.getValue();
+                    // don't throw away hit/miss
+                    statsAndCount.stats.cacheSize.add(-statsAndCount.count);
+                    statsAndCount.stats.ramBytesUsed.add(-statsAndCount.ramBytesUsed);
+                    it.remove();
+                }
             }
-            sharedRamBytesUsed = 0;
+            sharedRamBytesUsed.addAndGet(-stripeSharedRamBytesUsed);
+            stripeSharedRamBytesUsed = 0;
         }
 
         @Override
         protected void onQueryCache(Query filter, long ramBytesUsed) {
             super.onQueryCache(filter, ramBytesUsed);
-            sharedRamBytesUsed += ramBytesUsed;
+            stripeSharedRamBytesUsed += ramBytesUsed;
+            sharedRamBytesUsed.addAndGet(ramBytesUsed);
         }
 
         @Override
         protected void onQueryEviction(Query filter, long ramBytesUsed) {
             super.onQueryEviction(filter, ramBytesUsed);
-            sharedRamBytesUsed -= ramBytesUsed;
+            stripeSharedRamBytesUsed -= ramBytesUsed;
+            sharedRamBytesUsed.addAndGet(-ramBytesUsed);
         }
 
         @Override
         protected void onDocIdSetCache(Object readerCoreKey, long ramBytesUsed) {
             super.onDocIdSetCache(readerCoreKey, ramBytesUsed);
             final Stats shardStats = getOrCreateStats(readerCoreKey);
-            shardStats.cacheSize += 1;
-            shardStats.cacheCount += 1;
-            shardStats.ramBytesUsed += ramBytesUsed;
+            shardStats.cacheSize.increment();
+            shardStats.cacheCount.increment();
+            shardStats.ramBytesUsed.add(ramBytesUsed);
 
             StatsAndCount statsAndCount = stats2.get(readerCoreKey);
             if (statsAndCount == null) {
@@ -292,6 +427,7 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
                 stats2.put(readerCoreKey, statsAndCount);
             }
             statsAndCount.count += 1;
+            statsAndCount.ramBytesUsed += ramBytesUsed;
         }
 
         @Override
@@ -308,9 +444,10 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
                 // instead of relying on close listeners
                 final StatsAndCount statsAndCount = stats2.get(readerCoreKey);
                 final Stats shardStats = statsAndCount.stats;
-                shardStats.cacheSize -= numEntries;
-                shardStats.ramBytesUsed -= sumRamBytesUsed;
+                shardStats.cacheSize.add(-numEntries);
+                shardStats.ramBytesUsed.add(-sumRamBytesUsed);
                 statsAndCount.count -= numEntries;
+                statsAndCount.ramBytesUsed -= sumRamBytesUsed;
                 if (statsAndCount.count == 0) {
                     stats2.remove(readerCoreKey);
                 }
@@ -321,14 +458,14 @@ public class IndicesQueryCache extends AbstractComponent implements QueryCache,
         protected void onHit(Object readerCoreKey, Query filter) {
             super.onHit(readerCoreKey, filter);
             final Stats shardStats = getStats(readerCoreKey);
-            shardStats.hitCount += 1;
+            shardStats.hitCount.increment();
         }
 
         @Override
         protected void onMiss(Object readerCoreKey, Query filter) {
             super.onMiss(readerCoreKey, filter);
             final Stats shardStats = getOrCreateStats(readerCoreKey);
-            shardStats.missCount += 1;
+            shardStats.missCount.increment();
         }
     }
 }
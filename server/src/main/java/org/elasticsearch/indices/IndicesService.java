@@ -83,6 +83,8 @@ import org.elasticsearch.index.analysis.AnalysisRegistry;
 import org.elasticsearch.index.cache.request.ShardRequestCache;
 import org.elasticsearch.index.engine.CommitStats;
 import org.elasticsearch.index.engine.EngineFactory;
+import org.elasticsearch.index.engine.FrozenEngine;
+import org.elasticsearch.index.engine.FrozenReaderCache;
 import org.elasticsearch.index.engine.InternalEngineFactory;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
 import org.elasticsearch.index.flush.FlushStats;
@@ -197,6 +199,7 @@ public class IndicesService extends AbstractLifecycleComponent
     private final TimeValue cleanInterval;
     private final IndicesRequestCache indicesRequestCache;
     private final IndicesQueryCache indicesQueryCache;
+    private final FrozenReaderCache frozenReaderCache;
     private final MetaStateService metaStateService;
     private final Collection<Function<IndexSettings, Optional<EngineFactory>>> engineFactoryProviders;
     private final Map<String, Function<IndexSettings, IndexStore>> indexStoreFactories;
@@ -224,6 +227,7 @@ public class IndicesService extends AbstractLifecycleComponent
         this.indexNameExpressionResolver = indexNameExpressionResolver;
         this.indicesRequestCache = new IndicesRequestCache(settings);
         this.indicesQueryCache = new IndicesQueryCache(settings);
+        this.frozenReaderCache = new FrozenReaderCache(settings);
         this.mapperRegistry = mapperRegistry;
         this.namedWriteableRegistry = namedWriteableRegistry;
         indexingMemoryController = new IndexingMemoryController(settings, threadPool,
@@ -285,7 +289,7 @@ public class IndicesService extends AbstractLifecycleComponent
 
     @Override
     protected void doClose() {
-        IOUtils.closeWhileHandlingException(analysisRegistry, indexingMemoryController, indicesFieldDataCache, cacheCleaner, indicesRequestCache, indicesQueryCache);
+        IOUtils.closeWhileHandlingException(analysisRegistry, indexingMemoryController, indicesFieldDataCache, cacheCleaner, indicesRequestCache, indicesQueryCache, frozenReaderCache);
     }
 
     /**
@@ -523,6 +527,12 @@ public class IndicesService extends AbstractLifecycleComponent
                         .map(engineFactoryProvider -> engineFactoryProvider.apply(idxSettings))
                         .filter(maybe -> Objects.requireNonNull(maybe).isPresent())
                         .collect(Collectors.toList());
+        if (FrozenEngine.INDEX_FROZEN_SETTING.get(idxSettings.getSettings())) {
+            if (engineFactories.isEmpty() == false) {
+                throw new IllegalStateException("engine factories provided for frozen index " + idxSettings.getIndex());
+            }
+            return config -> new FrozenEngine(config, frozenReaderCache);
+        }
         if (engineFactories.isEmpty()) {
             return new InternalEngineFactory();
         } else if (engineFactories.size() == 1) {
@@ -38,6 +38,7 @@ import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.fielddata.AtomicFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldData;
@@ -48,6 +49,7 @@ import org.elasticsearch.index.shard.ShardUtils;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.ToLongBiFunction;
 
 public class IndicesFieldDataCache extends AbstractComponent implements RemovalListener<IndicesFieldDataCache.Key, Accountable>, Releasable{
@@ -115,6 +117,8 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
         final String fieldName;
         private final Cache<Key, Accountable> cache;
         private final Listener[] listeners;
+        // the key of the most recently built global field data per shard, used to hand it to the next build
+        private final ConcurrentMap<ShardId, Key> lastGlobalKeys = ConcurrentCollections.newConcurrentMap();
 
         IndexFieldCache(Logger logger,final Cache<Key, Accountable> cache, Index index, String fieldName, Listener... listeners) {
             this.logger = logger;
@@ -162,7 +166,14 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
             final Accountable accountable = cache.computeIfAbsent(key, k -> {
                 ElasticsearchDirectoryReader.addReaderCloseListener(indexReader, IndexFieldCache.this);
                 Collections.addAll(k.listeners, this.listeners);
-                final Accountable ifd = (Accountable) indexFieldData.localGlobalDirect(indexReader);
+                final Key previousKey = shardId == null ? null : lastGlobalKeys.get(shardId);
+                // the previous reader is usually still open while the new one is warmed, so its entry is still cached
+                final Accountable previous = previousKey == null ? null : cache.get(previousKey);
+                final Accountable ifd = (Accountable) indexFieldData.localGlobalDirect(indexReader,
+                    previous instanceof IndexFieldData ? (IndexFieldData<FD>) previous : null);
+                if (shardId != null) {
+                    lastGlobalKeys.put(shardId, k);
+                }
                 for (Listener listener : k.listeners) {
                     try {
                         listener.onCache(shardId, fieldName, ifd);
@@ -178,12 +189,14 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
 
         @Override
         public void onClose(CacheKey key) throws IOException {
+            lastGlobalKeys.values().removeIf(k -> k.readerKey == key);
             cache.invalidate(new Key(this, key, null));
             // don't call cache.cleanUp here as it would have bad performance implications
         }
 
         @Override
         public void clear() {
+            lastGlobalKeys.clear();
             for (Key key : cache.keys()) {
                 if (key.indexCache.index.equals(index)) {
                     cache.invalidate(key);
@@ -195,6 +208,9 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
 
         @Override
         public void clear(String fieldName) {
+            if (this.fieldName.equals(fieldName)) {
+                lastGlobalKeys.clear();
+            }
             for (Key key : cache.keys()) {
                 if (key.indexCache.index.equals(index)) {
                     if (key.indexCache.fieldName.equals(fieldName)) {
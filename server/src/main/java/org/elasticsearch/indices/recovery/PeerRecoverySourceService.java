@@ -172,7 +172,9 @@ public class PeerRecoverySourceService extends AbstractComponent implements Inde
                 final RemoteRecoveryTargetHandler recoveryTarget =
                     new RemoteRecoveryTargetHandler(request.recoveryId(), request.shardId(), transportService,
                         request.targetNode(), recoverySettings, throttleTime -> shard.recoveryStats().addThrottleTime(throttleTime));
-                handler = new RecoverySourceHandler(shard, recoveryTarget, request, recoverySettings.getChunkSize().bytesAsInt());
+                handler = new RecoverySourceHandler(shard, recoveryTarget, request, recoverySettings.getChunkSize().bytesAsInt(),
+                    recoverySettings.getMaxConcurrentFileChunks(), recoverySettings.getMaxConcurrentFiles(),
+                    recoverySettings.getSnapshotRepository(), recoverySettings.getSnapshotRestoreBatchSize());
                 return handler;
             }
         }
@@ -55,6 +55,9 @@ import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.index.translog.TranslogCorruptedException;
 import org.elasticsearch.indices.recovery.RecoveriesCollection.RecoveryRef;
 import org.elasticsearch.node.NodeClosedException;
+import org.elasticsearch.repositories.RepositoriesService;
+import org.elasticsearch.repositories.Repository;
+import org.elasticsearch.repositories.RepositoryMissingException;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.ConnectTransportException;
 import org.elasticsearch.transport.FutureTransportResponseHandler;
@@ -64,7 +67,9 @@ import org.elasticsearch.transport.TransportResponse;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.StringJoiner;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -83,6 +88,7 @@ public class PeerRecoveryTargetService extends AbstractComponent implements Inde
         public static final String FILES_INFO = "internal:index/shard/recovery/filesInfo";
         public static final String FILE_CHUNK = "internal:index/shard/recovery/file_chunk";
         public static final String CLEAN_FILES = "internal:index/shard/recovery/clean_files";
+        public static final String RESTORE_FILES_FROM_REPOSITORY = "internal:index/shard/recovery/restore_files_from_repository";
         public static final String TRANSLOG_OPS = "internal:index/shard/recovery/translog_ops";
         public static final String PREPARE_TRANSLOG = "internal:index/shard/recovery/prepare_translog";
         public static final String FINALIZE = "internal:index/shard/recovery/finalize";
@@ -99,6 +105,8 @@ public class PeerRecoveryTargetService extends AbstractComponent implements Inde
 
     private final RecoveriesCollection onGoingRecoveries;
 
+    private volatile RepositoriesService repositoriesService;
+
     public PeerRecoveryTargetService(Settings settings, ThreadPool threadPool, TransportService transportService, RecoverySettings
             recoverySettings, ClusterService clusterService) {
         super(settings);
@@ -114,6 +122,8 @@ public class PeerRecoveryTargetService extends AbstractComponent implements Inde
                 FileChunkTransportRequestHandler());
         transportService.registerRequestHandler(Actions.CLEAN_FILES, RecoveryCleanFilesRequest::new, ThreadPool.Names.GENERIC, new
                 CleanFilesRequestHandler());
+        transportService.registerRequestHandler(Actions.RESTORE_FILES_FROM_REPOSITORY, RecoveryRestoreFilesFromRepositoryRequest::new,
+                ThreadPool.Names.GENERIC, new RestoreFilesFromRepositoryRequestHandler());
         transportService.registerRequestHandler(Actions.PREPARE_TRANSLOG, ThreadPool.Names.GENERIC,
             RecoveryPrepareForTranslogOperationsRequest::new, new PrepareForTranslogOperationsRequestHandler());
         transportService.registerRequestHandler(Actions.TRANSLOG_OPS, RecoveryTranslogOperationsRequest::new, ThreadPool.Names.GENERIC,
@@ -129,6 +139,13 @@ public class PeerRecoveryTargetService extends AbstractComponent implements Inde
                 new HandoffPrimaryContextRequestHandler());
     }
 
+    /**
+     * Sets the service that the repositories are looked up in that recovery sources ask us to restore files from.
+     */
+    public void setRepositoriesService(RepositoriesService repositoriesService) {
+        this.repositoriesService = repositoriesService;
+    }
+
     @Override
     public void beforeIndexShardClosed(ShardId shardId, @Nullable IndexShard indexShard, Settings indexSettings) {
         if (indexShard != null) {
@@ -560,6 +577,38 @@ public class PeerRecoveryTargetService extends AbstractComponent implements Inde
         }
     }
 
+    class RestoreFilesFromRepositoryRequestHandler implements TransportRequestHandler<RecoveryRestoreFilesFromRepositoryRequest> {
+
+        @Override
+        public void messageReceived(RecoveryRestoreFilesFromRepositoryRequest request, TransportChannel channel) throws Exception {
+            try (RecoveryRef recoveryRef = onGoingRecoveries.getRecoverySafe(request.recoveryId(), request.shardId())) {
+                final Repository repository = getRepository(request.repository());
+                final Set<String> restoredFiles;
+                if (repository == null) {
+                    restoredFiles = Collections.emptySet();
+                } else {
+                    restoredFiles = recoveryRef.target().restoreFilesFromRepository(repository, request.files(),
+                        request.totalTranslogOps());
+                }
+                channel.sendResponse(new RecoveryRestoreFilesFromRepositoryResponse(restoredFiles));
+            }
+        }
+
+        @Nullable
+        private Repository getRepository(String name) {
+            final RepositoriesService repositoriesService = PeerRecoveryTargetService.this.repositoriesService;
+            if (repositoriesService == null) {
+                return null;
+            }
+            try {
+                return repositoriesService.repository(name);
+            } catch (RepositoryMissingException e) {
+                logger.debug("can't restore recovery files from missing repository [{}]", name);
+                return null;
+            }
+        }
+    }
+
     class FileChunkTransportRequestHandler implements TransportRequestHandler<RecoveryFileChunkRequest> {
 
         // How many bytes we've copied since we last called RateLimiter.pause
@@ -0,0 +1,62 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.transport.FutureTransportResponseHandler;
+import org.elasticsearch.transport.TransportResponse;
+import org.elasticsearch.transport.TransportResponseHandler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+public class RecoveryRestoreFilesFromRepositoryResponse extends TransportResponse {
+
+    Set<String> restoredFiles;
+
+    RecoveryRestoreFilesFromRepositoryResponse() {
+
+    }
+
+    RecoveryRestoreFilesFromRepositoryResponse(final Set<String> restoredFiles) {
+        this.restoredFiles = restoredFiles;
+    }
+
+    @Override
+    public void writeTo(final StreamOutput out) throws IOException {
+        out.writeStringList(new ArrayList<>(restoredFiles));
+    }
+
+    @Override
+    public void readFrom(final StreamInput in) throws IOException {
+        restoredFiles = new HashSet<>(in.readList(StreamInput::readString));
+    }
+
+    static TransportResponseHandler<RecoveryRestoreFilesFromRepositoryResponse> HANDLER =
+            new FutureTransportResponseHandler<RecoveryRestoreFilesFromRepositoryResponse>() {
+                @Override
+                public RecoveryRestoreFilesFromRepositoryResponse newInstance() {
+                    return new RecoveryRestoreFilesFromRepositoryResponse();
+                }
+            };
+}
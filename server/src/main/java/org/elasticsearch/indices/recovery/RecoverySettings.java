@@ -21,6 +21,8 @@ package org.elasticsearch.indices.recovery;
 
 import org.apache.lucene.store.RateLimiter;
 import org.apache.lucene.store.RateLimiter.SimpleRateLimiter;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Setting;
@@ -72,6 +74,34 @@ public class RecoverySettings extends AbstractComponent {
             INDICES_RECOVERY_INTERNAL_LONG_ACTION_TIMEOUT_SETTING::get, TimeValue.timeValueSeconds(0),
             Property.Dynamic, Property.NodeScope);
 
+    /**
+     * The number of file chunk requests that a recovery source sends without waiting for their acknowledgements. Chunk
+     * requests are still throttled by {@link #INDICES_RECOVERY_MAX_BYTES_PER_SEC_SETTING}.
+     */
+    public static final Setting<Integer> INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING =
+        Setting.intSetting("indices.recovery.max_concurrent_file_chunks", 1, 1, 8, Property.Dynamic, Property.NodeScope);
+
+    /**
+     * The number of files that a recovery source streams at the same time, interleaving their chunks.
+     */
+    public static final Setting<Integer> INDICES_RECOVERY_MAX_CONCURRENT_FILES_SETTING =
+        Setting.intSetting("indices.recovery.max_concurrent_files", 1, 1, 8, Property.Dynamic, Property.NodeScope);
+
+    /**
+     * The snapshot repository that recovery targets restore files from if the snapshots of the shard contain them, so that
+     * the recovery source only needs to send the files that are not in any snapshot. Disabled if empty.
+     */
+    public static final Setting<String> INDICES_RECOVERY_SNAPSHOT_REPOSITORY_SETTING =
+        Setting.simpleString("indices.recovery.snapshot_repository", Property.Dynamic, Property.NodeScope);
+
+    /**
+     * The number of files that a recovery source asks the recovery target to restore from
+     * {@link #INDICES_RECOVERY_SNAPSHOT_REPOSITORY_SETTING} per request. Every request has to complete within
+     * {@link #INDICES_RECOVERY_INTERNAL_LONG_ACTION_TIMEOUT_SETTING}.
+     */
+    public static final Setting<Integer> INDICES_RECOVERY_SNAPSHOT_RESTORE_BATCH_SIZE_SETTING =
+        Setting.intSetting("indices.recovery.snapshot_restore_batch_size", 10, 1, Property.Dynamic, Property.NodeScope);
+
     public static final ByteSizeValue DEFAULT_CHUNK_SIZE = new ByteSizeValue(512, ByteSizeUnit.KB);
 
     private volatile ByteSizeValue maxBytesPerSec;
@@ -81,6 +111,10 @@ public class RecoverySettings extends AbstractComponent {
     private volatile TimeValue activityTimeout;
     private volatile TimeValue internalActionTimeout;
     private volatile TimeValue internalActionLongTimeout;
+    private volatile int maxConcurrentFileChunks;
+    private volatile int maxConcurrentFiles;
+    private volatile String snapshotRepository;
+    private volatile int snapshotRestoreBatchSize;
 
     private volatile ByteSizeValue chunkSize = DEFAULT_CHUNK_SIZE;
 
@@ -96,6 +130,10 @@ public class RecoverySettings extends AbstractComponent {
         this.internalActionLongTimeout = INDICES_RECOVERY_INTERNAL_LONG_ACTION_TIMEOUT_SETTING.get(settings);
 
         this.activityTimeout = INDICES_RECOVERY_ACTIVITY_TIMEOUT_SETTING.get(settings);
+        this.maxConcurrentFileChunks = INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING.get(settings);
+        this.maxConcurrentFiles = INDICES_RECOVERY_MAX_CONCURRENT_FILES_SETTING.get(settings);
+        setSnapshotRepository(INDICES_RECOVERY_SNAPSHOT_REPOSITORY_SETTING.get(settings));
+        this.snapshotRestoreBatchSize = INDICES_RECOVERY_SNAPSHOT_RESTORE_BATCH_SIZE_SETTING.get(settings);
         this.maxBytesPerSec = INDICES_RECOVERY_MAX_BYTES_PER_SEC_SETTING.get(settings);
         if (maxBytesPerSec.getBytes() <= 0) {
             rateLimiter = null;
@@ -112,6 +150,10 @@ public class RecoverySettings extends AbstractComponent {
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_INTERNAL_ACTION_TIMEOUT_SETTING, this::setInternalActionTimeout);
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_INTERNAL_LONG_ACTION_TIMEOUT_SETTING, this::setInternalActionLongTimeout);
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_ACTIVITY_TIMEOUT_SETTING, this::setActivityTimeout);
+        clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING, this::setMaxConcurrentFileChunks);
+        clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_MAX_CONCURRENT_FILES_SETTING, this::setMaxConcurrentFiles);
+        clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_SNAPSHOT_REPOSITORY_SETTING, this::setSnapshotRepository);
+        clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_SNAPSHOT_RESTORE_BATCH_SIZE_SETTING, this::setSnapshotRestoreBatchSize);
     }
 
     public RateLimiter rateLimiter() {
@@ -138,6 +180,27 @@ public class RecoverySettings extends AbstractComponent {
         return internalActionLongTimeout;
     }
 
+    public int getMaxConcurrentFileChunks() {
+        return maxConcurrentFileChunks;
+    }
+
+    public int getMaxConcurrentFiles() {
+        return maxConcurrentFiles;
+    }
+
+    /**
+     * Returns the snapshot repository that recovery targets restore files from or {@code null} if files are not restored
+     * from a snapshot repository.
+     */
+    @Nullable
+    public String getSnapshotRepository() {
+        return snapshotRepository;
+    }
+
+    public int getSnapshotRestoreBatchSize() {
+        return snapshotRestoreBatchSize;
+    }
+
     public ByteSizeValue getChunkSize() { return chunkSize; }
 
     public void setChunkSize(ByteSizeValue chunkSize) { // only settable for tests
@@ -168,6 +231,22 @@ public class RecoverySettings extends AbstractComponent {
         this.internalActionLongTimeout = internalActionLongTimeout;
     }
 
+    private void setMaxConcurrentFileChunks(int maxConcurrentFileChunks) {
+        this.maxConcurrentFileChunks = maxConcurrentFileChunks;
+    }
+
+    private void setMaxConcurrentFiles(int maxConcurrentFiles) {
+        this.maxConcurrentFiles = maxConcurrentFiles;
+    }
+
+    private void setSnapshotRepository(String snapshotRepository) {
+        this.snapshotRepository = Strings.hasLength(snapshotRepository) ? snapshotRepository : null;
+    }
+
+    private void setSnapshotRestoreBatchSize(int snapshotRestoreBatchSize) {
+        this.snapshotRestoreBatchSize = snapshotRestoreBatchSize;
+    }
+
     private void setMaxBytesPerSec(ByteSizeValue maxBytesPerSec) {
         this.maxBytesPerSec = maxBytesPerSec;
         if (maxBytesPerSec.getBytes() <= 0) {
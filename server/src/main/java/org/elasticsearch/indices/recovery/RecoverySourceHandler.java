@@ -29,6 +29,7 @@ import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.RateLimiter;
 import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
@@ -37,6 +38,7 @@ import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.StopWatch;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.lucene.store.InputStreamIndexInput;
@@ -64,11 +66,17 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.StreamSupport;
@@ -93,6 +101,11 @@ public class RecoverySourceHandler {
     // Request containing source and target node information
     private final StartRecoveryRequest request;
     private final int chunkSizeInBytes;
+    private final int maxConcurrentFileChunks;
+    private final int maxConcurrentFiles;
+    @Nullable
+    private final String snapshotRepository;
+    private final int snapshotRestoreBatchSize;
     private final RecoveryTargetHandler recoveryTarget;
 
     protected final RecoveryResponse response;
@@ -116,12 +129,34 @@ public class RecoverySourceHandler {
     public RecoverySourceHandler(final IndexShard shard, RecoveryTargetHandler recoveryTarget,
                                  final StartRecoveryRequest request,
                                  final int fileChunkSizeInBytes) {
+        this(shard, recoveryTarget, request, fileChunkSizeInBytes, 1, 1);
+    }
+
+    public RecoverySourceHandler(final IndexShard shard, RecoveryTargetHandler recoveryTarget,
+                                 final StartRecoveryRequest request,
+                                 final int fileChunkSizeInBytes, final int maxConcurrentFileChunks, final int maxConcurrentFiles) {
+        this(shard, recoveryTarget, request, fileChunkSizeInBytes, maxConcurrentFileChunks, maxConcurrentFiles, null, 1);
+    }
+
+    /**
+     * @param snapshotRepository the repository that the target should restore the files from that are unchanged since a
+     *                           snapshot of the shard, or {@code null} if all files are sent by this handler
+     * @param snapshotRestoreBatchSize the number of files that the target is asked to restore per request
+     */
+    public RecoverySourceHandler(final IndexShard shard, RecoveryTargetHandler recoveryTarget,
+                                 final StartRecoveryRequest request,
+                                 final int fileChunkSizeInBytes, final int maxConcurrentFileChunks, final int maxConcurrentFiles,
+                                 @Nullable final String snapshotRepository, final int snapshotRestoreBatchSize) {
         this.shard = shard;
         this.recoveryTarget = recoveryTarget;
         this.request = request;
         this.shardId = this.request.shardId().id();
         this.logger = Loggers.getLogger(getClass(), request.shardId(), "recover to " + request.targetNode().getName());
         this.chunkSizeInBytes = fileChunkSizeInBytes;
+        this.maxConcurrentFileChunks = maxConcurrentFileChunks;
+        this.maxConcurrentFiles = maxConcurrentFiles;
+        this.snapshotRepository = snapshotRepository;
+        this.snapshotRestoreBatchSize = snapshotRestoreBatchSize;
         this.response = new RecoveryResponse();
     }
 
@@ -364,10 +399,34 @@ public class RecoverySourceHandler {
                 cancellableThreads.execute(() ->
                         recoveryTarget.receiveFileInfo(response.phase1FileNames, response.phase1FileSizes, response.phase1ExistingFileNames,
                                 response.phase1ExistingFileSizes, translogOps.get()));
-                // How many bytes we've copied since we last called RateLimiter.pause
-                final Function<StoreFileMetaData, OutputStream> outputStreamFactories =
-                        md -> new BufferedOutputStream(new RecoveryOutputStream(md, translogOps), chunkSizeInBytes);
-                sendFiles(store, phase1Files.toArray(new StoreFileMetaData[phase1Files.size()]), outputStreamFactories);
+                if (snapshotRepository != null && phase1Files.isEmpty() == false) {
+                    // let the target restore the files that are unchanged since a snapshot from the repository and only
+                    // send the remaining files ourselves; the files are restored in batches so that every request
+                    // completes within the internal action timeout
+                    final Set<String> restoredFiles = new HashSet<>();
+                    for (int from = 0; from < phase1Files.size(); from += snapshotRestoreBatchSize) {
+                        final List<StoreFileMetaData> filesToRestore = Collections.unmodifiableList(
+                            new ArrayList<>(phase1Files.subList(from, Math.min(phase1Files.size(), from + snapshotRestoreBatchSize))));
+                        final SetOnce<Set<String>> restoredBatch = new SetOnce<>();
+                        cancellableThreads.executeIO(() -> restoredBatch.set(
+                            recoveryTarget.restoreFilesFromRepository(snapshotRepository, filesToRestore, translogOps.get())));
+                        restoredFiles.addAll(restoredBatch.get());
+                    }
+                    if (restoredFiles.isEmpty() == false) {
+                        logger.debug("recovery [phase1]: target restored [{}] of [{}] files from repository [{}]",
+                            restoredFiles.size(), phase1Files.size(), snapshotRepository);
+                        phase1Files.removeIf(md -> restoredFiles.contains(md.name()));
+                    }
+                }
+                final StoreFileMetaData[] filesToSend = phase1Files.toArray(new StoreFileMetaData[phase1Files.size()]);
+                if (maxConcurrentFileChunks == 1 && maxConcurrentFiles == 1) {
+                    // How many bytes we've copied since we last called RateLimiter.pause
+                    final Function<StoreFileMetaData, OutputStream> outputStreamFactories =
+                            md -> new BufferedOutputStream(new RecoveryOutputStream(md, translogOps), chunkSizeInBytes);
+                    sendFiles(store, filesToSend, outputStreamFactories);
+                } else {
+                    sendFilesConcurrently(store, filesToSend, translogOps);
+                }
                 // Send the CLEAN_FILES request, which takes all of the files that
                 // were transferred and renames them from their temporary file
                 // names to the actual file names. It also writes checksums for
@@ -679,31 +738,136 @@ public class RecoverySourceHandler {
                     // exceptions during close correctly and doesn't hide the original exception.
                     Streams.copy(new InputStreamIndexInput(indexInput, md.length()), outputStreamFactory.apply(md));
                 } catch (Exception e) {
-                    final IOException corruptIndexException;
-                    if ((corruptIndexException = ExceptionsHelper.unwrapCorruption(e)) != null) {
-                        if (store.checkIntegrityNoException(md) == false) { // we are corrupted on the primary -- fail!
-                            logger.warn("{} Corrupted file detected {} checksum mismatch", shardId, md);
-                            failEngine(corruptIndexException);
-                            throw corruptIndexException;
-                        } else { // corruption has happened on the way to replica
-                            RemoteTransportException exception = new RemoteTransportException("File corruption occurred on recovery but " +
-                                    "checksums are ok", null);
-                            exception.addSuppressed(e);
-                            logger.warn(() -> new ParameterizedMessage(
-                                    "{} Remote file corruption on node {}, recovering {}. local checksum OK",
-                                    shardId, request.targetNode(), md), corruptIndexException);
-                            throw exception;
-                        }
-                    } else {
-                        throw e;
+                    throw handleErrorOnSendFiles(store, e, md);
+                }
+            }
+        } finally {
+            store.decRef();
+        }
+    }
+
+    /**
+     * Sends the given files while streaming up to {@code maxConcurrentFiles} of them at the same time and keeping up to
+     * {@code maxConcurrentFileChunks} chunk requests in flight. The chunks of the open files are read in turns and share
+     * the window of in-flight chunks, so that the next chunks are read and sent while earlier ones are on the wire
+     * instead of waiting for the acknowledgement of every single chunk. Sending is still throttled by the recovery rate
+     * limiter. Returns once all chunks were acknowledged by the target, or fails on the first chunk that failed.
+     */
+    void sendFilesConcurrently(Store store, StoreFileMetaData[] files, Supplier<Integer> translogOps) throws Exception {
+        final Semaphore inFlightChunks = new Semaphore(maxConcurrentFileChunks);
+        final AtomicReference<Tuple<StoreFileMetaData, Exception>> chunkFailure = new AtomicReference<>();
+        final List<FileChunkReader> openFiles = new ArrayList<>(maxConcurrentFiles);
+        store.incRef();
+        try {
+            ArrayUtil.timSort(files, Comparator.comparingLong(StoreFileMetaData::length)); // send smallest first
+            int nextFile = 0;
+            while (nextFile < files.length || openFiles.isEmpty() == false) {
+                while (openFiles.size() < maxConcurrentFiles && nextFile < files.length) {
+                    final StoreFileMetaData md = files[nextFile++];
+                    try {
+                        openFiles.add(new FileChunkReader(md, store.directory().openInput(md.name(), IOContext.READONCE)));
+                    } catch (Exception e) {
+                        throw handleErrorOnSendFiles(store, e, md);
+                    }
+                }
+                for (Iterator<FileChunkReader> iterator = openFiles.iterator(); iterator.hasNext(); ) {
+                    final FileChunkReader reader = iterator.next();
+                    cancellableThreads.execute(inFlightChunks::acquire);
+                    final Tuple<StoreFileMetaData, Exception> failure = chunkFailure.get();
+                    if (failure != null) {
+                        throw handleErrorOnSendFiles(store, failure.v2(), failure.v1());
+                    }
+                    final long position = reader.position;
+                    final BytesArray content;
+                    try {
+                        content = reader.readNextChunk();
+                    } catch (Exception e) {
+                        throw handleErrorOnSendFiles(store, e, reader.md);
+                    }
+                    final boolean lastChunk = reader.isFullyRead();
+                    final ActionListener<Void> listener = ActionListener.wrap(r -> inFlightChunks.release(), e -> {
+                        chunkFailure.compareAndSet(null, Tuple.tuple(reader.md, e));
+                        inFlightChunks.release();
+                    });
+                    cancellableThreads.execute(() ->
+                        recoveryTarget.writeFileChunk(reader.md, position, content, lastChunk, translogOps.get(), listener));
+                    if (shard.state() == IndexShardState.CLOSED) { // check if the shard got closed on us
+                        throw new IndexShardClosedException(request.shardId());
+                    }
+                    if (lastChunk) {
+                        reader.close();
+                        iterator.remove();
                     }
                 }
             }
+            // wait for the acknowledgements of the chunks that are still in flight
+            cancellableThreads.execute(() -> inFlightChunks.acquire(maxConcurrentFileChunks));
+            inFlightChunks.release(maxConcurrentFileChunks);
+            final Tuple<StoreFileMetaData, Exception> failure = chunkFailure.get();
+            if (failure != null) {
+                throw handleErrorOnSendFiles(store, failure.v2(), failure.v1());
+            }
         } finally {
+            IOUtils.closeWhileHandlingException(openFiles);
             store.decRef();
         }
     }
 
+    /**
+     * Returns the exception to fail the file transfer with after sending the given file failed with the given exception
+     */
+    private Exception handleErrorOnSendFiles(Store store, Exception e, StoreFileMetaData md) {
+        final IOException corruptIndexException;
+        if ((corruptIndexException = ExceptionsHelper.unwrapCorruption(e)) != null) {
+            if (store.checkIntegrityNoException(md) == false) { // we are corrupted on the primary -- fail!
+                logger.warn("{} Corrupted file detected {} checksum mismatch", shardId, md);
+                failEngine(corruptIndexException);
+                return corruptIndexException;
+            } else { // corruption has happened on the way to replica
+                RemoteTransportException exception = new RemoteTransportException("File corruption occurred on recovery but " +
+                        "checksums are ok", null);
+                exception.addSuppressed(e);
+                logger.warn(() -> new ParameterizedMessage(
+                        "{} Remote file corruption on node {}, recovering {}. local checksum OK",
+                        shardId, request.targetNode(), md), corruptIndexException);
+                return exception;
+            }
+        } else {
+            return e;
+        }
+    }
+
+    /**
+     * Reads a file that is sent with {@link #sendFilesConcurrently} chunk by chunk.
+     */
+    private final class FileChunkReader implements Closeable {
+        final StoreFileMetaData md;
+        final IndexInput indexInput;
+        long position = 0;
+
+        FileChunkReader(StoreFileMetaData md, IndexInput indexInput) {
+            this.md = md;
+            this.indexInput = indexInput;
+        }
+
+        BytesArray readNextChunk() throws IOException {
+            final int length = (int) Math.min(chunkSizeInBytes, md.length() - position);
+            final byte[] buffer = new byte[length];
+            indexInput.readBytes(buffer, 0, length);
+            position += length;
+            return new BytesArray(buffer);
+        }
+
+        boolean isFullyRead() {
+            return position >= md.length();
+        }
+
+        @Override
+        public void close() throws IOException {
+            indexInput.close();
+        }
+    }
+
     protected void failEngine(IOException cause) {
         shard.failShard("recovery", cause);
     }
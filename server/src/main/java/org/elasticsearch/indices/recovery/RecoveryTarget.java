@@ -33,12 +33,14 @@ import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.util.CancellableThreads;
 import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.mapper.MapperException;
 import org.elasticsearch.index.seqno.ReplicationTracker;
@@ -50,15 +52,20 @@ import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.repositories.Repository;
+import org.elasticsearch.repositories.blobstore.BlobStoreRepository;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -98,6 +105,10 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
     private final CountDownLatch closedLatch = new CountDownLatch(1);
 
     private final Map<String, String> tempFileNames = ConcurrentCollections.newConcurrentMap();
+    private final ConcurrentMap<String, PendingFileChunks> pendingFileChunks = ConcurrentCollections.newConcurrentMap();
+    // the snapshots of the shard per repository that files are restored from, which are loaded once for all restore requests
+    private final ConcurrentMap<String, BlobStoreRepository.ShardSnapshotFiles> shardSnapshotFiles =
+        ConcurrentCollections.newConcurrentMap();
 
     /**
      * Creates a new recovery target object that represents a recovery to the provided shard.
@@ -333,6 +344,7 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
                 }
                 iterator.remove();
             }
+            pendingFileChunks.clear();
             // trash temporary files
             for (String file : tempFileNames.keySet()) {
                 logger.trace("cleaning temporary file [{}]", file);
@@ -490,9 +502,84 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
     @Override
     public void writeFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content,
                                boolean lastChunk, int totalTranslogOps) throws IOException {
-        final Store store = store();
+        state().getTranslog().totalOperations(totalTranslogOps);
         final String name = fileMetaData.name();
+        final PendingFileChunks pending = pendingFileChunks.computeIfAbsent(name, k -> new PendingFileChunks());
+        synchronized (pending) {
+            if (position != pending.nextPosition) {
+                // the source has several chunks of this file in flight and this one overtook an earlier one; the content may
+                // be backed by a network buffer that is released once this call returns, so we hold on to a copy of it
+                assert position > pending.nextPosition : "chunk at [" + position + "] of [" + name + "] was already written";
+                pending.chunks.add(new FileChunk(position, new BytesArray(BytesReference.toBytes(content)), lastChunk));
+                return;
+            }
+            innerWriteFileChunk(fileMetaData, position, content, lastChunk);
+            pending.nextPosition += content.length();
+            FileChunk next;
+            while ((next = pending.chunks.peek()) != null && next.position == pending.nextPosition) {
+                pending.chunks.poll();
+                innerWriteFileChunk(fileMetaData, next.position, next.content, next.lastChunk);
+                pending.nextPosition += next.content.length();
+            }
+            if (pending.nextPosition >= fileMetaData.length() && pending.chunks.isEmpty()) {
+                pendingFileChunks.remove(name);
+            }
+        }
+    }
+
+    /**
+     * Restores the given files from the snapshots of this shard in the given repository instead of receiving them from the
+     * recovery source. Files that are not in any snapshot, or whose restore failed, are left for the source to send. The
+     * snapshots of the shard are only loaded from the repository by the first request of a recovery.
+     *
+     * @return the names of the files that were restored
+     */
+    public Set<String> restoreFilesFromRepository(Repository repository, List<StoreFileMetaData> files,
+                                                  int totalTranslogOps) throws IOException {
+        if (repository instanceof BlobStoreRepository == false) {
+            return Collections.emptySet();
+        }
         state().getTranslog().totalOperations(totalTranslogOps);
+        final BlobStoreRepository blobStoreRepository = (BlobStoreRepository) repository;
+        final BlobStoreRepository.ShardSnapshotFiles snapshotFiles = shardSnapshotFiles.computeIfAbsent(
+            repository.getMetadata().name(), name -> blobStoreRepository.loadShardSnapshotFiles(shardId()));
+        return blobStoreRepository.readShardFilesFromSnapshots(indexShard, snapshotFiles, files,
+            new BlobStoreRepository.ShardFileConsumer() {
+                @Override
+                public void writeFileChunk(StoreFileMetaData md, long position, BytesReference content,
+                                           boolean lastChunk) throws IOException {
+                    // restoring runs within a single request, so we report progress to the recovery monitor ourselves
+                    setLastAccessTime();
+                    RecoveryTarget.this.writeFileChunk(md, position, content, lastChunk, totalTranslogOps);
+                }
+
+                @Override
+                public void discardFile(StoreFileMetaData md, Exception e) {
+                    RecoveryTarget.this.discardFile(md.name());
+                }
+            });
+    }
+
+    /**
+     * Drops whatever was written of the given file so that it can be received again from its start.
+     */
+    private void discardFile(String name) {
+        pendingFileChunks.remove(name);
+        final IndexOutput indexOutput = removeOpenIndexOutputs(name);
+        if (indexOutput != null) {
+            IOUtils.closeWhileHandlingException(indexOutput);
+        }
+        final String tempFileName = getTempNameForFile(name);
+        if (tempFileNames.remove(tempFileName) != null) {
+            store.deleteQuiet(tempFileName);
+        }
+        state().getIndex().resetRecoveredBytesOfFile(name);
+    }
+
+    private void innerWriteFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content,
+                                     boolean lastChunk) throws IOException {
+        final Store store = store();
+        final String name = fileMetaData.name();
         final RecoveryState.Index indexState = state().getIndex();
         IndexOutput indexOutput;
         if (position == 0) {
@@ -522,6 +609,24 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
         }
     }
 
+    private static final class FileChunk {
+        final long position;
+        final BytesReference content;
+        final boolean lastChunk;
+
+        FileChunk(long position, BytesReference content, boolean lastChunk) {
+            this.position = position;
+            this.content = content;
+            this.lastChunk = lastChunk;
+        }
+    }
+
+    /** The chunks of a file that were received ahead of the position that is written next. */
+    private static final class PendingFileChunks {
+        long nextPosition = 0;
+        final PriorityQueue<FileChunk> chunks = new PriorityQueue<>(Comparator.comparingLong(c -> c.position));
+    }
+
     Path translogLocation() {
         return indexShard().shardPath().resolveTranslog();
     }
@@ -18,6 +18,7 @@
  */
 package org.elasticsearch.indices.recovery;
 
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.index.seqno.ReplicationTracker;
 import org.elasticsearch.index.store.Store;
@@ -25,7 +26,9 @@ import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.index.translog.Translog;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 
 public interface RecoveryTargetHandler {
@@ -93,4 +96,34 @@ public interface RecoveryTargetHandler {
     void writeFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content,
                         boolean lastChunk, int totalTranslogOps) throws IOException;
 
+    /**
+     * Writes a partial file chunk to the target store and notifies the listener once the target acknowledged the chunk.
+     * Callers may have several chunks in flight at the same time, also of the same file, so the target must not rely
+     * on receiving the chunks of a file in order. The default implementation writes the chunk synchronously.
+     */
+    default void writeFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content,
+                                boolean lastChunk, int totalTranslogOps, ActionListener<Void> listener) {
+        try {
+            writeFileChunk(fileMetaData, position, content, lastChunk, totalTranslogOps);
+        } catch (Exception e) {
+            listener.onFailure(e);
+            return;
+        }
+        listener.onResponse(null);
+    }
+
+    /**
+     * Restores files from the snapshots of the shard in the given snapshot repository instead of receiving them from the
+     * source. The default implementation restores no files.
+     *
+     * @param repository       the name of the snapshot repository
+     * @param files            the files the target is going to receive
+     * @param totalTranslogOps total translog operations expected to be sent
+     * @return the names of the files that were restored, all other files are sent by the source
+     */
+    default Set<String> restoreFilesFromRepository(String repository, List<StoreFileMetaData> files,
+                                                   int totalTranslogOps) throws IOException {
+        return Collections.emptySet();
+    }
+
 }
@@ -21,6 +21,9 @@ package org.elasticsearch.indices.recovery;
 
 import org.apache.lucene.store.RateLimiter;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionListenerResponseHandler;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.index.seqno.ReplicationTracker;
@@ -31,10 +34,13 @@ import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.transport.EmptyTransportResponseHandler;
 import org.elasticsearch.transport.TransportFuture;
 import org.elasticsearch.transport.TransportRequestOptions;
+import org.elasticsearch.transport.TransportResponse;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
@@ -135,6 +141,18 @@ public class RemoteRecoveryTargetHandler implements RecoveryTargetHandler {
 
     }
 
+    @Override
+    public Set<String> restoreFilesFromRepository(String repository, List<StoreFileMetaData> files, int totalTranslogOps) {
+        if (targetNode.getVersion().before(Version.V_6_5_0)) {
+            // older nodes can't restore files from a snapshot repository, so we send all files
+            return Collections.emptySet();
+        }
+        return transportService.submitRequest(targetNode, PeerRecoveryTargetService.Actions.RESTORE_FILES_FROM_REPOSITORY,
+                new RecoveryRestoreFilesFromRepositoryRequest(recoveryId, shardId, repository, files, totalTranslogOps),
+                TransportRequestOptions.builder().withTimeout(recoverySettings.internalActionLongTimeout()).build(),
+                RecoveryRestoreFilesFromRepositoryResponse.HANDLER).txGet().restoredFiles;
+    }
+
     @Override
     public void cleanFiles(int totalTranslogOps, Store.MetadataSnapshot sourceMetaData) throws IOException {
         transportService.submitRequest(targetNode, PeerRecoveryTargetService.Actions.CLEAN_FILES,
@@ -146,6 +164,29 @@ public class RemoteRecoveryTargetHandler implements RecoveryTargetHandler {
     @Override
     public void writeFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content, boolean
             lastChunk, int totalTranslogOps) throws IOException {
+        transportService.submitRequest(targetNode, PeerRecoveryTargetService.Actions.FILE_CHUNK,
+            newFileChunkRequest(fileMetaData, position, content, lastChunk, totalTranslogOps), fileChunkRequestOptions,
+            EmptyTransportResponseHandler.INSTANCE_SAME).txGet();
+    }
+
+    @Override
+    public void writeFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content, boolean lastChunk,
+                               int totalTranslogOps, ActionListener<Void> listener) {
+        final RecoveryFileChunkRequest request;
+        try {
+            request = newFileChunkRequest(fileMetaData, position, content, lastChunk, totalTranslogOps);
+        } catch (Exception e) {
+            listener.onFailure(e);
+            return;
+        }
+        // the chunk is throttled on the calling thread, so the rate limit is respected no matter how many chunks are in flight
+        transportService.sendRequest(targetNode, PeerRecoveryTargetService.Actions.FILE_CHUNK, request, fileChunkRequestOptions,
+            new ActionListenerResponseHandler<>(ActionListener.wrap(r -> listener.onResponse(null), listener::onFailure),
+                () -> TransportResponse.Empty.INSTANCE));
+    }
+
+    private RecoveryFileChunkRequest newFileChunkRequest(StoreFileMetaData fileMetaData, long position, BytesReference content,
+                                                         boolean lastChunk, int totalTranslogOps) {
         // Pause using the rate limiter, if desired, to throttle the recovery
         final long throttleTimeInNanos;
         // always fetch the ratelimiter - it might be updated in real-time on the recovery settings
@@ -168,14 +209,13 @@ public class RemoteRecoveryTargetHandler implements RecoveryTargetHandler {
             throttleTimeInNanos = 0;
         }
 
-        transportService.submitRequest(targetNode, PeerRecoveryTargetService.Actions.FILE_CHUNK,
-            new RecoveryFileChunkRequest(recoveryId, shardId, fileMetaData, position, content, lastChunk,
-                totalTranslogOps,
-                /* we send estimateTotalOperations with every request since we collect stats on the target and that way we can
-                 * see how many translog ops we accumulate while copying files across the network. A future optimization
-                 * would be in to restart file copy again (new deltas) if we have too many translog ops are piling up.
-                 */
-                throttleTimeInNanos), fileChunkRequestOptions, EmptyTransportResponseHandler.INSTANCE_SAME).txGet();
+        return new RecoveryFileChunkRequest(recoveryId, shardId, fileMetaData, position, content, lastChunk,
+            totalTranslogOps,
+            /* we send estimateTotalOperations with every request since we collect stats on the target and that way we can
+             * see how many translog ops we accumulate while copying files across the network. A future optimization
+             * would be in to restart file copy again (new deltas) if we have too many translog ops are piling up.
+             */
+            throttleTimeInNanos);
     }
 
 }
@@ -23,6 +23,7 @@ import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.FailedNodeException;
 import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.HandledTransportAction;
 import org.elasticsearch.action.support.nodes.BaseNodeRequest;
 import org.elasticsearch.action.support.nodes.BaseNodeResponse;
 import org.elasticsearch.action.support.nodes.BaseNodesRequest;
@@ -42,6 +43,7 @@ import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.gateway.AsyncShardFetch;
+import org.elasticsearch.gateway.BatchedShardLister;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.shard.IndexShard;
@@ -51,6 +53,9 @@ import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportException;
+import org.elasticsearch.transport.TransportRequestOptions;
+import org.elasticsearch.transport.TransportResponseHandler;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
@@ -63,9 +68,11 @@ public class TransportNodesListShardStoreMetaData extends TransportNodesAction<T
     TransportNodesListShardStoreMetaData.NodeRequest,
     TransportNodesListShardStoreMetaData.NodeStoreFilesMetaData>
     implements AsyncShardFetch.Lister<TransportNodesListShardStoreMetaData.NodesStoreFilesMetaData,
-    TransportNodesListShardStoreMetaData.NodeStoreFilesMetaData> {
+    TransportNodesListShardStoreMetaData.NodeStoreFilesMetaData>,
+    BatchedShardLister.NodeLister<TransportNodesListShardStoreMetaData.NodeStoreFilesMetaData> {
 
     public static final String ACTION_NAME = "internal:cluster/nodes/indices/shard/store";
+    public static final String BATCH_ACTION_NAME = ACTION_NAME + "[batch]";
 
     private final IndicesService indicesService;
     private final NodeEnvironment nodeEnv;
@@ -82,6 +89,10 @@ public class TransportNodesListShardStoreMetaData extends TransportNodesAction<T
         this.indicesService = indicesService;
         this.nodeEnv = nodeEnv;
         this.namedXContentRegistry = namedXContentRegistry;
+        // the shards of a batch are listed on the fetch shard store thread pool, see nodeBatchOperation
+        transportService.registerRequestHandler(BATCH_ACTION_NAME, BatchedShardLister.ShardsRequest::new, ThreadPool.Names.SAME,
+            (request, channel) -> nodeBatchOperation(request,
+                new HandledTransportAction.ChannelActionListener<>(channel, BATCH_ACTION_NAME, request)));
     }
 
     @Override
@@ -89,6 +100,47 @@ public class TransportNodesListShardStoreMetaData extends TransportNodesAction<T
         execute(new Request(shardId, nodes), listener);
     }
 
+    @Override
+    public void listOnNode(DiscoveryNode node, List<ShardId> shardIds,
+                           ActionListener<BatchedShardLister.ShardsResponse<NodeStoreFilesMetaData>> listener) {
+        transportService.sendRequest(node, BATCH_ACTION_NAME, new BatchedShardLister.ShardsRequest(shardIds),
+            TransportRequestOptions.EMPTY,
+            new TransportResponseHandler<BatchedShardLister.ShardsResponse<NodeStoreFilesMetaData>>() {
+                @Override
+                public BatchedShardLister.ShardsResponse<NodeStoreFilesMetaData> read(StreamInput in) throws IOException {
+                    return new BatchedShardLister.ShardsResponse<>(in,
+                        i -> new NodeStoreFilesMetaData(node, StoreFilesMetaData.readStoreFilesMetaData(i)));
+                }
+
+                @Override
+                public void handleResponse(BatchedShardLister.ShardsResponse<NodeStoreFilesMetaData> response) {
+                    listener.onResponse(response);
+                }
+
+                @Override
+                public void handleException(TransportException exp) {
+                    listener.onFailure(exp);
+                }
+
+                @Override
+                public String executor() {
+                    return ThreadPool.Names.SAME;
+                }
+            });
+    }
+
+    private void nodeBatchOperation(BatchedShardLister.ShardsRequest request,
+                                    ActionListener<BatchedShardLister.ShardsResponse<NodeStoreFilesMetaData>> listener) {
+        // the node is the same for all shards and is not written for every shard
+        BatchedShardLister.listShards(request.getShardIds(), threadPool.executor(ThreadPool.Names.FETCH_SHARD_STORE), shardId -> {
+            try {
+                return new NodeStoreFilesMetaData(clusterService.localNode(), listStoreMetaData(shardId));
+            } catch (Exception e) {
+                throw new ElasticsearchException("Failed to list store metadata for shard [" + shardId + "]", e);
+            }
+        }, (out, response) -> response.storeFilesMetaData().writeTo(out), listener);
+    }
+
     @Override
     protected NodeRequest newNodeRequest(String nodeId, Request request) {
         return new NodeRequest(nodeId, request);
@@ -19,6 +19,8 @@
 
 package org.elasticsearch.node;
 
+import org.elasticsearch.Version;
+import org.elasticsearch.action.search.SearchHedgingService;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -29,6 +31,7 @@ import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
@@ -38,28 +41,45 @@ import java.util.stream.Collectors;
 /**
  * Class representing statistics about adaptive replica selection. This includes
  * EWMA of queue size, service time, and response time, as well as outgoing
- * searches to each node and the "rank" based on the ARS formula.
+ * searches to each node and the "rank" based on the ARS formula. Also includes
+ * how many search requests to each node were hedged.
  */
 public class AdaptiveSelectionStats implements Writeable, ToXContentFragment {
 
     private final Map<String, Long> clientOutgoingConnections;
     private final Map<String, ResponseCollectorService.ComputedNodeStats> nodeComputedStats;
+    private final Map<String, SearchHedgingService.HedgingStats> nodeHedgingStats;
 
     public AdaptiveSelectionStats(Map<String, Long> clientConnections,
                                   Map<String, ResponseCollectorService.ComputedNodeStats> nodeComputedStats) {
+        this(clientConnections, nodeComputedStats, Collections.emptyMap());
+    }
+
+    public AdaptiveSelectionStats(Map<String, Long> clientConnections,
+                                  Map<String, ResponseCollectorService.ComputedNodeStats> nodeComputedStats,
+                                  Map<String, SearchHedgingService.HedgingStats> nodeHedgingStats) {
         this.clientOutgoingConnections = clientConnections;
         this.nodeComputedStats = nodeComputedStats;
+        this.nodeHedgingStats = nodeHedgingStats;
     }
 
     public AdaptiveSelectionStats(StreamInput in) throws IOException {
         this.clientOutgoingConnections = in.readMap(StreamInput::readString, StreamInput::readLong);
         this.nodeComputedStats = in.readMap(StreamInput::readString, ResponseCollectorService.ComputedNodeStats::new);
+        if (in.getVersion().onOrAfter(Version.V_6_5_0)) {
+            this.nodeHedgingStats = in.readMap(StreamInput::readString, SearchHedgingService.HedgingStats::new);
+        } else {
+            this.nodeHedgingStats = Collections.emptyMap();
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeMap(this.clientOutgoingConnections, StreamOutput::writeString, StreamOutput::writeLong);
         out.writeMap(this.nodeComputedStats, StreamOutput::writeString, (stream, stats) -> stats.writeTo(stream));
+        if (out.getVersion().onOrAfter(Version.V_6_5_0)) {
+            out.writeMap(this.nodeHedgingStats, StreamOutput::writeString, (stream, stats) -> stats.writeTo(stream));
+        }
     }
 
     @Override
@@ -83,6 +103,12 @@ public class AdaptiveSelectionStats implements Writeable, ToXContentFragment {
                 builder.field("avg_response_time_ns", (long) stats.responseTime);
                 builder.field("rank", String.format(Locale.ROOT, "%.1f", stats.rank(outgoingSearches)));
             }
+            SearchHedgingService.HedgingStats hedgingStats = nodeHedgingStats.get(nodeId);
+            if (hedgingStats != null) {
+                builder.field("hedged_searches", hedgingStats.getHedgedRequests());
+                builder.field("hedged_searches_won", hedgingStats.getWonHedgedRequests());
+                builder.field("hedged_searches_rejected", hedgingStats.getRejectedHedgedRequests());
+            }
             builder.endObject();
         }
         builder.endObject();
@@ -103,6 +129,13 @@ public class AdaptiveSelectionStats implements Writeable, ToXContentFragment {
         return nodeComputedStats;
     }
 
+    /**
+     * Returns a map of node id to the hedging stats of search requests sent to that node
+     */
+    public Map<String, SearchHedgingService.HedgingStats> getHedgingStats() {
+        return nodeHedgingStats;
+    }
+
     /**
      * Returns a map of node id to the ranking of the nodes based on the adaptive replica formula
      */
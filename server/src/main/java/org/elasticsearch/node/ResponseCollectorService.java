@@ -19,6 +19,7 @@
 
 package org.elasticsearch.node;
 
+import org.elasticsearch.action.search.SearchHedgingService;
 import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterStateListener;
 import org.elasticsearch.cluster.node.DiscoveryNode;
@@ -32,6 +33,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -93,7 +95,12 @@ public final class ResponseCollectorService extends AbstractComponent implements
     }
 
     public AdaptiveSelectionStats getAdaptiveStats(Map<String, Long> clientSearchConnections) {
-        return new AdaptiveSelectionStats(clientSearchConnections, getAllNodeStatistics());
+        return getAdaptiveStats(clientSearchConnections, Collections.emptyMap());
+    }
+
+    public AdaptiveSelectionStats getAdaptiveStats(Map<String, Long> clientSearchConnections,
+                                                   Map<String, SearchHedgingService.HedgingStats> hedgingStats) {
+        return new AdaptiveSelectionStats(clientSearchConnections, getAllNodeStatistics(), hedgingStats);
     }
 
     /**
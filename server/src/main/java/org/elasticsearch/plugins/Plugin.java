@@ -43,6 +43,7 @@ import org.elasticsearch.discovery.DiscoveryModule;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.index.IndexModule;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.analysis.AnalysisModule;
 import org.elasticsearch.repositories.RepositoriesModule;
 import org.elasticsearch.script.ScriptModule;
@@ -133,6 +134,22 @@ public abstract class Plugin implements Closeable {
         return Collections.emptyList();
     }
 
+    /**
+     * Returns components added by this plugin, for plugins whose components account their memory in the circuit breakers of the
+     * node. By default, this returns the components of {@link #createComponents(Client, ClusterService, ThreadPool,
+     * ResourceWatcherService, ScriptService, NamedXContentRegistry, Environment, NodeEnvironment, NamedWriteableRegistry)}.
+     *
+     * @param circuitBreakerService the service providing the circuit breakers of the node
+     */
+    public Collection<Object> createComponents(Client client, ClusterService clusterService, ThreadPool threadPool,
+                                               ResourceWatcherService resourceWatcherService, ScriptService scriptService,
+                                               NamedXContentRegistry xContentRegistry, Environment environment,
+                                               NodeEnvironment nodeEnvironment, NamedWriteableRegistry namedWriteableRegistry,
+                                               CircuitBreakerService circuitBreakerService) {
+        return createComponents(client, clusterService, threadPool, resourceWatcherService, scriptService, xContentRegistry,
+            environment, nodeEnvironment, namedWriteableRegistry);
+    }
+
     /**
      * Additional node settings loaded by the plugin. Note that settings that are explicit in the nodes settings can't be
      * overwritten with the additional settings. These settings added if they don't exist.
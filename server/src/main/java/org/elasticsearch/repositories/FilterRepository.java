@@ -98,6 +98,11 @@ public class FilterRepository implements Repository {
         return in.getRestoreThrottleTimeInNanos();
     }
 
+    @Override
+    public RepositoryTransferStats getTransferStats() {
+        return in.getTransferStats();
+    }
+
     @Override
     public String startVerification() {
         return in.startVerification();
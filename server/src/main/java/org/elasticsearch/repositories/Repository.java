@@ -153,6 +153,11 @@ public interface Repository extends LifecycleComponent {
      */
     long getRestoreThrottleTimeInNanos();
 
+    /**
+     * Returns statistics about the index files that were transferred to and from this repository on this node
+     */
+    RepositoryTransferStats getTransferStats();
+
 
     /**
      * Verifies repository on the master node and returns the verification token.
@@ -0,0 +1,93 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.repositories;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics about the index files that shard snapshots and restores on this node transferred to and from a repository.
+ * The transfer time is the time that shards spent transferring their files, so the throughput is the average throughput
+ * of a single shard.
+ */
+public final class RepositoryTransferStats {
+
+    public static final RepositoryTransferStats EMPTY = new RepositoryTransferStats(0, 0, 0, 0);
+
+    private final long snapshotBytes;
+    private final long snapshotTimeInNanos;
+    private final long restoreBytes;
+    private final long restoreTimeInNanos;
+
+    public RepositoryTransferStats(long snapshotBytes, long snapshotTimeInNanos, long restoreBytes, long restoreTimeInNanos) {
+        this.snapshotBytes = snapshotBytes;
+        this.snapshotTimeInNanos = snapshotTimeInNanos;
+        this.restoreBytes = restoreBytes;
+        this.restoreTimeInNanos = restoreTimeInNanos;
+    }
+
+    /**
+     * Returns the number of bytes of index files that were uploaded by shard snapshots
+     */
+    public long getSnapshotBytes() {
+        return snapshotBytes;
+    }
+
+    /**
+     * Returns the time that shard snapshots spent uploading index files in nanoseconds
+     */
+    public long getSnapshotTimeInNanos() {
+        return snapshotTimeInNanos;
+    }
+
+    /**
+     * Returns the number of bytes of index files that were downloaded by shard restores
+     */
+    public long getRestoreBytes() {
+        return restoreBytes;
+    }
+
+    /**
+     * Returns the time that shard restores spent downloading index files in nanoseconds
+     */
+    public long getRestoreTimeInNanos() {
+        return restoreTimeInNanos;
+    }
+
+    /**
+     * Returns the average number of bytes per second that a shard snapshot uploaded
+     */
+    public long getSnapshotBytesPerSec() {
+        return bytesPerSec(snapshotBytes, snapshotTimeInNanos);
+    }
+
+    /**
+     * Returns the average number of bytes per second that a shard restore downloaded
+     */
+    public long getRestoreBytesPerSec() {
+        return bytesPerSec(restoreBytes, restoreTimeInNanos);
+    }
+
+    private static long bytesPerSec(long bytes, long timeInNanos) {
+        if (timeInNanos <= 0) {
+            return 0;
+        }
+        return (long) (bytes / (timeInNanos / (double) TimeUnit.SECONDS.toNanos(1)));
+    }
+}
@@ -34,6 +34,7 @@ import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.store.RateLimiter;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.BytesRefIterator;
 import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.ExceptionsHelper;
@@ -44,6 +45,7 @@ import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.metadata.RepositoryMetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Numbers;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.UUIDs;
@@ -51,12 +53,14 @@ import org.elasticsearch.common.blobstore.BlobContainer;
 import org.elasticsearch.common.blobstore.BlobMetaData;
 import org.elasticsearch.common.blobstore.BlobPath;
 import org.elasticsearch.common.blobstore.BlobStore;
+import org.elasticsearch.common.blobstore.MultipartBlobWriter;
 import org.elasticsearch.common.blobstore.fs.FsBlobContainer;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.compress.NotXContentException;
+import org.elasticsearch.common.hash.MessageDigests;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -66,6 +70,7 @@ import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.iterable.Iterables;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
@@ -76,6 +81,7 @@ import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.core.internal.io.Streams;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
@@ -85,6 +91,7 @@ import org.elasticsearch.index.snapshots.IndexShardSnapshotFailedException;
 import org.elasticsearch.index.snapshots.IndexShardSnapshotStatus;
 import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
 import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshots;
+import org.elasticsearch.index.snapshots.blobstore.ContentDefinedChunker;
 import org.elasticsearch.index.snapshots.blobstore.RateLimitingInputStream;
 import org.elasticsearch.index.snapshots.blobstore.SlicedInputStream;
 import org.elasticsearch.index.snapshots.blobstore.SnapshotFiles;
@@ -95,6 +102,7 @@ import org.elasticsearch.repositories.IndexId;
 import org.elasticsearch.repositories.Repository;
 import org.elasticsearch.repositories.RepositoryData;
 import org.elasticsearch.repositories.RepositoryException;
+import org.elasticsearch.repositories.RepositoryTransferStats;
 import org.elasticsearch.repositories.RepositoryVerificationException;
 import org.elasticsearch.snapshots.InvalidSnapshotNameException;
 import org.elasticsearch.snapshots.SnapshotCreationException;
@@ -105,25 +113,32 @@ import org.elasticsearch.snapshots.SnapshotMissingException;
 import org.elasticsearch.snapshots.SnapshotShardFailure;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.io.EOFException;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.DirectoryNotEmptyException;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.NoSuchFileException;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.unmodifiableMap;
-import static org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo.canonicalName;
 
 /**
  * BlobStore - based implementation of Snapshot Repository
@@ -177,6 +192,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
     private static final int BUFFER_SIZE = 4096;
 
+    private static final int READ_SHARD_FILE_CHUNK_SIZE = 512 * 1024;
+
     private static final String SNAPSHOT_PREFIX = "snap-";
 
     private static final String SNAPSHOT_CODEC = "snapshot";
@@ -205,6 +222,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
     private static final String DATA_BLOB_PREFIX = "__";
 
+    private static final String CONTENT_CHUNK_BLOB_PREFIX = DATA_BLOB_PREFIX + "chunk-";
+
     private final RateLimiter snapshotRateLimiter;
 
     private final RateLimiter restoreRateLimiter;
@@ -213,6 +232,21 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
     private final CounterMetric restoreRateLimitingTimeInNanos = new CounterMetric();
 
+    private final CounterMetric snapshotTransferBytes = new CounterMetric();
+
+    private final CounterMetric snapshotTransferTimeInNanos = new CounterMetric();
+
+    private final CounterMetric restoreTransferBytes = new CounterMetric();
+
+    private final CounterMetric restoreTransferTimeInNanos = new CounterMetric();
+
+    private final int maxConcurrentTransfers;
+
+    private final long transferPartSize;
+
+    @Nullable
+    private final ContentDefinedChunker contentChunker;
+
     private ChecksumBlobStoreFormat<MetaData> globalMetaDataFormat;
 
     private ChecksumBlobStoreFormat<IndexMetaData> indexMetaDataFormat;
@@ -244,6 +278,27 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         snapshotRateLimiter = getRateLimiter(metadata.settings(), "max_snapshot_bytes_per_sec", new ByteSizeValue(40, ByteSizeUnit.MB));
         restoreRateLimiter = getRateLimiter(metadata.settings(), "max_restore_bytes_per_sec", new ByteSizeValue(40, ByteSizeUnit.MB));
         readOnly = metadata.settings().getAsBoolean("readonly", false);
+        maxConcurrentTransfers = metadata.settings().getAsInt("max_concurrent_transfers", 1);
+        if (maxConcurrentTransfers < 1) {
+            throw new IllegalArgumentException("max_concurrent_transfers must be at least 1 but was [" + maxConcurrentTransfers + "]");
+        }
+        transferPartSize = metadata.settings().getAsBytesSize("transfer_part_size", new ByteSizeValue(8, ByteSizeUnit.MB)).getBytes();
+        if (transferPartSize <= 0 || transferPartSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("transfer_part_size must be between 1b and 2gb but was [" + transferPartSize + "b]");
+        }
+        if (metadata.settings().getAsBoolean("dedup", false)) {
+            final long dedupChunkSize = metadata.settings().getAsBytesSize("dedup_chunk_size",
+                new ByteSizeValue(1, ByteSizeUnit.MB)).getBytes();
+            if (dedupChunkSize < ContentDefinedChunker.MIN_AVERAGE_CHUNK_SIZE
+                || dedupChunkSize > ContentDefinedChunker.MAX_AVERAGE_CHUNK_SIZE) {
+                throw new IllegalArgumentException("dedup_chunk_size must be between [" + new ByteSizeValue(
+                    ContentDefinedChunker.MIN_AVERAGE_CHUNK_SIZE) + "] and [" + new ByteSizeValue(
+                    ContentDefinedChunker.MAX_AVERAGE_CHUNK_SIZE) + "] but was [" + new ByteSizeValue(dedupChunkSize) + "]");
+            }
+            contentChunker = new ContentDefinedChunker((int) dedupChunkSize);
+        } else {
+            contentChunker = null;
+        }
 
         indexShardSnapshotFormat = new ChecksumBlobStoreFormat<>(SNAPSHOT_CODEC, SNAPSHOT_NAME_FORMAT,
             BlobStoreIndexShardSnapshot::fromXContent, namedXContentRegistry, isCompress());
@@ -613,6 +668,32 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         return restoreRateLimitingTimeInNanos.count();
     }
 
+    @Override
+    public RepositoryTransferStats getTransferStats() {
+        return new RepositoryTransferStats(snapshotTransferBytes.count(), snapshotTransferTimeInNanos.count(),
+            restoreTransferBytes.count(), restoreTransferTimeInNanos.count());
+    }
+
+    /**
+     * Creates the transfers for the files of a shard snapshot or restore, which run on the snapshot thread pool if the
+     * repository allows for concurrent transfers.
+     */
+    private ConcurrentTransfers newTransfers(IndexShard shard) {
+        if (maxConcurrentTransfers == 1) {
+            return new ConcurrentTransfers(Runnable::run, 1);
+        }
+        final ThreadPool threadPool = shard.getThreadPool();
+        final int snapshotThreads = threadPool.info(ThreadPool.Names.SNAPSHOT).getMax();
+        return new ConcurrentTransfers(threadPool.executor(ThreadPool.Names.SNAPSHOT), Math.min(maxConcurrentTransfers, snapshotThreads));
+    }
+
+    /**
+     * Returns whether a blob of the given size is transferred in parts that are transferred concurrently.
+     */
+    private boolean transferInParts(long blobSize, boolean supported) {
+        return supported && maxConcurrentTransfers > 1 && blobSize >= 2 * transferPartSize;
+    }
+
     protected void assertSnapshotOrGenericThread() {
         assert Thread.currentThread().getName().contains(ThreadPool.Names.SNAPSHOT)
             || Thread.currentThread().getName().contains(ThreadPool.Names.GENERIC) :
@@ -848,7 +929,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
     @Override
     public void snapshotShard(IndexShard shard, Store store, SnapshotId snapshotId, IndexId indexId, IndexCommit snapshotIndexCommit,
                               IndexShardSnapshotStatus snapshotStatus) {
-        SnapshotContext snapshotContext = new SnapshotContext(store, snapshotId, indexId, snapshotStatus, System.currentTimeMillis());
+        SnapshotContext snapshotContext =
+            new SnapshotContext(shard, store, snapshotId, indexId, snapshotStatus, System.currentTimeMillis());
         try {
             snapshotContext.snapshot(snapshotIndexCommit);
         } catch (Exception e) {
@@ -871,6 +953,122 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }
     }
 
+    /**
+     * Consumes the files that are read by {@link #readShardFilesFromSnapshots}.
+     */
+    public interface ShardFileConsumer {
+
+        /**
+         * Consumes the next chunk of the given file. The chunks of a file are passed in order but the chunks of different
+         * files may be passed concurrently. The content is only valid until this method returns.
+         */
+        void writeFileChunk(StoreFileMetaData md, long position, BytesReference content, boolean lastChunk) throws IOException;
+
+        /**
+         * Called if reading or consuming the given file failed, after which none of its chunks are passed anymore.
+         */
+        void discardFile(StoreFileMetaData md, Exception e);
+    }
+
+    /**
+     * Loads the snapshots of the given shard in this repository, so that several calls to
+     * {@link #readShardFilesFromSnapshots(IndexShard, ShardSnapshotFiles, List, ShardFileConsumer)} don't each need to
+     * load them. A shard without snapshots, or whose snapshots fail to load, has no snapshotted files.
+     */
+    public ShardSnapshotFiles loadShardSnapshotFiles(ShardId shardId) {
+        try {
+            final IndexId indexId = getRepositoryData().getIndices().get(shardId.getIndexName());
+            if (indexId == null) {
+                return ShardSnapshotFiles.EMPTY;
+            }
+            final Context context = new Context(null, Version.CURRENT, indexId, shardId);
+            return new ShardSnapshotFiles(context, context.loadShardIndex());
+        } catch (Exception e) {
+            logger.debug(() -> new ParameterizedMessage("{} failed to load the snapshots of the shard", shardId), e);
+            return ShardSnapshotFiles.EMPTY;
+        }
+    }
+
+    /**
+     * Reads those of the given files of a shard that are identical to a file in the given snapshots of the shard, which were
+     * loaded by {@link #loadShardSnapshotFiles(ShardId)}. Files that aren't in any snapshot, or that fail to be read or
+     * consumed, are skipped.
+     *
+     * @return the names of the files that were read
+     */
+    public Set<String> readShardFilesFromSnapshots(IndexShard shard, ShardSnapshotFiles snapshotFiles, List<StoreFileMetaData> files,
+                                                   ShardFileConsumer consumer) throws IOException {
+        if (snapshotFiles.shardIndex == null) {
+            return Collections.emptySet();
+        }
+        final ShardId shardId = shard.shardId();
+        final Context context = snapshotFiles.context;
+        final ShardIndex shardIndex = snapshotFiles.shardIndex;
+        final Set<String> readFiles = ConcurrentCollections.newConcurrentSet();
+        final ConcurrentTransfers transfers = newTransfers(shard);
+        final long transferStartNanos = System.nanoTime();
+        long readBytes = 0;
+        try {
+            for (StoreFileMetaData md : files) {
+                final List<BlobStoreIndexShardSnapshot.FileInfo> fileInfos = shardIndex.snapshots.findPhysicalIndexFiles(md.name());
+                if (fileInfos == null) {
+                    continue;
+                }
+                for (BlobStoreIndexShardSnapshot.FileInfo fileInfo : fileInfos) {
+                    if (fileInfo.isSame(md) && (shardIndex.blobs == null || context.snapshotFileExistsInBlobs(fileInfo, shardIndex.blobs))) {
+                        transfers.submit(() -> {
+                            try {
+                                readShardFile(context.blobContainer, fileInfo, md, consumer);
+                                readFiles.add(md.name());
+                            } catch (Exception e) {
+                                logger.debug(() -> new ParameterizedMessage("{} failed to read file [{}] from [{}]",
+                                    shardId, md.name(), fileInfo.name()), e);
+                                consumer.discardFile(md, e);
+                            }
+                        });
+                        readBytes += md.length();
+                        break;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            transfers.onFailure(e);
+        } finally {
+            transfers.awaitCompletion();
+        }
+        restoreTransferBytes.inc(readBytes);
+        restoreTransferTimeInNanos.inc(System.nanoTime() - transferStartNanos);
+        return readFiles;
+    }
+
+    private void readShardFile(BlobContainer blobContainer, BlobStoreIndexShardSnapshot.FileInfo fileInfo, StoreFileMetaData md,
+                               ShardFileConsumer consumer) throws IOException {
+        try (InputStream partSliceStream = new PartSliceStream(blobContainer, fileInfo)) {
+            final InputStream stream;
+            if (restoreRateLimiter == null) {
+                stream = partSliceStream;
+            } else {
+                stream = new RateLimitingInputStream(partSliceStream, restoreRateLimiter, restoreRateLimitingTimeInNanos::inc);
+            }
+            final byte[] buffer = new byte[READ_SHARD_FILE_CHUNK_SIZE];
+            long position = 0;
+            do {
+                int length = 0;
+                int read;
+                while (length < buffer.length && (read = stream.read(buffer, length, buffer.length - length)) != -1) {
+                    length += read;
+                }
+                if (position + length != md.length() && length < buffer.length) {
+                    throw new EOFException("expected [" + md.length() + "] bytes of [" + fileInfo.name() + "] but read ["
+                        + (position + length) + "]");
+                }
+                final boolean lastChunk = position + length == md.length();
+                consumer.writeFileChunk(md, position, new BytesArray(buffer, 0, length), lastChunk);
+                position += length;
+            } while (position < md.length());
+        }
+    }
+
     @Override
     public IndexShardSnapshotStatus getShardSnapshotStatus(SnapshotId snapshotId, Version version, IndexId indexId, ShardId shardId) {
         Context context = new Context(snapshotId, version, indexId, shardId);
@@ -951,16 +1149,9 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
          * Delete shard snapshot
          */
         public void delete() {
-            final Map<String, BlobMetaData> blobs;
-            try {
-                blobs = blobContainer.listBlobs();
-            } catch (IOException e) {
-                throw new IndexShardSnapshotException(shardId, "Failed to list content of gateway", e);
-            }
-
-            Tuple<BlobStoreIndexShardSnapshots, Integer> tuple = buildBlobStoreIndexShardSnapshots(blobs);
-            BlobStoreIndexShardSnapshots snapshots = tuple.v1();
-            int fileListGeneration = tuple.v2();
+            final ShardIndex shardIndex = loadShardIndex();
+            BlobStoreIndexShardSnapshots snapshots = shardIndex.snapshots;
+            int fileListGeneration = shardIndex.generation;
 
             try {
                 indexShardSnapshotFormat(version).delete(blobContainer, snapshotId.getUUID());
@@ -976,7 +1167,44 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 }
             }
             // finalize the snapshot and rewrite the snapshot index with the next sequential snapshot index
-            finalize(newSnapshotsList, fileListGeneration + 1, blobs, "snapshot deletion [" + snapshotId + "]");
+            finalize(newSnapshotsList, fileListGeneration + 1, shardIndex, "snapshot deletion [" + snapshotId + "]");
+        }
+
+        /**
+         * Checks if snapshot file already exists in the list of blobs
+         *
+         * @param fileInfo file to check
+         * @param blobs    list of blobs
+         * @return true if file exists in the list of blobs
+         */
+        private boolean snapshotFileExistsInBlobs(BlobStoreIndexShardSnapshot.FileInfo fileInfo, Map<String, BlobMetaData> blobs) {
+            if (fileInfo.contentChunks() != null) {
+                for (BlobStoreIndexShardSnapshot.ContentChunk chunk : fileInfo.contentChunks()) {
+                    final BlobMetaData chunkBlob = blobs.get(chunk.name());
+                    if (chunkBlob == null || chunkBlob.length() != chunk.length()) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            BlobMetaData blobMetaData = blobs.get(fileInfo.name());
+            if (blobMetaData != null) {
+                return blobMetaData.length() == fileInfo.length();
+            } else if (blobs.containsKey(fileInfo.partName(0))) {
+                // multi part file sum up the size and check
+                int part = 0;
+                long totalSize = 0;
+                while (true) {
+                    blobMetaData = blobs.get(fileInfo.partName(part++));
+                    if (blobMetaData == null) {
+                        break;
+                    }
+                    totalSize += blobMetaData.length();
+                }
+                return totalSize == fileInfo.length();
+            }
+            // no file, not exact and not multipart
+            return false;
         }
 
         /**
@@ -990,36 +1218,119 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             }
         }
 
+        /**
+         * Loads the snapshots of the shard. The generation of the latest shard index file is read from the shard's
+         * {@code index.latest} blob, so that the shard container doesn't have to be listed. The shard container is only
+         * listed if that blob does not exist, e.g. because the shard was last written by an older version, or if the index
+         * file it points to can't be read.
+         *
+         * A node may have failed after it wrote a new index file but before it pointed {@code index.latest} at it. That index
+         * file is complete and holds the latest snapshots of the shard, so newer generations than the one {@code index.latest}
+         * points to are probed for and used if they exist. Otherwise the next write of that generation would fail forever.
+         */
+        protected ShardIndex loadShardIndex() {
+            final int pointedGeneration = readShardIndexGeneration();
+            if (pointedGeneration >= 0) {
+                int generation = pointedGeneration;
+                while (blobContainer.blobExists(indexShardSnapshotsFormat.blobName(Integer.toString(generation + 1)))) {
+                    generation++;
+                }
+                if (generation != pointedGeneration) {
+                    logger.debug("[{}] [{}] points to generation [{}] but generation [{}] exists, using the latter",
+                        shardId, INDEX_LATEST_BLOB, pointedGeneration, generation);
+                }
+                try {
+                    return new ShardIndex(indexShardSnapshotsFormat.read(blobContainer, Integer.toString(generation)),
+                        generation, pointedGeneration, null);
+                } catch (IOException e) {
+                    logger.debug(() -> new ParameterizedMessage("[{}] failed to read index file [{}{}], listing shard container",
+                        shardId, SNAPSHOT_INDEX_PREFIX, generation), e);
+                }
+            }
+            final Map<String, BlobMetaData> blobs;
+            try {
+                blobs = blobContainer.listBlobs();
+            } catch (IOException e) {
+                throw new IndexShardSnapshotException(shardId, "Failed to list content of gateway", e);
+            }
+            Tuple<BlobStoreIndexShardSnapshots, Integer> tuple = buildBlobStoreIndexShardSnapshots(blobs);
+            return new ShardIndex(tuple.v1(), tuple.v2(), tuple.v2(), blobs);
+        }
+
+        /**
+         * Reads the generation of the latest shard index file from the shard's {@code index.latest} blob.
+         *
+         * @return the generation or {@code -1} if it can't be read
+         */
+        private int readShardIndexGeneration() {
+            try (InputStream blob = blobContainer.readBlob(INDEX_LATEST_BLOB)) {
+                BytesStreamOutput out = new BytesStreamOutput();
+                Streams.copy(blob, out);
+                return Math.toIntExact(Numbers.bytesToLong(out.bytes().toBytesRef()));
+            } catch (NoSuchFileException e) {
+                return -1;
+            } catch (Exception e) {
+                logger.warn(() -> new ParameterizedMessage("[{}] failed to read shard index generation from [{}]",
+                    shardId, INDEX_LATEST_BLOB), e);
+                return -1;
+            }
+        }
+
+        private void writeShardIndexGeneration(int generation) throws IOException {
+            final BytesReference genBytes;
+            try (BytesStreamOutput bStream = new BytesStreamOutput()) {
+                bStream.writeLong(generation);
+                genBytes = bStream.bytes();
+            }
+            try (InputStream stream = genBytes.streamInput()) {
+                blobContainer.writeBlobAtomic(INDEX_LATEST_BLOB, stream, genBytes.length(), false);
+            }
+        }
+
         /**
          * Writes a new index file for the shard and removes all unreferenced files from the repository.
          *
          * We need to be really careful in handling index files in case of failures to make sure we don't
-         * have index file that points to files that were deleted.
+         * have index file that points to files that were deleted. The new index file is written before the shard's
+         * {@code index.latest} blob is pointed at it, and old index files and data blobs are only deleted afterwards.
+         *
+         * If the shard container wasn't listed when loading the previous index, only the previous index file and the data
+         * blobs that were referenced by the previous index but aren't referenced by the new one are deleted. Data blobs of
+         * snapshots that failed before they were finalized are left behind until the container is listed again, which
+         * happens at the latest when the last snapshot of the shard is deleted.
          *
          * @param snapshots          list of active snapshots in the container
          * @param fileListGeneration the generation number of the snapshot index file
-         * @param blobs              list of blobs in the container
+         * @param previous           the shard index that the snapshots were derived from
          * @param reason             a reason explaining why the shard index file is written
          */
         protected void finalize(final List<SnapshotFiles> snapshots,
                                 final int fileListGeneration,
-                                final Map<String, BlobMetaData> blobs,
+                                final ShardIndex previous,
                                 final String reason) {
             final String indexGeneration = Integer.toString(fileListGeneration);
             final String currentIndexGen = indexShardSnapshotsFormat.blobName(indexGeneration);
 
             final BlobStoreIndexShardSnapshots updatedSnapshots = new BlobStoreIndexShardSnapshots(snapshots);
             try {
-                // Delete temporary index files first, as we might otherwise fail in the next step creating the new index file if an earlier
-                // attempt to write an index file with this generation failed mid-way after creating the temporary file.
-                for (final String blobName : blobs.keySet()) {
-                    if (FsBlobContainer.isTempBlobName(blobName)) {
-                        try {
-                            blobContainer.deleteBlobIgnoringIfNotExists(blobName);
-                        } catch (IOException e) {
-                            logger.warn(() -> new ParameterizedMessage("[{}][{}] failed to delete index blob [{}] during finalization",
-                                snapshotId, shardId, blobName), e);
-                            throw e;
+                Map<String, BlobMetaData> blobs = previous.blobs;
+                if (blobs == null && snapshots.isEmpty()) {
+                    // no snapshot of the shard is left, list the container so that everything in it is removed
+                    blobs = blobContainer.listBlobs();
+                }
+
+                if (blobs != null) {
+                    // Delete temporary index files first, as we might otherwise fail in the next step creating the new index file if an
+                    // earlier attempt to write an index file with this generation failed mid-way after creating the temporary file.
+                    for (final String blobName : blobs.keySet()) {
+                        if (FsBlobContainer.isTempBlobName(blobName)) {
+                            try {
+                                blobContainer.deleteBlobIgnoringIfNotExists(blobName);
+                            } catch (IOException e) {
+                                logger.warn(() -> new ParameterizedMessage("[{}][{}] failed to delete index blob [{}] during finalization",
+                                    snapshotId, shardId, blobName), e);
+                                throw e;
+                            }
                         }
                     }
                 }
@@ -1027,32 +1338,55 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 // If we deleted all snapshots, we don't need to create a new index file
                 if (snapshots.size() > 0) {
                     indexShardSnapshotsFormat.writeAtomic(updatedSnapshots, blobContainer, indexGeneration);
+                    writeShardIndexGeneration(fileListGeneration);
+                } else {
+                    blobContainer.deleteBlobIgnoringIfNotExists(INDEX_LATEST_BLOB);
                 }
 
                 // Delete old index files
-                for (final String blobName : blobs.keySet()) {
-                    if (blobName.startsWith(SNAPSHOT_INDEX_PREFIX)) {
-                        try {
-                            blobContainer.deleteBlobIgnoringIfNotExists(blobName);
-                        } catch (IOException e) {
-                            logger.warn(() -> new ParameterizedMessage("[{}][{}] failed to delete index blob [{}] during finalization",
-                                snapshotId, shardId, blobName), e);
-                            throw e;
+                final List<String> staleIndexBlobs = new ArrayList<>();
+                if (blobs != null) {
+                    for (final String blobName : blobs.keySet()) {
+                        if (blobName.startsWith(SNAPSHOT_INDEX_PREFIX)) {
+                            staleIndexBlobs.add(blobName);
                         }
                     }
+                } else {
+                    // this includes the index files that were written by finalizations that failed before moving index.latest
+                    for (int generation = previous.oldestGeneration; generation >= 0 && generation <= previous.generation; generation++) {
+                        staleIndexBlobs.add(indexShardSnapshotsFormat.blobName(Integer.toString(generation)));
+                    }
+                }
+                try {
+                    blobContainer.deleteBlobsIgnoringIfNotExists(staleIndexBlobs);
+                } catch (IOException e) {
+                    logger.warn(() -> new ParameterizedMessage("[{}][{}] failed to delete index blobs {} during finalization",
+                        snapshotId, shardId, staleIndexBlobs), e);
+                    throw e;
                 }
 
                 // Delete all blobs that don't exist in a snapshot
-                for (final String blobName : blobs.keySet()) {
-                    if (blobName.startsWith(DATA_BLOB_PREFIX) && (updatedSnapshots.findNameFile(canonicalName(blobName)) == null)) {
-                        try {
-                            blobContainer.deleteBlobIgnoringIfNotExists(blobName);
-                        } catch (IOException e) {
-                            logger.warn(() -> new ParameterizedMessage("[{}][{}] failed to delete data blob [{}] during finalization",
-                                snapshotId, shardId, blobName), e);
+                final Set<String> referencedDataBlobs = dataBlobNames(updatedSnapshots);
+                final Set<String> staleDataBlobs = new LinkedHashSet<>();
+                if (blobs != null) {
+                    for (final String blobName : blobs.keySet()) {
+                        if (blobName.startsWith(DATA_BLOB_PREFIX) && referencedDataBlobs.contains(blobName) == false) {
+                            staleDataBlobs.add(blobName);
+                        }
+                    }
+                } else {
+                    for (final String blobName : dataBlobNames(previous.snapshots)) {
+                        if (referencedDataBlobs.contains(blobName) == false) {
+                            staleDataBlobs.add(blobName);
                         }
                     }
                 }
+                try {
+                    blobContainer.deleteBlobsIgnoringIfNotExists(new ArrayList<>(staleDataBlobs));
+                } catch (IOException e) {
+                    logger.warn(() -> new ParameterizedMessage("[{}][{}] failed to delete data blobs {} during finalization",
+                        snapshotId, shardId, staleDataBlobs), e);
+                }
             } catch (IOException e) {
                 String message = "Failed to finalize " + reason + " with shard index [" + currentIndexGen + "]";
                 throw new IndexShardSnapshotFailedException(shardId, message, e);
@@ -1060,38 +1394,28 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }
 
         /**
-         * Generates blob name
-         *
-         * @param generation the blob number
-         * @return the blob name
+         * Returns the names of the blobs that hold the parts or content chunks of the files of the given snapshots.
          */
-        protected String fileNameFromGeneration(long generation) {
-            return DATA_BLOB_PREFIX + Long.toString(generation, Character.MAX_RADIX);
+        protected Set<String> dataBlobNames(Iterable<SnapshotFiles> snapshots) {
+            final Set<String> names = new HashSet<>();
+            for (SnapshotFiles point : snapshots) {
+                for (BlobStoreIndexShardSnapshot.FileInfo fileInfo : point.indexFiles()) {
+                    for (int i = 0; i < fileInfo.numberOfParts(); i++) {
+                        names.add(fileInfo.partName(i));
+                    }
+                }
+            }
+            return names;
         }
 
         /**
-         * Finds the next available blob number
+         * Generates a name for a new data blob. Data blob names are unique so that they can be generated without listing the
+         * shard container for the names that are already taken.
          *
-         * @param blobs list of blobs in the repository
-         * @return next available blob number
+         * @return the blob name
          */
-        protected long findLatestFileNameGeneration(Map<String, BlobMetaData> blobs) {
-            long generation = -1;
-            for (String name : blobs.keySet()) {
-                if (!name.startsWith(DATA_BLOB_PREFIX)) {
-                    continue;
-                }
-                name = canonicalName(name);
-                try {
-                    long currentGen = Long.parseLong(name.substring(DATA_BLOB_PREFIX.length()), Character.MAX_RADIX);
-                    if (currentGen > generation) {
-                        generation = currentGen;
-                    }
-                } catch (NumberFormatException e) {
-                    logger.warn("file [{}] does not conform to the '{}' schema", name, DATA_BLOB_PREFIX);
-                }
-            }
-            return generation;
+        protected String newDataBlobName() {
+            return DATA_BLOB_PREFIX + UUIDs.randomBase64UUID();
         }
 
         /**
@@ -1147,11 +1471,53 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }
     }
 
+    /**
+     * The snapshots of a shard in this repository, see {@link #loadShardSnapshotFiles(ShardId)}.
+     */
+    public static final class ShardSnapshotFiles {
+
+        static final ShardSnapshotFiles EMPTY = new ShardSnapshotFiles(null, null);
+
+        private final Context context;
+        private final ShardIndex shardIndex;
+
+        private ShardSnapshotFiles(Context context, ShardIndex shardIndex) {
+            this.context = context;
+            this.shardIndex = shardIndex;
+        }
+    }
+
+    /**
+     * The snapshots of a shard together with the generation of the index file they were read from and, if the shard
+     * container had to be listed to find them, the blobs in the container.
+     */
+    private static final class ShardIndex {
+
+        private final BlobStoreIndexShardSnapshots snapshots;
+
+        private final int generation;
+
+        // the oldest generation of an index file that may still exist, which is older than generation if index.latest was stale
+        private final int oldestGeneration;
+
+        @Nullable
+        private final Map<String, BlobMetaData> blobs;
+
+        ShardIndex(BlobStoreIndexShardSnapshots snapshots, int generation, int oldestGeneration,
+                   @Nullable Map<String, BlobMetaData> blobs) {
+            this.snapshots = snapshots;
+            this.generation = generation;
+            this.oldestGeneration = oldestGeneration;
+            this.blobs = blobs;
+        }
+    }
+
     /**
      * Context for snapshot operations
      */
     private class SnapshotContext extends Context {
 
+        private final IndexShard shard;
         private final Store store;
         private final IndexShardSnapshotStatus snapshotStatus;
         private final long startTime;
@@ -1159,13 +1525,16 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         /**
          * Constructs new context
          *
+         * @param shard          shard to be snapshotted
          * @param store          store to be snapshotted
          * @param snapshotId     snapshot id
          * @param indexId        the id of the index being snapshotted
          * @param snapshotStatus snapshot status to report progress
          */
-        SnapshotContext(Store store, SnapshotId snapshotId, IndexId indexId, IndexShardSnapshotStatus snapshotStatus, long startTime) {
+        SnapshotContext(IndexShard shard, Store store, SnapshotId snapshotId, IndexId indexId, IndexShardSnapshotStatus snapshotStatus,
+                        long startTime) {
             super(snapshotId, Version.CURRENT, indexId, store.shardId());
+            this.shard = shard;
             this.snapshotStatus = snapshotStatus;
             this.store = store;
             this.startTime = startTime;
@@ -1179,17 +1548,9 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         public void snapshot(final IndexCommit snapshotIndexCommit) {
             logger.debug("[{}] [{}] snapshot to [{}] ...", shardId, snapshotId, metadata.name());
 
-            final Map<String, BlobMetaData> blobs;
-            try {
-                blobs = blobContainer.listBlobs();
-            } catch (IOException e) {
-                throw new IndexShardSnapshotFailedException(shardId, "failed to list blobs", e);
-            }
-
-            long generation = findLatestFileNameGeneration(blobs);
-            Tuple<BlobStoreIndexShardSnapshots, Integer> tuple = buildBlobStoreIndexShardSnapshots(blobs);
-            BlobStoreIndexShardSnapshots snapshots = tuple.v1();
-            int fileListGeneration = tuple.v2();
+            final ShardIndex shardIndex = loadShardIndex();
+            BlobStoreIndexShardSnapshots snapshots = shardIndex.snapshots;
+            int fileListGeneration = shardIndex.generation;
 
             if (snapshots.snapshots().stream().anyMatch(sf -> sf.snapshot().equals(snapshotId.getName()))) {
                 throw new IndexShardSnapshotFailedException(shardId,
@@ -1235,7 +1596,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                             } catch (Exception e) {
                                 logger.warn(() -> new ParameterizedMessage("{} Can't calculate hash from blob for file [{}] [{}]", shardId, fileInfo.physicalName(), fileInfo.metadata()), e);
                             }
-                            if (fileInfo.isSame(md) && snapshotFileExistsInBlobs(fileInfo, blobs)) {
+                            // if the shard container wasn't listed, the files referenced by the shard index are known to exist
+                            if (fileInfo.isSame(md) && (shardIndex.blobs == null || snapshotFileExistsInBlobs(fileInfo, shardIndex.blobs))) {
                                 // a commit point file with the same name, size and checksum was already copied to repository
                                 // we will reuse it for this snapshot
                                 existingFileInfo = fileInfo;
@@ -1251,7 +1613,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                         indexIncrementalFileCount++;
                         indexIncrementalSize += md.length();
                         // create a new FileInfo
-                        BlobStoreIndexShardSnapshot.FileInfo snapshotFileInfo = new BlobStoreIndexShardSnapshot.FileInfo(fileNameFromGeneration(++generation), md, chunkSize());
+                        BlobStoreIndexShardSnapshot.FileInfo snapshotFileInfo = new BlobStoreIndexShardSnapshot.FileInfo(newDataBlobName(), md, chunkSize());
                         indexCommitPointFiles.add(snapshotFileInfo);
                         filesToSnapshot.add(snapshotFileInfo);
                     } else {
@@ -1262,13 +1624,41 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 snapshotStatus.moveToStarted(startTime, indexIncrementalFileCount,
                     indexTotalNumberOfFiles, indexIncrementalSize, indexTotalFileCount);
 
-                for (BlobStoreIndexShardSnapshot.FileInfo snapshotFileInfo : filesToSnapshot) {
+                final ConcurrentTransfers transfers = newTransfers(shard);
+                final long transferStartNanos = System.nanoTime();
+                // the content chunks of the files are only known once the files were read
+                final Map<String, BlobStoreIndexShardSnapshot.FileInfo> chunkedFiles = ConcurrentCollections.newConcurrentMap();
+                final Set<String> storedChunks = contentChunker == null ? null : storedContentChunks(shardIndex);
+                final AtomicLong uploadedChunkBytes = new AtomicLong();
+                try {
                     try {
-                        snapshotFile(snapshotFileInfo);
-                    } catch (IOException e) {
-                        throw new IndexShardSnapshotFailedException(shardId, "Failed to perform snapshot (index files)", e);
+                        for (BlobStoreIndexShardSnapshot.FileInfo snapshotFileInfo : filesToSnapshot) {
+                            if (contentChunker != null) {
+                                transfers.submit(() -> chunkedFiles.put(snapshotFileInfo.name(),
+                                    snapshotFileInContentChunks(snapshotFileInfo, storedChunks, uploadedChunkBytes)));
+                            } else if (transferInParts(snapshotFileInfo.length(), blobContainer.supportsMultipartWrites())) {
+                                snapshotFileInParts(snapshotFileInfo, transfers);
+                            } else {
+                                transfers.submit(() -> snapshotFile(snapshotFileInfo));
+                            }
+                        }
+                    } catch (Exception e) {
+                        transfers.onFailure(e);
+                    } finally {
+                        transfers.awaitCompletion();
                     }
+                } catch (IOException e) {
+                    throw new IndexShardSnapshotFailedException(shardId, "Failed to perform snapshot (index files)", e);
                 }
+                if (contentChunker != null) {
+                    indexCommitPointFiles.replaceAll(fileInfo -> chunkedFiles.getOrDefault(fileInfo.name(), fileInfo));
+                    logger.debug("[{}] [{}] uploaded [{}] of [{}] bytes of new files, the rest was already stored", shardId, snapshotId,
+                        uploadedChunkBytes.get(), indexIncrementalSize);
+                    snapshotTransferBytes.inc(uploadedChunkBytes.get());
+                } else {
+                    snapshotTransferBytes.inc(indexIncrementalSize);
+                }
+                snapshotTransferTimeInNanos.inc(System.nanoTime() - transferStartNanos);
             } finally {
                 store.decRef();
             }
@@ -1303,7 +1693,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 newSnapshotsList.add(point);
             }
             // finalize the snapshot and rewrite the snapshot index with the next sequential snapshot index
-            finalize(newSnapshotsList, fileListGeneration + 1, blobs, "snapshot creation [" + snapshotId + "]");
+            finalize(newSnapshotsList, fileListGeneration + 1, shardIndex, "snapshot creation [" + snapshotId + "]");
             snapshotStatus.moveToDone(System.currentTimeMillis());
 
         }
@@ -1340,43 +1730,125 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             }
         }
 
-        private void failStoreIfCorrupted(Exception e) {
-            if (Lucene.isCorruptionException(e)) {
-                try {
-                    store.markStoreCorrupted((IOException) e);
-                } catch (IOException inner) {
-                    inner.addSuppressed(e);
-                    logger.warn("store cannot be marked as corrupted", inner);
+        /**
+         * Snapshots a large file whose parts are read sequentially, so that the whole file is verified, and uploaded
+         * concurrently as parts of multipart blobs.
+         */
+        private void snapshotFileInParts(final BlobStoreIndexShardSnapshot.FileInfo fileInfo,
+                                         final ConcurrentTransfers transfers) throws IOException {
+            final String file = fileInfo.physicalName();
+            final List<MultipartBlobWriter> writers = new ArrayList<>();
+            final List<CompletableFuture<Void>> uploads = new ArrayList<>();
+            try (IndexInput indexInput = store.openVerifyingInput(file, IOContext.READONCE, fileInfo.metadata())) {
+                for (int i = 0; i < fileInfo.numberOfParts(); i++) {
+                    final long partBytes = fileInfo.partBytes(i);
+                    final MultipartBlobWriter writer = blobContainer.startMultipartWrite(fileInfo.partName(i), partBytes, true);
+                    writers.add(writer);
+                    for (long position = 0; position < partBytes; position += transferPartSize) {
+                        checkAborted(file);
+                        final int length = (int) Math.min(transferPartSize, partBytes - position);
+                        final byte[] buffer = new byte[length];
+                        indexInput.readBytes(buffer, 0, length);
+                        if (snapshotRateLimiter != null) {
+                            snapshotRateLimitingTimeInNanos.inc(snapshotRateLimiter.pause(length));
+                        }
+                        final long partPosition = position;
+                        uploads.add(transfers.submit(() -> writer.writePart(partPosition, new BytesArray(buffer).streamInput(), length)));
+                    }
                 }
+                Store.verify(indexInput);
+                for (CompletableFuture<Void> upload : uploads) {
+                    transfers.await(upload);
+                }
+                for (MultipartBlobWriter writer : writers) {
+                    writer.complete();
+                }
+                snapshotStatus.addProcessedFile(fileInfo.length());
+            } catch (Exception t) {
+                failStoreIfCorrupted(t);
+                snapshotStatus.addProcessedFile(0);
+                // the uploads of the parts that were already submitted must not write to closed writers
+                transfers.onFailure(t);
+                for (CompletableFuture<Void> upload : uploads) {
+                    try {
+                        transfers.await(upload);
+                    } catch (Exception inner) {
+                        // already recorded as a failure of the transfers
+                    }
+                }
+                throw t;
+            } finally {
+                IOUtils.close(writers);
             }
         }
 
         /**
-         * Checks if snapshot file already exists in the list of blobs
+         * Returns the names of the content chunks that are known to be stored in the shard container.
+         */
+        private Set<String> storedContentChunks(ShardIndex shardIndex) {
+            final Set<String> storedChunks = ConcurrentCollections.newConcurrentSet();
+            for (SnapshotFiles point : shardIndex.snapshots) {
+                for (BlobStoreIndexShardSnapshot.FileInfo fileInfo : point.indexFiles()) {
+                    if (fileInfo.contentChunks() != null) {
+                        for (BlobStoreIndexShardSnapshot.ContentChunk chunk : fileInfo.contentChunks()) {
+                            final BlobMetaData blob = shardIndex.blobs == null ? null : shardIndex.blobs.get(chunk.name());
+                            if (shardIndex.blobs == null || (blob != null && blob.length() == chunk.length())) {
+                                storedChunks.add(chunk.name());
+                            }
+                        }
+                    }
+                }
+            }
+            return storedChunks;
+        }
+
+        /**
+         * Snapshots a file as content-defined chunks, which are stored under the hash of their content and only uploaded
+         * if no chunk with the same content is stored in the shard container yet.
          *
-         * @param fileInfo file to check
-         * @param blobs    list of blobs
-         * @return true if file exists in the list of blobs
+         * @param fileInfo           file to be snapshotted
+         * @param storedChunks       the names of the chunks that are already stored, chunks that are uploaded are added
+         * @param uploadedChunkBytes the number of bytes of the uploaded chunks
+         * @return the file info with the content chunks of the file
          */
-        private boolean snapshotFileExistsInBlobs(BlobStoreIndexShardSnapshot.FileInfo fileInfo, Map<String, BlobMetaData> blobs) {
-            BlobMetaData blobMetaData = blobs.get(fileInfo.name());
-            if (blobMetaData != null) {
-                return blobMetaData.length() == fileInfo.length();
-            } else if (blobs.containsKey(fileInfo.partName(0))) {
-                // multi part file sum up the size and check
-                int part = 0;
-                long totalSize = 0;
-                while (true) {
-                    blobMetaData = blobs.get(fileInfo.partName(part++));
-                    if (blobMetaData == null) {
-                        break;
+        private BlobStoreIndexShardSnapshot.FileInfo snapshotFileInContentChunks(final BlobStoreIndexShardSnapshot.FileInfo fileInfo,
+                                                                                 final Set<String> storedChunks,
+                                                                                 final AtomicLong uploadedChunkBytes) throws IOException {
+            final String file = fileInfo.physicalName();
+            final List<BlobStoreIndexShardSnapshot.ContentChunk> chunks = new ArrayList<>();
+            try (IndexInput indexInput = store.openVerifyingInput(file, IOContext.READONCE, fileInfo.metadata())) {
+                InputStream inputStream = new InputStreamIndexInput(indexInput, fileInfo.length());
+                if (snapshotRateLimiter != null) {
+                    inputStream = new RateLimitingInputStream(inputStream, snapshotRateLimiter, snapshotRateLimitingTimeInNanos::inc);
+                }
+                contentChunker.chunk(new AbortableInputStream(inputStream, file), chunk -> {
+                    final String chunkName = contentChunkBlobName(chunk);
+                    if (storedChunks.add(chunkName)) {
+                        // a blob with this name can only be left behind by a failed snapshot and has the same content
+                        blobContainer.writeBlob(chunkName, chunk.streamInput(), chunk.length(), false);
+                        uploadedChunkBytes.addAndGet(chunk.length());
                     }
-                    totalSize += blobMetaData.length();
+                    chunks.add(new BlobStoreIndexShardSnapshot.ContentChunk(chunkName, chunk.length()));
+                });
+                Store.verify(indexInput);
+                snapshotStatus.addProcessedFile(fileInfo.length());
+            } catch (Exception t) {
+                failStoreIfCorrupted(t);
+                snapshotStatus.addProcessedFile(0);
+                throw t;
+            }
+            return new BlobStoreIndexShardSnapshot.FileInfo(fileInfo.name(), fileInfo.metadata(), chunks);
+        }
+
+        private void failStoreIfCorrupted(Exception e) {
+            if (Lucene.isCorruptionException(e)) {
+                try {
+                    store.markStoreCorrupted((IOException) e);
+                } catch (IOException inner) {
+                    inner.addSuppressed(e);
+                    logger.warn("store cannot be marked as corrupted", inner);
                 }
-                return totalSize == fileInfo.length();
             }
-            // no file, not exact and not multipart
-            return false;
         }
 
         private class AbortableInputStream extends FilterInputStream {
@@ -1389,21 +1861,21 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
             @Override
             public int read() throws IOException {
-                checkAborted();
+                checkAborted(fileName);
                 return in.read();
             }
 
             @Override
             public int read(byte[] b, int off, int len) throws IOException {
-                checkAborted();
+                checkAborted(fileName);
                 return in.read(b, off, len);
             }
+        }
 
-            private void checkAborted() {
-                if (snapshotStatus.isAborted()) {
-                    logger.debug("[{}] [{}] Aborted on the file [{}], exiting", shardId, snapshotId, fileName);
-                    throw new IndexShardSnapshotFailedException(shardId, "Aborted");
-                }
+        private void checkAborted(String fileName) {
+            if (snapshotStatus.isAborted()) {
+                logger.debug("[{}] [{}] Aborted on the file [{}], exiting", shardId, snapshotId, fileName);
+                throw new IndexShardSnapshotFailedException(shardId, "Aborted");
             }
         }
     }
@@ -1433,6 +1905,23 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }
     }
 
+    /**
+     * Returns the name of the blob that holds a content chunk, which is derived from the hash of its content.
+     */
+    static String contentChunkBlobName(BytesReference chunk) {
+        final MessageDigest digest = MessageDigests.sha256();
+        final BytesRefIterator iterator = chunk.iterator();
+        try {
+            BytesRef ref;
+            while ((ref = iterator.next()) != null) {
+                digest.update(ref.bytes, ref.offset, ref.length);
+            }
+        } catch (IOException e) {
+            throw new AssertionError("iterating over bytes in memory does not throw", e);
+        }
+        return CONTENT_CHUNK_BLOB_PREFIX + MessageDigests.toHexString(digest.digest());
+    }
+
     private static final class PartSliceStream extends SlicedInputStream {
 
         private final BlobContainer container;
@@ -1570,30 +2059,46 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                     logger.trace("no files to recover, all exists within the local store");
                 }
 
+                final ConcurrentTransfers transfers = newTransfers(targetShard);
+                final long transferStartNanos = System.nanoTime();
+                long restoredBytes = 0;
                 try {
-                    // list of all existing store files
-                    final List<String> deleteIfExistFiles = Arrays.asList(store.directory().listAll());
-
-                    // restore the files from the snapshot to the Lucene store
-                    for (final BlobStoreIndexShardSnapshot.FileInfo fileToRecover : filesToRecover) {
-                        // if a file with a same physical name already exist in the store we need to delete it
-                        // before restoring it from the snapshot. We could be lenient and try to reuse the existing
-                        // store files (and compare their names/length/checksum again with the snapshot files) but to
-                        // avoid extra complexity we simply delete them and restore them again like StoreRecovery
-                        // does with dangling indices. Any existing store file that is not restored from the snapshot
-                        // will be clean up by RecoveryTarget.cleanFiles().
-                        final String physicalName = fileToRecover.physicalName();
-                        if (deleteIfExistFiles.contains(physicalName)) {
-                            logger.trace("[{}] [{}] deleting pre-existing file [{}]", shardId, snapshotId, physicalName);
-                            store.directory().deleteFile(physicalName);
-                        }
+                    try {
+                        // list of all existing store files
+                        final List<String> deleteIfExistFiles = Arrays.asList(store.directory().listAll());
+
+                        // restore the files from the snapshot to the Lucene store
+                        for (final BlobStoreIndexShardSnapshot.FileInfo fileToRecover : filesToRecover) {
+                            // if a file with a same physical name already exist in the store we need to delete it
+                            // before restoring it from the snapshot. We could be lenient and try to reuse the existing
+                            // store files (and compare their names/length/checksum again with the snapshot files) but to
+                            // avoid extra complexity we simply delete them and restore them again like StoreRecovery
+                            // does with dangling indices. Any existing store file that is not restored from the snapshot
+                            // will be clean up by RecoveryTarget.cleanFiles().
+                            final String physicalName = fileToRecover.physicalName();
+                            if (deleteIfExistFiles.contains(physicalName)) {
+                                logger.trace("[{}] [{}] deleting pre-existing file [{}]", shardId, snapshotId, physicalName);
+                                store.directory().deleteFile(physicalName);
+                            }
 
-                        logger.trace("[{}] [{}] restoring file [{}]", shardId, snapshotId, fileToRecover.name());
-                        restoreFile(fileToRecover, store);
+                            logger.trace("[{}] [{}] restoring file [{}]", shardId, snapshotId, fileToRecover.name());
+                            if (transferInParts(fileToRecover.length(), blobContainer.supportsRangedReads())) {
+                                restoreFileInRanges(fileToRecover, store, transfers);
+                            } else {
+                                transfers.submit(() -> restoreFile(fileToRecover, store));
+                            }
+                            restoredBytes += fileToRecover.length();
+                        }
+                    } catch (Exception e) {
+                        transfers.onFailure(e);
+                    } finally {
+                        transfers.awaitCompletion();
                     }
                 } catch (IOException ex) {
                     throw new IndexShardRestoreFailedException(shardId, "Failed to recover index", ex);
                 }
+                restoreTransferBytes.inc(restoredBytes);
+                restoreTransferTimeInNanos.inc(System.nanoTime() - transferStartNanos);
 
                 // read the snapshot data persisted
                 final SegmentInfos segmentCommitInfos;
@@ -1668,5 +2173,87 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 }
             }
         }
+
+        /**
+         * Restores a large file whose ranges are downloaded concurrently and written to the store in order. At most as many
+         * ranges as there are concurrent transfers are buffered at a time.
+         */
+        private void restoreFileInRanges(final BlobStoreIndexShardSnapshot.FileInfo fileInfo, final Store store,
+                                         final ConcurrentTransfers transfers) throws IOException {
+            final List<BlobRange> ranges = new ArrayList<>();
+            for (int i = 0; i < fileInfo.numberOfParts(); i++) {
+                final long partBytes = fileInfo.partBytes(i);
+                for (long position = 0; position < partBytes; position += transferPartSize) {
+                    ranges.add(new BlobRange(fileInfo.partName(i), position, (int) Math.min(transferPartSize, partBytes - position)));
+                }
+            }
+            boolean success = false;
+            try (IndexOutput indexOutput = store.createVerifyingOutput(fileInfo.physicalName(), fileInfo.metadata(), IOContext.DEFAULT)) {
+                final Deque<BlobRange> downloads = new ArrayDeque<>();
+                int nextRange = 0;
+                while (nextRange < ranges.size() || downloads.isEmpty() == false) {
+                    while (nextRange < ranges.size() && downloads.size() < transfers.maxConcurrency()) {
+                        final BlobRange range = ranges.get(nextRange++);
+                        range.bytes = new byte[range.length];
+                        range.download = transfers.submit(() -> downloadRange(range));
+                        downloads.add(range);
+                    }
+                    final BlobRange range = downloads.poll();
+                    transfers.await(range.download);
+                    indexOutput.writeBytes(range.bytes, 0, range.bytes.length);
+                    recoveryState.getIndex().addRecoveredBytesToFile(fileInfo.name(), range.bytes.length);
+                    range.bytes = null;
+                }
+                Store.verify(indexOutput);
+                indexOutput.close();
+                store.directory().sync(Collections.singleton(fileInfo.physicalName()));
+                success = true;
+            } catch (CorruptIndexException | IndexFormatTooOldException | IndexFormatTooNewException ex) {
+                try {
+                    store.markStoreCorrupted(ex);
+                } catch (IOException e) {
+                    logger.warn("store cannot be marked as corrupted", e);
+                }
+                throw ex;
+            } finally {
+                if (success == false) {
+                    store.deleteQuiet(fileInfo.physicalName());
+                }
+            }
+        }
+
+        private void downloadRange(final BlobRange range) throws IOException {
+            InputStream stream = blobContainer.readBlob(range.blobName, range.position, range.bytes.length);
+            if (restoreRateLimiter != null) {
+                stream = new RateLimitingInputStream(stream, restoreRateLimiter, restoreRateLimitingTimeInNanos::inc);
+            }
+            try (InputStream in = stream) {
+                int offset = 0;
+                while (offset < range.bytes.length) {
+                    final int read = in.read(range.bytes, offset, range.bytes.length - offset);
+                    if (read == -1) {
+                        throw new EOFException("blob [" + range.blobName + "] ended before [" + (range.position + range.bytes.length) + "]");
+                    }
+                    offset += read;
+                }
+            }
+        }
+    }
+
+    /**
+     * A range of a blob that is downloaded into memory once it is submitted for download.
+     */
+    private static final class BlobRange {
+        private final String blobName;
+        private final long position;
+        private final int length;
+        private byte[] bytes;
+        private CompletableFuture<Void> download;
+
+        BlobRange(String blobName, long position, int length) {
+            this.blobName = blobName;
+            this.position = position;
+            this.length = length;
+        }
     }
 }
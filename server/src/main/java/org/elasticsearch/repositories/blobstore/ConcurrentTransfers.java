@@ -0,0 +1,219 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.repositories.blobstore;
+
+import org.elasticsearch.common.CheckedRunnable;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the blob transfers of a shard snapshot or restore on an executor with bounded concurrency. Transfers are submitted
+ * from a single thread, which runs transfers that no thread of the executor picked up yet itself instead of waiting for
+ * them. That way a snapshot thread can fan out work to the snapshot thread pool without deadlocking when all threads
+ * of the pool are busy with other shards.
+ */
+final class ConcurrentTransfers {
+
+    private final Executor executor;
+    private final int maxConcurrency;
+    private final Semaphore permits;
+    private final Queue<Transfer> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+    /**
+     * @param executor       the executor to run the transfers on
+     * @param maxConcurrency the maximum number of transfers that run at the same time, including the submitting thread
+     */
+    ConcurrentTransfers(Executor executor, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("max concurrency must be at least 1 but was [" + maxConcurrency + "]");
+        }
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * Returns the maximum number of transfers that run at the same time
+     */
+    int maxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Submits a transfer, waiting while {@code maxConcurrency} transfers are outstanding. Throws the failure of an earlier
+     * transfer if one failed.
+     *
+     * @return a future that is completed once the transfer completed, see {@link #await}
+     */
+    CompletableFuture<Void> submit(CheckedRunnable<IOException> runnable) throws IOException {
+        maybeRethrow();
+        final Transfer transfer = new Transfer(runnable);
+        if (maxConcurrency == 1) {
+            transfer.tryRun();
+            maybeRethrow();
+            return transfer.future;
+        }
+        while (permits.tryAcquire() == false) {
+            if (runPending() == false) {
+                // all outstanding transfers are running on threads of the executor, so they will release their permits
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("interrupted while waiting for transfers", e);
+                }
+                break;
+            }
+        }
+        transfer.acquiredPermit = true;
+        pending.add(transfer);
+        try {
+            executor.execute(transfer);
+        } catch (EsRejectedExecutionException e) {
+            // the transfer stays pending and is run by the submitting thread
+        }
+        return transfer.future;
+    }
+
+    /**
+     * Runs a transfer that no thread of the executor picked up yet on the current thread.
+     *
+     * @return whether a transfer was run
+     */
+    boolean runPending() {
+        Transfer transfer;
+        while ((transfer = pending.poll()) != null) {
+            if (transfer.tryRun()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Waits for the given transfer to complete, running pending transfers on the current thread in the meantime, and
+     * throws its failure if it failed.
+     */
+    void await(CompletableFuture<Void> future) throws IOException {
+        while (future.isDone() == false && runPending()) {
+            // help out with the transfers that were not picked up yet
+        }
+        try {
+            // the transfer is done or running on a thread of the executor at this point
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for transfers", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Waits for all submitted transfers to complete and throws the failure of the first transfer that failed, if any.
+     */
+    void awaitCompletion() throws IOException {
+        while (runPending()) {
+            // help out with the transfers that were not picked up yet
+        }
+        try {
+            permits.acquire(maxConcurrency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for transfers", e);
+        }
+        permits.release(maxConcurrency);
+        maybeRethrow();
+    }
+
+    /**
+     * Records a failure that happened outside of a transfer, so that no further transfers are started.
+     */
+    void onFailure(Exception e) {
+        if (failure.compareAndSet(null, e) == false && failure.get() != e) {
+            failure.get().addSuppressed(e);
+        }
+    }
+
+    private void maybeRethrow() throws IOException {
+        final Exception e = failure.get();
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        } else if (e != null) {
+            throw (RuntimeException) e;
+        }
+    }
+
+    private final class Transfer implements Runnable {
+        private final CheckedRunnable<IOException> runnable;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private boolean acquiredPermit;
+
+        Transfer(CheckedRunnable<IOException> runnable) {
+            this.runnable = runnable;
+        }
+
+        boolean tryRun() {
+            if (claimed.compareAndSet(false, true) == false) {
+                return false;
+            }
+            try {
+                final Exception previousFailure = failure.get();
+                if (previousFailure != null) {
+                    // don't start new transfers once one failed
+                    future.completeExceptionally(previousFailure);
+                } else {
+                    runnable.run();
+                    future.complete(null);
+                }
+            } catch (Exception e) {
+                onFailure(e);
+                future.completeExceptionally(e);
+            } finally {
+                if (acquiredPermit) {
+                    permits.release();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            tryRun();
+        }
+    }
+}
@@ -0,0 +1,496 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.search.SearchTask;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.ExponentiallyWeightedMovingAverage;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.common.util.concurrent.WrappedRunnable;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.PipelineAggregationBuilder;
+import org.elasticsearch.search.aggregations.support.ValuesSourceAggregationBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.ShardSearchRequest;
+import org.elasticsearch.search.sort.ScriptSortBuilder;
+import org.elasticsearch.search.sort.SortBuilder;
+import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control for shard-level search requests on a data node. Every request gets an estimated cost, which is the
+ * recent execution time of similar requests on the same index, or a structural estimate based on the size of the shard,
+ * the number of aggregations and the use of scripts if no similar request ran recently. Requests are executed right away
+ * as long as the estimated cost of all executing requests stays within what the search thread pool can finish within the
+ * target latency. Other requests are queued per tenant and dequeued round-robin across tenants, with requests that are
+ * expected to take longer than the target latency on their own only being dequeued if no cheaper request is waiting.
+ * Requests are rejected once the queue is full, and queued requests are rejected if they are not dequeued within the queue
+ * timeout or if their search task is cancelled while they wait.
+ */
+public final class SearchAdmissionController {
+
+    private static final Logger logger = LogManager.getLogger(SearchAdmissionController.class);
+
+    public static final Setting<Boolean> ENABLED_SETTING =
+        Setting.boolSetting("search.admission_control.enabled", false, Property.Dynamic, Property.NodeScope);
+    public static final Setting<TimeValue> TARGET_LATENCY_SETTING =
+        Setting.timeSetting("search.admission_control.target_latency", TimeValue.timeValueSeconds(1), TimeValue.timeValueMillis(1),
+            Property.Dynamic, Property.NodeScope);
+    public static final Setting<Integer> MAX_QUEUED_SETTING =
+        Setting.intSetting("search.admission_control.max_queued", 1000, 0, Property.Dynamic, Property.NodeScope);
+    public static final Setting<TimeValue> QUEUE_TIMEOUT_SETTING =
+        Setting.timeSetting("search.admission_control.queue_timeout", TimeValue.timeValueSeconds(30), TimeValue.timeValueMillis(1),
+            Property.Dynamic, Property.NodeScope);
+    public static final Setting<String> TENANT_HEADER_SETTING =
+        Setting.simpleString("search.admission_control.tenant_header", Property.Dynamic, Property.NodeScope);
+
+    /** The estimated cost of a request without aggregations or scripts on an empty shard. */
+    static final long BASE_COST_NANOS = TimeValue.timeValueMillis(1).nanos();
+    private static final double ALPHA = 0.3;
+
+    private final ThreadPool threadPool;
+    private final ThreadContext threadContext;
+    private final int searchThreads;
+    // the execution time of recent requests, keyed by the index they ran on and their shape
+    private final Cache<String, ExponentiallyWeightedMovingAverage> history =
+        CacheBuilder.<String, ExponentiallyWeightedMovingAverage>builder().setMaximumWeight(1024).build();
+    private final LongAdder rejected = new LongAdder();
+
+    // guarded by this
+    private final Map<String, ArrayDeque<QueuedRequest>> queues = new LinkedHashMap<>();
+    private final Map<String, ArrayDeque<QueuedRequest>> expensiveQueues = new LinkedHashMap<>();
+    private long inFlightCost;
+    private int queued;
+
+    private volatile boolean enabled;
+    private volatile long targetLatencyNanos;
+    private volatile int maxQueued;
+    private volatile TimeValue queueTimeout;
+    private volatile String tenantHeader;
+
+    public SearchAdmissionController(Settings settings, ClusterSettings clusterSettings, ThreadPool threadPool) {
+        this.threadPool = threadPool;
+        this.threadContext = threadPool.getThreadContext();
+        this.searchThreads = Math.max(1, threadPool.info(ThreadPool.Names.SEARCH).getMax());
+        this.enabled = ENABLED_SETTING.get(settings);
+        this.targetLatencyNanos = TARGET_LATENCY_SETTING.get(settings).nanos();
+        this.maxQueued = MAX_QUEUED_SETTING.get(settings);
+        this.queueTimeout = QUEUE_TIMEOUT_SETTING.get(settings);
+        this.tenantHeader = TENANT_HEADER_SETTING.get(settings);
+        clusterSettings.addSettingsUpdateConsumer(ENABLED_SETTING, this::setEnabled);
+        clusterSettings.addSettingsUpdateConsumer(TARGET_LATENCY_SETTING, value -> this.targetLatencyNanos = value.nanos());
+        clusterSettings.addSettingsUpdateConsumer(MAX_QUEUED_SETTING, value -> this.maxQueued = value);
+        clusterSettings.addSettingsUpdateConsumer(QUEUE_TIMEOUT_SETTING, value -> this.queueTimeout = value);
+        clusterSettings.addSettingsUpdateConsumer(TENANT_HEADER_SETTING, value -> this.tenantHeader = value);
+    }
+
+    private void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (enabled == false) {
+            // let everything that is still queued run
+            release(0);
+        }
+    }
+
+    /**
+     * Executes the given shard-level search request on the given executor once it is admitted, or rejects it. A queued request
+     * is executed with the thread context it was submitted with, no matter which thread dequeues it.
+     */
+    void execute(ShardSearchRequest request, IndexShard shard, @Nullable SearchTask task, Executor executor, AbstractRunnable runnable) {
+        if (enabled == false) {
+            executor.execute(runnable);
+            return;
+        }
+        final String shapeKey = shapeKey(request, shard);
+        final long cost = estimateCost(shapeKey, request, shard);
+        final AdmittedRequest admitted = new AdmittedRequest(runnable, shapeKey, cost);
+        final EsRejectedExecutionException rejection;
+        final QueuedRequest queuedRequest;
+        synchronized (this) {
+            if (inFlightCost == 0 || (queued == 0 && inFlightCost + cost <= capacity())) {
+                inFlightCost += cost;
+                rejection = null;
+                queuedRequest = null;
+            } else if (queued >= maxQueued) {
+                rejected.increment();
+                rejection = new EsRejectedExecutionException("rejected execution of search request on [" + shard.shardId()
+                    + "] by admission control, estimated cost of in-flight requests [" + TimeValue.timeValueNanos(inFlightCost)
+                    + "], queued requests [" + queued + "]");
+                queuedRequest = null;
+            } else {
+                final String tenant = tenant();
+                final Map<String, ArrayDeque<QueuedRequest>> tenantQueues = cost > targetLatencyNanos ? expensiveQueues : queues;
+                queuedRequest = new QueuedRequest(admitted, executor, cost, tenantQueues, tenant, threadContext.newStoredContext(false),
+                    task);
+                tenantQueues.computeIfAbsent(tenant, k -> new ArrayDeque<>()).add(queuedRequest);
+                queued++;
+                rejection = null;
+            }
+        }
+        if (queuedRequest != null) {
+            final TimeValue timeout = queueTimeout;
+            queuedRequest.timeout = threadPool.schedule(timeout, ThreadPool.Names.GENERIC, () -> drop(queuedRequest,
+                new EsRejectedExecutionException("rejected execution of search request on [" + shard.shardId()
+                    + "] by admission control, request was queued for longer than [" + timeout + "]")));
+            if (task != null) {
+                queuedRequest.cancellationListener = () -> drop(queuedRequest,
+                    new TaskCancelledException("cancelled [" + task.getReasonCancelled() + "]"));
+                task.addCancellationListener(queuedRequest.cancellationListener);
+            }
+            if (queuedRequest.dequeued) {
+                // the request left its queue before the timeout and the listener were registered
+                queuedRequest.onDequeued();
+            }
+        } else if (rejection != null) {
+            logger.debug("{}", rejection.getMessage());
+            try {
+                runnable.onRejection(rejection);
+            } finally {
+                runnable.onAfter();
+            }
+        } else {
+            executor.execute(admitted);
+        }
+    }
+
+    private String tenant() {
+        final String header = tenantHeader;
+        if (header.isEmpty()) {
+            return "";
+        }
+        final String tenant = threadContext.getHeader(header);
+        return tenant == null ? "" : tenant;
+    }
+
+    /**
+     * The estimated cost of the requests the search thread pool can finish within the target latency.
+     */
+    private long capacity() {
+        if (enabled == false) {
+            return Long.MAX_VALUE;
+        }
+        final long target = targetLatencyNanos;
+        return target > Long.MAX_VALUE / searchThreads ? Long.MAX_VALUE : target * searchThreads;
+    }
+
+    private void release(long cost) {
+        final List<QueuedRequest> toRun = new ArrayList<>();
+        synchronized (this) {
+            inFlightCost -= cost;
+            assert inFlightCost >= 0 : "negative in-flight cost [" + inFlightCost + "]";
+            while (true) {
+                final Map<String, ArrayDeque<QueuedRequest>> tenantQueues = queues.isEmpty() ? expensiveQueues : queues;
+                final Iterator<Map.Entry<String, ArrayDeque<QueuedRequest>>> iterator = tenantQueues.entrySet().iterator();
+                if (iterator.hasNext() == false) {
+                    break;
+                }
+                final Map.Entry<String, ArrayDeque<QueuedRequest>> next = iterator.next();
+                final QueuedRequest request = next.getValue().peek();
+                if (inFlightCost > 0 && inFlightCost + request.cost > capacity()) {
+                    break;
+                }
+                next.getValue().poll();
+                // move the tenant to the back so that tenants take turns
+                iterator.remove();
+                if (next.getValue().isEmpty() == false) {
+                    tenantQueues.put(next.getKey(), next.getValue());
+                }
+                inFlightCost += request.cost;
+                queued--;
+                toRun.add(request);
+            }
+        }
+        for (QueuedRequest request : toRun) {
+            request.onDequeued();
+            try (ThreadContext.StoredContext ignore = threadContext.stashContext()) {
+                request.context.restore();
+                request.executor.execute(request.runnable);
+            }
+        }
+    }
+
+    /**
+     * Removes the given request from its queue and rejects it with the given exception, unless it was dequeued already.
+     */
+    private void drop(QueuedRequest request, Exception e) {
+        synchronized (this) {
+            final ArrayDeque<QueuedRequest> queue = request.tenantQueues.get(request.tenant);
+            if (queue == null || queue.remove(request) == false) {
+                return;
+            }
+            if (queue.isEmpty()) {
+                request.tenantQueues.remove(request.tenant);
+            }
+            queued--;
+        }
+        request.onDequeued();
+        logger.debug("{}", e.getMessage());
+        try (ThreadContext.StoredContext ignore = threadContext.stashContext()) {
+            request.context.restore();
+            request.runnable.onRejection(e);
+        }
+    }
+
+    long estimateCost(String shapeKey, ShardSearchRequest request, IndexShard shard) {
+        final ExponentiallyWeightedMovingAverage recent = history.get(shapeKey);
+        if (recent != null) {
+            return Math.max(1, (long) recent.getAverage());
+        }
+        long docCount;
+        try {
+            docCount = shard.docStats().getCount();
+        } catch (Exception e) {
+            docCount = 0;
+        }
+        final SearchSourceBuilder source = request.source();
+        final int aggregations = source == null ? 0 : countAggregations(source.aggregations());
+        return structuralCost(docCount, aggregations, usesScripts(source));
+    }
+
+    static long structuralCost(long docCount, int aggregations, boolean usesScripts) {
+        double cost = BASE_COST_NANOS * (1 + Math.log10(1 + docCount / 100_000.0));
+        cost *= 1 + aggregations;
+        if (usesScripts) {
+            cost *= 2;
+        }
+        return (long) cost;
+    }
+
+    private void onExecuted(String shapeKey, long tookInNanos) {
+        final ExponentiallyWeightedMovingAverage recent = history.get(shapeKey);
+        if (recent == null) {
+            history.put(shapeKey, new ExponentiallyWeightedMovingAverage(ALPHA, tookInNanos));
+        } else {
+            recent.addValue(tookInNanos);
+        }
+    }
+
+    /**
+     * Returns a key that is the same for requests on the same index with the same aggregations and script usage.
+     */
+    static String shapeKey(ShardSearchRequest request, IndexShard shard) {
+        final StringBuilder builder = new StringBuilder(shard.shardId().getIndexName());
+        final SearchSourceBuilder source = request.source();
+        if (source != null) {
+            if (source.aggregations() != null) {
+                builder.append('|');
+                appendAggregations(builder, source.aggregations().getAggregatorFactories(),
+                    source.aggregations().getPipelineAggregatorFactories());
+            }
+            if (usesScripts(source)) {
+                builder.append("|script");
+            }
+        }
+        return builder.toString();
+    }
+
+    private static void appendAggregations(StringBuilder builder, Collection<AggregationBuilder> aggregations,
+                                           Collection<PipelineAggregationBuilder> pipelineAggregations) {
+        builder.append('(');
+        for (AggregationBuilder aggregation : aggregations) {
+            builder.append(aggregation.getType());
+            if (aggregation.getSubAggregations().isEmpty() == false || aggregation.getPipelineAggregations().isEmpty() == false) {
+                appendAggregations(builder, aggregation.getSubAggregations(), aggregation.getPipelineAggregations());
+            }
+            builder.append(',');
+        }
+        for (PipelineAggregationBuilder aggregation : pipelineAggregations) {
+            builder.append(aggregation.getType()).append(',');
+        }
+        builder.append(')');
+    }
+
+    private static int countAggregations(AggregatorFactories.Builder aggregations) {
+        if (aggregations == null) {
+            return 0;
+        }
+        return countAggregations(aggregations.getAggregatorFactories());
+    }
+
+    private static int countAggregations(Collection<AggregationBuilder> aggregations) {
+        int count = 0;
+        for (AggregationBuilder aggregation : aggregations) {
+            count += 1 + countAggregations(aggregation.getSubAggregations());
+        }
+        return count;
+    }
+
+    private static boolean usesScripts(SearchSourceBuilder source) {
+        if (source == null) {
+            return false;
+        }
+        if (source.scriptFields() != null && source.scriptFields().isEmpty() == false) {
+            return true;
+        }
+        if (source.sorts() != null) {
+            for (SortBuilder<?> sort : source.sorts()) {
+                if (sort instanceof ScriptSortBuilder) {
+                    return true;
+                }
+            }
+        }
+        return source.aggregations() != null && usesScripts(source.aggregations().getAggregatorFactories());
+    }
+
+    private static boolean usesScripts(Collection<AggregationBuilder> aggregations) {
+        for (AggregationBuilder aggregation : aggregations) {
+            if (aggregation instanceof ValuesSourceAggregationBuilder
+                    && ((ValuesSourceAggregationBuilder<?, ?>) aggregation).script() != null) {
+                return true;
+            }
+            if (usesScripts(aggregation.getSubAggregations())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized long getInFlightCost() {
+        return inFlightCost;
+    }
+
+    synchronized int getQueued() {
+        return queued;
+    }
+
+    long getRejected() {
+        return rejected.sum();
+    }
+
+    private static final class QueuedRequest {
+        final AdmittedRequest runnable;
+        final Executor executor;
+        final long cost;
+        final Map<String, ArrayDeque<QueuedRequest>> tenantQueues;
+        final String tenant;
+        final ThreadContext.StoredContext context;
+        @Nullable
+        final SearchTask task;
+        volatile ScheduledFuture<?> timeout;
+        volatile Runnable cancellationListener;
+        // set once the request left its queue, either to be executed or to be rejected
+        volatile boolean dequeued;
+
+        QueuedRequest(AdmittedRequest runnable, Executor executor, long cost, Map<String, ArrayDeque<QueuedRequest>> tenantQueues,
+                      String tenant, ThreadContext.StoredContext context, @Nullable SearchTask task) {
+            this.runnable = runnable;
+            this.executor = executor;
+            this.cost = cost;
+            this.tenantQueues = tenantQueues;
+            this.tenant = tenant;
+            this.context = context;
+            this.task = task;
+        }
+
+        /**
+         * Cancels the queue timeout and unregisters the cancellation listener of this request once it left its queue. Called again
+         * by the submitting thread if the request left its queue before the timeout and the listener were registered.
+         */
+        void onDequeued() {
+            dequeued = true;
+            final ScheduledFuture<?> timeout = this.timeout;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            final Runnable cancellationListener = this.cancellationListener;
+            if (cancellationListener != null) {
+                task.removeCancellationListener(cancellationListener);
+            }
+        }
+    }
+
+    /**
+     * Wraps an admitted request to give its cost back once it completed and to record its execution time.
+     */
+    private final class AdmittedRequest extends AbstractRunnable implements WrappedRunnable {
+        private final AbstractRunnable delegate;
+        private final String shapeKey;
+        private final long cost;
+
+        AdmittedRequest(AbstractRunnable delegate, String shapeKey, long cost) {
+            this.delegate = delegate;
+            this.shapeKey = shapeKey;
+            this.cost = cost;
+        }
+
+        @Override
+        protected void doRun() {
+            final long startNanos = System.nanoTime();
+            try {
+                delegate.run();
+            } finally {
+                onExecuted(shapeKey, System.nanoTime() - startNanos);
+            }
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            delegate.onFailure(e);
+        }
+
+        @Override
+        public void onRejection(Exception e) {
+            try {
+                delegate.onRejection(e);
+            } finally {
+                delegate.onAfter();
+            }
+        }
+
+        @Override
+        public void onAfter() {
+            release(cost);
+        }
+
+        @Override
+        public boolean isForceExecution() {
+            return delegate.isForceExecution();
+        }
+
+        @Override
+        public Runnable unwrap() {
+            return delegate;
+        }
+    }
+}
@@ -41,6 +41,7 @@ import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.ConcurrentMapLong;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexSettings;
@@ -95,6 +96,7 @@ import org.elasticsearch.search.sort.SortAndFormats;
 import org.elasticsearch.search.sort.SortBuilder;
 import org.elasticsearch.search.suggest.Suggest;
 import org.elasticsearch.search.suggest.completion.CompletionSuggestion;
+import org.elasticsearch.threadpool.SearchPriority;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.threadpool.Scheduler.Cancellable;
 import org.elasticsearch.threadpool.ThreadPool.Names;
@@ -179,6 +181,8 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private final MultiBucketConsumerService multiBucketConsumerService;
 
+    private final SearchAdmissionController admissionController;
+
     public SearchService(ClusterService clusterService, IndicesService indicesService,
                          ThreadPool threadPool, ScriptService scriptService, BigArrays bigArrays, FetchPhase fetchPhase,
                          ResponseCollectorService responseCollectorService) {
@@ -192,6 +196,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         this.queryPhase = new QueryPhase(settings);
         this.fetchPhase = fetchPhase;
         this.multiBucketConsumerService = new MultiBucketConsumerService(clusterService, settings);
+        this.admissionController = new SearchAdmissionController(settings, clusterService.getClusterSettings(), threadPool);
 
         TimeValue keepAliveInterval = KEEPALIVE_INTERVAL_SETTING.get(settings);
         setKeepAlives(DEFAULT_KEEPALIVE_SETTING.get(settings), MAX_KEEPALIVE_SETTING.get(settings));
@@ -283,7 +288,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     }
 
     public void executeDfsPhase(ShardSearchRequest request, SearchTask task, ActionListener<SearchPhaseResult> listener) {
-        rewriteShardRequest(request, new ActionListener<ShardSearchRequest>() {
+        rewriteShardRequest(request, task, new ActionListener<ShardSearchRequest>() {
             @Override
             public void onResponse(ShardSearchRequest request) {
                 try {
@@ -332,7 +337,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     }
 
     public void executeQueryPhase(ShardSearchRequest request, SearchTask task, ActionListener<SearchPhaseResult> listener) {
-        rewriteShardRequest(request, new ActionListener<ShardSearchRequest>() {
+        rewriteShardRequest(request, task, new ActionListener<ShardSearchRequest>() {
             @Override
             public void onResponse(ShardSearchRequest request) {
                 try {
@@ -363,6 +368,20 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         });
     }
 
+    /**
+     * Like {@link #runAsync(long, Supplier, ActionListener)} but marks the work as batch work, since scrolls are typically used
+     * for exports, so that search thread pools with weighted fair scheduling give precedence to interactive searches.
+     */
+    private <T> void runScrollAsync(long id, Supplier<T> executable, ActionListener<T> listener) {
+        final ThreadContext threadContext = threadPool.getThreadContext();
+        try (ThreadContext.StoredContext ignored = threadContext.newStoredContext(true)) {
+            if (threadContext.getTransient(SearchPriority.TRANSIENT) == null) {
+                threadContext.putTransient(SearchPriority.TRANSIENT, SearchPriority.BATCH);
+            }
+            runAsync(id, executable, listener);
+        }
+    }
+
     private SearchPhaseResult executeQueryPhase(ShardSearchRequest request, SearchTask task) throws IOException {
         final SearchContext context = createAndPutContext(request);
         final SearchOperationListener operationListener = context.indexShard().getSearchOperationListener();
@@ -425,7 +444,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     }
 
     public void executeQueryPhase(InternalScrollSearchRequest request, SearchTask task, ActionListener<ScrollQuerySearchResult> listener) {
-        runAsync(request.id(), () -> {
+        runScrollAsync(request.id(), () -> {
             final SearchContext context = findContext(request.id(), request);
             SearchOperationListener operationListener = context.indexShard().getSearchOperationListener();
             context.incRef();
@@ -508,7 +527,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     public void executeFetchPhase(InternalScrollSearchRequest request, SearchTask task,
                                   ActionListener<ScrollQueryFetchSearchResult> listener) {
-        runAsync(request.id(), () -> {
+        runScrollAsync(request.id(), () -> {
             final SearchContext context = findContext(request.id(), request);
             context.incRef();
             try {
@@ -1063,25 +1082,34 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
      * Rewrites the search request with a light weight rewrite context in order to fetch resources asynchronously
      * The action listener is guaranteed to be executed on the search thread-pool
      */
-    private void rewriteShardRequest(ShardSearchRequest request, ActionListener<ShardSearchRequest> listener) {
+    private void rewriteShardRequest(ShardSearchRequest request, SearchTask task, ActionListener<ShardSearchRequest> listener) {
         IndexShard shard = indicesService.indexServiceSafe(request.shardId().getIndex()).getShard(request.shardId().id());
         Executor executor = getExecutor(shard);
+        // classify the request while we still have its context, admission control may submit it from another thread
+        final SearchPriority priority = SearchPriority.fromThreadContext(threadPool.getThreadContext());
         // we also do rewrite on the coordinating node (TransportSearchService) but we also need to do it here for BWC as well as
         // AliasFilters that might need to be rewritten. These are edge-cases but we are every efficient doing the rewrite here so it's not
         // adding a lot of overhead
         Rewriteable.rewriteAndFetch(request.getRewriteable(), indicesService.getRewriteContext(request::nowInMillis),
-            ActionListener.wrap(r ->
-                    executor.execute(new AbstractRunnable() {
-                        @Override
-                        public void onFailure(Exception e) {
-                            listener.onFailure(e);
-                        }
-
-                        @Override
-                        protected void doRun() {
-                            listener.onResponse(request);
-                        }
-                    }), listener::onFailure));
+            ActionListener.wrap(r -> {
+                final AbstractRunnable runnable = SearchPriority.withPriority(priority, new AbstractRunnable() {
+                    @Override
+                    public void onFailure(Exception e) {
+                        listener.onFailure(e);
+                    }
+
+                    @Override
+                    protected void doRun() {
+                        listener.onResponse(request);
+                    }
+                });
+                if (shard.indexSettings().isSearchThrottled()) {
+                    // throttled indices have their own single threaded pool and are not subject to admission control
+                    executor.execute(runnable);
+                } else {
+                    admissionController.execute(request, shard, task, executor, runnable);
+                }
+            }, listener::onFailure));
     }
 
     /**
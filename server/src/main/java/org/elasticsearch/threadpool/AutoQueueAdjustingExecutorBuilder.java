@@ -23,8 +23,10 @@ import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.SizeValue;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.common.util.concurrent.WeightedFairBlockingQueue;
 import org.elasticsearch.node.Node;
 
 import java.util.Arrays;
@@ -32,6 +34,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadFactory;
 
@@ -41,12 +44,18 @@ import java.util.concurrent.ThreadFactory;
  */
 public final class AutoQueueAdjustingExecutorBuilder extends ExecutorBuilder<AutoQueueAdjustingExecutorBuilder.AutoExecutorSettings> {
 
+    static final String FIFO_SCHEDULER = "fifo";
+    static final String WEIGHTED_FAIR_SCHEDULER = "weighted_fair";
+
     private final Setting<Integer> sizeSetting;
     private final Setting<Integer> queueSizeSetting;
     private final Setting<Integer> minQueueSizeSetting;
     private final Setting<Integer> maxQueueSizeSetting;
     private final Setting<TimeValue> targetedResponseTimeSetting;
     private final Setting<Integer> frameSizeSetting;
+    private final Setting<String> schedulerSetting;
+    private final Setting<Integer> interactiveWeightSetting;
+    private final Setting<Integer> batchWeightSetting;
 
     AutoQueueAdjustingExecutorBuilder(final Settings settings, final String name, final int size,
                                       final int initialQueueSize, final int minQueueSize,
@@ -111,12 +120,24 @@ public final class AutoQueueAdjustingExecutorBuilder extends ExecutorBuilder<Aut
                 },
                 Setting.Property.NodeScope);
         this.frameSizeSetting = Setting.intSetting(frameSizeKey, frameSize, 100, Setting.Property.NodeScope);
+        final String schedulerKey = settingsKey(prefix, "scheduler");
+        this.schedulerSetting = new Setting<>(schedulerKey, FIFO_SCHEDULER, s -> {
+            if (FIFO_SCHEDULER.equals(s) == false && WEIGHTED_FAIR_SCHEDULER.equals(s) == false) {
+                throw new IllegalArgumentException("Failed to parse value [" + s + "] for setting [" + schedulerKey + "] must be one of ["
+                    + FIFO_SCHEDULER + ", " + WEIGHTED_FAIR_SCHEDULER + "]");
+            }
+            return s;
+        }, Setting.Property.NodeScope);
+        this.interactiveWeightSetting = Setting.intSetting(settingsKey(prefix, "weights.interactive"), 8, 1,
+            Setting.Property.NodeScope);
+        this.batchWeightSetting = Setting.intSetting(settingsKey(prefix, "weights.batch"), 1, 1, Setting.Property.NodeScope);
     }
 
     @Override
     public List<Setting<?>> getRegisteredSettings() {
         return Arrays.asList(sizeSetting, queueSizeSetting, minQueueSizeSetting,
-                maxQueueSizeSetting, frameSizeSetting, targetedResponseTimeSetting);
+                maxQueueSizeSetting, frameSizeSetting, targetedResponseTimeSetting, schedulerSetting,
+                interactiveWeightSetting, batchWeightSetting);
     }
 
     @Override
@@ -128,7 +149,12 @@ public final class AutoQueueAdjustingExecutorBuilder extends ExecutorBuilder<Aut
         final int maxQueueSize = maxQueueSizeSetting.get(settings);
         final int frameSize = frameSizeSetting.get(settings);
         final TimeValue targetedResponseTime = targetedResponseTimeSetting.get(settings);
-        return new AutoExecutorSettings(nodeName, size, initialQueueSize, minQueueSize, maxQueueSize, frameSize, targetedResponseTime);
+        final boolean weightedFair = WEIGHTED_FAIR_SCHEDULER.equals(schedulerSetting.get(settings));
+        final int[] weights = new int[SearchPriority.values().length];
+        weights[SearchPriority.INTERACTIVE.ordinal()] = interactiveWeightSetting.get(settings);
+        weights[SearchPriority.BATCH.ordinal()] = batchWeightSetting.get(settings);
+        return new AutoExecutorSettings(nodeName, size, initialQueueSize, minQueueSize, maxQueueSize, frameSize, targetedResponseTime,
+            weightedFair ? weights : null);
     }
 
     @Override
@@ -141,6 +167,13 @@ public final class AutoQueueAdjustingExecutorBuilder extends ExecutorBuilder<Aut
         int frameSize = settings.frameSize;
         TimeValue targetedResponseTime = settings.targetedResponseTime;
         final ThreadFactory threadFactory = EsExecutors.daemonThreadFactory(EsExecutors.threadName(settings.nodeName, name()));
+        final BlockingQueue<Runnable> queue;
+        if (settings.weights == null) {
+            queue = ConcurrentCollections.newBlockingQueue();
+        } else {
+            // search work carries the class it was given when it was created, other tasks are classified by the submitting thread
+            queue = new WeightedFairBlockingQueue<>(settings.weights, task -> SearchPriority.of(task, threadContext).ordinal());
+        }
         final ExecutorService executor =
                 EsExecutors.newAutoQueueFixed(
                         settings.nodeName + "/" + name(),
@@ -151,7 +184,8 @@ public final class AutoQueueAdjustingExecutorBuilder extends ExecutorBuilder<Aut
                         frameSize,
                         targetedResponseTime,
                         threadFactory,
-                        threadContext);
+                        threadContext,
+                        queue);
         // TODO: in a subsequent change we hope to extend ThreadPool.Info to be more specific for the thread pool type
         final ThreadPool.Info info =
             new ThreadPool.Info(name(), ThreadPool.ThreadPoolType.FIXED_AUTO_QUEUE_SIZE,
@@ -177,10 +211,12 @@ public final class AutoQueueAdjustingExecutorBuilder extends ExecutorBuilder<Aut
         final int maxQueueSize;
         final int frameSize;
         final TimeValue targetedResponseTime;
+        // the weights of the search priority classes, null if tasks are executed in FIFO order
+        final int[] weights;
 
         AutoExecutorSettings(final String nodeName, final int size, final int initialQueueSize,
                              final int minQueueSize, final int maxQueueSize, final int frameSize,
-                             final TimeValue targetedResponseTime) {
+                             final TimeValue targetedResponseTime, final int[] weights) {
             super(nodeName);
             this.size = size;
             this.initialQueueSize = initialQueueSize;
@@ -188,6 +224,7 @@ public final class AutoQueueAdjustingExecutorBuilder extends ExecutorBuilder<Aut
             this.maxQueueSize = maxQueueSize;
             this.frameSize = frameSize;
             this.targetedResponseTime = targetedResponseTime;
+            this.weights = weights;
         }
 
     }
@@ -0,0 +1,142 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.threadpool;
+
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.common.util.concurrent.WrappedRunnable;
+
+import java.util.Locale;
+
+/**
+ * The priority classes of search work, used by search thread pools that are configured with the
+ * <code>weighted_fair</code> scheduler. The class of a task is taken from the {@link #HEADER} request header if it is
+ * set, otherwise from the {@link #TRANSIENT} transient that is set for work that is known to be batch work such as
+ * scrolls, and defaults to {@link #INTERACTIVE}. Search work is classified when it is created and carries its class, see
+ * {@link #withPriority(SearchPriority, AbstractRunnable)}, since it is not always submitted from the thread of its request.
+ */
+public enum SearchPriority {
+    /** Latency-sensitive searches, for instance from dashboards. */
+    INTERACTIVE,
+    /** Long-running searches that are not latency-sensitive, for instance exports with scroll. */
+    BATCH;
+
+    /** The request header a client can set to choose the priority class of a search. */
+    public static final String HEADER = "X-Search-Priority";
+    /** The thread context transient used to mark work that is known to be batch work. */
+    public static final String TRANSIENT = "_search_priority";
+
+    public static SearchPriority fromString(String value) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "interactive":
+                return INTERACTIVE;
+            case "batch":
+                return BATCH;
+            default:
+                throw new IllegalArgumentException("unknown search priority [" + value + "], must be one of [interactive, batch]");
+        }
+    }
+
+    /**
+     * Returns the priority class of the work that is submitted from the given thread context.
+     */
+    public static SearchPriority fromThreadContext(ThreadContext threadContext) {
+        final String header = threadContext.getHeader(HEADER);
+        if (header != null) {
+            try {
+                return fromString(header);
+            } catch (IllegalArgumentException e) {
+                return INTERACTIVE;
+            }
+        }
+        final SearchPriority priority = threadContext.getTransient(TRANSIENT);
+        return priority == null ? INTERACTIVE : priority;
+    }
+
+    /**
+     * Returns the priority class of the given task: the class it carries if it or a task it wraps was created with
+     * {@link #withPriority(SearchPriority, AbstractRunnable)}, otherwise the priority class of the current thread context.
+     */
+    public static SearchPriority of(Runnable runnable, ThreadContext threadContext) {
+        Runnable current = runnable;
+        while (true) {
+            if (current instanceof PrioritizedRunnable) {
+                return ((PrioritizedRunnable) current).priority;
+            }
+            if (current instanceof WrappedRunnable == false) {
+                return fromThreadContext(threadContext);
+            }
+            current = ((WrappedRunnable) current).unwrap();
+        }
+    }
+
+    /**
+     * Wraps the given task so that it carries the given priority class, no matter which thread submits it.
+     */
+    public static AbstractRunnable withPriority(SearchPriority priority, AbstractRunnable runnable) {
+        return new PrioritizedRunnable(priority, runnable);
+    }
+
+    private static final class PrioritizedRunnable extends AbstractRunnable implements WrappedRunnable {
+        private final SearchPriority priority;
+        private final AbstractRunnable delegate;
+
+        PrioritizedRunnable(SearchPriority priority, AbstractRunnable delegate) {
+            this.priority = priority;
+            this.delegate = delegate;
+        }
+
+        @Override
+        protected void doRun() {
+            // runs onAfter of the delegate as well
+            delegate.run();
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            delegate.onFailure(e);
+        }
+
+        @Override
+        public void onRejection(Exception e) {
+            // the delegate did not run, so it has to be completed here
+            try {
+                delegate.onRejection(e);
+            } finally {
+                delegate.onAfter();
+            }
+        }
+
+        @Override
+        public boolean isForceExecution() {
+            return delegate.isForceExecution();
+        }
+
+        @Override
+        public Runnable unwrap() {
+            return delegate;
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+}
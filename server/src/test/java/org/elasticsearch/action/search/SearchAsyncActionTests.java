@@ -27,15 +27,21 @@ import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.cluster.routing.RecoverySource;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.UnassignedInfo;
+import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.Transport;
 import org.elasticsearch.transport.TransportException;
 import org.elasticsearch.transport.TransportRequest;
@@ -43,15 +49,19 @@ import org.elasticsearch.transport.TransportRequestOptions;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -372,6 +382,220 @@ public class SearchAsyncActionTests extends ESTestCase {
         executor.shutdown();
     }
 
+    public void testHedgedShardResultIsCountedOnce() throws InterruptedException {
+        DiscoveryNode node1 = new DiscoveryNode("node_1", buildNewFakeTransportAddress(), Version.CURRENT);
+        DiscoveryNode node2 = new DiscoveryNode("node_2", buildNewFakeTransportAddress(), Version.CURRENT);
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            ManualHedgingService hedgingService = new ManualHedgingService(threadPool);
+            List<Long> freedContexts = new CopyOnWriteArrayList<>();
+            Map<String, SearchActionListener<TestSearchPhaseResult>> inFlight = new ConcurrentHashMap<>();
+            AtomicInteger numPhasesDone = new AtomicInteger();
+            AbstractSearchAsyncAction<TestSearchPhaseResult> asyncAction = createHedgingAction(hedgingService, freedContexts,
+                inFlight, numPhasesDone, node1, node2);
+
+            asyncAction.start();
+            assertEquals(Collections.singleton("node_1"), inFlight.keySet());
+            assertEquals(1, hedgingService.scheduledHedges.size());
+            hedgingService.scheduledHedges.get(0).run();
+            assertEquals(new HashSet<>(Arrays.asList("node_1", "node_2")), inFlight.keySet());
+            assertEquals(1, hedgingService.getInFlightHedges());
+
+            // the hedge answers first, both copies are accounted for so the phase completes right away
+            inFlight.get("node_2").onResponse(new TestSearchPhaseResult(2, node2));
+            assertEquals(1, numPhasesDone.get());
+            inFlight.get("node_1").onResponse(new TestSearchPhaseResult(1, node1));
+            assertEquals(1, numPhasesDone.get());
+
+            assertEquals(Collections.singletonList(1L), freedContexts);
+            assertEquals(0, hedgingService.getInFlightHedges());
+            SearchHedgingService.HedgingStats stats = hedgingService.getHedgingStats().get("node_1");
+            assertEquals(1, stats.getHedgedRequests());
+            assertEquals(1, stats.getWonHedgedRequests());
+            SearchResponse searchResponse = asyncAction.buildSearchResponse(null, null);
+            assertEquals(1, searchResponse.getSuccessfulShards());
+            assertEquals(0, searchResponse.getFailedShards());
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
+    public void testDiscardedHedgedShardResultReleasesContext() throws InterruptedException {
+        DiscoveryNode node1 = new DiscoveryNode("node_1", buildNewFakeTransportAddress(), Version.CURRENT);
+        DiscoveryNode node2 = new DiscoveryNode("node_2", buildNewFakeTransportAddress(), Version.CURRENT);
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            ManualHedgingService hedgingService = new ManualHedgingService(threadPool);
+            List<Long> freedContexts = new CopyOnWriteArrayList<>();
+            Map<String, SearchActionListener<TestSearchPhaseResult>> inFlight = new ConcurrentHashMap<>();
+            AtomicInteger numPhasesDone = new AtomicInteger();
+            AbstractSearchAsyncAction<TestSearchPhaseResult> asyncAction = createHedgingAction(hedgingService, freedContexts,
+                inFlight, numPhasesDone, node1, node2);
+
+            asyncAction.start();
+            hedgingService.scheduledHedges.get(0).run();
+            assertEquals(2, inFlight.size());
+
+            // the original copy answers first, the late response of the hedge is not used and its context is released
+            inFlight.get("node_1").onResponse(new TestSearchPhaseResult(1, node1));
+            assertEquals(1, numPhasesDone.get());
+            assertTrue(freedContexts.isEmpty());
+            inFlight.get("node_2").onResponse(new TestSearchPhaseResult(2, node2));
+            assertEquals(1, numPhasesDone.get());
+            assertEquals(Collections.singletonList(2L), freedContexts);
+
+            assertEquals(0, hedgingService.getInFlightHedges());
+            SearchHedgingService.HedgingStats stats = hedgingService.getHedgingStats().get("node_1");
+            assertEquals(1, stats.getHedgedRequests());
+            assertEquals(0, stats.getWonHedgedRequests());
+            assertEquals(1, asyncAction.buildSearchResponse(null, null).getSuccessfulShards());
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
+    public void testHedgedShardExecutionFailsOver() throws InterruptedException {
+        DiscoveryNode node1 = new DiscoveryNode("node_1", buildNewFakeTransportAddress(), Version.CURRENT);
+        DiscoveryNode node2 = new DiscoveryNode("node_2", buildNewFakeTransportAddress(), Version.CURRENT);
+        DiscoveryNode node3 = new DiscoveryNode("node_3", buildNewFakeTransportAddress(), Version.CURRENT);
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            ManualHedgingService hedgingService = new ManualHedgingService(threadPool);
+            List<Long> freedContexts = new CopyOnWriteArrayList<>();
+            Map<String, SearchActionListener<TestSearchPhaseResult>> inFlight = new ConcurrentHashMap<>();
+            AtomicInteger numPhasesDone = new AtomicInteger();
+            AbstractSearchAsyncAction<TestSearchPhaseResult> asyncAction = createHedgingAction(hedgingService, freedContexts,
+                inFlight, numPhasesDone, node1, node2, node3);
+
+            asyncAction.start();
+            hedgingService.scheduledHedges.get(0).run();
+            assertEquals(new HashSet<>(Arrays.asList("node_1", "node_2")), inFlight.keySet());
+
+            // the hedge is still in flight, so the failure of the original copy doesn't move on to the last copy
+            inFlight.get("node_1").onFailure(new IllegalStateException("original failed"));
+            assertEquals(0, numPhasesDone.get());
+            assertFalse(inFlight.containsKey("node_3"));
+
+            // once the hedge fails too, the execution fails over to the remaining copy
+            inFlight.get("node_2").onFailure(new IllegalStateException("hedge failed"));
+            assertEquals(0, numPhasesDone.get());
+            assertTrue(inFlight.containsKey("node_3"));
+            // no copy is left to hedge the last one with
+            assertEquals(1, hedgingService.scheduledHedges.size());
+
+            inFlight.get("node_3").onResponse(new TestSearchPhaseResult(3, node3));
+            assertEquals(1, numPhasesDone.get());
+            assertTrue(freedContexts.isEmpty());
+            assertEquals(0, hedgingService.getInFlightHedges());
+            SearchResponse searchResponse = asyncAction.buildSearchResponse(null, null);
+            assertEquals(1, searchResponse.getSuccessfulShards());
+            assertEquals(0, searchResponse.getFailedShards());
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
+    /**
+     * Creates a search on a single shard whose copies are on the given nodes, in that order. The listeners of the requests sent
+     * to the shard copies are kept by node so that the test decides when and how each of them completes. The executor runs
+     * every task on the calling thread so that the search makes progress synchronously.
+     */
+    private AbstractSearchAsyncAction<TestSearchPhaseResult> createHedgingAction(SearchHedgingService hedgingService,
+            List<Long> freedContexts, Map<String, SearchActionListener<TestSearchPhaseResult>> inFlight,
+            AtomicInteger numPhasesDone, DiscoveryNode... nodes) {
+        SearchRequest request = new SearchRequest();
+        request.allowPartialSearchResults(true);
+        ActionListener<SearchResponse> responseListener = ActionListener.wrap(r -> {}, e -> {
+            logger.warn("test failed", e);
+            fail(e.getMessage());
+        });
+        Map<String, Transport.Connection> lookup = new HashMap<>();
+        List<ShardRouting> copies = new ArrayList<>();
+        ShardId shardId = new ShardId(new Index("idx", "_na_"), 0);
+        for (int i = 0; i < nodes.length; i++) {
+            lookup.put(nodes[i].getId(), new MockConnection(nodes[i]));
+            ShardRouting routing = ShardRouting.newUnassigned(shardId, i == 0,
+                i == 0 ? RecoverySource.EmptyStoreRecoverySource.INSTANCE : RecoverySource.PeerRecoverySource.INSTANCE,
+                new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "foobar"));
+            copies.add(routing.initialize(nodes[i].getId(), "copy" + i, 0).moveToStarted());
+        }
+        OriginalIndices indices = new OriginalIndices(new String[]{"idx"}, IndicesOptions.strictExpandOpenAndForbidClosed());
+        GroupShardsIterator<SearchShardIterator> shardsIter = new GroupShardsIterator<>(
+            Collections.singletonList(new SearchShardIterator(null, shardId, copies, indices)));
+        SearchTransportService transportService = new SearchTransportService(Settings.EMPTY, null, null) {
+            @Override
+            public void sendFreeContext(Transport.Connection connection, long contextId, OriginalIndices originalIndices) {
+                freedContexts.add(contextId);
+            }
+        };
+        Map<String, AliasFilter> aliasFilters = Collections.singletonMap("_na_", new AliasFilter(null, Strings.EMPTY_ARRAY));
+        return new AbstractSearchAsyncAction<TestSearchPhaseResult>(
+                "test",
+                logger,
+                transportService,
+                (cluster, node) -> lookup.get(node),
+                aliasFilters,
+                Collections.emptyMap(),
+                Collections.emptyMap(),
+                EsExecutors.newDirectExecutorService(),
+                request,
+                responseListener,
+                shardsIter,
+                new TransportSearchAction.SearchTimeProvider(0, 0, () -> 0),
+                0,
+                null,
+                new InitialSearchPhase.ArraySearchPhaseResults<>(shardsIter.size()),
+                request.getMaxConcurrentShardRequests(),
+                SearchResponse.Clusters.EMPTY) {
+
+            @Override
+            protected SearchHedgingService getHedgingService() {
+                return hedgingService;
+            }
+
+            @Override
+            protected void executePhaseOnShard(SearchShardIterator shardIt, ShardRouting shard,
+                                               SearchActionListener<TestSearchPhaseResult> listener) {
+                assertNull("shard copy on [" + shard.currentNodeId() + "] has been queried twice",
+                    inFlight.put(shard.currentNodeId(), listener));
+            }
+
+            @Override
+            protected SearchPhase getNextPhase(SearchPhaseResults<TestSearchPhaseResult> results, SearchPhaseContext context) {
+                return new SearchPhase("test") {
+                    @Override
+                    public void run() {
+                        numPhasesDone.incrementAndGet();
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * A hedging service that always hedges after the same delay, and whose hedges are only sent when the test runs them.
+     */
+    private static final class ManualHedgingService extends SearchHedgingService {
+        private final List<Runnable> scheduledHedges = new CopyOnWriteArrayList<>();
+
+        ManualHedgingService(ThreadPool threadPool) {
+            super(Settings.builder().put(HEDGING_ENABLED_SETTING.getKey(), true).build(), new ClusterService(Settings.EMPTY,
+                new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS), threadPool, Collections.emptyMap()),
+                threadPool);
+        }
+
+        @Override
+        TimeValue getHedgeDelay(String nodeId) {
+            return TimeValue.timeValueMillis(10);
+        }
+
+        @Override
+        ScheduledFuture<?> schedule(TimeValue delay, Runnable command) {
+            scheduledHedges.add(command);
+            return null;
+        }
+    }
+
     static GroupShardsIterator<SearchShardIterator> getShardsIter(String index, OriginalIndices originalIndices, int numShards,
                                                      boolean doReplicas, DiscoveryNode primaryNode, DiscoveryNode replicaNode) {
         ArrayList<SearchShardIterator> list = new ArrayList<>();
@@ -0,0 +1,140 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.After;
+import org.junit.Before;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class SearchHedgingServiceTests extends ESTestCase {
+
+    private ThreadPool threadPool;
+    private ClusterService clusterService;
+
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        threadPool = new TestThreadPool("search_hedging_tests");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+        threadPool.shutdownNow();
+    }
+
+    private SearchHedgingService newService(Settings settings) {
+        clusterService = new ClusterService(settings, new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
+            threadPool, Collections.emptyMap());
+        return new SearchHedgingService(settings, clusterService, threadPool);
+    }
+
+    public void testDisabledByDefault() {
+        SearchHedgingService service = newService(Settings.EMPTY);
+        assertFalse(service.isEnabled());
+        for (int i = 0; i < SearchHedgingService.SAMPLE_SIZE; i++) {
+            service.onShardResponse("node1", TimeValue.timeValueMillis(100).nanos());
+        }
+        assertThat(service.getHedgeDelay("node1"), nullValue());
+        assertTrue(service.getHedgingStats().isEmpty());
+    }
+
+    public void testHedgeDelayIsLatencyPercentile() {
+        SearchHedgingService service = newService(Settings.builder()
+            .put(SearchHedgingService.HEDGING_ENABLED_SETTING.getKey(), true)
+            .put(SearchHedgingService.HEDGING_LATENCY_PERCENTILE_SETTING.getKey(), 90.0)
+            .put(SearchHedgingService.HEDGING_MIN_DELAY_SETTING.getKey(), "1ms")
+            .build());
+        assertTrue(service.isEnabled());
+        for (int i = 1; i < SearchHedgingService.MIN_SAMPLES; i++) {
+            service.onShardResponse("node1", TimeValue.timeValueMillis(i).nanos());
+        }
+        // not enough samples yet
+        assertThat(service.getHedgeDelay("node1"), nullValue());
+        for (int i = SearchHedgingService.MIN_SAMPLES; i <= 100; i++) {
+            service.onShardResponse("node1", TimeValue.timeValueMillis(i).nanos());
+        }
+        assertThat(service.getHedgeDelay("node1"), equalTo(TimeValue.timeValueMillis(90)));
+        assertThat(service.getHedgeDelay("node2"), nullValue());
+
+        // the delay is never shorter than the minimum delay
+        clusterService.getClusterSettings().applySettings(Settings.builder()
+            .put(SearchHedgingService.HEDGING_ENABLED_SETTING.getKey(), true)
+            .put(SearchHedgingService.HEDGING_MIN_DELAY_SETTING.getKey(), "1s")
+            .build());
+        assertThat(service.getHedgeDelay("node1"), equalTo(TimeValue.timeValueSeconds(1)));
+
+        clusterService.getClusterSettings().applySettings(Settings.builder()
+            .put(SearchHedgingService.HEDGING_ENABLED_SETTING.getKey(), false)
+            .build());
+        assertFalse(service.isEnabled());
+        assertThat(service.getHedgeDelay("node1"), nullValue());
+    }
+
+    public void testOnlyRecentResponsesAreConsidered() {
+        SearchHedgingService service = newService(Settings.builder()
+            .put(SearchHedgingService.HEDGING_ENABLED_SETTING.getKey(), true)
+            .put(SearchHedgingService.HEDGING_LATENCY_PERCENTILE_SETTING.getKey(), 100.0)
+            .put(SearchHedgingService.HEDGING_MIN_DELAY_SETTING.getKey(), "0ms")
+            .build());
+        service.onShardResponse("node1", TimeValue.timeValueSeconds(10).nanos());
+        for (int i = 0; i < SearchHedgingService.SAMPLE_SIZE; i++) {
+            service.onShardResponse("node1", TimeValue.timeValueMillis(5).nanos());
+        }
+        assertThat(service.getHedgeDelay("node1"), equalTo(TimeValue.timeValueMillis(5)));
+    }
+
+    public void testHedgeBudget() {
+        final int maxInFlight = randomIntBetween(1, 10);
+        SearchHedgingService service = newService(Settings.builder()
+            .put(SearchHedgingService.HEDGING_ENABLED_SETTING.getKey(), true)
+            .put(SearchHedgingService.HEDGING_MAX_IN_FLIGHT_SETTING.getKey(), maxInFlight)
+            .build());
+        for (int i = 0; i < maxInFlight; i++) {
+            assertTrue(service.tryStartHedge("node1"));
+        }
+        assertFalse(service.tryStartHedge("node1"));
+        assertThat(service.getInFlightHedges(), equalTo(maxInFlight));
+
+        service.onHedgeCompleted("node1", true);
+        assertThat(service.getInFlightHedges(), equalTo(maxInFlight - 1));
+        assertTrue(service.tryStartHedge("node1"));
+        for (int i = 0; i < maxInFlight; i++) {
+            service.onHedgeCompleted("node1", false);
+        }
+        assertThat(service.getInFlightHedges(), equalTo(0));
+
+        SearchHedgingService.HedgingStats stats = service.getHedgingStats().get("node1");
+        assertThat(stats.getHedgedRequests(), equalTo((long) maxInFlight + 1));
+        assertThat(stats.getWonHedgedRequests(), equalTo(1L));
+        assertThat(stats.getRejectedHedgedRequests(), equalTo(1L));
+    }
+}
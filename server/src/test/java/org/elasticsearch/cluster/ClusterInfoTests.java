@@ -18,11 +18,13 @@
  */
 package org.elasticsearch.cluster;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.routing.TestShardRouting;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.ESTestCase;
 
@@ -30,7 +32,8 @@ public class ClusterInfoTests extends ESTestCase {
 
     public void testSerialization() throws Exception {
         ClusterInfo clusterInfo = new ClusterInfo(
-                randomDiskUsage(), randomDiskUsage(), randomShardSizes(), randomRoutingToDataPath()
+                randomDiskUsage(), randomDiskUsage(), randomShardSizes(), randomRoutingToDataPath(), randomShardLoads(),
+                randomShardLoads()
         );
         BytesStreamOutput output = new BytesStreamOutput();
         clusterInfo.writeTo(output);
@@ -40,6 +43,25 @@ public class ClusterInfoTests extends ESTestCase {
         assertEquals(clusterInfo.getNodeMostAvailableDiskUsages(), result.getNodeMostAvailableDiskUsages());
         assertEquals(clusterInfo.shardSizes, result.shardSizes);
         assertEquals(clusterInfo.routingToDataPath, result.routingToDataPath);
+        assertEquals(clusterInfo.shardWriteLoads, result.shardWriteLoads);
+        assertEquals(clusterInfo.shardSearchLoads, result.shardSearchLoads);
+    }
+
+    public void testSerializationOfLoadsToOlderVersion() throws Exception {
+        ClusterInfo clusterInfo = new ClusterInfo(
+                randomDiskUsage(), randomDiskUsage(), randomShardSizes(), randomRoutingToDataPath(), randomShardLoads(),
+                randomShardLoads()
+        );
+        BytesStreamOutput output = new BytesStreamOutput();
+        output.setVersion(Version.V_6_4_0);
+        clusterInfo.writeTo(output);
+
+        StreamInput input = output.bytes().streamInput();
+        input.setVersion(Version.V_6_4_0);
+        ClusterInfo result = new ClusterInfo(input);
+        assertEquals(clusterInfo.shardSizes, result.shardSizes);
+        assertTrue(result.shardWriteLoads.isEmpty());
+        assertTrue(result.shardSearchLoads.isEmpty());
     }
 
     private static ImmutableOpenMap<String, DiskUsage> randomDiskUsage() {
@@ -67,6 +89,15 @@ public class ClusterInfoTests extends ESTestCase {
         return builder.build();
     }
 
+    private static ImmutableOpenMap<String, Double> randomShardLoads() {
+        int numEntries = randomIntBetween(0, 128);
+        ImmutableOpenMap.Builder<String, Double> builder = ImmutableOpenMap.builder(numEntries);
+        for (int i = 0; i < numEntries; i++) {
+            builder.put(randomAlphaOfLength(32), randomDoubleBetween(0, 64, true));
+        }
+        return builder.build();
+    }
+
     private static ImmutableOpenMap<ShardRouting, String> randomRoutingToDataPath() {
         int numEntries = randomIntBetween(0, 128);
         ImmutableOpenMap.Builder<ShardRouting, String> builder = ImmutableOpenMap.builder(numEntries);
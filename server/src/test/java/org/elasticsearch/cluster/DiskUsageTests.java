@@ -30,6 +30,8 @@ import org.elasticsearch.cluster.routing.ShardRoutingHelper;
 import org.elasticsearch.cluster.routing.UnassignedInfo;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.search.stats.SearchStats;
+import org.elasticsearch.index.shard.IndexingStats;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardPath;
 import org.elasticsearch.index.store.StoreStats;
@@ -39,6 +41,7 @@ import org.elasticsearch.test.ESTestCase;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
@@ -131,6 +134,45 @@ public class DiskUsageTests extends ESTestCase {
         assertEquals(test1Path.getParent().getParent().getParent().toAbsolutePath().toString(), routingToPath.get(test_1));
     }
 
+    public void testBuildShardLoads() {
+        final Index index = new Index("test", "0xdeadbeef");
+        ShardRouting primary = ShardRouting.newUnassigned(new ShardId(index, 0), true, PeerRecoverySource.INSTANCE, new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "foo"));
+        primary = ShardRoutingHelper.moveToStarted(ShardRoutingHelper.initialize(primary, "node1"));
+        ShardRouting replica = ShardRouting.newUnassigned(new ShardId(index, 0), false, PeerRecoverySource.INSTANCE, new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "foo"));
+        replica = ShardRoutingHelper.moveToStarted(ShardRoutingHelper.initialize(replica, "node2"));
+        Path path = createTempDir().resolve("indices").resolve(index.getUUID()).resolve("0");
+
+        ImmutableOpenMap.Builder<String, Double> writeLoads = ImmutableOpenMap.builder();
+        ImmutableOpenMap.Builder<String, Double> searchLoads = ImmutableOpenMap.builder();
+        Map<String, InternalClusterInfoService.ShardLoadSample> samples = InternalClusterInfoService.buildShardLoads(new ShardStats[] {
+                shardStatsWithLoad(primary, path, 0, 0), shardStatsWithLoad(replica, path, 0, 0)
+        }, emptyMap(), 1000, writeLoads, searchLoads);
+        // the first sample of a shard copy does not have a load
+        assertEquals(2, samples.size());
+        assertEquals(0, writeLoads.size());
+        assertEquals(0, searchLoads.size());
+
+        writeLoads = ImmutableOpenMap.builder();
+        searchLoads = ImmutableOpenMap.builder();
+        InternalClusterInfoService.buildShardLoads(new ShardStats[] {
+                shardStatsWithLoad(primary, path, 10000, 1000), shardStatsWithLoad(replica, path, 5000, 3000)
+        }, samples, 11000, writeLoads, searchLoads);
+        // the load of a shard is the highest load of its copies
+        final String shardIdentifier = ClusterInfo.shardIdentifierFromRouting(primary);
+        assertEquals(shardIdentifier, ClusterInfo.shardIdentifierFromRouting(replica));
+        assertEquals(1.0, writeLoads.get(shardIdentifier), 0.0);
+        assertEquals(0.3, searchLoads.get(shardIdentifier), 0.0);
+    }
+
+    private static ShardStats shardStatsWithLoad(ShardRouting shardRouting, Path path, long indexTimeInMillis,
+                                                 long searchTimeInMillis) {
+        CommonStats commonStats = new CommonStats();
+        commonStats.indexing = new IndexingStats(new IndexingStats.Stats(0, indexTimeInMillis, 0, 0, 0, 0, 0, 0, false, 0), null);
+        commonStats.search = new SearchStats(new SearchStats.Stats(0, searchTimeInMillis / 2, 0, 0, searchTimeInMillis / 2, 0,
+                0, 0, 0, 0, 0, 0), 0, null);
+        return new ShardStats(shardRouting, new ShardPath(false, path, path, shardRouting.shardId()), commonStats, null, null);
+    }
+
     public void testFillDiskUsage() {
         ImmutableOpenMap.Builder<String, DiskUsage> newLeastAvaiableUsages = ImmutableOpenMap.builder();
         ImmutableOpenMap.Builder<String, DiskUsage> newMostAvaiableUsages = ImmutableOpenMap.builder();
@@ -23,6 +23,7 @@ import com.carrotsearch.hppc.cursors.ObjectCursor;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.util.ArrayUtil;
 import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterInfo;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.ESAllocationTestCase;
 import org.elasticsearch.cluster.EmptyClusterInfoService;
@@ -250,6 +251,49 @@ public class BalanceConfigurationTests extends ESAllocationTestCase {
         assertThat(allocator.getThreshold(), Matchers.equalTo(3.0f));
     }
 
+    public void testLoadBalance() {
+        /* Tests that single-shard indices that are under load are spread across the nodes */
+        final int numNodes = 4;
+        Settings.Builder settings = Settings.builder();
+        settings.put(ClusterRebalanceAllocationDecider.CLUSTER_ROUTING_ALLOCATION_ALLOW_REBALANCE_SETTING.getKey(), ClusterRebalanceAllocationDecider.ClusterRebalanceType.ALWAYS.toString());
+        settings.put(BalancedShardsAllocator.LOAD_BALANCE_FACTOR_SETTING.getKey(), 1.0f);
+
+        AllocationService strategy = createAllocationService(settings.build(), () -> new ClusterInfo() {
+            @Override
+            public double getShardWriteLoad(ShardRouting shardRouting, double defaultValue) {
+                return shardRouting.getIndexName().startsWith("hot") ? 1.0 : 0.0;
+            }
+        });
+
+        MetaData.Builder metaDataBuilder = MetaData.builder();
+        RoutingTable.Builder routingTableBuilder = RoutingTable.builder();
+        for (int i = 0; i < 16; i++) {
+            // the hot indices are created first so that they end up on the same node without the load balance
+            String name = (i < numNodes ? "hot" : "cold") + i;
+            IndexMetaData indexMetaData = IndexMetaData.builder(name).settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(0).build();
+            metaDataBuilder.put(indexMetaData, false);
+            routingTableBuilder.addAsNew(indexMetaData);
+        }
+        DiscoveryNodes.Builder nodes = DiscoveryNodes.builder();
+        for (int i = 0; i < numNodes; i++) {
+            nodes.add(newNode("node" + i));
+        }
+        ClusterState clusterState = ClusterState.builder(org.elasticsearch.cluster.ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY)).nodes(nodes).metaData(metaDataBuilder).routingTable(routingTableBuilder.build()).build();
+        clusterState = strategy.reroute(clusterState, "reroute");
+        clusterState = applyStartedShardsUntilNoChange(clusterState, strategy);
+
+        for (RoutingNode node : clusterState.getRoutingNodes()) {
+            int hotShards = 0;
+            for (ShardRouting shard : node) {
+                assertThat(shard.state(), Matchers.equalTo(STARTED));
+                if (shard.getIndexName().startsWith("hot")) {
+                    hotShards++;
+                }
+            }
+            assertThat(node.nodeId(), hotShards, Matchers.equalTo(1));
+        }
+    }
+
     public void testNoRebalanceOnPrimaryOverload() {
         Settings.Builder settings = Settings.builder();
         AllocationService strategy = new AllocationService(settings.build(), randomAllocationDeciders(settings.build(),
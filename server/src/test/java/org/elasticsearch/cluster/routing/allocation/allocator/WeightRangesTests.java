@@ -0,0 +1,119 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing.allocation.allocator;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterInfo;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.ESAllocationTestCase;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.RoutingNode;
+import org.elasticsearch.cluster.routing.RoutingNodes;
+import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.ShardRoutingState;
+import org.elasticsearch.cluster.routing.TestShardRouting;
+import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.Balancer;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.ModelIndex;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.ModelNode;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.WeightFunction;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.WeightRanges;
+import org.elasticsearch.common.settings.Settings;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class WeightRangesTests extends ESAllocationTestCase {
+
+    public void testDeltaMatchesWeightsOfAllNodes() {
+        final int numIndices = randomIntBetween(1, 20);
+        final int numNodes = randomIntBetween(1, 20);
+        final MetaData.Builder metaData = MetaData.builder();
+        final RoutingTable.Builder routingTable = RoutingTable.builder();
+        for (int i = 0; i < numIndices; i++) {
+            final IndexMetaData indexMetaData = IndexMetaData.builder("test" + i).settings(settings(Version.CURRENT))
+                .numberOfShards(randomIntBetween(1, 5)).numberOfReplicas(randomIntBetween(0, 2)).build();
+            metaData.put(indexMetaData, false);
+            routingTable.addAsNew(indexMetaData);
+        }
+        final DiscoveryNodes.Builder nodes = DiscoveryNodes.builder();
+        for (int i = 0; i < numNodes; i++) {
+            nodes.add(newNode("node" + i));
+        }
+        final ClusterState clusterState = ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY))
+            .metaData(metaData).routingTable(routingTable.build()).nodes(nodes).build();
+        final RoutingAllocation allocation = new RoutingAllocation(yesAllocationDeciders(), new RoutingNodes(clusterState, false),
+            clusterState, ClusterInfo.EMPTY, System.nanoTime());
+        final WeightFunction weightFunction = new WeightFunction(randomFloat() + 0.01f, randomFloat());
+        final Balancer balancer = new Balancer(logger, allocation, weightFunction, 1.0f);
+
+        final List<ModelNode> modelNodes = new ArrayList<>();
+        for (RoutingNode routingNode : allocation.routingNodes()) {
+            modelNodes.add(new ModelNode(routingNode));
+        }
+        for (IndexMetaData indexMetaData : clusterState.metaData()) {
+            for (int shard = 0; shard < indexMetaData.getNumberOfShards(); shard++) {
+                for (int copy = 0; copy <= indexMetaData.getNumberOfReplicas(); copy++) {
+                    final ModelNode node = randomFrom(modelNodes);
+                    node.addShard(TestShardRouting.newShardRouting(indexMetaData.getIndex().getName(), shard, node.getNodeId(),
+                        copy == 0, ShardRoutingState.STARTED));
+                }
+            }
+        }
+
+        final WeightRanges weightRanges = new WeightRanges(modelNodes.toArray(new ModelNode[0]), weightFunction, balancer);
+        assertDeltas(clusterState, modelNodes, weightRanges, weightFunction, balancer);
+        final int moves = randomIntBetween(0, 50);
+        for (int i = 0; i < moves; i++) {
+            final ModelNode fromNode = randomFrom(modelNodes);
+            final ModelNode toNode = randomFrom(modelNodes);
+            if (fromNode == toNode || fromNode.numShards() == 0) {
+                continue;
+            }
+            final List<ModelIndex> indices = new ArrayList<>();
+            fromNode.forEach(indices::add);
+            final ModelIndex index = randomFrom(indices);
+            final ShardRouting shard = index.iterator().next();
+            fromNode.removeShard(shard);
+            toNode.addShard(shard);
+            weightRanges.shardMoved(toNode, fromNode, index.getIndexId());
+            assertDeltas(clusterState, modelNodes, weightRanges, weightFunction, balancer);
+        }
+    }
+
+    private static void assertDeltas(ClusterState clusterState, List<ModelNode> modelNodes, WeightRanges weightRanges,
+                                     WeightFunction weightFunction, Balancer balancer) {
+        for (IndexMetaData indexMetaData : clusterState.metaData()) {
+            final String index = indexMetaData.getIndex().getName();
+            float min = Float.POSITIVE_INFINITY;
+            float max = Float.NEGATIVE_INFINITY;
+            for (ModelNode node : modelNodes) {
+                final float weight = weightFunction.weight(balancer, node, index);
+                min = Math.min(min, weight);
+                max = Math.max(max, weight);
+            }
+            assertEquals(index, max - min, weightRanges.delta(index), 0.0f);
+        }
+    }
+}
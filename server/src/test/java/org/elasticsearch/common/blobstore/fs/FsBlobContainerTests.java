@@ -18,9 +18,25 @@
  */
 package org.elasticsearch.common.blobstore.fs;
 
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.blobstore.BlobPath;
+import org.elasticsearch.common.blobstore.MultipartBlobWriter;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.internal.io.Streams;
 import org.elasticsearch.test.ESTestCase;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.startsWith;
 
@@ -37,4 +53,59 @@ public class FsBlobContainerTests extends ESTestCase {
         final String tempBlobName = FsBlobContainer.tempBlobName(randomAlphaOfLengthBetween(1, 20));
         assertThat(FsBlobContainer.isTempBlobName(tempBlobName), is(true));
     }
+
+    public void testReadBlobRange() throws IOException {
+        final BlobContainer container = newContainer();
+        final byte[] data = randomByteArrayOfLength(randomIntBetween(1, 4096));
+        container.writeBlob("blob", new BytesArray(data).streamInput(), data.length, true);
+        assertThat(container.supportsRangedReads(), is(true));
+        final int position = randomIntBetween(0, data.length - 1);
+        final int length = randomIntBetween(0, data.length - position);
+        try (InputStream stream = container.readBlob("blob", position, length)) {
+            assertThat(readAll(stream), equalTo(Arrays.copyOfRange(data, position, position + length)));
+        }
+    }
+
+    public void testMultipartWrite() throws IOException {
+        final BlobContainer container = newContainer();
+        assertThat(container.supportsMultipartWrites(), is(true));
+        final byte[] data = randomByteArrayOfLength(randomIntBetween(1, 4096));
+        final int partSize = randomIntBetween(1, data.length);
+        final List<Integer> positions = new ArrayList<>();
+        for (int position = 0; position < data.length; position += partSize) {
+            positions.add(position);
+        }
+        Collections.shuffle(positions, random());
+        try (MultipartBlobWriter writer = container.startMultipartWrite("blob", data.length, true)) {
+            for (int position : positions) {
+                final int length = Math.min(partSize, data.length - position);
+                writer.writePart(position, new BytesArray(data, position, length).streamInput(), length);
+            }
+            assertThat(container.blobExists("blob"), is(false));
+            writer.complete();
+        }
+        try (InputStream stream = container.readBlob("blob")) {
+            assertThat(readAll(stream), equalTo(data));
+        }
+        expectThrows(FileAlreadyExistsException.class, () -> container.startMultipartWrite("blob", data.length, true));
+    }
+
+    public void testAbandonedMultipartWriteLeavesNoBlob() throws IOException {
+        final BlobContainer container = newContainer();
+        try (MultipartBlobWriter writer = container.startMultipartWrite("blob", 2, true)) {
+            writer.writePart(0, new BytesArray(new byte[] {1}).streamInput(), 1);
+        }
+        assertThat(container.blobExists("blob"), is(false));
+        assertThat(container.listBlobs().isEmpty(), is(true));
+    }
+
+    private BlobContainer newContainer() throws IOException {
+        return new FsBlobStore(Settings.EMPTY, createTempDir()).blobContainer(BlobPath.cleanPath());
+    }
+
+    private static byte[] readAll(InputStream stream) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Streams.copy(stream, out);
+        return out.toByteArray();
+    }
 }
@@ -0,0 +1,153 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.util.concurrent;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.SearchPriority;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class WeightedFairBlockingQueueTests extends ESTestCase {
+
+    public void testDequeuesProportionallyToWeights() {
+        final WeightedFairBlockingQueue<String> queue = new WeightedFairBlockingQueue<>(new int[] {3, 1}, e -> e.startsWith("b") ? 1 : 0);
+        for (int i = 0; i < 4; i++) {
+            queue.offer("b" + i);
+        }
+        for (int i = 0; i < 8; i++) {
+            queue.offer("a" + i);
+        }
+        assertThat(queue.size(), equalTo(12));
+        assertThat(queue.size(0), equalTo(8));
+        assertThat(queue.size(1), equalTo(4));
+
+        final List<String> order = new ArrayList<>();
+        String next;
+        while ((next = queue.poll()) != null) {
+            order.add(next);
+        }
+        // while both classes have elements, every fourth element comes from the class with weight 1
+        assertThat(order, contains("a0", "a1", "b0", "a2", "a3", "a4", "b1", "a5", "a6", "a7", "b2", "b3"));
+        assertThat(queue.size(), equalTo(0));
+    }
+
+    public void testSingleClassIsFifo() {
+        final WeightedFairBlockingQueue<Integer> queue = new WeightedFairBlockingQueue<>(new int[] {randomIntBetween(1, 10)}, e -> 0);
+        final int count = randomIntBetween(1, 100);
+        for (int i = 0; i < count; i++) {
+            queue.offer(i);
+        }
+        for (int i = 0; i < count; i++) {
+            assertThat(queue.poll(), equalTo(i));
+        }
+        assertThat(queue.poll(), nullValue());
+    }
+
+    public void testRemoveAndDrain() {
+        final WeightedFairBlockingQueue<String> queue = new WeightedFairBlockingQueue<>(new int[] {1, 1}, e -> e.equals("a") ? 0 : 1);
+        queue.offer("a");
+        queue.offer("b");
+        queue.offer("c");
+        assertTrue(queue.remove("b"));
+        assertFalse(queue.remove("b"));
+        assertThat(queue.size(), equalTo(2));
+        final List<String> drained = new ArrayList<>();
+        assertThat(queue.drainTo(drained), equalTo(2));
+        assertThat(drained, contains("a", "c"));
+        assertThat(queue.size(), equalTo(0));
+    }
+
+    public void testTakeWaitsForElements() throws Exception {
+        final WeightedFairBlockingQueue<String> queue = new WeightedFairBlockingQueue<>(new int[] {1}, e -> 0);
+        assertThat(queue.poll(10, TimeUnit.MILLISECONDS), nullValue());
+        final CountDownLatch taken = new CountDownLatch(1);
+        final Thread thread = new Thread(() -> {
+            try {
+                assertThat(queue.take(), equalTo("element"));
+                taken.countDown();
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        });
+        thread.start();
+        queue.offer("element");
+        assertTrue(taken.await(10, TimeUnit.SECONDS));
+        thread.join();
+    }
+
+    public void testInvalidWeights() {
+        expectThrows(IllegalArgumentException.class, () -> new WeightedFairBlockingQueue<>(new int[0], e -> 0));
+        expectThrows(IllegalArgumentException.class, () -> new WeightedFairBlockingQueue<>(new int[] {1, 0}, e -> 0));
+    }
+
+    public void testSearchPriorityIsCarriedByTheTask() {
+        final ThreadContext threadContext = new ThreadContext(Settings.EMPTY);
+        final AbstractRunnable task;
+        try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+            threadContext.putHeader(SearchPriority.HEADER, "batch");
+            task = SearchPriority.withPriority(SearchPriority.fromThreadContext(threadContext), new AbstractRunnable() {
+                @Override
+                public void onFailure(Exception e) {
+                    throw new AssertionError(e);
+                }
+
+                @Override
+                protected void doRun() {
+                }
+            });
+        }
+        // the task is submitted from a thread with a different context, wrapped the way executors wrap tasks
+        final Runnable wrapped = new TimedRunnable(threadContext.preserveContext(task));
+        final WeightedFairBlockingQueue<Runnable> queue = new WeightedFairBlockingQueue<>(new int[] {1, 1},
+            r -> SearchPriority.of(r, threadContext).ordinal());
+        queue.offer(wrapped);
+        assertThat(queue.size(SearchPriority.BATCH.ordinal()), equalTo(1));
+        // tasks that don't carry a class are classified by the context of the submitting thread
+        assertThat(SearchPriority.of(() -> {}, threadContext), equalTo(SearchPriority.INTERACTIVE));
+        try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+            threadContext.putHeader(SearchPriority.HEADER, "batch");
+            assertThat(SearchPriority.of(() -> {}, threadContext), equalTo(SearchPriority.BATCH));
+        }
+    }
+
+    public void testSearchPriorityFromThreadContext() {
+        final ThreadContext threadContext = new ThreadContext(Settings.EMPTY);
+        assertThat(SearchPriority.fromThreadContext(threadContext), equalTo(SearchPriority.INTERACTIVE));
+        try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+            threadContext.putTransient(SearchPriority.TRANSIENT, SearchPriority.BATCH);
+            assertThat(SearchPriority.fromThreadContext(threadContext), equalTo(SearchPriority.BATCH));
+            // an explicit header wins over the transient
+            threadContext.putHeader(SearchPriority.HEADER, "interactive");
+            assertThat(SearchPriority.fromThreadContext(threadContext), equalTo(SearchPriority.INTERACTIVE));
+        }
+        try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+            threadContext.putHeader(SearchPriority.HEADER, "Batch");
+            assertThat(SearchPriority.fromThreadContext(threadContext), equalTo(SearchPriority.BATCH));
+        }
+    }
+}
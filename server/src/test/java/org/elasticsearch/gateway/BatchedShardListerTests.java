@@ -0,0 +1,262 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.gateway;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.gateway.TransportNodesListGatewayStartedShards.NodeGatewayStartedShards;
+import org.elasticsearch.gateway.TransportNodesListGatewayStartedShards.NodesGatewayStartedShards;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class BatchedShardListerTests extends ESTestCase {
+
+    private final DiscoveryNode node1 = new DiscoveryNode("node1", buildNewFakeTransportAddress(), Collections.emptyMap(),
+        Collections.singleton(DiscoveryNode.Role.DATA), Version.CURRENT);
+    private final DiscoveryNode node2 = new DiscoveryNode("node2", buildNewFakeTransportAddress(), Collections.emptyMap(),
+        Collections.singleton(DiscoveryNode.Role.DATA), Version.CURRENT);
+    private final DiscoveryNode oldNode = new DiscoveryNode("old_node", buildNewFakeTransportAddress(), Collections.emptyMap(),
+        Collections.singleton(DiscoveryNode.Role.DATA), Version.V_6_4_0);
+
+    private final List<Tuple<ShardId, DiscoveryNode[]>> shardFetches = new ArrayList<>();
+    private final List<NodeFetch> nodeFetches = new ArrayList<>();
+    private final Map<ShardId, List<NodesGatewayStartedShards>> responses = new HashMap<>();
+
+    private BatchedShardLister<NodesGatewayStartedShards, NodeGatewayStartedShards> newLister(int batchSize) {
+        return new BatchedShardLister<>(
+            (shardId, nodes, listener) -> shardFetches.add(Tuple.tuple(shardId, nodes)),
+            (node, shardIds, listener) -> nodeFetches.add(new NodeFetch(node, shardIds, listener)),
+            (responses, failures) -> new NodesGatewayStartedShards(ClusterName.DEFAULT, responses, failures),
+            batchSize);
+    }
+
+    private void list(BatchedShardLister<NodesGatewayStartedShards, NodeGatewayStartedShards> lister, ShardId shardId,
+                      DiscoveryNode... nodes) {
+        lister.list(shardId, nodes, ActionListener.wrap(
+            response -> responses.computeIfAbsent(shardId, s -> new ArrayList<>()).add(response),
+            e -> { throw new AssertionError(e); }));
+    }
+
+    public void testBatchesFetchesPerNode() {
+        final BatchedShardLister<NodesGatewayStartedShards, NodeGatewayStartedShards> lister = newLister(3);
+        final List<ShardId> shardIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            shardIds.add(new ShardId("test", "_na_", i));
+        }
+        for (ShardId shardId : shardIds) {
+            list(lister, shardId, node1, node2, oldNode);
+        }
+
+        // nodes that do not support batched fetches are fetched from shard by shard
+        assertThat(shardFetches.size(), equalTo(5));
+        for (int i = 0; i < shardFetches.size(); i++) {
+            assertThat(shardFetches.get(i).v1(), equalTo(shardIds.get(i)));
+            assertArrayEquals(new DiscoveryNode[] {oldNode}, shardFetches.get(i).v2());
+        }
+        // full batches are sent right away
+        assertThat(nodeFetches.size(), equalTo(2));
+        assertThat(nodeFetches.get(0).shardIds, equalTo(shardIds.subList(0, 3)));
+        assertThat(nodeFetches.get(1).shardIds, equalTo(shardIds.subList(0, 3)));
+        assertThat(lister.getNumberOfPendingFetches(), equalTo(4));
+
+        lister.flush();
+        assertThat(lister.getNumberOfPendingFetches(), equalTo(0));
+        assertThat(nodeFetches.size(), equalTo(4));
+        assertThat(nodeFetches.get(2).shardIds, equalTo(shardIds.subList(3, 5)));
+        assertThat(nodeFetches.get(3).shardIds, equalTo(shardIds.subList(3, 5)));
+
+        // the response of a node is passed on without waiting for the other nodes
+        final NodeFetch fetch = nodeFetches.get(0);
+        final Map<ShardId, NodeGatewayStartedShards> shardResponses = new HashMap<>();
+        for (ShardId shardId : fetch.shardIds) {
+            shardResponses.put(shardId, new NodeGatewayStartedShards(fetch.node, randomAlphaOfLength(10), randomBoolean()));
+        }
+        fetch.listener.onResponse(new BatchedShardLister.ShardsResponse<>(shardResponses, Collections.emptyMap(), null));
+        assertThat(responses.size(), equalTo(3));
+        for (ShardId shardId : fetch.shardIds) {
+            assertThat(responses.get(shardId).size(), equalTo(1));
+            final NodesGatewayStartedShards response = responses.get(shardId).get(0);
+            assertThat(response.getNodes(), contains(sameInstance(shardResponses.get(shardId))));
+            assertThat(response.failures().size(), equalTo(0));
+        }
+    }
+
+    public void testFailures() {
+        final BatchedShardLister<NodesGatewayStartedShards, NodeGatewayStartedShards> lister = newLister(randomIntBetween(3, 10));
+        final ShardId shardId0 = new ShardId("test", "_na_", 0);
+        final ShardId shardId1 = new ShardId("test", "_na_", 1);
+        list(lister, shardId0, node1, node2);
+        list(lister, shardId1, node1, node2);
+        assertThat(nodeFetches.size(), equalTo(0));
+        lister.flush();
+        assertThat(nodeFetches.size(), equalTo(2));
+
+        // a shard that failed only fails the fetch of that shard
+        final NodeFetch fetch1 = nodeFetches.get(0).node == node1 ? nodeFetches.get(0) : nodeFetches.get(1);
+        final IllegalStateException shardFailure = new IllegalStateException("simulated shard failure");
+        fetch1.listener.onResponse(new BatchedShardLister.ShardsResponse<>(
+            Collections.singletonMap(shardId0, new NodeGatewayStartedShards(node1, null, false)),
+            Collections.<ShardId, Exception>singletonMap(shardId1, shardFailure), null));
+        assertThat(responses.get(shardId0).get(0).getNodes().size(), equalTo(1));
+        assertThat(responses.get(shardId1).get(0).getNodes().size(), equalTo(0));
+        assertThat(responses.get(shardId1).get(0).failures().get(0).nodeId(), equalTo(node1.getId()));
+        assertThat(responses.get(shardId1).get(0).failures().get(0).getCause(), sameInstance(shardFailure));
+
+        // a node that failed fails the fetches of all shards
+        final NodeFetch fetch2 = nodeFetches.get(0).node == node2 ? nodeFetches.get(0) : nodeFetches.get(1);
+        final IllegalStateException nodeFailure = new IllegalStateException("simulated node failure");
+        fetch2.listener.onFailure(nodeFailure);
+        for (ShardId shardId : Arrays.asList(shardId0, shardId1)) {
+            assertThat(responses.get(shardId).size(), equalTo(2));
+            assertThat(responses.get(shardId).get(1).getNodes().size(), equalTo(0));
+            assertThat(responses.get(shardId).get(1).failures().get(0).nodeId(), equalTo(node2.getId()));
+            assertThat(responses.get(shardId).get(1).failures().get(0).getCause(), sameInstance(nodeFailure));
+        }
+    }
+
+    public void testListShardsForksPerShard() {
+        final List<ShardId> shardIds = new ArrayList<>();
+        final int numShards = randomIntBetween(1, 10);
+        for (int i = 0; i < numShards; i++) {
+            shardIds.add(new ShardId("test", "_na_", i));
+        }
+        final ShardId failingShardId = randomFrom(shardIds);
+        final List<Runnable> tasks = new ArrayList<>();
+        final List<BatchedShardLister.ShardsResponse<NodeGatewayStartedShards>> batchResponses = new ArrayList<>();
+        BatchedShardLister.<NodeGatewayStartedShards>listShards(shardIds, tasks::add, shardId -> {
+            if (shardId.equals(failingShardId)) {
+                throw new IllegalStateException("simulated shard failure");
+            }
+            return new NodeGatewayStartedShards(node1, shardId.toString(), true);
+        }, (out, response) -> response.writeShardState(out), ActionListener.wrap(batchResponses::add, e -> {
+            throw new AssertionError(e);
+        }));
+
+        // every shard is listed in its own task, and the response is only sent once all of them completed
+        assertThat(tasks.size(), equalTo(numShards));
+        Collections.shuffle(tasks, random());
+        for (Runnable task : tasks) {
+            assertThat(batchResponses.size(), equalTo(0));
+            task.run();
+        }
+        assertThat(batchResponses.size(), equalTo(1));
+        final BatchedShardLister.ShardsResponse<NodeGatewayStartedShards> response = batchResponses.get(0);
+        assertThat(response.getResponses().size(), equalTo(numShards - 1));
+        for (ShardId shardId : shardIds) {
+            if (shardId.equals(failingShardId)) {
+                assertThat(response.getFailures().get(shardId).getMessage(), equalTo("simulated shard failure"));
+            } else {
+                assertThat(response.getResponses().get(shardId).allocationId(), equalTo(shardId.toString()));
+            }
+        }
+    }
+
+    public void testShardsRequestAndResponseSerialization() throws IOException {
+        final List<ShardId> shardIds = new ArrayList<>();
+        final int numShards = randomIntBetween(1, 10);
+        for (int i = 0; i < numShards; i++) {
+            shardIds.add(new ShardId("test", "_na_", i));
+        }
+        final BatchedShardLister.ShardsRequest request = new BatchedShardLister.ShardsRequest(shardIds);
+        final BatchedShardLister.ShardsRequest readRequest = new BatchedShardLister.ShardsRequest();
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            request.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                readRequest.readFrom(in);
+            }
+        }
+        assertThat(readRequest.getShardIds(), equalTo(shardIds));
+
+        final Map<ShardId, NodeGatewayStartedShards> shardResponses = new HashMap<>();
+        final Map<ShardId, Exception> failures = new HashMap<>();
+        for (ShardId shardId : shardIds) {
+            switch (randomIntBetween(0, 2)) {
+                case 0:
+                    shardResponses.put(shardId, new NodeGatewayStartedShards(node1, randomBoolean() ? null : randomAlphaOfLength(10),
+                        randomBoolean()));
+                    break;
+                case 1:
+                    shardResponses.put(shardId, new NodeGatewayStartedShards(node1, randomAlphaOfLength(10), randomBoolean(),
+                        new IllegalStateException("store failure of " + shardId)));
+                    break;
+                default:
+                    failures.put(shardId, new IllegalStateException("failure of " + shardId));
+            }
+        }
+        final BatchedShardLister.ShardsResponse<NodeGatewayStartedShards> response =
+            new BatchedShardLister.ShardsResponse<>(shardResponses, failures, (out, r) -> r.writeShardState(out));
+        final BatchedShardLister.ShardsResponse<NodeGatewayStartedShards> readResponse;
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            response.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                readResponse = new BatchedShardLister.ShardsResponse<>(in, i -> NodeGatewayStartedShards.readShardState(node1, i));
+            }
+        }
+
+        assertThat(readResponse.getResponses().keySet(), equalTo(shardResponses.keySet()));
+        for (Map.Entry<ShardId, NodeGatewayStartedShards> entry : shardResponses.entrySet()) {
+            final NodeGatewayStartedShards expected = entry.getValue();
+            final NodeGatewayStartedShards actual = readResponse.getResponses().get(entry.getKey());
+            // the node is not written for every shard, it is the one that the batch was sent to
+            assertThat(actual.getNode(), sameInstance(node1));
+            assertThat(actual.allocationId(), equalTo(expected.allocationId()));
+            assertThat(actual.primary(), equalTo(expected.primary()));
+            if (expected.storeException() == null) {
+                assertNull(actual.storeException());
+            } else {
+                assertThat(actual.storeException().getMessage(), equalTo(expected.storeException().getMessage()));
+            }
+        }
+        assertThat(readResponse.getFailures().keySet(), equalTo(failures.keySet()));
+        for (Map.Entry<ShardId, Exception> entry : failures.entrySet()) {
+            assertThat(readResponse.getFailures().get(entry.getKey()).getMessage(), equalTo(entry.getValue().getMessage()));
+        }
+    }
+
+    private static final class NodeFetch {
+        final DiscoveryNode node;
+        final List<ShardId> shardIds;
+        final ActionListener<BatchedShardLister.ShardsResponse<NodeGatewayStartedShards>> listener;
+
+        NodeFetch(DiscoveryNode node, List<ShardId> shardIds,
+                  ActionListener<BatchedShardLister.ShardsResponse<NodeGatewayStartedShards>> listener) {
+            this.node = node;
+            this.shardIds = shardIds;
+            this.listener = listener;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.engine;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.index.store.Store;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class FrozenEngineTests extends EngineTestCase {
+
+    private int indexDocs(EngineConfig config) throws IOException {
+        final int numDocs = scaledRandomIntBetween(10, 100);
+        try (InternalEngine engine = createEngine(config)) {
+            for (int i = 0; i < numDocs; i++) {
+                ParsedDocument doc = testParsedDocument(Integer.toString(i), null, testDocument(), new BytesArray("{}"), null);
+                engine.index(new Engine.Index(newUid(doc), doc, i, primaryTerm.get(), 1, VersionType.EXTERNAL,
+                    Engine.Operation.Origin.REPLICA, System.nanoTime(), -1, false));
+                if (rarely()) {
+                    engine.flush();
+                }
+            }
+            engine.syncTranslog();
+            engine.flushAndClose();
+        }
+        return numDocs;
+    }
+
+    private static FrozenReaderCache newReaderCache(int size) {
+        return new FrozenReaderCache(
+            Settings.builder().put(FrozenReaderCache.INDICES_FROZEN_READER_CACHE_SIZE_SETTING.getKey(), size).build());
+    }
+
+    public void testOpensReadersOnDemand() throws IOException {
+        IOUtils.close(engine, store);
+        try (Store store = createStore(); FrozenReaderCache readerCache = newReaderCache(randomIntBetween(1, 10))) {
+            EngineConfig config = config(defaultSettings, store, createTempDir(), newMergePolicy(), null, null,
+                () -> SequenceNumbers.NO_OPS_PERFORMED);
+            final int numDocs = indexDocs(config);
+            try (FrozenEngine frozenEngine = new FrozenEngine(config, readerCache)) {
+                assertThat(readerCache.count(), equalTo(0));
+                assertThat(frozenEngine.docStats().getCount(), equalTo((long) numDocs));
+                // statistics don't open a reader
+                SegmentsStats stats = frozenEngine.segmentsStats(false);
+                assertThat(stats.getCount(), equalTo(0L));
+                assertThat(stats.getFrozenReadersOpen(), equalTo(0L));
+                assertFalse(frozenEngine.refreshNeeded());
+                assertThat(readerCache.count(), equalTo(0));
+
+                try (Engine.Searcher searcher = frozenEngine.acquireSearcher("test")) {
+                    assertThat(searcher.reader().numDocs(), equalTo(numDocs));
+                }
+                assertThat(readerCache.count(), equalTo(1));
+                try (Engine.Searcher searcher = frozenEngine.acquireSearcher("test")) {
+                    assertThat(searcher.reader().numDocs(), equalTo(numDocs));
+                }
+                stats = frozenEngine.segmentsStats(false);
+                assertThat(stats.getCount(), greaterThan(0L));
+                assertThat(stats.getFrozenReadersOpen(), equalTo(1L));
+                assertThat(stats.getFrozenReaderOpenCount(), equalTo(1L));
+                assertThat(stats.getFrozenReaderEvictions(), equalTo(0L));
+            }
+            assertThat(readerCache.count(), equalTo(0));
+        }
+    }
+
+    public void testEvictsLeastRecentlyUsedReader() throws IOException {
+        IOUtils.close(engine, store);
+        try (Store store1 = createStore(); Store store2 = createStore(); FrozenReaderCache readerCache = newReaderCache(1)) {
+            EngineConfig config1 = config(defaultSettings, store1, createTempDir(), newMergePolicy(), null, null,
+                () -> SequenceNumbers.NO_OPS_PERFORMED);
+            EngineConfig config2 = config(defaultSettings, store2, createTempDir(), newMergePolicy(), null, null,
+                () -> SequenceNumbers.NO_OPS_PERFORMED);
+            final int numDocs1 = indexDocs(config1);
+            final int numDocs2 = indexDocs(config2);
+            try (FrozenEngine frozenEngine1 = new FrozenEngine(config1, readerCache);
+                 FrozenEngine frozenEngine2 = new FrozenEngine(config2, readerCache)) {
+                final Engine.Searcher searcher1 = frozenEngine1.acquireSearcher("test");
+                try (Engine.Searcher searcher2 = frozenEngine2.acquireSearcher("test")) {
+                    assertThat(readerCache.count(), equalTo(1));
+                    assertThat(searcher2.reader().numDocs(), equalTo(numDocs2));
+                    // the evicted reader stays open until it is released
+                    assertThat(searcher1.reader().getRefCount(), equalTo(1));
+                    assertThat(searcher1.reader().numDocs(), equalTo(numDocs1));
+                } finally {
+                    searcher1.close();
+                }
+                assertThat(searcher1.reader().getRefCount(), equalTo(0));
+                assertThat(frozenEngine1.segmentsStats(false).getFrozenReaderEvictions(), equalTo(1L));
+                assertThat(frozenEngine1.segmentsStats(false).getFrozenReadersOpen(), equalTo(0L));
+                assertThat(frozenEngine2.segmentsStats(false).getFrozenReadersOpen(), equalTo(1L));
+
+                try (Engine.Searcher searcher = frozenEngine1.acquireSearcher("test")) {
+                    assertThat(searcher.reader().numDocs(), equalTo(numDocs1));
+                }
+                assertThat(frozenEngine1.segmentsStats(false).getFrozenReaderOpenCount(), equalTo(2L));
+                assertThat(frozenEngine2.segmentsStats(false).getFrozenReaderEvictions(), equalTo(1L));
+            }
+        }
+    }
+}
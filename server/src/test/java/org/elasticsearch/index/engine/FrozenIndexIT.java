@@ -0,0 +1,74 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.engine;
+
+import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
+import org.elasticsearch.cluster.block.ClusterBlockException;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardTestCase;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.test.ESSingleNodeTestCase;
+
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class FrozenIndexIT extends ESSingleNodeTestCase {
+
+    public void testSearchFrozenIndex() {
+        createIndex("index", Settings.builder()
+            .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)
+            .build());
+        final int numDocs = randomIntBetween(1, 50);
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex("index", "_doc", Integer.toString(i)).setSource("field", "value" + i).get();
+        }
+        client().admin().indices().prepareFlush("index").get();
+
+        // frozen indices have to be closed to change the setting, opening them again recovers the shards from the store
+        assertAcked(client().admin().indices().prepareClose("index"));
+        assertAcked(client().admin().indices().prepareUpdateSettings("index").setSettings(Settings.builder()
+            .put(FrozenEngine.INDEX_FROZEN_SETTING.getKey(), true)
+            .put(IndexMetaData.SETTING_BLOCKS_WRITE, true)));
+        assertAcked(client().admin().indices().prepareOpen("index"));
+        ensureGreen("index");
+
+        final IndicesService indicesService = getInstanceFromNode(IndicesService.class);
+        final IndexShard shard = indicesService.indexServiceSafe(resolveIndex("index")).getShard(0);
+        assertThat(IndexShardTestCase.getEngine(shard), instanceOf(FrozenEngine.class));
+
+        assertHitCount(client().prepareSearch("index").setQuery(matchAllQuery()).get(), numDocs);
+        final int doc = randomIntBetween(0, numDocs - 1);
+        assertHitCount(client().prepareSearch("index").setQuery(termQuery("field.keyword", "value" + doc)).get(), 1);
+
+        final IndicesStatsResponse stats = client().admin().indices().prepareStats("index").setDocs(true).setSegments(true).get();
+        assertThat(stats.getPrimaries().getDocs().getCount(), equalTo((long) numDocs));
+        assertThat(stats.getPrimaries().getSegments().getFrozenReaderOpenCount(), greaterThanOrEqualTo(1L));
+
+        expectThrows(ClusterBlockException.class,
+            () -> client().prepareIndex("index", "_doc", "new").setSource("field", "value").get());
+    }
+}
@@ -47,12 +47,14 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.TestUtil;
 import org.apache.lucene.util.UnicodeUtil;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.index.fielddata.IndexFieldData.XFieldComparatorSource.Nested;
 import org.elasticsearch.index.fielddata.fieldcomparator.BytesRefFieldComparatorSource;
 import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.search.MultiValueMode;
 
 import java.io.IOException;
@@ -60,6 +62,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
@@ -580,6 +583,45 @@ public abstract class AbstractStringFieldDataTestCase extends AbstractFieldDataI
         }
     }
 
+    public void testGlobalOrdinalsReusedWhenSegmentCoresAreUnchanged() throws Exception {
+        fillExtendedMvSet();
+        refreshReader();
+        IndexOrdinalsFieldData ifd = getForField("string", "value", hasDocValues());
+        IndexOrdinalsFieldData globalOrdinals = ifd.loadGlobal(topLevelReader);
+        assertNotNull(globalOrdinals.getOrdinalMap());
+
+        // only apply deletes: the new reader shares all segment cores with the previous one, which is still open
+        writer.deleteDocuments(new Term("_id", "1"));
+        DirectoryReader reopened = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "_na_", 1));
+        IndexOrdinalsFieldData reopenedGlobalOrdinals = ifd.loadGlobal(reopened);
+        assertThat(reopenedGlobalOrdinals, not(sameInstance(globalOrdinals)));
+        assertThat(reopenedGlobalOrdinals.getOrdinalMap(), sameInstance(globalOrdinals.getOrdinalMap()));
+        // a reused map is accounted to every global ordinals that hold it
+        final long ordinalMapBytes = globalOrdinals.getOrdinalMap().ramBytesUsed();
+        assertThat(globalOrdinals.ramBytesUsed(), equalTo(ordinalMapBytes));
+        assertThat(reopenedGlobalOrdinals.ramBytesUsed(), equalTo(ordinalMapBytes));
+        final CircuitBreaker breaker = getInstanceFromNode(CircuitBreakerService.class).getBreaker(CircuitBreaker.FIELDDATA);
+        final long usedWithBothReaders = breaker.getUsed();
+        topLevelReader.close();
+        topLevelReader = reopened;
+        // closing the previous reader releases its charge, the map stays charged to the global ordinals of the new reader
+        assertThat(breaker.getUsed(), equalTo(usedWithBothReaders - ordinalMapBytes));
+        assertThat(breaker.getUsed(), greaterThanOrEqualTo(reopenedGlobalOrdinals.getOrdinalMap().ramBytesUsed()));
+
+        // a new segment requires a new mapping
+        Document d = new Document();
+        addField(d, "_id", "10");
+        addField(d, "value", "11");
+        writer.addDocument(d);
+        DirectoryReader withNewSegment = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "_na_", 1));
+        IndexOrdinalsFieldData rebuiltGlobalOrdinals = ifd.loadGlobal(withNewSegment);
+        assertThat(rebuiltGlobalOrdinals.getOrdinalMap(), not(sameInstance(reopenedGlobalOrdinals.getOrdinalMap())));
+        assertThat(rebuiltGlobalOrdinals.getOrdinalMap().getValueCount(), equalTo(globalOrdinals.getOrdinalMap().getValueCount() + 1));
+        assertThat(rebuiltGlobalOrdinals.ramBytesUsed(), equalTo(rebuiltGlobalOrdinals.getOrdinalMap().ramBytesUsed()));
+        topLevelReader.close();
+        topLevelReader = withNewSegment;
+    }
+
     public void testGlobalOrdinalsGetRemovedOnceIndexReaderCloses() throws Exception {
         fillExtendedMvSet();
         refreshReader();
@@ -114,6 +114,7 @@ import org.elasticsearch.indices.recovery.RecoveryTarget;
 import org.elasticsearch.repositories.IndexId;
 import org.elasticsearch.repositories.Repository;
 import org.elasticsearch.repositories.RepositoryData;
+import org.elasticsearch.repositories.RepositoryTransferStats;
 import org.elasticsearch.snapshots.Snapshot;
 import org.elasticsearch.snapshots.SnapshotId;
 import org.elasticsearch.snapshots.SnapshotInfo;
@@ -2992,6 +2993,11 @@ public class IndexShardTests extends IndexShardTestCase {
             return 0;
         }
 
+        @Override
+        public RepositoryTransferStats getTransferStats() {
+            return RepositoryTransferStats.EMPTY;
+        }
+
         @Override
         public String startVerification() {
             return null;
@@ -0,0 +1,97 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.snapshots.blobstore;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class ContentDefinedChunkerTests extends ESTestCase {
+
+    private static List<BytesReference> chunk(ContentDefinedChunker chunker, byte[] bytes) throws IOException {
+        final List<BytesReference> chunks = new ArrayList<>();
+        // the chunks are only valid until the consumer returns
+        chunker.chunk(new ByteArrayInputStream(bytes), chunk -> chunks.add(new BytesArray(BytesReference.toBytes(chunk))));
+        return chunks;
+    }
+
+    public void testChunksCoverInputWithinBounds() throws IOException {
+        final ContentDefinedChunker chunker = new ContentDefinedChunker(randomFrom(1024, 4096, 8192));
+        final byte[] bytes = randomByteArrayOfLength(randomIntBetween(0, 1 << 20));
+        final List<BytesReference> chunks = chunk(chunker, bytes);
+        final ByteArrayOutputStream concatenated = new ByteArrayOutputStream();
+        for (int i = 0; i < chunks.size(); i++) {
+            final BytesReference chunk = chunks.get(i);
+            assertThat(chunk.length(), lessThanOrEqualTo(chunker.maxSize()));
+            if (i < chunks.size() - 1) {
+                assertThat(chunk.length(), greaterThanOrEqualTo(chunker.averageSize() / 4));
+            }
+            chunk.writeTo(concatenated);
+        }
+        assertArrayEquals(bytes, concatenated.toByteArray());
+        assertThat(chunk(chunker, bytes), equalTo(chunks));
+    }
+
+    public void testEmptyStreamIsSingleEmptyChunk() throws IOException {
+        final List<BytesReference> chunks = chunk(new ContentDefinedChunker(1024), new byte[0]);
+        assertThat(chunks.size(), equalTo(1));
+        assertThat(chunks.get(0).length(), equalTo(0));
+    }
+
+    public void testInsertionOnlyChangesNearbyChunks() throws IOException {
+        final ContentDefinedChunker chunker = new ContentDefinedChunker(4096);
+        final byte[] original = randomByteArrayOfLength(1 << 20);
+        final byte[] inserted = randomByteArrayOfLength(randomIntBetween(1, 100));
+        final int position = randomIntBetween(0, original.length);
+        final byte[] modified = new byte[original.length + inserted.length];
+        System.arraycopy(original, 0, modified, 0, position);
+        System.arraycopy(inserted, 0, modified, position, inserted.length);
+        System.arraycopy(original, position, modified, position + inserted.length, original.length - position);
+
+        final Set<BytesReference> originalChunks = new HashSet<>(chunk(chunker, original));
+        long sharedBytes = 0;
+        for (BytesReference chunk : chunk(chunker, modified)) {
+            if (originalChunks.contains(chunk)) {
+                sharedBytes += chunk.length();
+            }
+        }
+        // fixed-size parts would share nothing after the insertion, content-defined chunks only differ around it
+        assertThat(sharedBytes, greaterThan(original.length - 4L * chunker.maxSize()));
+    }
+
+    public void testInvalidAverageSize() {
+        expectThrows(IllegalArgumentException.class, () -> new ContentDefinedChunker(ContentDefinedChunker.MIN_AVERAGE_CHUNK_SIZE - 1));
+        expectThrows(IllegalArgumentException.class, () -> new ContentDefinedChunker(ContentDefinedChunker.MAX_AVERAGE_CHUNK_SIZE + 1));
+        assertThat(new ContentDefinedChunker(5000).averageSize(), equalTo(4096));
+    }
+}
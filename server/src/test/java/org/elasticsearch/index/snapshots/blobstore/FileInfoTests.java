@@ -34,10 +34,13 @@ import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 
 public class FileInfoTests extends ESTestCase {
     private static final org.apache.lucene.util.Version MIN_SUPPORTED_LUCENE_VERSION = org.elasticsearch.Version.CURRENT
@@ -76,6 +79,39 @@ public class FileInfoTests extends ESTestCase {
         }
     }
 
+    public void testContentChunksToFromXContent() throws IOException {
+        final List<BlobStoreIndexShardSnapshot.ContentChunk> chunks = new ArrayList<>();
+        long length = 0;
+        final int numChunks = randomIntBetween(1, 10);
+        for (int i = 0; i < numChunks; i++) {
+            final long chunkLength = randomIntBetween(0, 1 << 20);
+            chunks.add(new BlobStoreIndexShardSnapshot.ContentChunk("__chunk-" + randomAlphaOfLength(10), chunkLength));
+            length += chunkLength;
+        }
+        StoreFileMetaData meta = new StoreFileMetaData("foobar", length, randomAlphaOfLengthBetween(1, 10), Version.LATEST);
+        BlobStoreIndexShardSnapshot.FileInfo info = new BlobStoreIndexShardSnapshot.FileInfo("_foobar", meta, chunks);
+        assertThat(info.numberOfParts(), equalTo((long) numChunks));
+        for (int i = 0; i < numChunks; i++) {
+            assertThat(info.partName(i), equalTo(chunks.get(i).name()));
+            assertThat(info.partBytes(i), equalTo(chunks.get(i).length()));
+        }
+
+        XContentBuilder builder = XContentFactory.contentBuilder(XContentType.JSON);
+        BlobStoreIndexShardSnapshot.FileInfo.toXContent(info, builder, ToXContent.EMPTY_PARAMS);
+        byte[] xcontent = BytesReference.toBytes(BytesReference.bytes(builder));
+        final BlobStoreIndexShardSnapshot.FileInfo parsedInfo;
+        try (XContentParser parser = createParser(JsonXContent.jsonXContent, xcontent)) {
+            parser.nextToken();
+            parsedInfo = BlobStoreIndexShardSnapshot.FileInfo.fromXContent(parser);
+        }
+        assertThat(parsedInfo.contentChunks(), equalTo(chunks));
+        assertThat(parsedInfo.partSize(), nullValue());
+        assertThat(parsedInfo.isSame(info), is(true));
+
+        expectThrows(IllegalArgumentException.class, () -> new BlobStoreIndexShardSnapshot.FileInfo("_foobar",
+            new StoreFileMetaData("foobar", meta.length() + 1, meta.checksum(), Version.LATEST), chunks));
+    }
+
     public void testInvalidFieldsInFromXContent() throws IOException {
         final int iters = scaledRandomIntBetween(1, 10);
         for (int iter = 0; iter < iters; iter++) {
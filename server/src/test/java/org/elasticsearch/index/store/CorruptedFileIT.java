@@ -622,7 +622,7 @@ public class CorruptedFileIT extends ESIntegTestCase {
             if (Files.exists(file)) { // multi data path might only have one path in use
                 try (DirectoryStream<Path> stream = Files.newDirectoryStream(file)) {
                     for (Path item : stream) {
-                        if (Files.isRegularFile(item) && "write.lock".equals(item.getFileName().toString()) == false) {
+                        if (Files.isRegularFile(item) && Store.isAutogenerated(item.getFileName().toString()) == false) {
                             if (includePerCommitFiles || isPerSegmentFile(item.getFileName().toString())) {
                                 files.add(item);
                             }
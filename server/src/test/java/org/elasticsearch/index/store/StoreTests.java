@@ -27,6 +27,7 @@ import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexCommit;
 import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.index.IndexFormatTooNewException;
 import org.apache.lucene.index.IndexFormatTooOldException;
@@ -48,6 +49,7 @@ import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.store.RAMDirectory;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.StringHelper;
 import org.apache.lucene.util.TestUtil;
 import org.apache.lucene.util.Version;
 import org.elasticsearch.ExceptionsHelper;
@@ -362,6 +364,98 @@ public class StoreTests extends ESTestCase {
         IOUtils.close(store);
     }
 
+    public void testMetadataIsCachedAndPersisted() throws IOException {
+        final ShardId shardId = new ShardId("index", "_na_", 1);
+        Store store = new Store(shardId, INDEX_SETTINGS, StoreTests.newDirectory(random()), new DummyShardLock(shardId));
+        IndexWriter writer = new IndexWriter(store.directory(), newIndexWriterConfig(random(), new MockAnalyzer(random()))
+            .setCodec(TestUtil.getDefaultCodec()).setMergePolicy(NoMergePolicy.INSTANCE));
+        final int commits = randomIntBetween(1, 3);
+        for (int i = 0; i < commits; i++) {
+            Document doc = new Document();
+            doc.add(new StringField("id", "" + i, Field.Store.YES));
+            doc.add(new TextField("body", TestUtil.randomRealisticUnicodeString(random()), Field.Store.NO));
+            writer.addDocument(doc);
+            writer.commit();
+        }
+        writer.close();
+
+        final Store.MetadataSnapshot metadata = store.getMetadata(null);
+        final SegmentInfos segmentInfos = store.readLastCommittedSegmentsInfo();
+        assertTrue(Arrays.asList(store.directory().listAll()).contains(StoreMetadataCache.fileName(segmentInfos.getGeneration())));
+        // only the persisted metadata of the last commit is kept
+        for (String file : store.directory().listAll()) {
+            if (file.startsWith(Store.METADATA_CACHE_FILE_PREFIX)) {
+                assertEquals(StoreMetadataCache.fileName(segmentInfos.getGeneration()), file);
+            }
+        }
+        assertFalse(metadata.asMap().keySet().stream().anyMatch(Store::isAutogenerated));
+
+        // the cached and the persisted metadata are the same as the metadata that is read from the files
+        assertEquals(metadata.asMap(), store.getMetadata(null).asMap());
+        final StoreMetadataCache persisted = new StoreMetadataCache();
+        persisted.readPersisted(store.directory(), segmentInfos, logger);
+        assertTrue(persisted.isPersisted(segmentInfos.getGeneration()));
+        assertEquals(metadata.asMap().size(), persisted.size());
+        final Store.MetadataSnapshot fromPersisted = new Store.MetadataSnapshot(null, store.directory(), logger, persisted);
+        assertEquals(metadata.asMap(), fromPersisted.asMap());
+        for (StoreFileMetaData meta : fromPersisted) {
+            assertTrue(meta.isSame(metadata.get(meta.name())));
+            assertEquals(metadata.get(meta.name()).hash(), meta.hash());
+        }
+
+        // entries of files that belong to another segment are not used
+        final StoreFileMetaData segmentsFile = metadata.getSegmentsFile();
+        assertNotNull(persisted.get(segmentsFile.name(), segmentInfos.getId(), segmentsFile.length()));
+        assertNull(persisted.get(segmentsFile.name(), StringHelper.randomId(), segmentsFile.length()));
+        assertNull(persisted.get(segmentsFile.name(), segmentInfos.getId(), segmentsFile.length() + 1));
+
+        TestUtil.checkIndex(store.directory());
+        deleteContent(store.directory());
+        IOUtils.close(store);
+    }
+
+    public void testOnlyMetadataOfLatestCommitIsPersisted() throws IOException {
+        final ShardId shardId = new ShardId("index", "_na_", 1);
+        final Directory directory = StoreTests.newDirectory(random());
+        // leftover of an attempt to persist metadata that did not complete
+        try (IndexOutput output = directory.createTempOutput(StoreMetadataCache.fileName(1), "tmp", IOContext.DEFAULT)) {
+            CodecUtil.writeHeader(output, StoreMetadataCache.CODEC, StoreMetadataCache.VERSION_CURRENT);
+        }
+        Store store = new Store(shardId, INDEX_SETTINGS, directory, new DummyShardLock(shardId));
+        for (String file : store.directory().listAll()) {
+            assertFalse(file, file.startsWith(Store.METADATA_CACHE_FILE_PREFIX));
+        }
+
+        IndexWriter writer = new IndexWriter(store.directory(), newIndexWriterConfig(random(), new MockAnalyzer(random()))
+            .setCodec(TestUtil.getDefaultCodec()).setMergePolicy(NoMergePolicy.INSTANCE)
+            .setIndexDeletionPolicy(NoDeletionPolicy.INSTANCE));
+        final int commits = randomIntBetween(2, 4);
+        for (int i = 0; i < commits; i++) {
+            Document doc = new Document();
+            doc.add(new StringField("id", "" + i, Field.Store.YES));
+            writer.addDocument(doc);
+            writer.commit();
+        }
+        writer.close();
+
+        final SegmentInfos segmentInfos = store.readLastCommittedSegmentsInfo();
+        final Store.MetadataSnapshot latest = store.getMetadata(null);
+        final String latestFileName = StoreMetadataCache.fileName(segmentInfos.getGeneration());
+        for (IndexCommit commit : DirectoryReader.listCommits(store.directory())) {
+            assertEquals(commit.getFileNames().size(), store.getMetadata(commit).asMap().size());
+            for (String file : store.directory().listAll()) {
+                if (file.startsWith(Store.METADATA_CACHE_FILE_PREFIX)) {
+                    assertEquals(latestFileName, file);
+                }
+            }
+        }
+        assertEquals(latest.asMap(), store.getMetadata(null).asMap());
+
+        TestUtil.checkIndex(store.directory());
+        deleteContent(store.directory());
+        IOUtils.close(store);
+    }
+
     public void testCheckIntegrity() throws IOException {
         Directory dir = newDirectory();
         long luceneFileLength = 0;
@@ -475,7 +569,7 @@ public class StoreTests extends ESTestCase {
 
     public static void assertConsistent(Store store, Store.MetadataSnapshot metadata) throws IOException {
         for (String file : store.directory().listAll()) {
-            if (!IndexWriter.WRITE_LOCK_NAME.equals(file) && !IndexFileNames.OLD_SEGMENTS_GEN.equals(file) && file.startsWith("extra") == false) {
+            if (!Store.isAutogenerated(file) && !IndexFileNames.OLD_SEGMENTS_GEN.equals(file) && file.startsWith("extra") == false) {
                 assertTrue(file + " is not in the map: " + metadata.asMap().size() + " vs. " + store.directory().listAll().length, metadata.asMap().containsKey(file));
             } else {
                 assertFalse(file + " is not in the map: " + metadata.asMap().size() + " vs. " + store.directory().listAll().length, metadata.asMap().containsKey(file));
@@ -683,7 +777,7 @@ public class StoreTests extends ESTestCase {
                 if (file.startsWith("extra")) {
                     continue;
                 }
-                assertTrue(firstMeta.contains(file) || file.equals("write.lock"));
+                assertTrue(firstMeta.contains(file) || Store.isAutogenerated(file));
                 if (secondMeta.contains(file) == false) {
                     numNotFound++;
                 }
@@ -699,7 +793,7 @@ public class StoreTests extends ESTestCase {
                 if (file.startsWith("extra")) {
                     continue;
                 }
-                assertTrue(file, secondMeta.contains(file) || file.equals("write.lock"));
+                assertTrue(file, secondMeta.contains(file) || Store.isAutogenerated(file));
                 if (firstMeta.contains(file) == false) {
                     numNotFound++;
                 }
@@ -349,6 +349,102 @@ public class IndicesQueryCacheTests extends ESTestCase {
         cache.close(); // this triggers some assertions
     }
 
+    public void testStripes() throws IOException {
+        final int numShards = randomIntBetween(2, 5);
+        final Directory[] dirs = new Directory[numShards];
+        final DirectoryReader[] readers = new DirectoryReader[numShards];
+        final IndexSearcher[] searchers = new IndexSearcher[numShards];
+        final ShardId[] shards = new ShardId[numShards];
+        for (int i = 0; i < numShards; i++) {
+            dirs[i] = newDirectory();
+            IndexWriter w = new IndexWriter(dirs[i], newIndexWriterConfig());
+            w.addDocument(new Document());
+            DirectoryReader r = DirectoryReader.open(w);
+            w.close();
+            shards[i] = new ShardId("index", "_na_", i);
+            readers[i] = ElasticsearchDirectoryReader.wrap(r, shards[i]);
+            searchers[i] = new IndexSearcher(readers[i]);
+            searchers[i].setQueryCachingPolicy(alwaysCachePolicy());
+        }
+
+        Settings settings = Settings.builder()
+                .put(IndicesQueryCache.INDICES_CACHE_QUERY_COUNT_SETTING.getKey(), 100)
+                .put(IndicesQueryCache.INDICES_QUERIES_CACHE_ALL_SEGMENTS_SETTING.getKey(), true)
+                .put(IndicesQueryCache.INDICES_QUERIES_CACHE_STRIPES_SETTING.getKey(), randomIntBetween(2, 8))
+                .build();
+        IndicesQueryCache cache = new IndicesQueryCache(settings);
+        for (IndexSearcher searcher : searchers) {
+            searcher.setQueryCache(cache);
+        }
+
+        for (int i = 0; i < numShards; i++) {
+            assertEquals(1, searchers[i].count(new DummyQuery(0)));
+            assertEquals(1, searchers[i].count(new DummyQuery(0)));
+        }
+
+        for (int i = 0; i < numShards; i++) {
+            QueryCacheStats stats = cache.getStats(shards[i]);
+            assertEquals(1L, stats.getCacheSize());
+            assertEquals(1L, stats.getCacheCount());
+            assertEquals(1L, stats.getHitCount());
+            assertEquals(1L, stats.getMissCount());
+            assertEquals(0L, stats.getAdmissionRejectedCount());
+        }
+
+        for (int i = 0; i < numShards; i++) {
+            IOUtils.close(readers[i], dirs[i]);
+            assertEquals(0L, cache.getStats(shards[i]).getCacheSize());
+            cache.onClose(shards[i]);
+        }
+        cache.close(); // this triggers some assertions
+    }
+
+    public void testAdmissionFilter() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+        w.addDocument(new Document());
+        DirectoryReader r = DirectoryReader.open(w);
+        w.close();
+        ShardId shard = new ShardId("index", "_na_", 0);
+        r = ElasticsearchDirectoryReader.wrap(r, shard);
+        IndexSearcher s = new IndexSearcher(r);
+        s.setQueryCachingPolicy(alwaysCachePolicy());
+
+        Settings settings = Settings.builder()
+                .put(IndicesQueryCache.INDICES_CACHE_QUERY_COUNT_SETTING.getKey(), 10)
+                .put(IndicesQueryCache.INDICES_QUERIES_CACHE_ALL_SEGMENTS_SETTING.getKey(), true)
+                .put(IndicesQueryCache.INDICES_QUERIES_CACHE_ADMISSION_MIN_FREQUENCY_SETTING.getKey(), 2)
+                .build();
+        IndicesQueryCache cache = new IndicesQueryCache(settings);
+        s.setQueryCache(cache);
+
+        // first use: not frequent enough to be admitted
+        assertEquals(1, s.count(new DummyQuery(0)));
+        QueryCacheStats stats = cache.getStats(shard);
+        assertEquals(0L, stats.getCacheSize());
+        assertEquals(0L, stats.getCacheCount());
+        assertEquals(1L, stats.getMissCount());
+        assertEquals(1L, stats.getAdmissionRejectedCount());
+
+        // second use: admitted
+        assertEquals(1, s.count(new DummyQuery(0)));
+        stats = cache.getStats(shard);
+        assertEquals(1L, stats.getCacheSize());
+        assertEquals(1L, stats.getCacheCount());
+        assertEquals(2L, stats.getMissCount());
+        assertEquals(1L, stats.getAdmissionRejectedCount());
+
+        // third use: served from the cache
+        assertEquals(1, s.count(new DummyQuery(0)));
+        stats = cache.getStats(shard);
+        assertEquals(1L, stats.getHitCount());
+        assertEquals(1L, stats.getAdmissionRejectedCount());
+
+        IOUtils.close(r, dir);
+        cache.onClose(shard);
+        cache.close(); // this triggers some assertions
+    }
+
     private static class DummyWeight extends Weight {
 
         private final Weight weight;
@@ -0,0 +1,68 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.test.ESTestCase;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class QueryFrequencySketchTests extends ESTestCase {
+
+    public void testIncrementAndFrequency() {
+        QueryFrequencySketch sketch = new QueryFrequencySketch(1000);
+        String key = randomAlphaOfLength(10);
+        assertThat(sketch.frequency(key), equalTo(0));
+        int times = randomIntBetween(1, 10);
+        for (int i = 0; i < times; i++) {
+            sketch.increment(key);
+        }
+        // a count-min sketch never underestimates
+        assertThat(sketch.frequency(key), greaterThanOrEqualTo(times));
+    }
+
+    public void testSaturates() {
+        QueryFrequencySketch sketch = new QueryFrequencySketch(1000);
+        for (int i = 0; i < 100; i++) {
+            sketch.increment("key");
+        }
+        assertThat(sketch.frequency("key"), equalTo(QueryFrequencySketch.MAX_FREQUENCY));
+    }
+
+    public void testAging() {
+        final int maximumSize = 64;
+        QueryFrequencySketch sketch = new QueryFrequencySketch(maximumSize);
+        for (int i = 0; i < 10; i++) {
+            sketch.increment("hot");
+        }
+        assertThat(sketch.frequency("hot"), greaterThanOrEqualTo(10));
+        // enough distinct keys to trigger at least one reset
+        for (int i = 0; i < 20 * maximumSize; i++) {
+            sketch.increment("cold-" + i);
+        }
+        assertThat(sketch.frequency("hot"), lessThan(10));
+    }
+
+    public void testInvalidSize() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> new QueryFrequencySketch(0));
+        assertThat(e.getMessage(), equalTo("maximumSize must be > 0, got 0"));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.StoreFileMetaData;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class RecoveryRestoreFilesFromRepositoryRequestTests extends ESTestCase {
+
+    private static final org.apache.lucene.util.Version LUCENE_VERSION = org.elasticsearch.Version.CURRENT.luceneVersion;
+
+    public void testSerialization() throws Exception {
+        final List<StoreFileMetaData> files = new ArrayList<>();
+        final int numFiles = randomIntBetween(0, 10);
+        for (int i = 0; i < numFiles; i++) {
+            files.add(new StoreFileMetaData("_" + i + "." + randomAlphaOfLength(3), randomNonNegativeLong(), randomAlphaOfLength(6),
+                LUCENE_VERSION, randomBoolean() ? new BytesRef() : new BytesRef(randomByteArrayOfLength(randomIntBetween(1, 16)))));
+        }
+        final RecoveryRestoreFilesFromRepositoryRequest outRequest = new RecoveryRestoreFilesFromRepositoryRequest(
+            randomNonNegativeLong(), new ShardId("test", UUIDs.randomBase64UUID(), randomIntBetween(0, 10)), randomAlphaOfLength(8),
+            files, randomIntBetween(0, 1000));
+
+        final BytesStreamOutput out = new BytesStreamOutput();
+        outRequest.writeTo(out);
+        final StreamInput in = out.bytes().streamInput();
+        final RecoveryRestoreFilesFromRepositoryRequest inRequest = new RecoveryRestoreFilesFromRepositoryRequest();
+        inRequest.readFrom(in);
+
+        assertThat(inRequest.recoveryId(), equalTo(outRequest.recoveryId()));
+        assertThat(inRequest.shardId(), equalTo(outRequest.shardId()));
+        assertThat(inRequest.repository(), equalTo(outRequest.repository()));
+        assertThat(inRequest.totalTranslogOps(), equalTo(outRequest.totalTranslogOps()));
+        assertThat(inRequest.files().size(), equalTo(files.size()));
+        for (int i = 0; i < files.size(); i++) {
+            assertThat(inRequest.files().get(i).name(), equalTo(files.get(i).name()));
+            assertTrue(inRequest.files().get(i).isSame(files.get(i)));
+        }
+    }
+
+    public void testResponseSerialization() throws Exception {
+        final Set<String> restoredFiles = new HashSet<>();
+        final int numFiles = randomIntBetween(0, 10);
+        for (int i = 0; i < numFiles; i++) {
+            restoredFiles.add("_" + i + "." + randomAlphaOfLength(3));
+        }
+        final RecoveryRestoreFilesFromRepositoryResponse outResponse = new RecoveryRestoreFilesFromRepositoryResponse(restoredFiles);
+
+        final BytesStreamOutput out = new BytesStreamOutput();
+        outResponse.writeTo(out);
+        final StreamInput in = out.bytes().streamInput();
+        final RecoveryRestoreFilesFromRepositoryResponse inResponse = new RecoveryRestoreFilesFromRepositoryResponse();
+        inResponse.readFrom(in);
+
+        assertThat(inResponse.restoredFiles, equalTo(restoredFiles));
+    }
+}
@@ -32,6 +32,7 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.store.BaseDirectoryWrapper;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
@@ -41,12 +42,14 @@ import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.FileSystemUtils;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lucene.store.IndexOutputOutputStream;
 import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.CancellableThreads;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.IndexSettings;
@@ -70,6 +73,8 @@ import org.elasticsearch.test.CorruptionUtils;
 import org.elasticsearch.test.DummyShardLock;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.IndexSettingsModule;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.mockito.ArgumentCaptor;
 
 import java.io.IOException;
@@ -78,18 +83,28 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -149,6 +164,129 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         IOUtils.close(reader, store, targetStore);
     }
 
+    public void testSendFilesConcurrently() throws Throwable {
+        final int maxConcurrentFileChunks = randomIntBetween(1, 8);
+        final StartRecoveryRequest request = getStartRecoveryRequest();
+        final IndexShard shard = mock(IndexShard.class);
+        when(shard.state()).thenReturn(IndexShardState.STARTED);
+        final ThreadPool threadPool = new TestThreadPool("send_files_concurrently");
+        final Map<String, Map<Long, BytesReference>> receivedChunks = ConcurrentCollections.newConcurrentMap();
+        final AtomicInteger inFlightChunks = new AtomicInteger();
+        final AtomicInteger maxInFlightChunks = new AtomicInteger();
+        final RecoveryTargetHandler recoveryTarget = mock(RecoveryTargetHandler.class);
+        doAnswer(invocation -> {
+            final StoreFileMetaData md = (StoreFileMetaData) invocation.getArguments()[0];
+            final long position = (long) invocation.getArguments()[1];
+            final BytesReference content = (BytesReference) invocation.getArguments()[2];
+            @SuppressWarnings("unchecked") final ActionListener<Void> listener = (ActionListener<Void>) invocation.getArguments()[5];
+            final int inFlight = inFlightChunks.incrementAndGet();
+            maxInFlightChunks.accumulateAndGet(inFlight, Math::max);
+            // acknowledge the chunks on other threads so that they complete out of order
+            threadPool.generic().execute(() -> {
+                receivedChunks.computeIfAbsent(md.name(), k -> Collections.synchronizedMap(new TreeMap<>())).put(position, content);
+                inFlightChunks.decrementAndGet();
+                listener.onResponse(null);
+            });
+            return null;
+        }).when(recoveryTarget).writeFileChunk(any(StoreFileMetaData.class), anyLong(), any(BytesReference.class), anyBoolean(),
+            anyInt(), any(ActionListener.class));
+        final RecoverySourceHandler handler = new RecoverySourceHandler(shard, recoveryTarget, request, randomIntBetween(16, 1024),
+            maxConcurrentFileChunks, randomIntBetween(1, 8));
+        Store store = newStore(createTempDir());
+        RandomIndexWriter writer = new RandomIndexWriter(random(), store.directory(), newIndexWriterConfig());
+        int numDocs = randomIntBetween(10, 100);
+        for (int i = 0; i < numDocs; i++) {
+            Document document = new Document();
+            document.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+            document.add(newField("field", randomUnicodeOfCodepointLengthBetween(1, 10), TextField.TYPE_STORED));
+            writer.addDocument(document);
+        }
+        writer.commit();
+        writer.close();
+
+        Store.MetadataSnapshot metadata = store.getMetadata(null);
+        List<StoreFileMetaData> metas = new ArrayList<>();
+        for (StoreFileMetaData md : metadata) {
+            metas.add(md);
+        }
+        try {
+            handler.sendFilesConcurrently(store, metas.toArray(new StoreFileMetaData[0]), () -> 0);
+            assertThat(inFlightChunks.get(), equalTo(0));
+            assertThat(maxInFlightChunks.get(), lessThanOrEqualTo(maxConcurrentFileChunks));
+            for (StoreFileMetaData md : metas) {
+                final byte[] expected = new byte[Math.toIntExact(md.length())];
+                try (IndexInput input = store.directory().openInput(md.name(), IOContext.READONCE)) {
+                    input.readBytes(expected, 0, expected.length);
+                }
+                final BytesStreamOutput received = new BytesStreamOutput();
+                for (BytesReference chunk : receivedChunks.get(md.name()).values()) {
+                    chunk.writeTo(received);
+                }
+                assertArrayEquals(md.name(), expected, BytesReference.toBytes(received.bytes()));
+            }
+        } finally {
+            terminate(threadPool);
+            IOUtils.close(store);
+        }
+    }
+
+    public void testPhase1OnlySendsFilesThatWereNotRestoredFromRepository() throws Throwable {
+        final StartRecoveryRequest request = getStartRecoveryRequest();
+        Store store = newStore(createTempDir());
+        RandomIndexWriter writer = new RandomIndexWriter(random(), store.directory(), newIndexWriterConfig());
+        int numDocs = randomIntBetween(10, 100);
+        for (int i = 0; i < numDocs; i++) {
+            Document document = new Document();
+            document.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+            document.add(newField("field", randomUnicodeOfCodepointLengthBetween(1, 10), TextField.TYPE_STORED));
+            writer.addDocument(document);
+        }
+        writer.commit();
+        writer.close();
+        final IndexShard shard = mock(IndexShard.class);
+        when(shard.state()).thenReturn(IndexShardState.STARTED);
+        when(shard.store()).thenReturn(store);
+
+        final int snapshotRestoreBatchSize = randomIntBetween(1, 8);
+        final AtomicInteger restoreRequests = new AtomicInteger();
+        final Set<String> restoredFiles = ConcurrentCollections.newConcurrentSet();
+        final Set<String> sentFiles = ConcurrentCollections.newConcurrentSet();
+        final RecoveryTargetHandler recoveryTarget = mock(RecoveryTargetHandler.class);
+        when(recoveryTarget.restoreFilesFromRepository(eq("repo"), anyListOf(StoreFileMetaData.class), anyInt())).thenAnswer(
+            invocation -> {
+                @SuppressWarnings("unchecked") final List<StoreFileMetaData> files = (List<StoreFileMetaData>) invocation.getArguments()[1];
+                // the files are restored in batches so that a single request doesn't take as long as restoring all files
+                assertThat(files.size(), lessThanOrEqualTo(snapshotRestoreBatchSize));
+                restoreRequests.incrementAndGet();
+                final Set<String> restoredBatch = new HashSet<>();
+                for (StoreFileMetaData md : randomSubsetOf(files)) {
+                    restoredBatch.add(md.name());
+                }
+                restoredFiles.addAll(restoredBatch);
+                return restoredBatch;
+            });
+        doAnswer(invocation -> {
+            sentFiles.add(((StoreFileMetaData) invocation.getArguments()[0]).name());
+            @SuppressWarnings("unchecked") final ActionListener<Void> listener = (ActionListener<Void>) invocation.getArguments()[5];
+            listener.onResponse(null);
+            return null;
+        }).when(recoveryTarget).writeFileChunk(any(StoreFileMetaData.class), anyLong(), any(BytesReference.class), anyBoolean(),
+            anyInt(), any(ActionListener.class));
+        final RecoverySourceHandler handler = new RecoverySourceHandler(shard, recoveryTarget, request, randomIntBetween(16, 1024),
+            randomIntBetween(2, 8), randomIntBetween(1, 8), "repo", snapshotRestoreBatchSize);
+        try {
+            final IndexCommit commit = DirectoryReader.listCommits(store.directory()).get(0);
+            handler.phase1(commit, () -> 0);
+            final Set<String> expectedSentFiles = new HashSet<>(commit.getFileNames());
+            expectedSentFiles.removeAll(restoredFiles);
+            assertThat(sentFiles, equalTo(expectedSentFiles));
+            final int numFiles = commit.getFileNames().size();
+            assertThat(restoreRequests.get(), equalTo((numFiles + snapshotRestoreBatchSize - 1) / snapshotRestoreBatchSize));
+        } finally {
+            IOUtils.close(store);
+        }
+    }
+
     public StartRecoveryRequest getStartRecoveryRequest() throws IOException {
         Store.MetadataSnapshot metadataSnapshot = randomBoolean() ? Store.MetadataSnapshot.EMPTY :
             new Store.MetadataSnapshot(Collections.emptyMap(),
@@ -307,7 +445,7 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         }
 
         CorruptionUtils.corruptFile(random(), FileSystemUtils.files(tempDir, (p) ->
-            (p.getFileName().toString().equals("write.lock") ||
+            (Store.isAutogenerated(p.getFileName().toString()) ||
                 p.getFileName().toString().startsWith("extra")) == false));
         Store targetStore = newStore(createTempDir(), false);
         try {
@@ -19,25 +19,57 @@
 package org.elasticsearch.indices.recovery;
 
 import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.OutputStreamIndexOutput;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.lucene.store.ByteArrayIndexInput;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetaData;
+import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.repositories.RepositoriesService;
+import org.elasticsearch.repositories.blobstore.BlobStoreRepository;
+import org.elasticsearch.repositories.blobstore.BlobStoreRepositoryTests;
+import org.elasticsearch.test.ESIntegTestCase;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 
 public class RecoveryStatusTests extends ESSingleNodeTestCase {
     private static final org.apache.lucene.util.Version MIN_SUPPORTED_LUCENE_VERSION = org.elasticsearch.Version.CURRENT
         .minimumIndexCompatibilityVersion().luceneVersion;
+    @Override
+    protected Collection<Class<? extends Plugin>> getPlugins() {
+        // a repository that may be accessed from the test thread
+        return Collections.singletonList(BlobStoreRepositoryTests.FsLikeRepoPlugin.class);
+    }
+
     public void testRenameTempFiles() throws IOException {
         IndexService service = createIndex("foo");
 
@@ -87,4 +119,141 @@ public class RecoveryStatusTests extends ESSingleNodeTestCase {
         // we must fail the recovery because marking it as done will try to move the shard to POST_RECOVERY, which will fail because it's started
         status.fail(new RecoveryFailedException(status.state(), "end of test. OK.", null), false);
     }
+
+    public void testWriteFileChunksOutOfOrder() throws IOException {
+        IndexService service = createIndex("foo");
+        IndexShard indexShard = service.getShardOrNull(0);
+        DiscoveryNode node = new DiscoveryNode("foo", buildNewFakeTransportAddress(), emptyMap(), emptySet(), Version.CURRENT);
+        RecoveryTarget status = new RecoveryTarget(indexShard, node, new PeerRecoveryTargetService.RecoveryListener() {
+            @Override
+            public void onRecoveryDone(RecoveryState state) {
+            }
+
+            @Override
+            public void onRecoveryFailure(RecoveryState state, RecoveryFailedException e, boolean sendShardFailure) {
+            }
+        }, version -> {});
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (IndexOutput output = new OutputStreamIndexOutput("test", "foo.bar", bytes, 16)) {
+            final byte[] payload = randomByteArrayOfLength(randomIntBetween(1, 1 << 14));
+            output.writeBytes(payload, payload.length);
+            CodecUtil.writeFooter(output);
+        }
+        final byte[] content = bytes.toByteArray();
+        final String checksum;
+        try (IndexInput input = new ByteArrayIndexInput("test", content)) {
+            checksum = Store.digestToString(CodecUtil.retrieveChecksum(input));
+        }
+        final StoreFileMetaData metaData = new StoreFileMetaData("foo.bar", content.length, checksum, MIN_SUPPORTED_LUCENE_VERSION);
+        status.state().getIndex().addFileDetail("foo.bar", content.length, false);
+
+        // cut the file into chunks and deliver them in an order in which some chunks overtake earlier ones
+        final List<long[]> chunks = new ArrayList<>();
+        for (long position = 0; position < content.length; ) {
+            final int length = (int) Math.min(randomIntBetween(1, 1024), content.length - position);
+            chunks.add(new long[] {position, length});
+            position += length;
+        }
+        if (chunks.size() > 1) {
+            Collections.shuffle(chunks, random());
+            if (chunks.get(0)[0] == 0) {
+                Collections.swap(chunks, 0, chunks.size() - 1);
+            }
+        }
+        for (long[] chunk : chunks) {
+            final int position = (int) chunk[0];
+            final int length = (int) chunk[1];
+            status.writeFileChunk(metaData, position, new BytesArray(content, position, length), position + length == content.length, 0);
+        }
+
+        // the file was completed, verified against its checksum and closed
+        assertNull(status.getOpenIndexOutput("foo.bar"));
+        assertEquals(content.length, status.state().getIndex().recoveredBytes());
+        final String tempFileName = status.getTempNameForFile("foo.bar");
+        try (IndexInput input = status.store().directory().openInput(tempFileName, IOContext.DEFAULT)) {
+            final byte[] written = new byte[(int) input.length()];
+            input.readBytes(written, 0, written.length);
+            assertArrayEquals(content, written);
+        }
+        try (IndexInput input = status.store().directory().openInput(tempFileName, IOContext.DEFAULT)) {
+            assertEquals(checksum, Store.digestToString(CodecUtil.checksumEntireFile(input)));
+        }
+        status.fail(new RecoveryFailedException(status.state(), "end of test. OK.", null), false);
+    }
+
+    public void testRestoreFilesFromRepository() throws IOException {
+        IndexService service = createIndex("foo", Settings.builder().put("index.number_of_shards", 1).build());
+        final int numDocs = randomIntBetween(10, 50);
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex("foo", "type", Integer.toString(i)).setSource("field", randomAlphaOfLength(10)).get();
+        }
+        client().admin().indices().prepareFlush("foo").get();
+
+        final Path location = ESIntegTestCase.randomRepoPath(node().settings());
+        assertAcked(client().admin().cluster().preparePutRepository("repo").setType(BlobStoreRepositoryTests.REPO_TYPE)
+            .setSettings(Settings.builder().put("location", location)));
+        assertThat(client().admin().cluster().prepareCreateSnapshot("repo", "snap").setWaitForCompletion(true).setIndices("foo")
+            .get().getSnapshotInfo().failedShards(), equalTo(0));
+        final BlobStoreRepository repository =
+            (BlobStoreRepository) getInstanceFromNode(RepositoriesService.class).repository("repo");
+
+        // corrupt one of the data blobs in the repository, the file it holds must be discarded rather than restored
+        final Path shardPath = location.resolve("indices")
+            .resolve(repository.getRepositoryData().resolveIndexId("foo").getId()).resolve("0");
+        final List<Path> dataBlobs;
+        try (Stream<Path> blobs = Files.list(shardPath)) {
+            dataBlobs = blobs.filter(path -> path.getFileName().toString().startsWith("__")).filter(path -> {
+                try {
+                    return Files.size(path) > 0;
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            }).collect(Collectors.toList());
+        }
+        final Path corruptedBlob = randomFrom(dataBlobs);
+        final byte[] corruptedContent = Files.readAllBytes(corruptedBlob);
+        corruptedContent[randomIntBetween(0, corruptedContent.length - 1)] ^= 1;
+        Files.write(corruptedBlob, corruptedContent);
+
+        IndexShard indexShard = service.getShardOrNull(0);
+        DiscoveryNode node = new DiscoveryNode("foo", buildNewFakeTransportAddress(), emptyMap(), emptySet(), Version.CURRENT);
+        RecoveryTarget status = new RecoveryTarget(indexShard, node, new PeerRecoveryTargetService.RecoveryListener() {
+            @Override
+            public void onRecoveryDone(RecoveryState state) {
+            }
+
+            @Override
+            public void onRecoveryFailure(RecoveryState state, RecoveryFailedException e, boolean sendShardFailure) {
+            }
+        }, version -> {});
+        final List<StoreFileMetaData> files = new ArrayList<>();
+        indexShard.snapshotStoreMetadata().forEach(files::add);
+        for (StoreFileMetaData md : files) {
+            status.state().getIndex().addFileDetail(md.name(), md.length(), false);
+        }
+        final long lastAccessTime = status.lastAccessTime();
+
+        final Set<String> restored = status.restoreFilesFromRepository(repository, files, 0);
+
+        assertThat(restored.size(), equalTo(files.size() - 1));
+        assertThat(status.lastAccessTime(), greaterThan(lastAccessTime));
+        final Set<String> directoryFiles = new HashSet<>(Arrays.asList(status.store().directory().listAll()));
+        for (StoreFileMetaData md : files) {
+            final String tempFileName = status.getTempNameForFile(md.name());
+            if (restored.contains(md.name())) {
+                assertTrue(md.name(), directoryFiles.contains(tempFileName));
+                try (IndexInput input = status.store().directory().openInput(tempFileName, IOContext.DEFAULT)) {
+                    assertEquals(md.checksum(), Store.digestToString(CodecUtil.checksumEntireFile(input)));
+                }
+                assertEquals(md.length(), status.state().getIndex().getFileDetails(md.name()).recovered());
+            } else {
+                // the discarded file left nothing behind and can be received from the recovery source from its start
+                assertFalse(md.name(), directoryFiles.contains(tempFileName));
+                assertNull(status.getOpenIndexOutput(md.name()));
+                assertEquals(0, status.state().getIndex().getFileDetails(md.name()).recovered());
+            }
+        }
+        status.fail(new RecoveryFailedException(status.state(), "end of test. OK.", null), false);
+    }
 }
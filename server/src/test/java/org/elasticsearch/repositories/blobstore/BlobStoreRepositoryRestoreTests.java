@@ -25,9 +25,13 @@ import org.elasticsearch.cluster.metadata.RepositoryMetaData;
 import org.elasticsearch.cluster.routing.RecoverySource;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardRoutingHelper;
+import org.elasticsearch.common.Numbers;
 import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.core.internal.io.Streams;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.env.TestEnvironment;
 import org.elasticsearch.index.engine.InternalEngineFactory;
@@ -45,12 +49,18 @@ import org.elasticsearch.snapshots.Snapshot;
 import org.elasticsearch.snapshots.SnapshotId;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 
 /**
  * This class tests the behavior of {@link BlobStoreRepository} when it
@@ -174,9 +184,121 @@ public class BlobStoreRepositoryRestoreTests extends IndexShardTestCase {
         }
     }
 
+    public void testShardIndexGenerationIsTracked() throws IOException {
+        final IndexId indexId = new IndexId(randomAlphaOfLength(10), UUIDs.randomBase64UUID());
+        final ShardId shardId = new ShardId(indexId.getName(), indexId.getId(), 0);
+
+        IndexShard shard = newShard(shardId, true);
+        try {
+            recoverShardFromStore(shard);
+            indexDoc(shard, "_doc", "0");
+            flushShard(shard, false);
+
+            final BlobStoreRepository repository = (BlobStoreRepository) createRepository();
+            final BlobContainer shardContainer = repository.blobStore().blobContainer(repository.basePath().add("indices")
+                .add(indexId.getId()).add("0"));
+            snapshotShard(shard, new Snapshot(repository.getMetadata().name(), new SnapshotId("snap-1", "_uuid1")), repository);
+            assertThat(readShardIndexGeneration(shardContainer), equalTo(0L));
+
+            indexDoc(shard, "_doc", "1");
+            flushShard(shard, false);
+            snapshotShard(shard, new Snapshot(repository.getMetadata().name(), new SnapshotId("snap-2", "_uuid2")), repository);
+            assertThat(readShardIndexGeneration(shardContainer), equalTo(1L));
+
+            // the previous shard index file is removed once the pointer was moved to the new one
+            final Set<String> blobs = shardContainer.listBlobs().keySet();
+            assertThat(blobs, hasItem("index-1"));
+            assertThat(blobs, not(hasItem("index-0")));
+
+            // without the pointer the shard index is found by listing the shard container
+            shardContainer.deleteBlob("index.latest");
+            final Snapshot snapshot = new Snapshot(repository.getMetadata().name(), new SnapshotId("snap-3", "_uuid3"));
+            snapshotShard(shard, snapshot, repository);
+            assertThat(readShardIndexGeneration(shardContainer), equalTo(2L));
+            assertThat(shardContainer.listBlobs().keySet(), not(hasItem("index-1")));
+        } finally {
+            if (shard != null && shard.state() != IndexShardState.CLOSED) {
+                try {
+                    shard.close("test", false);
+                } finally {
+                    IOUtils.close(shard.store());
+                }
+            }
+        }
+    }
+
+    public void testRestoreDeduplicatedSnapshot() throws IOException {
+        final IndexId indexId = new IndexId(randomAlphaOfLength(10), UUIDs.randomBase64UUID());
+        final ShardId shardId = new ShardId(indexId.getName(), indexId.getId(), 0);
+
+        IndexShard shard = newShard(shardId, true);
+        try {
+            recoverShardFromStore(shard);
+            final int numDocs = scaledRandomIntBetween(1, 500);
+            for (int i = 0; i < numDocs; i++) {
+                indexDoc(shard, "_doc", Integer.toString(i));
+                if (rarely()) {
+                    flushShard(shard, false);
+                }
+            }
+            flushShard(shard, false);
+
+            final BlobStoreRepository repository = (BlobStoreRepository) createRepository(Settings.builder()
+                .put("dedup", true)
+                .put("dedup_chunk_size", "1kb")
+                .build());
+            final Snapshot snapshot = new Snapshot(repository.getMetadata().name(), new SnapshotId(randomAlphaOfLength(10), "_uuid"));
+            snapshotShard(shard, snapshot, repository);
+            final BlobContainer shardContainer = repository.blobStore().blobContainer(repository.basePath().add("indices")
+                .add(indexId.getId()).add("0"));
+            // files are only stored as chunks
+            for (String blobName : shardContainer.listBlobs().keySet()) {
+                if (blobName.startsWith("__")) {
+                    assertThat(blobName, startsWith("__chunk-"));
+                }
+            }
+
+            final Store.MetadataSnapshot storeFiles = shard.snapshotStoreMetadata();
+            closeShards(shard);
+            for (String file : storeFiles.asMap().keySet()) {
+                Files.delete(shard.shardPath().resolveIndex().resolve(file));
+            }
+            ShardRouting shardRouting = ShardRoutingHelper.initWithSameId(shard.routingEntry(),
+                RecoverySource.ExistingStoreRecoverySource.INSTANCE);
+            shard = newShard(shardRouting, shard.shardPath(), shard.indexSettings().getIndexMetaData(), null, null,
+                new InternalEngineFactory(), () -> {}, EMPTY_EVENT_LISTENER);
+            recoverShardFromSnapshot(shard, snapshot, repository);
+            TestUtil.checkIndex(shard.store().directory());
+            for (StoreFileMetaData storeFile : storeFiles) {
+                assertEquals(storeFile.length(), shard.store().directory().fileLength(storeFile.name()));
+            }
+        } finally {
+            if (shard != null && shard.state() != IndexShardState.CLOSED) {
+                try {
+                    shard.close("test", false);
+                } finally {
+                    IOUtils.close(shard.store());
+                }
+            }
+        }
+    }
+
+    private static long readShardIndexGeneration(BlobContainer shardContainer) throws IOException {
+        try (InputStream blob = shardContainer.readBlob("index.latest")) {
+            BytesStreamOutput out = new BytesStreamOutput();
+            Streams.copy(blob, out);
+            return Numbers.bytesToLong(out.bytes().toBytesRef());
+        }
+    }
+
     /** Create a {@link Repository} with a random name **/
     private Repository createRepository() {
-        Settings settings = Settings.builder().put("location", randomAlphaOfLength(10)).build();
+        return createRepository(Settings.EMPTY);
+    }
+
+    /** Create a {@link Repository} with a random name and the given settings **/
+    private Repository createRepository(Settings repositorySettings) {
+        Settings settings = Settings.builder().put(repositorySettings).put("location", randomAlphaOfLength(10)).build();
         RepositoryMetaData repositoryMetaData = new RepositoryMetaData(randomAlphaOfLength(10), FsRepository.TYPE, settings);
         final FsRepository repository = new FsRepository(repositoryMetaData, createEnvironment(), xContentRegistry()) {
             @Override
@@ -20,10 +20,13 @@
 package org.elasticsearch.repositories.blobstore;
 
 import org.elasticsearch.action.admin.cluster.snapshots.create.CreateSnapshotResponse;
+import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotResponse;
+import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.support.master.AcknowledgedResponse;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.plugins.Plugin;
@@ -34,17 +37,20 @@ import org.elasticsearch.repositories.Repository;
 import org.elasticsearch.repositories.RepositoryData;
 import org.elasticsearch.repositories.RepositoryException;
 import org.elasticsearch.repositories.fs.FsRepository;
+import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.snapshots.SnapshotId;
 import org.elasticsearch.snapshots.SnapshotState;
 import org.elasticsearch.test.ESIntegTestCase;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -58,7 +64,7 @@ import static org.hamcrest.Matchers.nullValue;
  */
 public class BlobStoreRepositoryTests extends ESSingleNodeTestCase {
 
-    static final String REPO_TYPE = "fsLike";
+    public static final String REPO_TYPE = "fsLike";
 
     protected Collection<Class<? extends Plugin>> getPlugins() {
         return Arrays.asList(FsLikeRepoPlugin.class);
@@ -132,6 +138,116 @@ public class BlobStoreRepositoryTests extends ESSingleNodeTestCase {
         assertThat(snapshotIds, equalTo(originalSnapshots));
     }
 
+    public void testSnapshotAndRestoreInParts() throws Exception {
+        final Client client = client();
+        final Path location = ESIntegTestCase.randomRepoPath(node().settings());
+        final String repositoryName = "test-repo";
+
+        logger.info("-->  creating repository with small transfer parts");
+        AcknowledgedResponse putRepositoryResponse =
+            client.admin().cluster().preparePutRepository(repositoryName)
+                                    .setType(REPO_TYPE)
+                                    .setSettings(Settings.builder().put(node().settings()).put("location", location)
+                                        .put("max_concurrent_transfers", randomIntBetween(2, 4))
+                                        .put("transfer_part_size", randomIntBetween(64, 1024), ByteSizeUnit.BYTES))
+                                    .get();
+        assertThat(putRepositoryResponse.isAcknowledged(), equalTo(true));
+
+        logger.info("--> creating an index and indexing documents");
+        final String indexName = "test-idx";
+        createIndex(indexName);
+        ensureGreen();
+        final Map<String, String> docs = new HashMap<>();
+        int numDocs = randomIntBetween(50, 200);
+        for (int i = 0; i < numDocs; i++) {
+            String id = Integer.toString(i);
+            String text = randomAlphaOfLengthBetween(10, 100);
+            docs.put(id, text);
+            client().prepareIndex(indexName, "type1", id).setSource("text", text).get();
+        }
+        client().admin().indices().prepareFlush(indexName).get();
+
+        logger.info("--> create snapshot");
+        CreateSnapshotResponse createSnapshotResponse = client.admin()
+                                                              .cluster()
+                                                              .prepareCreateSnapshot(repositoryName, "test-snap")
+                                                              .setWaitForCompletion(true)
+                                                              .setIndices(indexName)
+                                                              .get();
+        assertThat(createSnapshotResponse.getSnapshotInfo().state(), equalTo(SnapshotState.SUCCESS));
+        assertThat(createSnapshotResponse.getSnapshotInfo().failedShards(), equalTo(0));
+
+        logger.info("--> restore snapshot under another name");
+        RestoreSnapshotResponse restoreSnapshotResponse = client.admin()
+                                                                .cluster()
+                                                                .prepareRestoreSnapshot(repositoryName, "test-snap")
+                                                                .setWaitForCompletion(true)
+                                                                .setRenamePattern(indexName)
+                                                                .setRenameReplacement("restored-idx")
+                                                                .get();
+        assertThat(restoreSnapshotResponse.getRestoreInfo().failedShards(), equalTo(0));
+        ensureGreen();
+
+        logger.info("--> make sure the restored index has the same documents");
+        SearchResponse searchResponse = client().prepareSearch("restored-idx").setSize(numDocs).get();
+        assertThat(searchResponse.getHits().getTotalHits(), equalTo((long) numDocs));
+        for (SearchHit hit : searchResponse.getHits().getHits()) {
+            assertThat(hit.getSourceAsMap().get("text"), equalTo(docs.get(hit.getId())));
+        }
+    }
+
+    public void testShardSnapshotAfterFailureBetweenIndexFileAndPointerWrites() throws Exception {
+        final Client client = client();
+        final Path location = ESIntegTestCase.randomRepoPath(node().settings());
+        final String repositoryName = "test-repo";
+        AcknowledgedResponse putRepositoryResponse =
+            client.admin().cluster().preparePutRepository(repositoryName)
+                                    .setType(REPO_TYPE)
+                                    .setSettings(Settings.builder().put(node().settings()).put("location", location))
+                                    .get();
+        assertThat(putRepositoryResponse.isAcknowledged(), equalTo(true));
+
+        final String indexName = "test-idx";
+        createIndex(indexName, Settings.builder().put("index.number_of_shards", 1).build());
+        ensureGreen();
+        final int numDocs = randomIntBetween(10, 20);
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex(indexName, "type1", Integer.toString(i)).setSource("text", "sometext").get();
+        }
+        client().admin().indices().prepareFlush(indexName).get();
+
+        logger.info("--> create first snapshot");
+        assertThat(client.admin().cluster().prepareCreateSnapshot(repositoryName, "test-snap-1").setWaitForCompletion(true)
+            .setIndices(indexName).get().getSnapshotInfo().failedShards(), equalTo(0));
+        final RepositoriesService repositoriesService = getInstanceFromNode(RepositoriesService.class);
+        final BlobStoreRepository repository = (BlobStoreRepository) repositoriesService.repository(repositoryName);
+        final Path shardPath = location.resolve("indices")
+            .resolve(repository.getRepositoryData().resolveIndexId(indexName).getId()).resolve("0");
+        final byte[] firstIndexFile = Files.readAllBytes(shardPath.resolve("index-0"));
+        final byte[] firstPointer = Files.readAllBytes(shardPath.resolve("index.latest"));
+
+        logger.info("--> create second snapshot and make it look like it failed after writing index-1 but before moving index.latest");
+        assertThat(client.admin().cluster().prepareCreateSnapshot(repositoryName, "test-snap-2").setWaitForCompletion(true)
+            .setIndices(indexName).get().getSnapshotInfo().failedShards(), equalTo(0));
+        assertTrue(Files.exists(shardPath.resolve("index-1")));
+        Files.write(shardPath.resolve("index-0"), firstIndexFile);
+        Files.write(shardPath.resolve("index.latest"), firstPointer);
+
+        logger.info("--> create third snapshot, which must not try to write index-1 again");
+        CreateSnapshotResponse createSnapshotResponse = client.admin().cluster().prepareCreateSnapshot(repositoryName, "test-snap-3")
+            .setWaitForCompletion(true).setIndices(indexName).get();
+        assertThat(createSnapshotResponse.getSnapshotInfo().state(), equalTo(SnapshotState.SUCCESS));
+        assertThat(createSnapshotResponse.getSnapshotInfo().failedShards(), equalTo(0));
+        assertTrue(Files.exists(shardPath.resolve("index-2")));
+        assertFalse(Files.exists(shardPath.resolve("index-1")));
+        assertFalse(Files.exists(shardPath.resolve("index-0")));
+
+        logger.info("--> the second snapshot, which was only recorded in index-1, is still restorable");
+        assertThat(client.admin().cluster().prepareRestoreSnapshot(repositoryName, "test-snap-2").setWaitForCompletion(true)
+            .setRenamePattern(indexName).setRenameReplacement("restored-idx").get().getRestoreInfo().failedShards(), equalTo(0));
+        ensureGreen();
+    }
+
     public void testReadAndWriteSnapshotsThroughIndexFile() throws Exception {
         final BlobStoreRepository repository = setupRepo();
 
@@ -0,0 +1,96 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.repositories.blobstore;
+
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class ConcurrentTransfersTests extends ESTestCase {
+
+    public void testRunsAllTransfersWithBoundedConcurrency() throws Exception {
+        final ThreadPool threadPool = new TestThreadPool("concurrent_transfers");
+        try {
+            final int maxConcurrency = randomIntBetween(1, 4);
+            final ConcurrentTransfers transfers = new ConcurrentTransfers(threadPool.generic(), maxConcurrency);
+            final AtomicInteger running = new AtomicInteger();
+            final AtomicInteger maxRunning = new AtomicInteger();
+            final AtomicInteger completed = new AtomicInteger();
+            final int count = randomIntBetween(1, 100);
+            for (int i = 0; i < count; i++) {
+                transfers.submit(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    running.decrementAndGet();
+                    completed.incrementAndGet();
+                });
+            }
+            transfers.awaitCompletion();
+            assertThat(completed.get(), equalTo(count));
+            assertThat(maxRunning.get(), lessThanOrEqualTo(maxConcurrency));
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
+    public void testSubmittingThreadRunsTransfersThatWereNotPickedUp() throws Exception {
+        // an executor whose threads are all busy never picks up the transfers
+        final List<Runnable> queued = new ArrayList<>();
+        final ConcurrentTransfers transfers = new ConcurrentTransfers(queued::add, randomIntBetween(2, 4));
+        final AtomicInteger completed = new AtomicInteger();
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        final int count = randomIntBetween(1, 20);
+        for (int i = 0; i < count; i++) {
+            futures.add(transfers.submit(completed::incrementAndGet));
+        }
+        transfers.await(futures.get(0));
+        transfers.awaitCompletion();
+        assertThat(completed.get(), equalTo(count));
+        // the executor picking up the transfers later on doesn't run them again
+        queued.forEach(Runnable::run);
+        assertThat(completed.get(), equalTo(count));
+    }
+
+    public void testFailureStopsTransfers() {
+        final List<Runnable> queued = new ArrayList<>();
+        final ConcurrentTransfers transfers = new ConcurrentTransfers(queued::add, randomIntBetween(1, 4));
+        final AtomicInteger completed = new AtomicInteger();
+        IOException e = expectThrows(IOException.class, () -> {
+            transfers.submit(() -> {
+                throw new IOException("boom");
+            });
+            for (int i = 0; i < 10; i++) {
+                transfers.submit(completed::incrementAndGet);
+            }
+            transfers.awaitCompletion();
+        });
+        assertThat(e.getMessage(), equalTo("boom"));
+        assertThat(completed.get(), equalTo(0));
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search;
+
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchTask;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.DocsStats;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.script.Script;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.AliasFilter;
+import org.elasticsearch.search.internal.ShardSearchLocalRequest;
+import org.elasticsearch.search.internal.ShardSearchRequest;
+import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.tasks.TaskManager;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.After;
+import org.junit.Before;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SearchAdmissionControllerTests extends ESTestCase {
+
+    private ThreadPool threadPool;
+    private IndexShard shard;
+
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        threadPool = new TestThreadPool("search_admission_controller_tests");
+        shard = mock(IndexShard.class);
+        when(shard.shardId()).thenReturn(new ShardId(new Index("index", "_na_"), 0));
+        when(shard.docStats()).thenReturn(new DocsStats(0, 0, 0));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+        terminate(threadPool);
+    }
+
+    private SearchAdmissionController newController(Settings settings) {
+        return new SearchAdmissionController(settings, new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
+            threadPool);
+    }
+
+    private static ShardSearchRequest request(SearchSourceBuilder source) {
+        return new ShardSearchLocalRequest(new ShardId(new Index("index", "_na_"), 0), 1, SearchType.QUERY_THEN_FETCH, source,
+            new String[0], false, new AliasFilter(null, Strings.EMPTY_ARRAY), 1f, true, null, null);
+    }
+
+    public void testStructuralCost() {
+        final long base = SearchAdmissionController.structuralCost(0, 0, false);
+        assertThat(base, equalTo(SearchAdmissionController.BASE_COST_NANOS));
+        assertThat(SearchAdmissionController.structuralCost(10_000_000, 0, false), greaterThan(base));
+        assertThat(SearchAdmissionController.structuralCost(0, 3, false), equalTo(4 * base));
+        assertThat(SearchAdmissionController.structuralCost(0, 3, true), equalTo(8 * base));
+    }
+
+    public void testShapeKey() {
+        final String plain = SearchAdmissionController.shapeKey(request(new SearchSourceBuilder()), shard);
+        assertThat(plain, equalTo("index"));
+        final String terms = SearchAdmissionController.shapeKey(request(new SearchSourceBuilder()
+            .aggregation(AggregationBuilders.terms("a").field("f").subAggregation(AggregationBuilders.avg("b").field("g")))), shard);
+        assertThat(terms, equalTo("index|(terms(avg,),)"));
+        final String otherNames = SearchAdmissionController.shapeKey(request(new SearchSourceBuilder()
+            .aggregation(AggregationBuilders.terms("c").field("h").subAggregation(AggregationBuilders.avg("d").field("i")))), shard);
+        assertThat(otherNames, equalTo(terms));
+        final String script = SearchAdmissionController.shapeKey(request(new SearchSourceBuilder()
+            .scriptField("s", new Script("doc['f'].value"))), shard);
+        assertThat(script, not(equalTo(plain)));
+    }
+
+    public void testQueuedRequestsAreDequeuedRoundRobinAcrossTenants() {
+        SearchAdmissionController controller = newController(Settings.builder()
+            .put(SearchAdmissionController.ENABLED_SETTING.getKey(), true)
+            .put(SearchAdmissionController.TARGET_LATENCY_SETTING.getKey(), "1ms")
+            .put(SearchAdmissionController.TENANT_HEADER_SETTING.getKey(), "tenant")
+            .build());
+        final int searchThreads = threadPool.info(ThreadPool.Names.SEARCH).getMax();
+        final List<Runnable> executed = new ArrayList<>();
+        final List<String> ran = new ArrayList<>();
+        // every request costs the base cost, so the search threads can run one request each within the target latency
+        for (int i = 0; i < searchThreads; i++) {
+            submit(controller, "a", "initial", executed, ran);
+        }
+        assertThat(executed.size(), equalTo(searchThreads));
+        assertThat(controller.getQueued(), equalTo(0));
+
+        submit(controller, "a", "a1", executed, ran);
+        submit(controller, "a", "a2", executed, ran);
+        submit(controller, "b", "b1", executed, ran);
+        assertThat(controller.getQueued(), equalTo(3));
+        assertThat(executed.size(), equalTo(searchThreads));
+
+        for (int i = 0; i < 3; i++) {
+            executed.remove(0).run();
+            assertThat(controller.getQueued(), equalTo(2 - i));
+        }
+        while (executed.isEmpty() == false) {
+            executed.remove(0).run();
+        }
+        assertThat(ran.subList(ran.size() - 3, ran.size()), contains("a1", "b1", "a2"));
+        assertThat(controller.getInFlightCost(), equalTo(0L));
+    }
+
+    public void testRejectsWhenQueueIsFull() {
+        SearchAdmissionController controller = newController(Settings.builder()
+            .put(SearchAdmissionController.ENABLED_SETTING.getKey(), true)
+            .put(SearchAdmissionController.TARGET_LATENCY_SETTING.getKey(), "1ms")
+            .put(SearchAdmissionController.MAX_QUEUED_SETTING.getKey(), 0)
+            .build());
+        final int searchThreads = threadPool.info(ThreadPool.Names.SEARCH).getMax();
+        final List<Runnable> executed = new ArrayList<>();
+        for (int i = 0; i < searchThreads; i++) {
+            controller.execute(request(new SearchSourceBuilder()), shard, null, executed::add, new NoopRunnable());
+        }
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        controller.execute(request(new SearchSourceBuilder()), shard, null, executed::add, new NoopRunnable() {
+            @Override
+            public void onFailure(Exception e) {
+                failure.set(e);
+            }
+        });
+        assertThat(failure.get(), instanceOf(EsRejectedExecutionException.class));
+        assertThat(controller.getRejected(), equalTo(1L));
+        assertThat(executed.size(), equalTo(searchThreads));
+    }
+
+    public void testDisablingRunsQueuedRequests() {
+        Settings settings = Settings.builder()
+            .put(SearchAdmissionController.ENABLED_SETTING.getKey(), true)
+            .put(SearchAdmissionController.TARGET_LATENCY_SETTING.getKey(), "1ms")
+            .build();
+        ClusterSettings clusterSettings = new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        SearchAdmissionController controller = new SearchAdmissionController(settings, clusterSettings, threadPool);
+        final int searchThreads = threadPool.info(ThreadPool.Names.SEARCH).getMax();
+        final List<Runnable> executed = new ArrayList<>();
+        for (int i = 0; i < searchThreads + 5; i++) {
+            controller.execute(request(new SearchSourceBuilder()), shard, null, executed::add, new NoopRunnable());
+        }
+        assertThat(controller.getQueued(), equalTo(5));
+        clusterSettings.applySettings(Settings.builder().put(SearchAdmissionController.ENABLED_SETTING.getKey(), false).build());
+        assertThat(controller.getQueued(), equalTo(0));
+        assertThat(executed.size(), equalTo(searchThreads + 5));
+    }
+
+    public void testQueuedRequestsTimeOut() throws InterruptedException {
+        SearchAdmissionController controller = newController(Settings.builder()
+            .put(SearchAdmissionController.ENABLED_SETTING.getKey(), true)
+            .put(SearchAdmissionController.TARGET_LATENCY_SETTING.getKey(), "1ms")
+            .put(SearchAdmissionController.QUEUE_TIMEOUT_SETTING.getKey(), "10ms")
+            .build());
+        final int searchThreads = threadPool.info(ThreadPool.Names.SEARCH).getMax();
+        final List<Runnable> executed = new ArrayList<>();
+        for (int i = 0; i < searchThreads; i++) {
+            controller.execute(request(new SearchSourceBuilder()), shard, null, executed::add, new NoopRunnable());
+        }
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        controller.execute(request(new SearchSourceBuilder()), shard, null, executed::add, new NoopRunnable() {
+            @Override
+            public void onFailure(Exception e) {
+                failure.set(e);
+            }
+
+            @Override
+            public void onAfter() {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertThat(failure.get(), instanceOf(EsRejectedExecutionException.class));
+        assertThat(controller.getQueued(), equalTo(0));
+        assertThat(executed.size(), equalTo(searchThreads));
+        // the timed out request never ran, so releasing the admitted ones gives all of the in-flight cost back
+        while (executed.isEmpty() == false) {
+            executed.remove(0).run();
+        }
+        assertThat(controller.getInFlightCost(), equalTo(0L));
+    }
+
+    public void testCancellingTaskDropsQueuedRequest() {
+        SearchAdmissionController controller = newController(Settings.builder()
+            .put(SearchAdmissionController.ENABLED_SETTING.getKey(), true)
+            .put(SearchAdmissionController.TARGET_LATENCY_SETTING.getKey(), "1ms")
+            .build());
+        final int searchThreads = threadPool.info(ThreadPool.Names.SEARCH).getMax();
+        final List<Runnable> executed = new ArrayList<>();
+        for (int i = 0; i < searchThreads; i++) {
+            controller.execute(request(new SearchSourceBuilder()), shard, null, executed::add, new NoopRunnable());
+        }
+        final TaskManager taskManager = new TaskManager(Settings.EMPTY, threadPool, Collections.emptySet());
+        final SearchTask task = (SearchTask) taskManager.register("transport", "search", new SearchRequest());
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        controller.execute(request(new SearchSourceBuilder()), shard, task, executed::add, new NoopRunnable() {
+            @Override
+            public void onFailure(Exception e) {
+                failure.set(e);
+            }
+        });
+        assertThat(controller.getQueued(), equalTo(1));
+        taskManager.cancel(task, "test", () -> {});
+        assertThat(failure.get(), instanceOf(TaskCancelledException.class));
+        assertThat(controller.getQueued(), equalTo(0));
+        assertThat(executed.size(), equalTo(searchThreads));
+    }
+
+    public void testDispatchingQueuedRequestUnregistersCancellationListener() {
+        SearchAdmissionController controller = newController(Settings.builder()
+            .put(SearchAdmissionController.ENABLED_SETTING.getKey(), true)
+            .put(SearchAdmissionController.TARGET_LATENCY_SETTING.getKey(), "1ms")
+            .build());
+        final int searchThreads = threadPool.info(ThreadPool.Names.SEARCH).getMax();
+        final List<Runnable> executed = new ArrayList<>();
+        for (int i = 0; i < searchThreads; i++) {
+            controller.execute(request(new SearchSourceBuilder()), shard, null, executed::add, new NoopRunnable());
+        }
+        final List<Runnable> added = new ArrayList<>();
+        final List<Runnable> removed = new ArrayList<>();
+        final SearchTask task = new SearchTask(1, "transport", "search", "", TaskId.EMPTY_TASK_ID, Collections.emptyMap()) {
+            @Override
+            public void addCancellationListener(Runnable listener) {
+                added.add(listener);
+                super.addCancellationListener(listener);
+            }
+
+            @Override
+            public void removeCancellationListener(Runnable listener) {
+                removed.add(listener);
+                super.removeCancellationListener(listener);
+            }
+        };
+        controller.execute(request(new SearchSourceBuilder()), shard, task, executed::add, new NoopRunnable());
+        assertThat(controller.getQueued(), equalTo(1));
+        assertThat(added.size(), equalTo(1));
+        assertThat(removed.size(), equalTo(0));
+        // completing an admitted request dispatches the queued one
+        executed.remove(0).run();
+        assertThat(controller.getQueued(), equalTo(0));
+        assertThat(executed.size(), equalTo(searchThreads));
+        assertThat(removed, equalTo(added));
+    }
+
+    public void testQueuedRequestsRunWithTheirOwnContext() {
+        SearchAdmissionController controller = newController(Settings.builder()
+            .put(SearchAdmissionController.ENABLED_SETTING.getKey(), true)
+            .put(SearchAdmissionController.TARGET_LATENCY_SETTING.getKey(), "1ms")
+            .build());
+        final int searchThreads = threadPool.info(ThreadPool.Names.SEARCH).getMax();
+        final ThreadContext threadContext = threadPool.getThreadContext();
+        final List<Runnable> executed = new ArrayList<>();
+        final List<String> headers = new ArrayList<>();
+        // capture the context the executor is called with, the way the search thread pool does
+        final Executor executor = runnable -> executed.add(threadContext.preserveContext(runnable));
+        for (int i = 0; i < searchThreads; i++) {
+            try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+                threadContext.putHeader("user", "releaser");
+                controller.execute(request(new SearchSourceBuilder()), shard, null, executor, new NoopRunnable());
+            }
+        }
+        try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+            threadContext.putHeader("user", "queued");
+            controller.execute(request(new SearchSourceBuilder()), shard, null, executor, new NoopRunnable() {
+                @Override
+                protected void doRun() {
+                    headers.add(threadContext.getHeader("user"));
+                }
+            });
+        }
+        assertThat(controller.getQueued(), equalTo(1));
+        while (executed.isEmpty() == false) {
+            executed.remove(0).run();
+        }
+        assertThat(headers, contains("queued"));
+        assertNull(threadContext.getHeader("user"));
+    }
+
+    private void submit(SearchAdmissionController controller, String tenant, String label, List<Runnable> executed, List<String> ran) {
+        ThreadContext threadContext = threadPool.getThreadContext();
+        try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+            threadContext.putHeader("tenant", tenant);
+            controller.execute(request(new SearchSourceBuilder()), shard, null, executed::add, new NoopRunnable() {
+                @Override
+                protected void doRun() {
+                    ran.add(label);
+                }
+            });
+        }
+    }
+
+    private static class NoopRunnable extends AbstractRunnable {
+        @Override
+        public void onFailure(Exception e) {
+            throw new AssertionError(e);
+        }
+
+        @Override
+        protected void doRun() {
+        }
+    }
+}
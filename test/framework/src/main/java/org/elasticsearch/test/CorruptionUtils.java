@@ -22,12 +22,12 @@ import com.carrotsearch.randomizedtesting.generators.RandomPicks;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 import org.apache.lucene.codecs.CodecUtil;
-import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.store.ChecksumIndexInput;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
+import org.elasticsearch.index.store.Store;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -57,7 +57,7 @@ public final class CorruptionUtils {
                     boolean segmentFile = name.startsWith("segments_") || name.endsWith(".si");
                         return Files.isRegularFile(p)
                             && name.startsWith("extra") == false // Skip files added by Lucene's ExtrasFS
-                            && IndexWriter.WRITE_LOCK_NAME.equals(name) == false
+                            && Store.isAutogenerated(name) == false
                             && (corruptSegments ? segmentFile : segmentFile == false);
                     }
                 )
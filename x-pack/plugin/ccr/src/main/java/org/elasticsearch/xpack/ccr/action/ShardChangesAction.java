@@ -22,7 +22,10 @@ import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.routing.ShardsIterator;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.settings.Settings;
@@ -44,8 +47,10 @@ import org.elasticsearch.transport.TransportService;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -79,6 +84,7 @@ public class ShardChangesAction extends Action<ShardChangesAction.Request, Shard
         private String expectedHistoryUUID;
         private TimeValue pollTimeout = TransportResumeFollowAction.DEFAULT_READ_POLL_TIMEOUT;
         private ByteSizeValue maxBatchSize = TransportResumeFollowAction.DEFAULT_MAX_READ_REQUEST_SIZE;
+        private boolean compactOperations;
 
         private long relativeStartNanos;
 
@@ -131,6 +137,17 @@ public class ShardChangesAction extends Action<ShardChangesAction.Request, Shard
             this.pollTimeout = Objects.requireNonNull(pollTimeout, "pollTimeout");
         }
 
+        /**
+         * Whether the leader should collapse superseded operations and compress the operations it returns.
+         */
+        public boolean isCompactOperations() {
+            return compactOperations;
+        }
+
+        public void setCompactOperations(final boolean compactOperations) {
+            this.compactOperations = compactOperations;
+        }
+
         @Override
         public ActionRequestValidationException validate() {
             ActionRequestValidationException validationException = null;
@@ -157,6 +174,7 @@ public class ShardChangesAction extends Action<ShardChangesAction.Request, Shard
             expectedHistoryUUID = in.readString();
             pollTimeout = in.readTimeValue();
             maxBatchSize = new ByteSizeValue(in);
+            compactOperations = in.readBoolean();
 
             // Starting the clock in order to know how much time is spent on fetching operations:
             relativeStartNanos = System.nanoTime();
@@ -171,6 +189,7 @@ public class ShardChangesAction extends Action<ShardChangesAction.Request, Shard
             out.writeString(expectedHistoryUUID);
             out.writeTimeValue(pollTimeout);
             maxBatchSize.writeTo(out);
+            out.writeBoolean(compactOperations);
         }
 
 
@@ -184,12 +203,13 @@ public class ShardChangesAction extends Action<ShardChangesAction.Request, Shard
                     Objects.equals(shardId, request.shardId) &&
                     Objects.equals(expectedHistoryUUID, request.expectedHistoryUUID) &&
                     Objects.equals(pollTimeout, request.pollTimeout) &&
-                    maxBatchSize.equals(request.maxBatchSize);
+                    maxBatchSize.equals(request.maxBatchSize) &&
+                    compactOperations == request.compactOperations;
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(fromSeqNo, maxOperationCount, shardId, expectedHistoryUUID, pollTimeout, maxBatchSize);
+            return Objects.hash(fromSeqNo, maxOperationCount, shardId, expectedHistoryUUID, pollTimeout, maxBatchSize, compactOperations);
         }
 
         @Override
@@ -201,6 +221,7 @@ public class ShardChangesAction extends Action<ShardChangesAction.Request, Shard
                     ", expectedHistoryUUID=" + expectedHistoryUUID +
                     ", pollTimeout=" + pollTimeout +
                     ", maxBatchSize=" + maxBatchSize.getStringRep() +
+                    ", compactOperations=" + compactOperations +
                     '}';
         }
 
@@ -250,6 +271,15 @@ public class ShardChangesAction extends Action<ShardChangesAction.Request, Shard
             return tookInMillis;
         }
 
+        private boolean compactOperations;
+
+        /**
+         * Whether the operations are sent as a single compressed block.
+         */
+        public boolean isCompactOperations() {
+            return compactOperations;
+        }
+
         Response() {
         }
 
@@ -261,6 +291,18 @@ public class ShardChangesAction extends Action<ShardChangesAction.Request, Shard
             final long maxSeqNoOfUpdatesOrDeletes,
             final Translog.Operation[] operations,
             final long tookInMillis) {
+            this(mappingVersion, settingsVersion, globalCheckpoint, maxSeqNo, maxSeqNoOfUpdatesOrDeletes, operations, tookInMillis, false);
+        }
+
+        Response(
+            final long mappingVersion,
+            final long settingsVersion,
+            final long globalCheckpoint,
+            final long maxSeqNo,
+            final long maxSeqNoOfUpdatesOrDeletes,
+            final Translog.Operation[] operations,
+            final long tookInMillis,
+            final boolean compactOperations) {
 
             this.mappingVersion = mappingVersion;
             this.settingsVersion = settingsVersion;
@@ -269,6 +311,7 @@ public class ShardChangesAction extends Action<ShardChangesAction.Request, Shard
             this.maxSeqNoOfUpdatesOrDeletes = maxSeqNoOfUpdatesOrDeletes;
             this.operations = operations;
             this.tookInMillis = tookInMillis;
+            this.compactOperations = compactOperations;
         }
 
         @Override
@@ -279,7 +322,16 @@ public class ShardChangesAction extends Action<ShardChangesAction.Request, Shard
             globalCheckpoint = in.readZLong();
             maxSeqNo = in.readZLong();
             maxSeqNoOfUpdatesOrDeletes = in.readZLong();
-            operations = in.readArray(Translog.Operation::readOperation, Translog.Operation[]::new);
+            compactOperations = in.readBoolean();
+            if (compactOperations) {
+                final BytesReference bytes = in.readBytesReference();
+                try (StreamInput compressed = CompressorFactory.COMPRESSOR.streamInput(bytes.streamInput())) {
+                    compressed.setVersion(in.getVersion());
+                    operations = compressed.readArray(Translog.Operation::readOperation, Translog.Operation[]::new);
+                }
+            } else {
+                operations = in.readArray(Translog.Operation::readOperation, Translog.Operation[]::new);
+            }
             tookInMillis = in.readVLong();
         }
 
@@ -291,7 +343,19 @@ public class ShardChangesAction extends Action<ShardChangesAction.Request, Shard
             out.writeZLong(globalCheckpoint);
             out.writeZLong(maxSeqNo);
             out.writeZLong(maxSeqNoOfUpdatesOrDeletes);
-            out.writeArray(Translog.Operation::writeOperation, operations);
+            out.writeBoolean(compactOperations);
+            if (compactOperations) {
+                // a single deflate stream over the whole batch, so that operations back-reference the field names and values of the
+                // operations before them
+                final BytesStreamOutput bytes = new BytesStreamOutput();
+                try (StreamOutput compressed = CompressorFactory.COMPRESSOR.streamOutput(bytes)) {
+                    compressed.setVersion(out.getVersion());
+                    compressed.writeArray(Translog.Operation::writeOperation, operations);
+                }
+                out.writeBytesReference(bytes.bytes());
+            } else {
+                out.writeArray(Translog.Operation::writeOperation, operations);
+            }
             out.writeVLong(tookInMillis);
         }
 
@@ -306,7 +370,8 @@ public class ShardChangesAction extends Action<ShardChangesAction.Request, Shard
                     maxSeqNo == that.maxSeqNo &&
                     maxSeqNoOfUpdatesOrDeletes == that.maxSeqNoOfUpdatesOrDeletes &&
                     Arrays.equals(operations, that.operations) &&
-                    tookInMillis == that.tookInMillis;
+                    tookInMillis == that.tookInMillis &&
+                    compactOperations == that.compactOperations;
         }
 
         @Override
@@ -318,7 +383,8 @@ public class ShardChangesAction extends Action<ShardChangesAction.Request, Shard
                     maxSeqNo,
                     maxSeqNoOfUpdatesOrDeletes,
                     Arrays.hashCode(operations),
-                    tookInMillis);
+                    tookInMillis,
+                    compactOperations);
         }
     }
 
@@ -355,13 +421,16 @@ public class ShardChangesAction extends Action<ShardChangesAction.Request, Shard
             final long mappingVersion = indexMetaData.getMappingVersion();
             final long settingsVersion = indexMetaData.getSettingsVersion();
 
-            final Translog.Operation[] operations = getOperations(
+            Translog.Operation[] operations = getOperations(
                     indexShard,
                     seqNoStats.getGlobalCheckpoint(),
                     request.getFromSeqNo(),
                     request.getMaxOperationCount(),
                     request.getExpectedHistoryUUID(),
                     request.getMaxBatchSize());
+            if (request.isCompactOperations()) {
+                operations = collapseSupersededOperations(operations);
+            }
             // must capture after after snapshotting operations to ensure this MUS is at least the highest MUS of any of these operations.
             final long maxSeqNoOfUpdatesOrDeletes = indexShard.getMaxSeqNoOfUpdatesOrDeletes();
             return getResponse(
@@ -370,7 +439,8 @@ public class ShardChangesAction extends Action<ShardChangesAction.Request, Shard
                     seqNoStats,
                     maxSeqNoOfUpdatesOrDeletes,
                     operations,
-                    request.relativeStartNanos);
+                    request.relativeStartNanos,
+                    request.isCompactOperations());
         }
 
         @Override
@@ -458,7 +528,8 @@ public class ShardChangesAction extends Action<ShardChangesAction.Request, Shard
                                     latestSeqNoStats,
                                     maxSeqNoOfUpdatesOrDeletes,
                                     EMPTY_OPERATIONS_ARRAY,
-                                    request.relativeStartNanos));
+                                    request.relativeStartNanos,
+                                    request.isCompactOperations()));
                 } catch (final Exception caught) {
                     caught.addSuppressed(e);
                     listener.onFailure(caught);
@@ -543,13 +614,49 @@ public class ShardChangesAction extends Action<ShardChangesAction.Request, Shard
         return operations.toArray(EMPTY_OPERATIONS_ARRAY);
     }
 
+    static final String SUPERSEDED_OPERATION_REASON = "superseded";
+
+    /**
+     * Replaces the index operations that are superseded by a later index or delete operation on the same document in the same batch with
+     * no-ops. The follower needs every sequence number to advance its local checkpoint, but not the source of a document that the same
+     * batch overwrites or deletes again; the following engine resolves the document from the latest operation alone.
+     *
+     * @param operations the operations, ordered by sequence number
+     * @return the operations with superseded index operations replaced by no-ops
+     */
+    static Translog.Operation[] collapseSupersededOperations(final Translog.Operation[] operations) {
+        final Translog.Operation[] collapsed = new Translog.Operation[operations.length];
+        final Set<String> laterIds = new HashSet<>();
+        for (int i = operations.length - 1; i >= 0; i--) {
+            final Translog.Operation operation = operations[i];
+            switch (operation.opType()) {
+                case INDEX:
+                    if (laterIds.add(((Translog.Index) operation).id())) {
+                        collapsed[i] = operation;
+                    } else {
+                        collapsed[i] = new Translog.NoOp(operation.seqNo(), operation.primaryTerm(), SUPERSEDED_OPERATION_REASON);
+                    }
+                    break;
+                case DELETE:
+                    laterIds.add(((Translog.Delete) operation).id());
+                    collapsed[i] = operation;
+                    break;
+                default:
+                    collapsed[i] = operation;
+                    break;
+            }
+        }
+        return collapsed;
+    }
+
     static Response getResponse(
             final long mappingVersion,
             final long settingsVersion,
             final SeqNoStats seqNoStats,
             final long maxSeqNoOfUpdates,
             final Translog.Operation[] operations,
-            long relativeStartNanos) {
+            final long relativeStartNanos,
+            final boolean compactOperations) {
         long tookInNanos = System.nanoTime() - relativeStartNanos;
         long tookInMillis = TimeUnit.NANOSECONDS.toMillis(tookInNanos);
         return new Response(
@@ -559,7 +666,8 @@ public class ShardChangesAction extends Action<ShardChangesAction.Request, Shard
                 seqNoStats.getMaxSeqNo(),
                 maxSeqNoOfUpdates,
                 operations,
-                tookInMillis);
+                tookInMillis,
+                compactOperations);
     }
 
 }
@@ -72,6 +72,10 @@ public abstract class ShardFollowNodeTask extends AllocatedPersistentTask {
     private long followerGlobalCheckpoint = 0;
     private long followerMaxSeqNo = 0;
     private int numOutstandingReads = 0;
+    // the number of operations of the ranges that are read concurrently, adapted to the size of the operations that are read
+    private int readRequestOperationCount;
+    // the ranges up to this seq no were requested before the operation count was last shrunk, so they cannot grow it again
+    private long lastRequestedSeqNoAtShrink = SequenceNumbers.NO_OPS_PERFORMED;
     private int numOutstandingWrites = 0;
     private long currentMappingVersion = 0;
     private long currentSettingsVersion = 0;
@@ -98,6 +102,7 @@ public abstract class ShardFollowNodeTask extends AllocatedPersistentTask {
         this.params = params;
         this.scheduler = scheduler;
         this.relativeTimeProvider = relativeTimeProvider;
+        this.readRequestOperationCount = params.getMaxReadRequestOperationCount();
         /*
          * We keep track of the most recent fetch exceptions, with the number of exceptions that we track equal to the maximum number of
          * concurrent fetches. For each failed fetch, we track the from sequence number associated with the request, and we clear the entry
@@ -159,7 +164,7 @@ public abstract class ShardFollowNodeTask extends AllocatedPersistentTask {
 
         LOGGER.trace("{} coordinate reads, lastRequestedSeqNo={}, leaderGlobalCheckpoint={}",
             params.getFollowShardId(), lastRequestedSeqNo, leaderGlobalCheckpoint);
-        final int maxReadRequestOperationCount = params.getMaxReadRequestOperationCount();
+        final int maxReadRequestOperationCount = readRequestOperationCount;
         while (hasReadBudget() && lastRequestedSeqNo < leaderGlobalCheckpoint) {
             final long from = lastRequestedSeqNo + 1;
             final long maxRequiredSeqNo = Math.min(leaderGlobalCheckpoint, from + maxReadRequestOperationCount - 1);
@@ -170,7 +175,8 @@ public abstract class ShardFollowNodeTask extends AllocatedPersistentTask {
             } else {
                 requestOpCount = Math.toIntExact(maxRequiredSeqNo - from + 1);
             }
-            assert 0 < requestOpCount && requestOpCount <= maxReadRequestOperationCount : "read_request_operation_count=" + requestOpCount;
+            assert 0 < requestOpCount && requestOpCount <= params.getMaxReadRequestOperationCount() :
+                "read_request_operation_count=" + requestOpCount;
             LOGGER.trace("{}[{} ongoing reads] read from_seqno={} max_required_seqno={} batch_count={}",
                 params.getFollowShardId(), numOutstandingReads, from, maxRequiredSeqNo, requestOpCount);
             numOutstandingReads++;
@@ -317,6 +323,8 @@ public abstract class ShardFollowNodeTask extends AllocatedPersistentTask {
             assert maxSeqNo ==
                 Arrays.stream(response.getOperations()).mapToLong(Translog.Operation::seqNo).max().getAsLong();
             newFromSeqNo = maxSeqNo + 1;
+            adaptReadRequestOperationCount(from, operations.size(), operationsSize, maxSeqNo < Math.min(maxRequiredSeqNo,
+                response.getGlobalCheckpoint()));
             // update last requested seq no as we may have gotten more than we asked for and we don't want to ask it again.
             lastRequestedSeqNo = Math.max(lastRequestedSeqNo, maxSeqNo);
             assert lastRequestedSeqNo <= leaderGlobalCheckpoint :  "lastRequestedSeqNo [" + lastRequestedSeqNo +
@@ -335,6 +343,26 @@ public abstract class ShardFollowNodeTask extends AllocatedPersistentTask {
         }
     }
 
+    /**
+     * Adapts the number of operations of the ranges that are read concurrently to the size of the operations that were read. A read
+     * that is cut short by the maximum read request size is continued by a sequential read of the remaining operations, so ranges are
+     * shrunk to what fits in a read. They grow back while reads return all their operations in less than half the maximum size.
+     * Only reads of ranges that were requested after the last shrink can grow the ranges, so that the reads that were already
+     * outstanding with the previous operation count don't undo the shrink when they complete in between truncated reads.
+     */
+    private void adaptReadRequestOperationCount(long from, int operationCount, long operationsSizeInBytes, boolean truncated) {
+        assert Thread.holdsLock(this);
+        final int maxReadRequestOperationCount = params.getMaxReadRequestOperationCount();
+        if (truncated) {
+            readRequestOperationCount = Math.max(1, Math.min(readRequestOperationCount, operationCount));
+            lastRequestedSeqNoAtShrink = lastRequestedSeqNo;
+        } else if (from > lastRequestedSeqNoAtShrink && operationCount >= readRequestOperationCount
+            && readRequestOperationCount < maxReadRequestOperationCount
+            && operationsSizeInBytes <= params.getMaxReadRequestSize().getBytes() / 2) {
+            readRequestOperationCount = (int) Math.min(maxReadRequestOperationCount, 2L * readRequestOperationCount);
+        }
+    }
+
     private void sendBulkShardOperationsRequest(List<Translog.Operation> operations, long leaderMaxSeqNoOfUpdatesOrDeletes,
                                                 AtomicInteger retryCounter) {
         assert leaderMaxSeqNoOfUpdatesOrDeletes != SequenceNumbers.UNASSIGNED_SEQ_NO : "mus is not replicated";
@@ -511,6 +539,7 @@ public abstract class ShardFollowNodeTask extends AllocatedPersistentTask {
                 lastRequestedSeqNo,
                 numOutstandingReads,
                 numOutstandingWrites,
+                readRequestOperationCount,
                 buffer.size(),
                 bufferSizeInBytes,
                 currentMappingVersion,
@@ -54,13 +54,15 @@ public class ShardFollowTask implements XPackPlugin.XPackPersistentTaskParams {
     public static final ParseField MAX_WRITE_BUFFER_SIZE = new ParseField("max_write_buffer_size");
     public static final ParseField MAX_RETRY_DELAY = new ParseField("max_retry_delay");
     public static final ParseField READ_POLL_TIMEOUT = new ParseField("read_poll_timeout");
+    public static final ParseField COMPACT_READ_RESPONSES = new ParseField("compact_read_responses");
 
     @SuppressWarnings("unchecked")
     private static ConstructingObjectParser<ShardFollowTask, Void> PARSER = new ConstructingObjectParser<>(NAME,
             (a) -> new ShardFollowTask((String) a[0],
                 new ShardId((String) a[1], (String) a[2], (int) a[3]), new ShardId((String) a[4], (String) a[5], (int) a[6]),
                 (int) a[7], (ByteSizeValue) a[8], (int) a[9], (int) a[10], (ByteSizeValue) a[11], (int) a[12],
-                (int) a[13], (ByteSizeValue) a[14], (TimeValue) a[15], (TimeValue) a[16], (Map<String, String>) a[17]));
+                (int) a[13], (ByteSizeValue) a[14], (TimeValue) a[15], (TimeValue) a[16], a[17] != null && (boolean) a[17],
+                (Map<String, String>) a[18]));
 
     static {
         PARSER.declareString(ConstructingObjectParser.optionalConstructorArg(), REMOTE_CLUSTER_FIELD);
@@ -96,6 +98,7 @@ public class ShardFollowTask implements XPackPlugin.XPackPersistentTaskParams {
         PARSER.declareField(ConstructingObjectParser.constructorArg(),
             (p, c) -> TimeValue.parseTimeValue(p.text(), READ_POLL_TIMEOUT.getPreferredName()),
             READ_POLL_TIMEOUT, ObjectParser.ValueType.STRING);
+        PARSER.declareBoolean(ConstructingObjectParser.optionalConstructorArg(), COMPACT_READ_RESPONSES);
         PARSER.declareObject(ConstructingObjectParser.constructorArg(), (p, c) -> p.mapStrings(), HEADERS);
     }
 
@@ -112,6 +115,7 @@ public class ShardFollowTask implements XPackPlugin.XPackPersistentTaskParams {
     private final ByteSizeValue maxWriteBufferSize;
     private final TimeValue maxRetryDelay;
     private final TimeValue readPollTimeout;
+    private final boolean compactReadResponses;
     private final Map<String, String> headers;
 
     ShardFollowTask(
@@ -128,6 +132,7 @@ public class ShardFollowTask implements XPackPlugin.XPackPersistentTaskParams {
             final ByteSizeValue maxWriteBufferSize,
             final TimeValue maxRetryDelay,
             final TimeValue readPollTimeout,
+            final boolean compactReadResponses,
             final Map<String, String> headers) {
         this.remoteCluster = remoteCluster;
         this.followShardId = followShardId;
@@ -142,6 +147,7 @@ public class ShardFollowTask implements XPackPlugin.XPackPersistentTaskParams {
         this.maxWriteBufferSize = maxWriteBufferSize;
         this.maxRetryDelay = maxRetryDelay;
         this.readPollTimeout = readPollTimeout;
+        this.compactReadResponses = compactReadResponses;
         this.headers = headers != null ? Collections.unmodifiableMap(headers) : Collections.emptyMap();
     }
 
@@ -159,6 +165,7 @@ public class ShardFollowTask implements XPackPlugin.XPackPersistentTaskParams {
         this.maxWriteBufferSize = new ByteSizeValue(in);
         this.maxRetryDelay = in.readTimeValue();
         this.readPollTimeout = in.readTimeValue();
+        this.compactReadResponses = in.readBoolean();
         this.headers = Collections.unmodifiableMap(in.readMap(StreamInput::readString, StreamInput::readString));
     }
 
@@ -214,6 +221,13 @@ public class ShardFollowTask implements XPackPlugin.XPackPersistentTaskParams {
         return readPollTimeout;
     }
 
+    /**
+     * Whether the leader is asked to collapse superseded operations and to compress the operations it returns
+     */
+    public boolean isCompactReadResponses() {
+        return compactReadResponses;
+    }
+
     public String getTaskId() {
         return followShardId.getIndex().getUUID() + "-" + followShardId.getId();
     }
@@ -242,6 +256,7 @@ public class ShardFollowTask implements XPackPlugin.XPackPersistentTaskParams {
         maxWriteBufferSize.writeTo(out);
         out.writeTimeValue(maxRetryDelay);
         out.writeTimeValue(readPollTimeout);
+        out.writeBoolean(compactReadResponses);
         out.writeMap(headers, StreamOutput::writeString, StreamOutput::writeString);
     }
 
@@ -269,6 +284,7 @@ public class ShardFollowTask implements XPackPlugin.XPackPersistentTaskParams {
         builder.field(MAX_WRITE_BUFFER_SIZE.getPreferredName(), maxWriteBufferSize.getStringRep());
         builder.field(MAX_RETRY_DELAY.getPreferredName(), maxRetryDelay.getStringRep());
         builder.field(READ_POLL_TIMEOUT.getPreferredName(), readPollTimeout.getStringRep());
+        builder.field(COMPACT_READ_RESPONSES.getPreferredName(), compactReadResponses);
         builder.field(HEADERS.getPreferredName(), headers);
         return builder.endObject();
     }
@@ -291,6 +307,7 @@ public class ShardFollowTask implements XPackPlugin.XPackPersistentTaskParams {
                 maxWriteBufferSize.equals(that.maxWriteBufferSize) &&
                 Objects.equals(maxRetryDelay, that.maxRetryDelay) &&
                 Objects.equals(readPollTimeout, that.readPollTimeout) &&
+                compactReadResponses == that.compactReadResponses &&
                 Objects.equals(headers, that.headers);
     }
 
@@ -310,6 +327,7 @@ public class ShardFollowTask implements XPackPlugin.XPackPersistentTaskParams {
                 maxWriteBufferSize,
                 maxRetryDelay,
                 readPollTimeout,
+                compactReadResponses,
                 headers
         );
     }
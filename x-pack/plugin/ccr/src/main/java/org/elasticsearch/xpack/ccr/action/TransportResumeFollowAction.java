@@ -311,6 +311,7 @@ public class TransportResumeFollowAction extends TransportMasterNodeAction<Resum
 
         TimeValue maxRetryDelay = request.getMaxRetryDelay() == null ? DEFAULT_MAX_RETRY_DELAY : request.getMaxRetryDelay();
         TimeValue readPollTimeout = request.getReadPollTimeout() == null ? DEFAULT_READ_POLL_TIMEOUT : request.getReadPollTimeout();
+        boolean compactReadResponses = request.getCompactReadResponses() != null && request.getCompactReadResponses();
 
         return new ShardFollowTask(
             clusterAliasName,
@@ -326,6 +327,7 @@ public class TransportResumeFollowAction extends TransportMasterNodeAction<Resum
             maxWriteBufferSize,
             maxRetryDelay,
             readPollTimeout,
+            compactReadResponses,
             filteredHeaders
         );
     }
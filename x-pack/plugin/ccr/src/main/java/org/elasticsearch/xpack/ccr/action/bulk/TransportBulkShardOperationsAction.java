@@ -134,12 +134,14 @@ public class TransportBulkShardOperationsAction
                 if (result.getFailure() instanceof AlreadyProcessedFollowingEngineException) {
                     // The existing operations below the global checkpoint won't be replicated as they were processed
                     // in every replicas already. However, the existing operations above the global checkpoint will be
-                    // replicated to replicas but with the existing primary term (not the current primary term) in order
-                    // to guarantee the consistency between the primary and replicas, and between translog and Lucene index.
+                    // replicated to replicas as the primary has them, with the existing primary term (not the current primary
+                    // term) in order to guarantee the consistency between the primary and replicas, and between translog and
+                    // Lucene index. The incoming operation is not replicated: a leader that collapses superseded operations may
+                    // return the same sequence number as an index operation in one read and as a no-op in another.
                     final AlreadyProcessedFollowingEngineException failure = (AlreadyProcessedFollowingEngineException) result.getFailure();
                     assert failure.getSeqNo() == targetOp.seqNo() : targetOp.seqNo() + " != " + failure.getSeqNo();
                     if (failure.getExistingPrimaryTerm().isPresent()) {
-                        appliedOperations.add(rewriteOperationWithPrimaryTerm(sourceOp, failure.getExistingPrimaryTerm().getAsLong()));
+                        appliedOperations.add(existingOperation(primary, targetOp.seqNo(), failure.getExistingPrimaryTerm().getAsLong()));
                     } else if (targetOp.seqNo() > primary.getGlobalCheckpoint()) {
                         assert false : "can't find primary_term for existing op=" + targetOp + " gcp=" + primary.getGlobalCheckpoint();
                         throw new IllegalStateException("can't find primary_term for existing op=" + targetOp +
@@ -156,6 +158,20 @@ public class TransportBulkShardOperationsAction
         return new CcrWritePrimaryResult(replicaRequest, location, primary, logger);
     }
 
+    /**
+     * Reads the operation with the given sequence number, which is above the global checkpoint, from the history of the primary.
+     */
+    private static Translog.Operation existingOperation(final IndexShard primary, final long seqNo, final long existingPrimaryTerm)
+            throws IOException {
+        try (Translog.Snapshot snapshot = primary.newChangesSnapshot("ccr", seqNo, seqNo, true)) {
+            final Translog.Operation existingOp = snapshot.next();
+            assert existingOp != null && existingOp.seqNo() == seqNo : "can't find existing op for seq_no=" + seqNo;
+            assert existingOp.primaryTerm() == existingPrimaryTerm :
+                "existing op=" + existingOp + " doesn't have the existing primary_term=" + existingPrimaryTerm;
+            return existingOp;
+        }
+    }
+
     @Override
     protected WriteReplicaResult<BulkShardOperationsRequest> shardOperationOnReplica(
             final BulkShardOperationsRequest request, final IndexShard replica) throws Exception {
@@ -75,6 +75,9 @@ public class ResumeFollowActionRequestTests extends AbstractSerializingTestCase<
         if (randomBoolean()) {
             request.setReadPollTimeout(TimeValue.timeValueMillis(500));
         }
+        if (randomBoolean()) {
+            request.setCompactReadResponses(randomBoolean());
+        }
         return request;
     }
 
@@ -6,6 +6,7 @@
 package org.elasticsearch.xpack.ccr.action;
 
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.routing.TestShardRouting;
@@ -25,8 +26,10 @@ import org.elasticsearch.test.ESSingleNodeTestCase;
 import org.mockito.Mockito;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
@@ -173,6 +176,91 @@ public class ShardChangesActionTests extends ESSingleNodeTestCase {
         assertThat(operations[0].seqNo(), equalTo(0L));
     }
 
+    public void testCollapseSupersededOperations() throws Exception {
+        final Settings settings = Settings.builder()
+            .put("index.number_of_shards", 1)
+            .put("index.number_of_replicas", 0)
+            .build();
+        final IndexService indexService = createIndex("index", settings);
+
+        client().prepareIndex("index", "doc", "0").setSource("{\"f\":0}", XContentType.JSON).get();
+        client().prepareIndex("index", "doc", "1").setSource("{\"f\":1}", XContentType.JSON).get();
+        client().prepareIndex("index", "doc", "0").setSource("{\"f\":2}", XContentType.JSON).get();
+        client().prepareDelete("index", "doc", "1").get();
+        client().prepareIndex("index", "doc", "2").setSource("{\"f\":4}", XContentType.JSON).get();
+
+        final IndexShard indexShard = indexService.getShard(0);
+        final Translog.Operation[] operations = ShardChangesAction.collapseSupersededOperations(ShardChangesAction.getOperations(
+            indexShard, indexShard.getGlobalCheckpoint(), 0, 5, indexShard.getHistoryUUID(), new ByteSizeValue(1, ByteSizeUnit.MB)));
+        assertThat(operations.length, equalTo(5));
+        for (int i = 0; i < operations.length; i++) {
+            assertThat(operations[i].seqNo(), equalTo((long) i));
+        }
+        assertThat(operations[0], instanceOf(Translog.NoOp.class));
+        assertThat(((Translog.NoOp) operations[0]).reason(), equalTo(ShardChangesAction.SUPERSEDED_OPERATION_REASON));
+        assertThat(operations[1], instanceOf(Translog.NoOp.class));
+        assertThat(((Translog.Index) operations[2]).id(), equalTo("0"));
+        assertThat(((Translog.Delete) operations[3]).id(), equalTo("1"));
+        assertThat(((Translog.Index) operations[4]).id(), equalTo("2"));
+    }
+
+    public void testReadSameRangeWithAndWithoutCompaction() throws Exception {
+        final Settings settings = Settings.builder()
+            .put("index.number_of_shards", 1)
+            .put("index.number_of_replicas", 0)
+            .build();
+        final IndexService indexService = createIndex("index", settings);
+
+        final int numWrites = randomIntBetween(10, 256);
+        final int numIds = randomIntBetween(1, 16);
+        for (int i = 0; i < numWrites; i++) {
+            final String id = Integer.toString(randomInt(numIds - 1));
+            if (rarely()) {
+                client().prepareDelete("index", "doc", id).get();
+            } else {
+                client().prepareIndex("index", "doc", id).setSource("{\"f\":" + i + "}", XContentType.JSON).get();
+            }
+        }
+        final IndexShard indexShard = indexService.getShard(0);
+        assertBusy(() -> assertThat(indexShard.getGlobalCheckpoint(), equalTo((long) numWrites - 1)));
+
+        final long fromSeqNo = randomIntBetween(0, numWrites - 1);
+        final Translog.Operation[] operations = readChanges(indexShard, fromSeqNo, false);
+        final Translog.Operation[] compactOperations = readChanges(indexShard, fromSeqNo, true);
+        assertThat(operations.length, equalTo(numWrites - (int) fromSeqNo));
+        assertThat(compactOperations.length, equalTo(operations.length));
+
+        // both reads cover the same sequence numbers and leave every document in the same state
+        final Map<String, Translog.Operation> lastOperations = new HashMap<>();
+        final Map<String, Translog.Operation> lastCompactOperations = new HashMap<>();
+        for (int i = 0; i < operations.length; i++) {
+            assertThat(compactOperations[i].seqNo(), equalTo(operations[i].seqNo()));
+            assertThat(compactOperations[i].primaryTerm(), equalTo(operations[i].primaryTerm()));
+            if (compactOperations[i] instanceof Translog.NoOp) {
+                assertThat(operations[i], instanceOf(Translog.Index.class));
+            } else {
+                assertThat(compactOperations[i], equalTo(operations[i]));
+                lastCompactOperations.put(documentId(compactOperations[i]), compactOperations[i]);
+            }
+            lastOperations.put(documentId(operations[i]), operations[i]);
+        }
+        assertThat(lastCompactOperations, equalTo(lastOperations));
+    }
+
+    private Translog.Operation[] readChanges(IndexShard indexShard, long fromSeqNo, boolean compactOperations) {
+        final ShardChangesAction.Request request = new ShardChangesAction.Request(indexShard.shardId(), indexShard.getHistoryUUID());
+        request.setFromSeqNo(fromSeqNo);
+        request.setMaxOperationCount(Integer.MAX_VALUE);
+        request.setCompactOperations(compactOperations);
+        final PlainActionFuture<ShardChangesAction.Response> future = new PlainActionFuture<>();
+        node().injector().getInstance(ShardChangesAction.TransportAction.class).execute(request, future);
+        return future.actionGet().getOperations();
+    }
+
+    private static String documentId(Translog.Operation operation) {
+        return operation instanceof Translog.Index ? ((Translog.Index) operation).id() : ((Translog.Delete) operation).id();
+    }
+
     public void testIndexNotFound() throws InterruptedException {
         final CountDownLatch latch = new CountDownLatch(1);
         final AtomicReference<Exception> reference = new AtomicReference<>();
@@ -29,7 +29,8 @@ public class ShardChangesResponseTests extends AbstractStreamableTestCase<ShardC
             leaderMaxSeqNo,
             maxSeqNoOfUpdatesOrDeletes,
             operations,
-            randomNonNegativeLong()
+            randomNonNegativeLong(),
+            randomBoolean()
         );
     }
 
@@ -91,6 +91,7 @@ public class ShardFollowNodeTaskRandomTests extends ESTestCase {
             new ByteSizeValue(512, ByteSizeUnit.MB),
             TimeValue.timeValueMillis(10),
             TimeValue.timeValueMillis(10),
+            false,
             Collections.emptyMap()
         );
 
@@ -485,6 +485,91 @@ public class ShardFollowNodeTaskTests extends ESTestCase {
         assertThat(status.leaderGlobalCheckpoint(), equalTo(63L));
     }
 
+    public void testReadRequestOperationCountAdaptsToOperationsRead() {
+        ShardFollowTaskParams params = new ShardFollowTaskParams();
+        params.maxReadRequestOperationCount = 64;
+        params.maxOutstandingReadRequests = 8;
+        params.maxOutstandingWriteRequests = 1;
+        ShardFollowNodeTask task = createShardFollowTask(params);
+        startTask(task, 63, -1);
+
+        task.coordinateReads();
+        assertThat(shardChangesRequests, contains(new long[]{0L, 64L}));
+        assertThat(task.getStatus().readRequestOperationCount(), equalTo(64));
+
+        // the leader had more operations than it returned, so the read was cut short by its size:
+        shardChangesRequests.clear();
+        task.innerHandleReadResponse(0L, 63L, generateShardChangesResponse(0, 20, 0L, 0L, 63L));
+        assertThat(shardChangesRequests, contains(new long[]{21L, 43L}));
+        assertThat(task.getStatus().readRequestOperationCount(), equalTo(21));
+
+        shardChangesRequests.clear();
+        task.innerHandleReadResponse(21L, 63L, generateShardChangesResponse(21, 41, 0L, 0L, 200L));
+        assertThat(shardChangesRequests, contains(new long[]{42L, 22L}));
+        assertThat(task.getStatus().readRequestOperationCount(), equalTo(21));
+
+        // the range was requested before the shrink, so returning all its operations doesn't grow the next reads:
+        shardChangesRequests.clear();
+        task.innerHandleReadResponse(42L, 63L, generateShardChangesResponse(42, 63, 0L, 0L, 200L));
+        assertThat(shardChangesRequests, contains(new long[][]{{64L, 21L}, {85L, 21L}, {106L, 21L}, {127L, 21L}, {148L, 21L},
+            {169L, 21L}, {190L, 11L}}));
+        assertThat(task.getStatus().readRequestOperationCount(), equalTo(21));
+
+        // all operations of a range requested after the shrink were returned and they were small, so the next reads are larger again:
+        shardChangesRequests.clear();
+        task.innerHandleReadResponse(64L, 84L, generateShardChangesResponse(64, 84, 0L, 0L, 300L));
+        assertThat(shardChangesRequests, contains(new long[][]{{201L, 42L}, {243L, 42L}}));
+
+        ShardFollowNodeTaskStatus status = task.getStatus();
+        assertThat(status.readRequestOperationCount(), equalTo(42));
+        assertThat(status.outstandingReadRequests(), equalTo(8));
+        assertThat(status.lastRequestedSeqNo(), equalTo(284L));
+    }
+
+    public void testReadRequestOperationCountDoesNotOscillate() {
+        ShardFollowTaskParams params = new ShardFollowTaskParams();
+        params.maxReadRequestOperationCount = 64;
+        params.maxOutstandingReadRequests = 4;
+        params.maxOutstandingWriteRequests = 1;
+        ShardFollowNodeTask task = createShardFollowTask(params);
+        startTask(task, 255, -1);
+
+        task.coordinateReads();
+        assertThat(shardChangesRequests, contains(new long[][]{{0L, 64L}, {64L, 64L}, {128L, 64L}, {192L, 64L}}));
+
+        // truncated and full reads of ranges that were all requested with the initial operation count complete in turns:
+        shardChangesRequests.clear();
+        task.innerHandleReadResponse(0L, 63L, generateShardChangesResponse(0, 15, 0L, 0L, 255L));
+        assertThat(shardChangesRequests, contains(new long[]{16L, 48L}));
+        assertThat(task.getStatus().readRequestOperationCount(), equalTo(16));
+
+        task.innerHandleReadResponse(64L, 127L, generateShardChangesResponse(64, 127, 0L, 0L, 255L));
+        assertThat(task.getStatus().readRequestOperationCount(), equalTo(16));
+
+        shardChangesRequests.clear();
+        task.innerHandleReadResponse(128L, 191L, generateShardChangesResponse(128, 143, 0L, 0L, 255L));
+        assertThat(shardChangesRequests, contains(new long[]{144L, 48L}));
+        assertThat(task.getStatus().readRequestOperationCount(), equalTo(16));
+
+        task.innerHandleReadResponse(192L, 255L, generateShardChangesResponse(192, 255, 0L, 0L, 255L));
+        assertThat(task.getStatus().readRequestOperationCount(), equalTo(16));
+
+        // the remainders of the truncated ranges were requested after the shrink but belong to ranges requested before it:
+        task.innerHandleReadResponse(16L, 63L, generateShardChangesResponse(16, 63, 0L, 0L, 255L));
+        assertThat(task.getStatus().readRequestOperationCount(), equalTo(16));
+
+        shardChangesRequests.clear();
+        task.innerHandleReadResponse(144L, 191L, generateShardChangesResponse(144, 191, 0L, 0L, 511L));
+        assertThat(task.getStatus().readRequestOperationCount(), equalTo(16));
+        assertThat(shardChangesRequests, contains(new long[][]{{256L, 16L}, {272L, 16L}, {288L, 16L}, {304L, 16L}}));
+
+        // only the reads that were sized with the shrunk operation count may grow it again:
+        shardChangesRequests.clear();
+        task.innerHandleReadResponse(256L, 271L, generateShardChangesResponse(256, 271, 0L, 0L, 511L));
+        assertThat(task.getStatus().readRequestOperationCount(), equalTo(32));
+        assertThat(shardChangesRequests, contains(new long[]{320L, 32L}));
+    }
+
     public void testCancelAndReceiveLessThanRequested() {
         ShardFollowTaskParams params = new ShardFollowTaskParams();
         params.maxReadRequestOperationCount = 64;
@@ -919,6 +1004,7 @@ public class ShardFollowNodeTaskTests extends ESTestCase {
         private ByteSizeValue maxWriteBufferSize = new ByteSizeValue(Long.MAX_VALUE, ByteSizeUnit.BYTES);
         private TimeValue maxRetryDelay = TimeValue.ZERO;
         private TimeValue readPollTimeout = TimeValue.ZERO;
+        private boolean compactReadResponses = false;
         private Map<String, String> headers = Collections.emptyMap();
     }
 
@@ -938,6 +1024,7 @@ public class ShardFollowNodeTaskTests extends ESTestCase {
             params.maxWriteBufferSize,
             params.maxRetryDelay,
             params.readPollTimeout,
+            params.compactReadResponses,
             params.headers
         );
 
@@ -14,6 +14,7 @@ import org.elasticsearch.action.DocWriteResponse;
 import org.elasticsearch.action.admin.indices.flush.FlushRequest;
 import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.action.support.replication.TransportWriteAction;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
@@ -24,6 +25,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.engine.Engine;
@@ -297,6 +299,61 @@ public class ShardFollowTaskReplicationTests extends ESIndexLevelReplicationTest
         }
     }
 
+    public void testRetryCollapsedOperationsAfterRestart() throws Exception {
+        try (ReplicationGroup leaderGroup = createGroup(between(0, 1));
+             ReplicationGroup followerGroup = createFollowGroup(between(1, 3))) {
+            leaderGroup.startAll();
+            followerGroup.startAll();
+            // update a few documents many times, so that reads of different ranges collapse different operations
+            for (int numDocs = between(10, 100), i = 0; i < numDocs; i++) {
+                IndexRequest indexRequest = new IndexRequest(index.getName(), "type", Integer.toString(between(0, 9)))
+                    .source("{}", XContentType.JSON);
+                assertThat(leaderGroup.index(indexRequest).getFailure(), nullValue());
+            }
+            leaderGroup.syncGlobalCheckpoint();
+            IndexShard leadingPrimary = leaderGroup.getPrimary();
+            // Simulates compact reads of overlapping ranges that are completed on the primary and replicated to some replicas
+            // of the follower before the primary of the follower crashed.
+            for (int numBulks = between(1, 5), i = 0; i < numBulks; i++) {
+                long fromSeqNo = randomLongBetween(0, leadingPrimary.getGlobalCheckpoint());
+                long toSeqNo = randomLongBetween(fromSeqNo, leadingPrimary.getGlobalCheckpoint());
+                int numOps = Math.toIntExact(toSeqNo + 1 - fromSeqNo);
+                Translog.Operation[] ops = ShardChangesAction.collapseSupersededOperations(ShardChangesAction.getOperations(
+                    leadingPrimary, leadingPrimary.getGlobalCheckpoint(), fromSeqNo, numOps, leadingPrimary.getHistoryUUID(),
+                    new ByteSizeValue(Long.MAX_VALUE, ByteSizeUnit.BYTES)));
+
+                IndexShard followingPrimary = followerGroup.getPrimary();
+                TransportWriteAction.WritePrimaryResult<BulkShardOperationsRequest, BulkShardOperationsResponse> primaryResult =
+                    TransportBulkShardOperationsAction.shardOperationOnPrimary(followingPrimary.shardId(),
+                        followingPrimary.getHistoryUUID(), Arrays.asList(ops), leadingPrimary.getMaxSeqNoOfUpdatesOrDeletes(),
+                        followingPrimary, logger);
+                for (IndexShard replica : randomSubsetOf(followerGroup.getReplicas())) {
+                    final PlainActionFuture<Releasable> permitFuture = new PlainActionFuture<>();
+                    replica.acquireReplicaOperationPermit(followingPrimary.getOperationPrimaryTerm(),
+                        followingPrimary.getGlobalCheckpoint(), followingPrimary.getMaxSeqNoOfUpdatesOrDeletes(),
+                        permitFuture, ThreadPool.Names.SAME, primaryResult);
+                    try (Releasable ignored = permitFuture.get()) {
+                        TransportBulkShardOperationsAction.shardOperationOnReplica(primaryResult.replicaRequest(), replica, logger);
+                    }
+                }
+            }
+            // A compacting follow-task reads the operations again, with other range boundaries, after the restart.
+            followerGroup.promoteReplicaToPrimary(randomFrom(followerGroup.getReplicas()));
+            ShardFollowNodeTask shardFollowTask = createShardFollowTask(leaderGroup, followerGroup, true);
+            SeqNoStats followerSeqNoStats = followerGroup.getPrimary().seqNoStats();
+            shardFollowTask.start(followerGroup.getPrimary().getHistoryUUID(), leadingPrimary.getGlobalCheckpoint(),
+                leadingPrimary.getMaxSeqNoOfUpdatesOrDeletes(), followerSeqNoStats.getGlobalCheckpoint(), followerSeqNoStats.getMaxSeqNo());
+            try {
+                assertBusy(() -> {
+                    assertThat(followerGroup.getPrimary().getGlobalCheckpoint(), equalTo(leadingPrimary.getGlobalCheckpoint()));
+                    assertConsistentHistoryBetweenFollowerCopies(leaderGroup, followerGroup);
+                });
+            } finally {
+                shardFollowTask.markAsCompleted();
+            }
+        }
+    }
+
     public void testAddNewFollowingReplica() throws Exception {
         final byte[] source = "{}".getBytes(StandardCharsets.UTF_8);
         final int numDocs = between(1, 100);
@@ -365,6 +422,11 @@ public class ShardFollowTaskReplicationTests extends ESIndexLevelReplicationTest
     }
 
     private ShardFollowNodeTask createShardFollowTask(ReplicationGroup leaderGroup, ReplicationGroup followerGroup) {
+        return createShardFollowTask(leaderGroup, followerGroup, false);
+    }
+
+    private ShardFollowNodeTask createShardFollowTask(ReplicationGroup leaderGroup, ReplicationGroup followerGroup,
+                                                      boolean compactReadResponses) {
         ShardFollowTask params = new ShardFollowTask(
             null,
             new ShardId("follow_index", "", 0),
@@ -379,6 +441,7 @@ public class ShardFollowTaskReplicationTests extends ESIndexLevelReplicationTest
             new ByteSizeValue(512, ByteSizeUnit.MB),
             TimeValue.timeValueMillis(10),
             TimeValue.timeValueMillis(10),
+            compactReadResponses,
             Collections.emptyMap()
         );
         final String recordedLeaderIndexHistoryUUID = leaderGroup.getPrimary().getHistoryUUID();
@@ -441,11 +504,14 @@ public class ShardFollowTaskReplicationTests extends ESIndexLevelReplicationTest
                             final long maxSeqNoOfUpdatesOrDeletes = indexShard.getMaxSeqNoOfUpdatesOrDeletes();
                             if (from > seqNoStats.getGlobalCheckpoint()) {
                                 handler.accept(ShardChangesAction.getResponse(1L, 1L, seqNoStats,
-                                    maxSeqNoOfUpdatesOrDeletes, ShardChangesAction.EMPTY_OPERATIONS_ARRAY, 1L));
+                                    maxSeqNoOfUpdatesOrDeletes, ShardChangesAction.EMPTY_OPERATIONS_ARRAY, 1L, false));
                                 return;
                             }
                             Translog.Operation[] ops = ShardChangesAction.getOperations(indexShard, seqNoStats.getGlobalCheckpoint(), from,
                                 maxOperationCount, recordedLeaderIndexHistoryUUID, params.getMaxReadRequestSize());
+                            if (params.isCompactReadResponses()) {
+                                ops = ShardChangesAction.collapseSupersededOperations(ops);
+                            }
                             // hard code mapping version; this is ok, as mapping updates are not tested here
                             final ShardChangesAction.Response response = new ShardChangesAction.Response(
                                 1L,
@@ -507,6 +573,35 @@ public class ShardFollowTaskReplicationTests extends ESIndexLevelReplicationTest
         }
     }
 
+    /**
+     * Asserts that the follower has the documents of the leader, and that all copies of the follower have the same history. The history
+     * of the follower can differ from the history of the leader when it follows with compact reads.
+     */
+    private void assertConsistentHistoryBetweenFollowerCopies(ReplicationGroup leader, ReplicationGroup follower) throws Exception {
+        final List<Tuple<String, Long>> docAndSeqNosOnLeader = getDocIdAndSeqNos(leader.getPrimary()).stream()
+            .map(d -> Tuple.tuple(d.getId(), d.getSeqNo())).collect(Collectors.toList());
+        final Set<Tuple<Long, Translog.Operation.Type>> operationsOnPrimary = new HashSet<>();
+        try (Translog.Snapshot snapshot = follower.getPrimary().getHistoryOperations("test", 0)) {
+            Translog.Operation op;
+            while ((op = snapshot.next()) != null) {
+                operationsOnPrimary.add(Tuple.tuple(op.seqNo(), op.opType()));
+            }
+        }
+        for (IndexShard followingShard : follower) {
+            List<Tuple<String, Long>> docAndSeqNosOnFollower = getDocIdAndSeqNos(followingShard).stream()
+                .map(d -> Tuple.tuple(d.getId(), d.getSeqNo())).collect(Collectors.toList());
+            assertThat(docAndSeqNosOnFollower, equalTo(docAndSeqNosOnLeader));
+            final Set<Tuple<Long, Translog.Operation.Type>> operationsOnFollower = new HashSet<>();
+            try (Translog.Snapshot snapshot = followingShard.getHistoryOperations("test", 0)) {
+                Translog.Operation op;
+                while ((op = snapshot.next()) != null) {
+                    operationsOnFollower.add(Tuple.tuple(op.seqNo(), op.opType()));
+                }
+            }
+            assertThat(operationsOnFollower, equalTo(operationsOnPrimary));
+        }
+    }
+
     class CcrAction extends ReplicationAction<BulkShardOperationsRequest, BulkShardOperationsRequest, BulkShardOperationsResponse> {
 
         CcrAction(BulkShardOperationsRequest request, ActionListener<BulkShardOperationsResponse> listener, ReplicationGroup group) {
@@ -39,6 +39,7 @@ public class ShardFollowTaskTests extends AbstractSerializingTestCase<ShardFollo
             new ByteSizeValue(randomNonNegativeLong(), ByteSizeUnit.BYTES),
             TimeValue.parseTimeValue(randomTimeValue(), ""),
             TimeValue.parseTimeValue(randomTimeValue(), ""),
+            randomBoolean(),
             randomBoolean() ? null : Collections.singletonMap("key", "value")
         );
     }
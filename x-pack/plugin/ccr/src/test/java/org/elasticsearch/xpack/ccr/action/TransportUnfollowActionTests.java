@@ -89,6 +89,7 @@ public class TransportUnfollowActionTests extends ESTestCase {
             new ByteSizeValue(512, ByteSizeUnit.MB),
             TimeValue.timeValueMillis(10),
             TimeValue.timeValueMillis(10),
+            false,
             Collections.emptyMap()
         );
         PersistentTasksCustomMetaData.PersistentTask<?> task =
@@ -91,6 +91,7 @@ public class FollowStatsMonitoringDocTests extends BaseMonitoringDocTestCase<Fol
         final long lastRequestedSeqNo = randomNonNegativeLong();
         final int numberOfConcurrentReads = randomIntBetween(1, Integer.MAX_VALUE);
         final int numberOfConcurrentWrites = randomIntBetween(1, Integer.MAX_VALUE);
+        final int readRequestOperationCount = randomIntBetween(1, Integer.MAX_VALUE);
         final int writeBufferOperationCount = randomIntBetween(0, Integer.MAX_VALUE);
         final long writeBufferSizeInBytes = randomNonNegativeLong();
         final long followerMappingVersion = randomNonNegativeLong();
@@ -122,6 +123,7 @@ public class FollowStatsMonitoringDocTests extends BaseMonitoringDocTestCase<Fol
                 lastRequestedSeqNo,
                 numberOfConcurrentReads,
                 numberOfConcurrentWrites,
+                readRequestOperationCount,
                 writeBufferOperationCount,
                 writeBufferSizeInBytes,
                 followerMappingVersion,
@@ -169,6 +171,7 @@ public class FollowStatsMonitoringDocTests extends BaseMonitoringDocTestCase<Fol
                                         + "\"last_requested_seq_no\":" + lastRequestedSeqNo + ","
                                         + "\"outstanding_read_requests\":" + numberOfConcurrentReads + ","
                                         + "\"outstanding_write_requests\":" + numberOfConcurrentWrites + ","
+                                        + "\"read_request_operation_count\":" + readRequestOperationCount + ","
                                         + "\"write_buffer_operation_count\":" + writeBufferOperationCount + ","
                                         + "\"write_buffer_size_in_bytes\":" + writeBufferSizeInBytes + ","
                                         + "\"follower_mapping_version\":" + followerMappingVersion + ","
@@ -218,6 +221,7 @@ public class FollowStatsMonitoringDocTests extends BaseMonitoringDocTestCase<Fol
             1,
             1,
             1,
+            1,
             100,
             50,
             10,
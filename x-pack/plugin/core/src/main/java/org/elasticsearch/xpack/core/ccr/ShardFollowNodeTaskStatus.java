@@ -45,6 +45,7 @@ public class ShardFollowNodeTaskStatus implements Task.Status {
     private static final ParseField LAST_REQUESTED_SEQ_NO_FIELD = new ParseField("last_requested_seq_no");
     private static final ParseField OUTSTANDING_READ_REQUESTS = new ParseField("outstanding_read_requests");
     private static final ParseField OUTSTANDING_WRITE_REQUESTS = new ParseField("outstanding_write_requests");
+    private static final ParseField READ_REQUEST_OPERATION_COUNT = new ParseField("read_request_operation_count");
     private static final ParseField WRITE_BUFFER_OPERATION_COUNT_FIELD = new ParseField("write_buffer_operation_count");
     private static final ParseField WRITE_BUFFER_SIZE_IN_BYTES_FIELD = new ParseField("write_buffer_size_in_bytes");
     private static final ParseField FOLLOWER_MAPPING_VERSION_FIELD = new ParseField("follower_mapping_version");
@@ -80,7 +81,7 @@ public class ShardFollowNodeTaskStatus implements Task.Status {
                             (int) args[9],
                             (int) args[10],
                             (int) args[11],
-                            (long) args[12],
+                            (int) args[12],
                             (long) args[13],
                             (long) args[14],
                             (long) args[15],
@@ -93,12 +94,13 @@ public class ShardFollowNodeTaskStatus implements Task.Status {
                             (long) args[22],
                             (long) args[23],
                             (long) args[24],
+                            (long) args[25],
                             new TreeMap<>(
-                                    ((List<Map.Entry<Long, Tuple<Integer, ElasticsearchException>>>) args[25])
+                                    ((List<Map.Entry<Long, Tuple<Integer, ElasticsearchException>>>) args[26])
                                             .stream()
                                             .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue))),
-                            (long) args[26],
-                            (ElasticsearchException) args[27]));
+                            (long) args[27],
+                            (ElasticsearchException) args[28]));
 
     public static final String READ_EXCEPTIONS_ENTRY_PARSER_NAME = "shard-follow-node-task-status-read-exceptions-entry";
 
@@ -119,6 +121,7 @@ public class ShardFollowNodeTaskStatus implements Task.Status {
         STATUS_PARSER.declareLong(ConstructingObjectParser.constructorArg(), LAST_REQUESTED_SEQ_NO_FIELD);
         STATUS_PARSER.declareInt(ConstructingObjectParser.constructorArg(), OUTSTANDING_READ_REQUESTS);
         STATUS_PARSER.declareInt(ConstructingObjectParser.constructorArg(), OUTSTANDING_WRITE_REQUESTS);
+        STATUS_PARSER.declareInt(ConstructingObjectParser.constructorArg(), READ_REQUEST_OPERATION_COUNT);
         STATUS_PARSER.declareInt(ConstructingObjectParser.constructorArg(), WRITE_BUFFER_OPERATION_COUNT_FIELD);
         STATUS_PARSER.declareLong(ConstructingObjectParser.constructorArg(), WRITE_BUFFER_SIZE_IN_BYTES_FIELD);
         STATUS_PARSER.declareLong(ConstructingObjectParser.constructorArg(), FOLLOWER_MAPPING_VERSION_FIELD);
@@ -219,6 +222,12 @@ public class ShardFollowNodeTaskStatus implements Task.Status {
         return outstandingWriteRequests;
     }
 
+    private final int readRequestOperationCount;
+
+    public int readRequestOperationCount() {
+        return readRequestOperationCount;
+    }
+
     private final int writeBufferOperationCount;
 
     public int writeBufferOperationCount() {
@@ -333,6 +342,7 @@ public class ShardFollowNodeTaskStatus implements Task.Status {
             final long lastRequestedSeqNo,
             final int outstandingReadRequests,
             final int outstandingWriteRequests,
+            final int readRequestOperationCount,
             final int writeBufferOperationCount,
             final long writeBufferSizeInBytes,
             final long followerMappingVersion,
@@ -361,6 +371,7 @@ public class ShardFollowNodeTaskStatus implements Task.Status {
         this.lastRequestedSeqNo = lastRequestedSeqNo;
         this.outstandingReadRequests = outstandingReadRequests;
         this.outstandingWriteRequests = outstandingWriteRequests;
+        this.readRequestOperationCount = readRequestOperationCount;
         this.writeBufferOperationCount = writeBufferOperationCount;
         this.writeBufferSizeInBytes = writeBufferSizeInBytes;
         this.followerMappingVersion = followerMappingVersion;
@@ -392,6 +403,7 @@ public class ShardFollowNodeTaskStatus implements Task.Status {
         this.lastRequestedSeqNo = in.readZLong();
         this.outstandingReadRequests = in.readVInt();
         this.outstandingWriteRequests = in.readVInt();
+        this.readRequestOperationCount = in.readVInt();
         this.writeBufferOperationCount = in.readVInt();
         this.writeBufferSizeInBytes = in.readVLong();
         this.followerMappingVersion = in.readVLong();
@@ -430,6 +442,7 @@ public class ShardFollowNodeTaskStatus implements Task.Status {
         out.writeZLong(lastRequestedSeqNo);
         out.writeVInt(outstandingReadRequests);
         out.writeVInt(outstandingWriteRequests);
+        out.writeVInt(readRequestOperationCount);
         out.writeVInt(writeBufferOperationCount);
         out.writeVLong(writeBufferSizeInBytes);
         out.writeVLong(followerMappingVersion);
@@ -477,6 +490,7 @@ public class ShardFollowNodeTaskStatus implements Task.Status {
         builder.field(LAST_REQUESTED_SEQ_NO_FIELD.getPreferredName(), lastRequestedSeqNo);
         builder.field(OUTSTANDING_READ_REQUESTS.getPreferredName(), outstandingReadRequests);
         builder.field(OUTSTANDING_WRITE_REQUESTS.getPreferredName(), outstandingWriteRequests);
+        builder.field(READ_REQUEST_OPERATION_COUNT.getPreferredName(), readRequestOperationCount);
         builder.field(WRITE_BUFFER_OPERATION_COUNT_FIELD.getPreferredName(), writeBufferOperationCount);
         builder.humanReadableField(
                 WRITE_BUFFER_SIZE_IN_BYTES_FIELD.getPreferredName(),
@@ -561,6 +575,7 @@ public class ShardFollowNodeTaskStatus implements Task.Status {
                 lastRequestedSeqNo == that.lastRequestedSeqNo &&
                 outstandingReadRequests == that.outstandingReadRequests &&
                 outstandingWriteRequests == that.outstandingWriteRequests &&
+                readRequestOperationCount == that.readRequestOperationCount &&
                 writeBufferOperationCount == that.writeBufferOperationCount &&
                 writeBufferSizeInBytes == that.writeBufferSizeInBytes &&
                 followerMappingVersion == that.followerMappingVersion &&
@@ -600,6 +615,7 @@ public class ShardFollowNodeTaskStatus implements Task.Status {
                 lastRequestedSeqNo,
                 outstandingReadRequests,
                 outstandingWriteRequests,
+                readRequestOperationCount,
                 writeBufferOperationCount,
                 writeBufferSizeInBytes,
                 followerMappingVersion,
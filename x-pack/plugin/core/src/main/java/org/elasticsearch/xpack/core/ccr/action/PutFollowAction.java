@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.util.Objects;
 
 import static org.elasticsearch.action.ValidateActions.addValidationError;
+import static org.elasticsearch.xpack.core.ccr.action.ResumeFollowAction.Request.COMPACT_READ_RESPONSES;
 import static org.elasticsearch.xpack.core.ccr.action.ResumeFollowAction.Request.FOLLOWER_INDEX_FIELD;
 import static org.elasticsearch.xpack.core.ccr.action.ResumeFollowAction.Request.MAX_READ_REQUEST_OPERATION_COUNT;
 import static org.elasticsearch.xpack.core.ccr.action.ResumeFollowAction.Request.MAX_READ_REQUEST_SIZE;
@@ -102,6 +103,7 @@ public final class PutFollowAction extends Action<
                 (p, c) -> TimeValue.parseTimeValue(p.text(), READ_POLL_TIMEOUT.getPreferredName()),
                 READ_POLL_TIMEOUT,
                 ObjectParser.ValueType.STRING);
+            PARSER.declareBoolean((req, val) -> req.followRequest.setCompactReadResponses(val), COMPACT_READ_RESPONSES);
         }
 
         public static Request fromXContent(final XContentParser parser, final String followerIndex) throws IOException {
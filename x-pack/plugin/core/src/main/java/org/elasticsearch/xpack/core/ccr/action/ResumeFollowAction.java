@@ -59,6 +59,7 @@ public final class ResumeFollowAction extends Action<
         static final ParseField MAX_WRITE_BUFFER_SIZE = new ParseField("max_write_buffer_size");
         static final ParseField MAX_RETRY_DELAY_FIELD = new ParseField("max_retry_delay");
         static final ParseField READ_POLL_TIMEOUT = new ParseField("read_poll_timeout");
+        static final ParseField COMPACT_READ_RESPONSES = new ParseField("compact_read_responses");
         static final ObjectParser<Request, String> PARSER = new ObjectParser<>(NAME, Request::new);
 
         static {
@@ -90,6 +91,7 @@ public final class ResumeFollowAction extends Action<
                     (p, c) -> TimeValue.parseTimeValue(p.text(), READ_POLL_TIMEOUT.getPreferredName()),
                 READ_POLL_TIMEOUT,
                     ObjectParser.ValueType.STRING);
+            PARSER.declareBoolean(Request::setCompactReadResponses, COMPACT_READ_RESPONSES);
         }
 
         public static Request fromXContent(final XContentParser parser, final String followerIndex) throws IOException {
@@ -216,6 +218,20 @@ public final class ResumeFollowAction extends Action<
             this.readPollTimeout = readPollTimeout;
         }
 
+        private Boolean compactReadResponses;
+
+        /**
+         * Whether the leader is asked to collapse superseded operations and to compress the operations it returns, trading leader
+         * CPU for less bandwidth between the clusters
+         */
+        public Boolean getCompactReadResponses() {
+            return compactReadResponses;
+        }
+
+        public void setCompactReadResponses(Boolean compactReadResponses) {
+            this.compactReadResponses = compactReadResponses;
+        }
+
         public Request() {
         }
 
@@ -277,6 +293,7 @@ public final class ResumeFollowAction extends Action<
             maxWriteBufferSize = in.readOptionalWriteable(ByteSizeValue::new);
             maxRetryDelay = in.readOptionalTimeValue();
             readPollTimeout = in.readOptionalTimeValue();
+            compactReadResponses = in.readOptionalBoolean();
         }
 
         @Override
@@ -293,6 +310,7 @@ public final class ResumeFollowAction extends Action<
             out.writeOptionalWriteable(maxWriteBufferSize);
             out.writeOptionalTimeValue(maxRetryDelay);
             out.writeOptionalTimeValue(readPollTimeout);
+            out.writeOptionalBoolean(compactReadResponses);
         }
 
         @Override
@@ -337,6 +355,9 @@ public final class ResumeFollowAction extends Action<
             if (readPollTimeout != null) {
                 builder.field(READ_POLL_TIMEOUT.getPreferredName(), readPollTimeout.getStringRep());
             }
+            if (compactReadResponses != null) {
+                builder.field(COMPACT_READ_RESPONSES.getPreferredName(), compactReadResponses);
+            }
         }
 
         @Override
@@ -354,6 +375,7 @@ public final class ResumeFollowAction extends Action<
                     Objects.equals(maxWriteBufferSize, request.maxWriteBufferSize) &&
                     Objects.equals(maxRetryDelay, request.maxRetryDelay) &&
                     Objects.equals(readPollTimeout, request.readPollTimeout) &&
+                    Objects.equals(compactReadResponses, request.compactReadResponses) &&
                     Objects.equals(followerIndex, request.followerIndex);
         }
 
@@ -370,7 +392,8 @@ public final class ResumeFollowAction extends Action<
                     maxWriteBufferCount,
                     maxWriteBufferSize,
                     maxRetryDelay,
-                    readPollTimeout);
+                    readPollTimeout,
+                    compactReadResponses);
         }
     }
 
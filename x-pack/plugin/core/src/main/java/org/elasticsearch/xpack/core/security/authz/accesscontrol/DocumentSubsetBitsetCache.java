@@ -0,0 +1,312 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.core.security.authz.accesscontrol;
+
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexReaderContext;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.util.BitSet;
+import org.apache.lucene.util.BitSetIterator;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.SparseFixedBitSet;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.RemovalListener;
+import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.IndexWarmer;
+import org.elasticsearch.index.IndexWarmer.TerminationHandle;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardUtils;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.elasticsearch.xpack.core.security.SecurityField.setting;
+
+/**
+ * Caches the bitsets of the role queries of document level security per segment. A single cache is shared by all indices of a
+ * node. Unlike the {@link org.elasticsearch.index.cache.bitset.BitsetFilterCache} this cache is bounded, and the memory of the
+ * cached bitsets is accounted in the given circuit breaker. Bitsets of role queries that only match few documents of a segment
+ * are stored as {@link SparseFixedBitSet}s. The most recently used role queries that have cached bitsets for an index are loaded
+ * eagerly for the new segments of every searcher of that index that is opened after a refresh, see
+ * {@link #createListener(ThreadPool)}.
+ */
+public final class DocumentSubsetBitsetCache implements RemovalListener<DocumentSubsetBitsetCache.Key, DocumentSubsetBitsetCache.Value> {
+
+    /**
+     * The maximum memory that the cached bitsets of all indices of a node may use.
+     */
+    public static final Setting<ByteSizeValue> CACHE_SIZE_SETTING = Setting.byteSizeSetting(setting("dls.bitset.cache.size"),
+        new ByteSizeValue(50, ByteSizeUnit.MB), Property.NodeScope);
+
+    /**
+     * The maximum number of role queries of an index whose bitsets are loaded for the new segments of that index.
+     */
+    public static final Setting<Integer> WARMED_QUERIES_SETTING = Setting.intSetting(setting("dls.bitset.cache.warmed_queries"), 10,
+        0, Property.NodeScope);
+
+    private static final String BREAKER_LABEL = "<dls_bitset_cache>";
+
+    private final CircuitBreaker breaker;
+    private final Cache<Key, Value> cache;
+    private final int maxWarmedQueries;
+    // ticks on every use of a cached bitset, so that the role queries that were used last can be told apart
+    private final AtomicLong usageClock = new AtomicLong();
+    // the cached keys of every segment, so that its bitsets can be removed when the segment is closed
+    private final Map<IndexReader.CacheKey, Set<Key>> keysByCoreKey = new ConcurrentHashMap<>();
+
+    public DocumentSubsetBitsetCache(Settings settings, CircuitBreaker breaker) {
+        this.breaker = Objects.requireNonNull(breaker);
+        this.cache = CacheBuilder.<Key, Value>builder()
+            .setMaximumWeight(CACHE_SIZE_SETTING.get(settings).getBytes())
+            .weigher((key, value) -> value.ramBytesUsed)
+            .removalListener(this)
+            .build();
+        this.maxWarmedQueries = WARMED_QUERIES_SETTING.get(settings);
+    }
+
+    /**
+     * Returns the bitset of the documents of the given segment that match the given role query, or {@code null} if no document
+     * matches. Identical role queries share the same bitset, regardless of the roles they are defined in.
+     */
+    public BitSet getBitSet(Query roleQuery, LeafReaderContext context) throws IOException {
+        return getBitSet(roleQuery, context, usageClock.incrementAndGet());
+    }
+
+    /**
+     * @param lastUsed the tick of the usage clock the role query was last used at, warming keeps the one of the role query
+     */
+    private BitSet getBitSet(Query roleQuery, LeafReaderContext context, long lastUsed) throws IOException {
+        final IndexReader.CacheHelper cacheHelper = context.reader().getCoreCacheHelper();
+        if (cacheHelper == null) {
+            throw new IllegalArgumentException("Reader " + context.reader() + " does not support caching");
+        }
+        final IndexReader.CacheKey coreKey = cacheHelper.getKey();
+        final ShardId shardId = ShardUtils.extractShardId(context.reader());
+        final Key key = new Key(coreKey, shardId == null ? null : shardId.getIndex(), roleQuery);
+        try {
+            final Value cached = cache.computeIfAbsent(key, k -> {
+                final Value value = computeBitSet(key, context);
+                breaker.addEstimateBytesAndMaybeBreak(value.ramBytesUsed, BREAKER_LABEL);
+                final boolean[] added = new boolean[] { false };
+                keysByCoreKey.computeIfAbsent(coreKey, ck -> {
+                    added[0] = true;
+                    return ConcurrentHashMap.newKeySet();
+                }).add(key);
+                if (added[0]) {
+                    IndexReader.ClosedListener closedListener = this::onClose;
+                    try {
+                        cacheHelper.addClosedListener(closedListener);
+                    } catch (AlreadyClosedException e) {
+                        breaker.addWithoutBreaking(-value.ramBytesUsed);
+                        closedListener.onClose(coreKey);
+                        throw e;
+                    }
+                }
+                return value;
+            });
+            cached.markUsed(lastUsed);
+            return cached.bitSet;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static Value computeBitSet(Key key, LeafReaderContext context) throws IOException {
+        final IndexReaderContext topLevelContext = ReaderUtil.getTopLevelContext(context);
+        final IndexSearcher searcher = new IndexSearcher(topLevelContext);
+        searcher.setQueryCache(null);
+        final Weight weight = searcher.createNormalizedWeight(key.roleQuery, false);
+        final Scorer scorer = weight.scorer(context);
+        if (scorer == null) {
+            return new Value(key, null);
+        }
+        final int maxDoc = context.reader().maxDoc();
+        BitSet bitSet = BitSet.of(scorer.iterator(), maxDoc);
+        // the cost of role queries that combine several clauses is often overestimated, so bitsets of selective role
+        // queries are compacted once the number of matching documents is known
+        final int cardinality = bitSet.cardinality();
+        if (bitSet instanceof FixedBitSet && cardinality < (maxDoc >>> 7)) {
+            final SparseFixedBitSet sparseBitSet = new SparseFixedBitSet(maxDoc);
+            sparseBitSet.or(new BitSetIterator(bitSet, cardinality));
+            bitSet = sparseBitSet;
+        }
+        return new Value(key, bitSet);
+    }
+
+    private void onClose(IndexReader.CacheKey coreKey) {
+        final Set<Key> keys = keysByCoreKey.remove(coreKey);
+        if (keys != null) {
+            keys.forEach(cache::invalidate);
+        }
+    }
+
+    @Override
+    public void onRemoval(RemovalNotification<Key, Value> notification) {
+        final Key key = notification.getKey();
+        final Set<Key> keys = keysByCoreKey.get(key.coreKey);
+        if (keys != null) {
+            keys.remove(key);
+        }
+        breaker.addWithoutBreaking(-notification.getValue().ramBytesUsed);
+    }
+
+    /**
+     * Returns the distinct role queries that have cached bitsets for segments of the given index, at most the given number of
+     * them, that were used last. Every role query is mapped to the tick of the usage clock it was last used at.
+     */
+    Map<Query, Long> recentlyUsedQueries(Index index, int maxQueries) {
+        final Map<Query, Long> lastUsed = new HashMap<>();
+        for (Value value : cache.values()) {
+            if (index.equals(value.key.index)) {
+                lastUsed.merge(value.key.roleQuery, value.lastUsed, Math::max);
+            }
+        }
+        return lastUsed.entrySet().stream()
+            .sorted(Map.Entry.<Query, Long>comparingByValue().reversed())
+            .limit(maxQueries)
+            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    // for testing only
+    int count() {
+        return cache.count();
+    }
+
+    /**
+     * Creates an {@link IndexWarmer.Listener} that loads the bitsets of the role queries that are cached for an index for the
+     * segments of its new searchers, so that the first search after a refresh doesn't have to compute them. Only the role queries
+     * that were used last are loaded, see {@link #WARMED_QUERIES_SETTING}.
+     */
+    public IndexWarmer.Listener createListener(ThreadPool threadPool) {
+        return new BitsetWarmer(threadPool.executor(ThreadPool.Names.WARMER));
+    }
+
+    final class BitsetWarmer implements IndexWarmer.Listener {
+
+        private final Executor executor;
+
+        BitsetWarmer(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public TerminationHandle warmReader(IndexShard indexShard, Engine.Searcher searcher) {
+            final Map<Query, Long> roleQueries = recentlyUsedQueries(indexShard.shardId().getIndex(), maxWarmedQueries);
+            if (roleQueries.isEmpty()) {
+                return TerminationHandle.NO_WAIT;
+            }
+            final CountDownLatch latch = new CountDownLatch(searcher.reader().leaves().size() * roleQueries.size());
+            for (final LeafReaderContext ctx : searcher.reader().leaves()) {
+                for (final Map.Entry<Query, Long> entry : roleQueries.entrySet()) {
+                    final Query roleQuery = entry.getKey();
+                    executor.execute(() -> {
+                        try {
+                            final long start = System.nanoTime();
+                            // warming is not a use of the role query, otherwise role queries that are not used anymore would be
+                            // warmed forever
+                            final BitSet bitSet = getBitSet(roleQuery, ctx, entry.getValue());
+                            DocumentSubsetReader.getNumDocs(ctx.reader(), roleQuery, bitSet);
+                            if (indexShard.warmerService().logger().isTraceEnabled()) {
+                                indexShard.warmerService().logger().trace("warmed document level security bitset for [{}], took [{}]",
+                                    roleQuery, TimeValue.timeValueNanos(System.nanoTime() - start));
+                            }
+                        } catch (Exception e) {
+                            indexShard.warmerService().logger().warn(() -> new ParameterizedMessage(
+                                "failed to load document level security bitset for [{}]", roleQuery), e);
+                        } finally {
+                            latch.countDown();
+                        }
+                    });
+                }
+            }
+            return () -> latch.await();
+        }
+    }
+
+    static final class Key {
+
+        private final IndexReader.CacheKey coreKey;
+        // the index of the segment, implied by its core key and therefore not part of equality
+        private final Index index;
+        private final Query roleQuery;
+
+        Key(IndexReader.CacheKey coreKey, Index index, Query roleQuery) {
+            this.coreKey = coreKey;
+            this.index = index;
+            this.roleQuery = roleQuery;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return coreKey == key.coreKey && roleQuery.equals(key.roleQuery);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * coreKey.hashCode() + roleQuery.hashCode();
+        }
+    }
+
+    static final class Value {
+
+        private final Key key;
+        private final BitSet bitSet;
+        private final long ramBytesUsed;
+        // the tick of the usage clock of the cache the bitset was last used at
+        private volatile long lastUsed;
+
+        Value(Key key, BitSet bitSet) {
+            this.key = key;
+            this.bitSet = bitSet;
+            // the role query is not accounted, it is shared with the searches that use it
+            this.ramBytesUsed = RamUsageEstimator.NUM_BYTES_OBJECT_REF + (bitSet == null ? 0 : bitSet.ramBytesUsed());
+        }
+
+        void markUsed(long tick) {
+            // racing uses may keep an older tick, which only makes the role query look slightly less recently used
+            if (tick > lastUsed) {
+                lastUsed = tick;
+            }
+        }
+    }
+}
@@ -12,6 +12,7 @@ import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.Fields;
 import org.apache.lucene.index.FilterDirectoryReader;
 import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.PointValues;
@@ -21,16 +22,25 @@ import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.index.StoredFieldVisitor;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.FilterIterator;
+import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.automaton.CharacterRunAutomaton;
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
-import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.RemovalListener;
+import org.elasticsearch.common.cache.RemovalNotification;
 import org.elasticsearch.common.logging.LoggerMessageFormat;
+import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentHelper;
-import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.index.mapper.FieldNamesFieldMapper;
 import org.elasticsearch.index.mapper.SourceFieldMapper;
 
@@ -40,6 +50,9 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 /**
  * A {@link FilterLeafReader} that exposes only a subset
@@ -105,7 +118,160 @@ public final class FieldSubsetReader extends FilterLeafReader {
         }
     }
 
+    /**
+     * Cache of the authorized fields of a segment for a given automaton. Field infos only need to be filtered once per
+     * segment and set of field permissions instead of every time a searcher is wrapped. Field permissions are shared by
+     * the {@link org.elasticsearch.xpack.core.security.authz.permission.FieldPermissionsCache}, so their automatons are
+     * usually the same instances and lookups don't need to compare them.
+     */
+    static final ProjectionCache PROJECTIONS_CACHE = new ProjectionCache(ProjectionCache.MAX_CACHED_FIELDS);
+
+    /**
+     * The cached projections of all segments of the node, weighted by the number of fields of the segment they were computed
+     * from, so that the memory they use is bounded regardless of the number of segments and of field permissions.
+     */
+    static final class ProjectionCache implements RemovalListener<ProjectionKey, FieldProjection> {
+
+        // Not configurable, like the cache it is static. Projections that don't fit are computed again when a searcher is wrapped
+        static final long MAX_CACHED_FIELDS = 100_000;
+
+        private final Cache<ProjectionKey, FieldProjection> cache;
+        // the cached keys of every segment, so that its projections can be removed when the segment is closed
+        private final Map<IndexReader.CacheKey, Set<ProjectionKey>> keysByCoreKey = new ConcurrentHashMap<>();
+
+        ProjectionCache(long maxCachedFields) {
+            this.cache = CacheBuilder.<ProjectionKey, FieldProjection>builder()
+                    .setMaximumWeight(maxCachedFields)
+                    .weigher((key, projection) -> Math.max(1, projection.source.size()))
+                    .removalListener(this)
+                    .build();
+        }
+
+        /**
+         * Returns the authorized fields of the given segment.
+         */
+        FieldProjection getProjection(LeafReader reader, CharacterRunAutomaton filter) throws ExecutionException {
+            final FieldInfos fieldInfos = reader.getFieldInfos();
+            final IndexReader.CacheHelper cacheHelper = reader.getCoreCacheHelper();
+            if (cacheHelper == null) {
+                return new FieldProjection(fieldInfos, filter);
+            }
+            final IndexReader.CacheKey coreKey = cacheHelper.getKey();
+            final ProjectionKey key = new ProjectionKey(coreKey, filter);
+            FieldProjection projection = cache.computeIfAbsent(key, k -> {
+                final boolean[] added = new boolean[] { false };
+                keysByCoreKey.computeIfAbsent(coreKey, ck -> {
+                    added[0] = true;
+                    return ConcurrentHashMap.newKeySet();
+                }).add(key);
+                if (added[0]) {
+                    IndexReader.ClosedListener closedListener = this::onClose;
+                    try {
+                        cacheHelper.addClosedListener(closedListener);
+                    } catch (AlreadyClosedException e) {
+                        closedListener.onClose(coreKey);
+                        throw e;
+                    }
+                }
+                return new FieldProjection(fieldInfos, filter);
+            });
+            if (projection.source != fieldInfos) {
+                // doc values updates create new field infos for the same core
+                projection = new FieldProjection(fieldInfos, filter);
+                cache.put(key, projection);
+            }
+            return projection;
+        }
+
+        private void onClose(IndexReader.CacheKey coreKey) {
+            final Set<ProjectionKey> keys = keysByCoreKey.remove(coreKey);
+            if (keys != null) {
+                keys.forEach(cache::invalidate);
+            }
+        }
+
+        @Override
+        public void onRemoval(RemovalNotification<ProjectionKey, FieldProjection> notification) {
+            if (notification.getRemovalReason() == RemovalNotification.RemovalReason.REPLACED) {
+                return;
+            }
+            final ProjectionKey key = notification.getKey();
+            final Set<ProjectionKey> keys = keysByCoreKey.get(key.coreKey);
+            if (keys != null) {
+                keys.remove(key);
+            }
+        }
+
+        /** Returns the number of cached projections of the given segment. */
+        int count(IndexReader.CacheKey coreKey) {
+            final Set<ProjectionKey> keys = keysByCoreKey.get(coreKey);
+            return keys == null ? 0 : keys.size();
+        }
+
+        /** Returns the number of fields of all cached projections. */
+        long weight() {
+            return cache.weight();
+        }
+    }
+
+    static final class ProjectionKey {
+
+        private final IndexReader.CacheKey coreKey;
+        private final CharacterRunAutomaton filter;
+
+        ProjectionKey(IndexReader.CacheKey coreKey, CharacterRunAutomaton filter) {
+            this.coreKey = coreKey;
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ProjectionKey that = (ProjectionKey) o;
+            return coreKey == that.coreKey && filter == that.filter;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * coreKey.hashCode() + System.identityHashCode(filter);
+        }
+    }
+
+    /**
+     * The authorized fields of a segment, by name and by field number.
+     */
+    static final class FieldProjection {
+
+        /** The field infos of the segment that the projection was computed from */
+        private final FieldInfos source;
+        private final FieldInfos fieldInfos;
+        private final FixedBitSet fieldNumbers;
+
+        FieldProjection(FieldInfos source, CharacterRunAutomaton filter) {
+            this.source = source;
+            ArrayList<FieldInfo> filteredInfos = new ArrayList<>();
+            int maxFieldNumber = -1;
+            for (FieldInfo fi : source) {
+                maxFieldNumber = Math.max(maxFieldNumber, fi.number);
+                if (filter.run(fi.name)) {
+                    filteredInfos.add(fi);
+                }
+            }
+            this.fieldInfos = new FieldInfos(filteredInfos.toArray(new FieldInfo[filteredInfos.size()]));
+            this.fieldNumbers = new FixedBitSet(maxFieldNumber + 1);
+            for (FieldInfo fi : filteredInfos) {
+                fieldNumbers.set(fi.number);
+            }
+        }
+
+        boolean hasField(FieldInfo fieldInfo) {
+            return fieldInfo.number < fieldNumbers.length() && fieldNumbers.get(fieldInfo.number);
+        }
+    }
+
     /** List of filtered fields */
+    private final FieldProjection projection;
     private final FieldInfos fieldInfos;
     /** An automaton that only accepts authorized fields. */
     private final CharacterRunAutomaton filter;
@@ -115,13 +281,12 @@ public final class FieldSubsetReader extends FilterLeafReader {
      */
     FieldSubsetReader(LeafReader in, CharacterRunAutomaton filter) {
         super(in);
-        ArrayList<FieldInfo> filteredInfos = new ArrayList<>();
-        for (FieldInfo fi : in.getFieldInfos()) {
-            if (filter.run(fi.name)) {
-                filteredInfos.add(fi);
-            }
+        try {
+            this.projection = PROJECTIONS_CACHE.getProjection(in, filter);
+        } catch (ExecutionException e) {
+            throw ExceptionsHelper.convertToElastic(e);
         }
-        fieldInfos = new FieldInfos(filteredInfos.toArray(new FieldInfo[filteredInfos.size()]));
+        this.fieldInfos = projection.fieldInfos;
         this.filter = filter;
     }
 
@@ -206,6 +371,124 @@ public final class FieldSubsetReader extends FilterLeafReader {
         return filtered;
     }
 
+    /**
+     * Filters the given source by a {@link CharacterRunAutomaton} that defines the fields to retain. The source is filtered
+     * while it is copied token by token, which gives the same result as {@link #filter(Map, CharacterRunAutomaton, int)}
+     * except that the order of the retained fields is preserved, without building the map of the whole document.
+     */
+    static BytesReference filter(BytesReference source, CharacterRunAutomaton includeAutomaton) throws IOException {
+        try (XContentParser parser = XContentHelper.createParser(NamedXContentRegistry.EMPTY,
+                LoggingDeprecationHandler.INSTANCE, source)) {
+            XContentBuilder builder = XContentBuilder.builder(parser.contentType().xContent());
+            XContentParser.Token token = parser.nextToken();
+            if (token != XContentParser.Token.START_OBJECT) {
+                throw new ElasticsearchParseException("Failed to filter _source, expected an object but got [{}]", token);
+            }
+            builder.startObject();
+            filterObject(parser, builder, includeAutomaton, 0, new ArrayList<>());
+            builder.endObject();
+            return BytesReference.bytes(builder);
+        }
+    }
+
+    /**
+     * Copies the fields of the current object that are accepted by the automaton. Objects and arrays are only started in
+     * the builder, through the pending list, once one of their values is retained, so that empty ones are left out.
+     */
+    private static void filterObject(XContentParser parser, XContentBuilder builder, CharacterRunAutomaton includeAutomaton,
+                                     int initialState, List<Object> pending) throws IOException {
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            assert token == XContentParser.Token.FIELD_NAME : token;
+            String key = parser.currentName();
+            token = parser.nextToken();
+
+            int state = step(includeAutomaton, key, initialState);
+            if (state == -1) {
+                parser.skipChildren();
+                continue;
+            }
+
+            if (token == XContentParser.Token.START_OBJECT) {
+                state = includeAutomaton.step(state, '.');
+                if (state == -1) {
+                    parser.skipChildren();
+                    continue;
+                }
+                int mark = pending.size();
+                pending.add(key);
+                pending.add(token);
+                filterObject(parser, builder, includeAutomaton, state, pending);
+                endPending(builder, pending, mark, token);
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                int mark = pending.size();
+                pending.add(key);
+                pending.add(token);
+                filterArray(parser, builder, includeAutomaton, state, pending);
+                endPending(builder, pending, mark, token);
+            } else if (includeAutomaton.isAccept(state)) {
+                writePending(builder, pending);
+                builder.field(key);
+                builder.copyCurrentStructure(parser);
+            }
+        }
+    }
+
+    /** Copies the values of the current array that are accepted by the automaton, see {@link #filterObject}. */
+    private static void filterArray(XContentParser parser, XContentBuilder builder, CharacterRunAutomaton includeAutomaton,
+                                    int initialState, List<Object> pending) throws IOException {
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+            if (token == XContentParser.Token.START_OBJECT) {
+                int state = includeAutomaton.step(initialState, '.');
+                if (state == -1) {
+                    parser.skipChildren();
+                    continue;
+                }
+                // objects in arrays are retained even if they are empty
+                // (otherwise nested inner hit source filtering fails with AOOB)
+                writePending(builder, pending);
+                builder.startObject();
+                filterObject(parser, builder, includeAutomaton, state, pending);
+                builder.endObject();
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                int mark = pending.size();
+                pending.add(token);
+                filterArray(parser, builder, includeAutomaton, initialState, pending);
+                endPending(builder, pending, mark, token);
+            } else if (includeAutomaton.isAccept(initialState)) {
+                writePending(builder, pending);
+                builder.copyCurrentStructure(parser);
+            }
+        }
+    }
+
+    /** Starts the pending field names, objects and arrays in the builder. */
+    private static void writePending(XContentBuilder builder, List<Object> pending) throws IOException {
+        for (Object start : pending) {
+            if (start instanceof String) {
+                builder.field((String) start);
+            } else if (start == XContentParser.Token.START_OBJECT) {
+                builder.startObject();
+            } else {
+                builder.startArray();
+            }
+        }
+        pending.clear();
+    }
+
+    /** Ends the object or array that was added to the pending list at the given mark, or drops it if it was never started. */
+    private static void endPending(XContentBuilder builder, List<Object> pending, int mark,
+                                   XContentParser.Token startToken) throws IOException {
+        if (pending.size() > mark) {
+            pending.subList(mark, pending.size()).clear();
+        } else if (startToken == XContentParser.Token.START_OBJECT) {
+            builder.endObject();
+        } else {
+            builder.endArray();
+        }
+    }
+
     /** Step through all characters of the provided string, and return the
      *  resulting state, or -1 if that did not lead to a valid state. */
     private static int step(CharacterRunAutomaton automaton, String key, int state) {
@@ -221,12 +504,8 @@ public final class FieldSubsetReader extends FilterLeafReader {
             @Override
             public void binaryField(FieldInfo fieldInfo, byte[] value) throws IOException {
                 if (SourceFieldMapper.NAME.equals(fieldInfo.name)) {
-                    // for _source, parse, filter out the fields we care about, and serialize back downstream
-                    BytesReference bytes = new BytesArray(value);
-                    Tuple<XContentType, Map<String, Object>> result = XContentHelper.convertToMap(bytes, true);
-                    Map<String, Object> transformedSource = filter(result.v2(), filter, 0);
-                    XContentBuilder xContentBuilder = XContentBuilder.builder(result.v1().xContent()).map(transformedSource);
-                    visitor.binaryField(fieldInfo, BytesReference.toBytes(BytesReference.bytes(xContentBuilder)));
+                    // for _source, filter out the fields we care about while copying it, and pass the copy downstream
+                    visitor.binaryField(fieldInfo, BytesReference.toBytes(filter(new BytesArray(value), filter)));
                 } else {
                     visitor.binaryField(fieldInfo, value);
                 }
@@ -259,7 +538,7 @@ public final class FieldSubsetReader extends FilterLeafReader {
 
             @Override
             public Status needsField(FieldInfo fieldInfo) throws IOException {
-                return hasField(fieldInfo.name) ? visitor.needsField(fieldInfo) : Status.NO;
+                return projection.hasField(fieldInfo) ? visitor.needsField(fieldInfo) : Status.NO;
             }
         });
     }
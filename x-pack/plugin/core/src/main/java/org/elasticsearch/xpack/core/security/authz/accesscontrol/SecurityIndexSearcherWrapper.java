@@ -37,7 +37,6 @@ import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentParser;
-import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
 import org.elasticsearch.index.engine.EngineException;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.BoostingQueryBuilder;
@@ -69,8 +68,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 
 import static org.apache.lucene.search.BooleanClause.Occur.FILTER;
@@ -91,17 +92,17 @@ public class SecurityIndexSearcherWrapper extends IndexSearcherWrapper {
     private static final Logger logger = LogManager.getLogger(SecurityIndexSearcherWrapper.class);
 
     private final Function<ShardId, QueryShardContext> queryShardContextProvider;
-    private final BitsetFilterCache bitsetFilterCache;
+    private final DocumentSubsetBitsetCache bitsetCache;
     private final XPackLicenseState licenseState;
     private final ThreadContext threadContext;
     private final ScriptService scriptService;
 
     public SecurityIndexSearcherWrapper(Function<ShardId, QueryShardContext> queryShardContextProvider,
-                                        BitsetFilterCache bitsetFilterCache, ThreadContext threadContext, XPackLicenseState licenseState,
+                                        DocumentSubsetBitsetCache bitsetCache, ThreadContext threadContext, XPackLicenseState licenseState,
                                         ScriptService scriptService) {
         this.scriptService = scriptService;
         this.queryShardContextProvider = queryShardContextProvider;
-        this.bitsetFilterCache = bitsetFilterCache;
+        this.bitsetCache = bitsetCache;
         this.threadContext = threadContext;
         this.licenseState = licenseState;
     }
@@ -127,7 +128,8 @@ public class SecurityIndexSearcherWrapper extends IndexSearcherWrapper {
             }
 
             if (permissions.getQueries() != null) {
-                BooleanQuery.Builder filter = new BooleanQuery.Builder();
+                // identical role queries of different roles are only added once
+                Set<Query> roleQueries = new LinkedHashSet<>();
                 for (BytesReference bytesReference : permissions.getQueries()) {
                     QueryShardContext queryShardContext = queryShardContextProvider.apply(shardId);
                     String templateResult = evaluateTemplate(bytesReference.utf8ToString());
@@ -137,7 +139,7 @@ public class SecurityIndexSearcherWrapper extends IndexSearcherWrapper {
                         verifyRoleQuery(queryBuilder);
                         failIfQueryUsesClient(queryBuilder, queryShardContext);
                         Query roleQuery = queryShardContext.toFilter(queryBuilder).query();
-                        filter.add(roleQuery, SHOULD);
+                        roleQueries.add(roleQuery);
                         if (queryShardContext.getMapperService().hasNested()) {
                             NestedHelper nestedHelper = new NestedHelper(queryShardContext.getMapperService());
                             if (nestedHelper.mightMatchNestedDocs(roleQuery)) {
@@ -150,14 +152,18 @@ public class SecurityIndexSearcherWrapper extends IndexSearcherWrapper {
                             BitSetProducer rootDocs = queryShardContext.bitsetFilter(
                                     Queries.newNonNestedFilter(queryShardContext.indexVersionCreated()));
                             ToChildBlockJoinQuery includeNestedDocs = new ToChildBlockJoinQuery(roleQuery, rootDocs);
-                            filter.add(includeNestedDocs, SHOULD);
+                            roleQueries.add(includeNestedDocs);
                         }
                     }
                 }
 
+                BooleanQuery.Builder filter = new BooleanQuery.Builder();
+                for (Query roleQuery : roleQueries) {
+                    filter.add(roleQuery, SHOULD);
+                }
                 // at least one of the queries should match
                 filter.setMinimumNumberShouldMatch(1);
-                reader = DocumentSubsetReader.wrap(reader, bitsetFilterCache, new ConstantScoreQuery(filter.build()));
+                reader = DocumentSubsetReader.wrap(reader, bitsetCache, new ConstantScoreQuery(filter.build()));
             }
 
             return permissions.getFieldPermissions().filter(reader);
@@ -0,0 +1,197 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.core.security.authz.accesscontrol;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BitSet;
+import org.apache.lucene.util.SparseFixedBitSet;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.breaker.MemoryCircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.IndexWarmer;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.warmer.ShardIndexWarmerService;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DocumentSubsetBitsetCacheTests extends ESTestCase {
+
+    private static DirectoryReader newReader(Directory directory, int numDocs) throws Exception {
+        try (IndexWriter writer = new IndexWriter(directory, newIndexWriterConfig())) {
+            for (int i = 0; i < numDocs; i++) {
+                Document document = new Document();
+                document.add(new StringField("field", i == 0 ? "selective" : "common", Field.Store.NO));
+                writer.addDocument(document);
+            }
+            writer.forceMerge(1);
+        }
+        return DirectoryReader.open(directory);
+    }
+
+    private static Query roleQuery(String... values) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (String value : values) {
+            builder.add(new TermQuery(new Term("field", value)), BooleanClause.Occur.SHOULD);
+        }
+        builder.setMinimumNumberShouldMatch(1);
+        return new ConstantScoreQuery(builder.build());
+    }
+
+    public void testIdenticalRoleQueriesShareBitsets() throws Exception {
+        CircuitBreaker breaker = new MemoryCircuitBreaker(new ByteSizeValue(1, ByteSizeUnit.MB), 1.0,
+            LogManager.getLogger(DocumentSubsetBitsetCacheTests.class));
+        DocumentSubsetBitsetCache cache = new DocumentSubsetBitsetCache(Settings.EMPTY, breaker);
+        try (Directory directory = newDirectory(); DirectoryReader reader = newReader(directory, 1000)) {
+            LeafReaderContext leaf = reader.leaves().get(0);
+            BitSet bitSet = cache.getBitSet(roleQuery("selective", "missing"), leaf);
+            // the clauses of role queries of different roles are not ordered
+            assertThat(cache.getBitSet(roleQuery("missing", "selective"), leaf), sameInstance(bitSet));
+            assertThat(cache.count(), equalTo(1));
+            // role queries that only match few documents use sparse bitsets
+            assertThat(bitSet, instanceOf(SparseFixedBitSet.class));
+            assertThat(bitSet.cardinality(), equalTo(1));
+
+            assertThat(cache.getBitSet(roleQuery("missing"), leaf), nullValue());
+            assertThat(cache.count(), equalTo(2));
+            assertThat(breaker.getUsed(), greaterThan(bitSet.ramBytesUsed()));
+        }
+        // the bitsets of closed segments are released
+        assertThat(cache.count(), equalTo(0));
+        assertThat(breaker.getUsed(), equalTo(0L));
+    }
+
+    public void testWarmerLoadsCachedRoleQueriesOfTheIndex() throws Exception {
+        CircuitBreaker breaker = new MemoryCircuitBreaker(new ByteSizeValue(1, ByteSizeUnit.MB), 1.0,
+            LogManager.getLogger(DocumentSubsetBitsetCacheTests.class));
+        DocumentSubsetBitsetCache cache = new DocumentSubsetBitsetCache(Settings.EMPTY, breaker);
+        ShardId shardId = new ShardId("index", "_na_", 0);
+        ShardId otherShardId = new ShardId("other", "_na_", 0);
+        IndexShard indexShard = mock(IndexShard.class);
+        when(indexShard.shardId()).thenReturn(shardId);
+        ShardIndexWarmerService warmerService = mock(ShardIndexWarmerService.class);
+        when(warmerService.logger()).thenReturn(LogManager.getLogger(DocumentSubsetBitsetCacheTests.class));
+        when(indexShard.warmerService()).thenReturn(warmerService);
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        try (Directory directory = newDirectory(); Directory otherDirectory = newDirectory();
+             DirectoryReader reader = ElasticsearchDirectoryReader.wrap(newReader(directory, 100), shardId);
+             DirectoryReader otherReader = ElasticsearchDirectoryReader.wrap(newReader(otherDirectory, 100), otherShardId)) {
+            IndexWarmer.Listener warmer = cache.createListener(threadPool);
+            Query roleQuery = roleQuery("selective");
+            // nothing is cached for the index yet
+            warmer.warmReader(indexShard, new Engine.Searcher("test", new IndexSearcher(reader), () -> {})).awaitTermination();
+            assertThat(cache.count(), equalTo(0));
+
+            cache.getBitSet(roleQuery, otherReader.leaves().get(0));
+            assertThat(cache.count(), equalTo(1));
+            // role queries that are only cached for other indices are not loaded
+            warmer.warmReader(indexShard, new Engine.Searcher("test", new IndexSearcher(reader), () -> {})).awaitTermination();
+            assertThat(cache.count(), equalTo(1));
+
+            cache.getBitSet(roleQuery("common"), reader.leaves().get(0));
+            assertThat(cache.count(), equalTo(2));
+            // a new segment of the index gets the bitsets of the role queries that are cached for the index
+            try (Directory newDirectory = newDirectory();
+                 DirectoryReader newReader = ElasticsearchDirectoryReader.wrap(newReader(newDirectory, 100), shardId)) {
+                warmer.warmReader(indexShard, new Engine.Searcher("test", new IndexSearcher(newReader), () -> {}))
+                    .awaitTermination();
+                assertThat(cache.count(), equalTo(3));
+                assertThat(cache.recentlyUsedQueries(shardId.getIndex(), Integer.MAX_VALUE).size(), equalTo(1));
+            }
+            assertThat(cache.count(), equalTo(2));
+        } finally {
+            terminate(threadPool);
+        }
+        assertThat(cache.count(), equalTo(0));
+        assertThat(breaker.getUsed(), equalTo(0L));
+    }
+
+    public void testWarmerOnlyLoadsMostRecentlyUsedRoleQueries() throws Exception {
+        Settings settings = Settings.builder().put(DocumentSubsetBitsetCache.WARMED_QUERIES_SETTING.getKey(), 2).build();
+        DocumentSubsetBitsetCache cache = new DocumentSubsetBitsetCache(settings, new NoopCircuitBreaker(CircuitBreaker.ACCOUNTING));
+        ShardId shardId = new ShardId("index", "_na_", 0);
+        IndexShard indexShard = mock(IndexShard.class);
+        when(indexShard.shardId()).thenReturn(shardId);
+        ShardIndexWarmerService warmerService = mock(ShardIndexWarmerService.class);
+        when(warmerService.logger()).thenReturn(LogManager.getLogger(DocumentSubsetBitsetCacheTests.class));
+        when(indexShard.warmerService()).thenReturn(warmerService);
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        try (Directory directory = newDirectory(); Directory newDirectory = newDirectory(); Directory otherDirectory = newDirectory();
+             DirectoryReader reader = ElasticsearchDirectoryReader.wrap(newReader(directory, 100), shardId);
+             DirectoryReader newReader = ElasticsearchDirectoryReader.wrap(newReader(newDirectory, 100), shardId);
+             DirectoryReader otherReader = ElasticsearchDirectoryReader.wrap(newReader(otherDirectory, 100), shardId)) {
+            IndexWarmer.Listener warmer = cache.createListener(threadPool);
+            Query first = roleQuery("selective");
+            Query second = roleQuery("common");
+            Query third = roleQuery("missing");
+            cache.getBitSet(first, reader.leaves().get(0));
+            cache.getBitSet(second, reader.leaves().get(0));
+            cache.getBitSet(third, reader.leaves().get(0));
+            assertThat(cache.recentlyUsedQueries(shardId.getIndex(), 2).keySet(), containsInAnyOrder(second, third));
+
+            // only the role queries that were used last are loaded for the new segment
+            warmer.warmReader(indexShard, new Engine.Searcher("test", new IndexSearcher(newReader), () -> {})).awaitTermination();
+            assertThat(cache.count(), equalTo(5));
+
+            // loading the bitsets of new segments is not a use of the role queries
+            cache.getBitSet(first, reader.leaves().get(0));
+            assertThat(cache.recentlyUsedQueries(shardId.getIndex(), 2).keySet(), containsInAnyOrder(first, third));
+            warmer.warmReader(indexShard, new Engine.Searcher("test", new IndexSearcher(otherReader), () -> {})).awaitTermination();
+            assertThat(cache.count(), equalTo(7));
+            cache.getBitSet(second, otherReader.leaves().get(0));
+            assertThat(cache.count(), equalTo(8));
+        } finally {
+            terminate(threadPool);
+        }
+        assertThat(cache.count(), equalTo(0));
+    }
+
+    public void testBitsetsAreAccountedInCircuitBreaker() throws Exception {
+        CircuitBreaker breaker = new MemoryCircuitBreaker(new ByteSizeValue(100), 1.0,
+            LogManager.getLogger(DocumentSubsetBitsetCacheTests.class));
+        DocumentSubsetBitsetCache cache = new DocumentSubsetBitsetCache(Settings.EMPTY, breaker);
+        Directory directory = newDirectory();
+        DirectoryReader reader = newReader(directory, 1000);
+        try {
+            expectThrows(CircuitBreakingException.class, () -> cache.getBitSet(roleQuery("common"), reader.leaves().get(0)));
+            assertThat(cache.count(), equalTo(0));
+            assertThat(breaker.getUsed(), equalTo(0L));
+        } finally {
+            IOUtils.close(reader, directory);
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.Fields;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReader;
@@ -51,8 +52,10 @@ import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MappingMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.mapper.FieldNamesFieldMapper;
@@ -734,6 +737,108 @@ public class FieldSubsetReaderTests extends ESTestCase {
         assertEquals(expected, filtered);
     }
 
+    public void testStreamingSourceFilteringDuelWithMapFiltering() throws Exception {
+        Map<String, Object> map = new HashMap<>();
+        map.put("foo", "value");
+        map.put("empty", new HashMap<>());
+        map.put("null", null);
+        Map<String, Object> subMap = new HashMap<>();
+        subMap.put("bar", 42);
+        subMap.put("baz", Arrays.asList(1, Arrays.asList(2, 3), Collections.singletonMap("qux", 4)));
+        map.put("object", subMap);
+        List<Object> values = new ArrayList<>();
+        values.add(Collections.singletonMap("foo", "1"));
+        values.add(Collections.singletonMap("baz", "2"));
+        values.add(Arrays.asList(Collections.singletonMap("baz", "3"), 5));
+        values.add(6);
+        map.put("bar", values);
+        BytesReference source = BytesReference.bytes(XContentFactory.contentBuilder(randomFrom(XContentType.values())).map(map));
+
+        for (String pattern : Arrays.asList("foo", "null", "empty", "empty.*", "object", "object.*", "*.baz", "object.baz.qux",
+                "bar", "bar.baz", "*", "missing")) {
+            CharacterRunAutomaton include = new CharacterRunAutomaton(Automatons.patterns(pattern));
+            Map<String, Object> expected = FieldSubsetReader.filter(map, include, 0);
+            BytesReference filtered = FieldSubsetReader.filter(source, include);
+            assertEquals(pattern, expected, XContentHelper.convertToMap(filtered, false).v2());
+
+            CharacterRunAutomaton exclude = new CharacterRunAutomaton(Operations.minus(
+                    Automata.makeAnyString(), Automatons.patterns(pattern),
+                    Operations.DEFAULT_MAX_DETERMINIZED_STATES));
+            expected = FieldSubsetReader.filter(map, exclude, 0);
+            filtered = FieldSubsetReader.filter(source, exclude);
+            assertEquals(pattern, expected, XContentHelper.convertToMap(filtered, false).v2());
+        }
+    }
+
+    public void testFieldProjectionsAreCachedPerSegment() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = new IndexWriterConfig(null);
+        IndexWriter iw = new IndexWriter(dir, iwc);
+
+        Document doc = new Document();
+        doc.add(new StoredField("fieldA", "testA"));
+        doc.add(new StoredField("fieldB", "testB"));
+        iw.addDocument(doc);
+
+        DirectoryReader reader = DirectoryReader.open(iw);
+        CharacterRunAutomaton filter = new CharacterRunAutomaton(Automata.makeString("fieldA"));
+        DirectoryReader ir = FieldSubsetReader.wrap(reader, filter);
+        IndexReader.CacheKey coreKey = reader.leaves().get(0).reader().getCoreCacheHelper().getKey();
+        assertEquals(1, FieldSubsetReader.PROJECTIONS_CACHE.count(coreKey));
+
+        // the same field permissions reuse the projection of the segment
+        FieldInfos infos = ir.leaves().get(0).reader().getFieldInfos();
+        DirectoryReader ir2 = FieldSubsetReader.wrap(reader, filter);
+        assertSame(infos, ir2.leaves().get(0).reader().getFieldInfos());
+        assertEquals(1, FieldSubsetReader.PROJECTIONS_CACHE.count(coreKey));
+        Document d2 = ir2.document(0);
+        assertEquals(1, d2.getFields().size());
+        assertEquals("testA", d2.get("fieldA"));
+
+        FieldSubsetReader.wrap(reader, new CharacterRunAutomaton(Automata.makeString("fieldB")));
+        assertEquals(2, FieldSubsetReader.PROJECTIONS_CACHE.count(coreKey));
+
+        // the projections are dropped with the segment
+        IOUtils.close(reader, iw, dir);
+        assertEquals(0, FieldSubsetReader.PROJECTIONS_CACHE.count(coreKey));
+    }
+
+    public void testFieldProjectionCacheIsBoundedByNumberOfFields() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = new IndexWriterConfig(null);
+        IndexWriter iw = new IndexWriter(dir, iwc);
+
+        Document doc = new Document();
+        doc.add(new StoredField("fieldA", "testA"));
+        doc.add(new StoredField("fieldB", "testB"));
+        iw.addDocument(doc);
+
+        DirectoryReader reader = DirectoryReader.open(iw);
+        LeafReader leaf = reader.leaves().get(0).reader();
+        IndexReader.CacheKey coreKey = leaf.getCoreCacheHelper().getKey();
+        // room for the projections of two sets of field permissions on a segment with two fields
+        FieldSubsetReader.ProjectionCache cache = new FieldSubsetReader.ProjectionCache(4);
+        CharacterRunAutomaton filterA = new CharacterRunAutomaton(Automata.makeString("fieldA"));
+        CharacterRunAutomaton filterB = new CharacterRunAutomaton(Automata.makeString("fieldB"));
+        CharacterRunAutomaton filterAll = new CharacterRunAutomaton(Automata.makeAnyString());
+        FieldSubsetReader.FieldProjection projectionA = cache.getProjection(leaf, filterA);
+        cache.getProjection(leaf, filterB);
+        assertEquals(2, cache.count(coreKey));
+        assertEquals(4, cache.weight());
+        assertSame(projectionA, cache.getProjection(leaf, filterA));
+
+        // the least recently used projection is evicted, together with its key of the segment
+        cache.getProjection(leaf, filterAll);
+        assertEquals(2, cache.count(coreKey));
+        assertEquals(4, cache.weight());
+        assertSame(projectionA, cache.getProjection(leaf, filterA));
+        assertEquals(2, cache.count(coreKey));
+
+        IOUtils.close(reader, iw, dir);
+        assertEquals(0, cache.count(coreKey));
+        assertEquals(0, cache.weight());
+    }
+
     /**
      * test special handling for _field_names field.
      */
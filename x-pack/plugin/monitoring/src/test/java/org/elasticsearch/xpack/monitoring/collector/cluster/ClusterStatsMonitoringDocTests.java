@@ -400,7 +400,8 @@ public class ClusterStatsMonitoringDocTests extends BaseMonitoringDocTestCase<Cl
                         + "\"miss_count\":0,"
                         + "\"cache_size\":0,"
                         + "\"cache_count\":0,"
-                        + "\"evictions\":0"
+                        + "\"evictions\":0,"
+                        + "\"admission_rejected_count\":0"
                       + "},"
                       + "\"completion\":{"
                         + "\"size_in_bytes\":0"
@@ -21,6 +21,7 @@ import org.elasticsearch.xpack.core.security.authc.support.CachingUsernamePasswo
 import org.elasticsearch.xpack.core.security.authc.support.Hasher;
 import org.elasticsearch.xpack.core.security.authc.support.UsernamePasswordToken;
 import org.elasticsearch.xpack.core.security.user.User;
+import org.elasticsearch.xpack.security.support.CacheUsageStats;
 
 import java.util.Collections;
 import java.util.Map;
@@ -31,6 +32,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public abstract class CachingUsernamePasswordRealm extends UsernamePasswordRealm implements CachingRealm {
 
     private final Cache<String, ListenableFuture<UserWithHash>> cache;
+    private final CacheUsageStats cacheStats = new CacheUsageStats();
     private final ThreadPool threadPool;
     private final boolean authenticationEnabled;
     final Hasher cacheHasher;
@@ -128,6 +130,9 @@ public abstract class CachingUsernamePasswordRealm extends UsernamePasswordRealm
             });
             if (authenticationInCache.get()) {
                 // there is a cached or an inflight authenticate request
+                if (listenableCacheEntry.isDone() == false) {
+                    cacheStats.onCoalesced();
+                }
                 listenableCacheEntry.addListener(ActionListener.wrap(authenticatedUserWithHash -> {
                     if (authenticatedUserWithHash != null && authenticatedUserWithHash.verify(token.credentials())) {
                         // cached credential hash matches the credential hash for this forestalled request
@@ -157,7 +162,9 @@ public abstract class CachingUsernamePasswordRealm extends UsernamePasswordRealm
                 }), threadPool.executor(ThreadPool.Names.GENERIC), threadPool.getThreadContext());
             } else {
                 // attempt authentication against the authentication source
+                final long startTime = System.nanoTime();
                 doAuthenticate(token, ActionListener.wrap(authResult -> {
+                    cacheStats.onLoad(startTime);
                     if (authResult.isAuthenticated() && authResult.getUser().enabled()) {
                         // compute the credential hash of this successful authentication request
                         final UserWithHash userWithHash = new UserWithHash(authResult.getUser(), token.credentials(), cacheHasher);
@@ -195,7 +202,7 @@ public abstract class CachingUsernamePasswordRealm extends UsernamePasswordRealm
     @Override
     public void usageStats(ActionListener<Map<String, Object>> listener) {
         super.usageStats(ActionListener.wrap(stats -> {
-            stats.put("cache", Collections.singletonMap("size", getCacheSize()));
+            stats.put("cache", cache == null ? Collections.singletonMap("size", 0) : cacheStats.toMap(cache));
             listener.onResponse(stats);
         }, listener::onFailure));
     }
@@ -230,7 +237,9 @@ public abstract class CachingUsernamePasswordRealm extends UsernamePasswordRealm
             });
             if (false == lookupInCache.get()) {
                 // attempt lookup against the user directory
+                final long startTime = System.nanoTime();
                 doLookupUser(username, ActionListener.wrap(user -> {
+                    cacheStats.onLoad(startTime);
                     if (user != null) {
                         // user found
                         final UserWithHash userWithHash = new UserWithHash(user, null, null);
@@ -249,6 +258,8 @@ public abstract class CachingUsernamePasswordRealm extends UsernamePasswordRealm
                     // notify forestalled listeners
                     listenableCacheEntry.onFailure(e);
                 }));
+            } else if (listenableCacheEntry.isDone() == false) {
+                cacheStats.onCoalesced();
             }
             listenableCacheEntry.addListener(ActionListener.wrap(userWithHash -> {
                 if (userWithHash != null) {
@@ -102,6 +102,7 @@ public class AuthorizationService extends AbstractComponent {
     private final ThreadContext threadContext;
     private final AnonymousUser anonymousUser;
     private final FieldPermissionsCache fieldPermissionsCache;
+    private final AuthorizedIndicesCache authorizedIndicesCache;
     private final boolean isAnonymousEnabled;
     private final boolean anonymousAuthzExceptionEnabled;
 
@@ -119,6 +120,7 @@ public class AuthorizationService extends AbstractComponent {
         this.isAnonymousEnabled = AnonymousUser.isAnonymousEnabled(settings);
         this.anonymousAuthzExceptionEnabled = ANONYMOUS_AUTHORIZATION_EXCEPTION_SETTING.get(settings);
         this.fieldPermissionsCache = new FieldPermissionsCache(settings);
+        this.authorizedIndicesCache = new AuthorizedIndicesCache(settings);
     }
 
     /**
@@ -272,7 +274,8 @@ public class AuthorizationService extends AbstractComponent {
         }
 
         final MetaData metaData = clusterService.state().metaData();
-        final AuthorizedIndices authorizedIndices = new AuthorizedIndices(authentication.getUser(), permission, action, metaData);
+        final AuthorizedIndices authorizedIndices = new AuthorizedIndices(authentication.getUser(), permission, action, metaData,
+            authorizedIndicesCache);
         final ResolvedIndices resolvedIndices = resolveIndexNames(authentication, action, request,
                 metaData, authorizedIndices, permission);
         assert !resolvedIndices.isEmpty()
@@ -586,5 +589,6 @@ public class AuthorizationService extends AbstractComponent {
 
     public static void addSettings(List<Setting<?>> settings) {
         settings.add(ANONYMOUS_AUTHORIZATION_EXCEPTION_SETTING);
+        settings.add(AuthorizedIndicesCache.CACHE_SIZE_SETTING);
     }
 }
@@ -7,6 +7,8 @@ package org.elasticsearch.xpack.security.authz;
 
 import org.elasticsearch.cluster.metadata.AliasOrIndex;
 import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.xpack.core.security.authz.permission.Role;
 import org.elasticsearch.xpack.core.security.user.User;
 import org.elasticsearch.xpack.security.support.SecurityIndexManager;
@@ -22,33 +24,82 @@ import static org.elasticsearch.xpack.security.authz.AuthorizationService.isSupe
 /**
  * Abstraction used to make sure that we lazily load authorized indices only when requested and only maximum once per request. Also
  * makes sure that authorized indices don't get updated throughout the same request for the same user.
+ * The authorized indices are sorted, so that names and prefix wildcards can be looked up without scanning all of them.
  */
 class AuthorizedIndices {
     private final User user;
     private final String action;
     private final MetaData metaData;
     private final Role userRoles;
+    @Nullable
+    private final AuthorizedIndicesCache cache;
     private List<String> authorizedIndices;
 
     AuthorizedIndices(User user, Role userRoles, String action, MetaData metaData) {
+        this(user, userRoles, action, metaData, null);
+    }
+
+    AuthorizedIndices(User user, Role userRoles, String action, MetaData metaData, @Nullable AuthorizedIndicesCache cache) {
         this.user = user;
         this.userRoles = userRoles;
         this.action = action;
         this.metaData = metaData;
+        this.cache = cache;
     }
 
     List<String> get() {
         if (authorizedIndices == null) {
-            authorizedIndices = load();
+            if (cache == null) {
+                authorizedIndices = load();
+            } else {
+                authorizedIndices = cache.get(userRoles, action, isSuperuser(user), metaData, this::load);
+            }
         }
         return authorizedIndices;
     }
 
+    /**
+     * Returns whether the given index or alias is authorized
+     */
+    boolean contains(String aliasOrIndex) {
+        return Collections.binarySearch(get(), aliasOrIndex) >= 0;
+    }
+
+    /**
+     * Returns the authorized indices and aliases that match the given wildcard expression. Expressions that only end with a
+     * wildcard are resolved to a range of the sorted authorized indices, other expressions are matched against all of them.
+     */
+    List<String> match(String expression) {
+        final List<String> indices = get();
+        final int firstWildcard = expression.indexOf('*');
+        if (firstWildcard == expression.length() - 1) {
+            final String prefix = expression.substring(0, firstWildcard);
+            final int from = insertionPoint(indices, prefix);
+            int to = from;
+            while (to < indices.size() && indices.get(to).startsWith(prefix)) {
+                to++;
+            }
+            return indices.subList(from, to);
+        }
+        final List<String> matches = new ArrayList<>();
+        for (String aliasOrIndex : indices) {
+            if (Regex.simpleMatch(expression, aliasOrIndex)) {
+                matches.add(aliasOrIndex);
+            }
+        }
+        return matches;
+    }
+
+    private static int insertionPoint(List<String> indices, String key) {
+        final int position = Collections.binarySearch(indices, key);
+        return position >= 0 ? position : -position - 1;
+    }
+
     private List<String> load() {
         Predicate<String> predicate = userRoles.indices().allowedIndicesMatcher(action);
 
         List<String> indicesAndAliases = new ArrayList<>();
-        // TODO: can this be done smarter? I think there are usually more indices/aliases in the cluster then indices defined a roles?
+        // the lookup is sorted, so the authorized indices and aliases are sorted too
         for (Map.Entry<String, AliasOrIndex> entry : metaData.getAliasAndIndexLookup().entrySet()) {
             String aliasOrIndex = entry.getKey();
             if (predicate.test(aliasOrIndex)) {
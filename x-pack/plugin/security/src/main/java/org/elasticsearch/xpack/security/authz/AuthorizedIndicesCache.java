@@ -0,0 +1,105 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.security.authz;
+
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.xpack.core.security.authz.permission.Role;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import static org.elasticsearch.xpack.core.security.SecurityField.setting;
+
+/**
+ * Caches the authorized indices and aliases of a role for an action, so that they are not computed from all the indices and
+ * aliases of the cluster on every request. Roles are compared by identity, which works because the roles store caches the
+ * role of each set of role names. Cached indices are only used for metadata of the same cluster and with the same version
+ * as the metadata they were computed from, so they are recomputed when the metadata changes. The metadata itself is not
+ * retained.
+ */
+final class AuthorizedIndicesCache {
+
+    static final Setting<Integer> CACHE_SIZE_SETTING =
+        Setting.intSetting(setting("authz.authorized_indices.cache.max_size"), 1000, 0, Property.NodeScope);
+
+    private final Cache<Key, Entry> cache;
+
+    AuthorizedIndicesCache(Settings settings) {
+        final int cacheSize = CACHE_SIZE_SETTING.get(settings);
+        this.cache = cacheSize == 0 ? null : CacheBuilder.<Key, Entry>builder().setMaximumWeight(cacheSize).build();
+    }
+
+    /**
+     * Returns the cached authorized indices of the given role and action if they were computed from the given metadata, or
+     * loads and caches them otherwise.
+     */
+    List<String> get(Role role, String action, boolean superuser, MetaData metaData, Supplier<List<String>> loader) {
+        if (cache == null) {
+            return loader.get();
+        }
+        final Key key = new Key(role, action, superuser);
+        Entry entry = cache.get(key);
+        if (entry == null || entry.isFor(metaData) == false) {
+            entry = new Entry(metaData.clusterUUID(), metaData.version(), loader.get());
+            cache.put(key, entry);
+        }
+        return entry.indices;
+    }
+
+    // for testing only
+    int count() {
+        return cache == null ? 0 : cache.count();
+    }
+
+    private static final class Key {
+
+        private final Role role;
+        private final String action;
+        private final boolean superuser;
+
+        Key(Role role, String action, boolean superuser) {
+            this.role = role;
+            this.action = action;
+            this.superuser = superuser;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return role == key.role && superuser == key.superuser && action.equals(key.action);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(role), action, superuser);
+        }
+    }
+
+    private static final class Entry {
+
+        private final String clusterUUID;
+        private final long metaDataVersion;
+        private final List<String> indices;
+
+        Entry(String clusterUUID, long metaDataVersion, List<String> indices) {
+            this.clusterUUID = clusterUUID;
+            this.metaDataVersion = metaDataVersion;
+            this.indices = indices;
+        }
+
+        boolean isFor(MetaData metaData) {
+            return metaDataVersion == metaData.version() && clusterUUID.equals(metaData.clusterUUID());
+        }
+    }
+}
@@ -151,11 +151,11 @@ class IndicesAndAliasesResolver {
                     split = new ResolvedIndices(Arrays.asList(indicesRequest.indices()), Collections.emptyList());
                 }
                 List<String> replaced = replaceWildcardsWithAuthorizedIndices(split.getLocal(), indicesOptions, metaData,
-                        authorizedIndices.get(), replaceWildcards);
+                        authorizedIndices, replaceWildcards);
                 if (indicesOptions.ignoreUnavailable()) {
                     //out of all the explicit names (expanded from wildcards and original ones that were left untouched)
                     //remove all the ones that the current user is not authorized for and ignore them
-                    replaced = replaced.stream().filter(authorizedIndices.get()::contains).collect(Collectors.toList());
+                    replaced = replaced.stream().filter(authorizedIndices::contains).collect(Collectors.toList());
                 }
                 resolvedIndicesBuilder.addLocal(replaced);
                 resolvedIndicesBuilder.addRemote(split.getRemote());
@@ -224,7 +224,6 @@ class IndicesAndAliasesResolver {
      */
     static String getPutMappingIndexOrAlias(PutMappingRequest request, AuthorizedIndices authorizedIndices, MetaData metaData) {
         final String concreteIndexName = request.getConcreteIndex().getName();
-        final List<String> authorizedIndicesList = authorizedIndices.get();
 
         // validate that the concrete index exists, otherwise there is no remapping that we could do
         final AliasOrIndex aliasOrIndex = metaData.getAliasAndIndexLookup().get(concreteIndexName);
@@ -233,7 +232,7 @@ class IndicesAndAliasesResolver {
             resolvedAliasOrIndex = concreteIndexName;
         } else if (aliasOrIndex.isAlias()) {
             throw new IllegalStateException("concrete index [" + concreteIndexName + "] is an alias but should not be");
-        } else if (authorizedIndicesList.contains(concreteIndexName)) {
+        } else if (authorizedIndices.contains(concreteIndexName)) {
             // user is authorized to put mappings for this index
             resolvedAliasOrIndex = concreteIndexName;
         } else {
@@ -245,7 +244,7 @@ class IndicesAndAliasesResolver {
             if (aliasMetaData != null) {
                 Optional<String> foundAlias = aliasMetaData.stream()
                     .map(AliasMetaData::alias)
-                    .filter(authorizedIndicesList::contains)
+                    .filter(authorizedIndices::contains)
                     .filter(aliasName -> metaData.getAliasAndIndexLookup().get(aliasName).getIndices().size() == 1)
                     .findFirst();
                 resolvedAliasOrIndex = foundAlias.orElse(concreteIndexName);
@@ -335,7 +334,7 @@ class IndicesAndAliasesResolver {
 
     //TODO Investigate reusing code from vanilla es to resolve index names and wildcards
     private List<String> replaceWildcardsWithAuthorizedIndices(Iterable<String> indices, IndicesOptions indicesOptions, MetaData metaData,
-                                                               List<String> authorizedIndices, boolean replaceWildcards) {
+                                                               AuthorizedIndices authorizedIndices, boolean replaceWildcards) {
         //the order matters when it comes to exclusions
         List<String> finalIndices = new ArrayList<>();
         boolean wildcardSeen = false;
@@ -372,8 +371,8 @@ class IndicesAndAliasesResolver {
             if (replaceWildcards && Regex.isSimpleMatchPattern(aliasOrIndex)) {
                 wildcardSeen = true;
                 Set<String> resolvedIndices = new HashSet<>();
-                for (String authorizedIndex : authorizedIndices) {
-                    if (Regex.simpleMatch(aliasOrIndex, authorizedIndex) && isIndexVisible(authorizedIndex, indicesOptions, metaData)) {
+                for (String authorizedIndex : authorizedIndices.match(aliasOrIndex)) {
+                    if (isIndexVisible(authorizedIndex, indicesOptions, metaData)) {
                         resolvedIndices.add(authorizedIndex);
                     }
                 }
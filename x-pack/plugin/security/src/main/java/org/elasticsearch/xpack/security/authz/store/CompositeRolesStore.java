@@ -19,10 +19,13 @@ import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
 import org.elasticsearch.common.util.concurrent.ReleasableLock;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.license.XPackLicenseState;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.xpack.core.common.IteratingActionListener;
 import org.elasticsearch.xpack.core.security.authz.RoleDescriptor;
 import org.elasticsearch.xpack.core.security.authz.RoleDescriptor.IndicesPrivileges;
@@ -36,6 +39,7 @@ import org.elasticsearch.xpack.core.security.authz.privilege.IndexPrivilege;
 import org.elasticsearch.xpack.core.security.authz.privilege.Privilege;
 import org.elasticsearch.xpack.core.security.authz.store.ReservedRolesStore;
 import org.elasticsearch.xpack.core.security.authz.store.RoleRetrievalResult;
+import org.elasticsearch.xpack.security.support.CacheUsageStats;
 import org.elasticsearch.xpack.security.support.SecurityIndexManager;
 
 import java.util.ArrayList;
@@ -49,6 +53,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -91,6 +96,10 @@ public class CompositeRolesStore extends AbstractComponent {
     private final XPackLicenseState licenseState;
     private final Cache<Set<String>, Role> roleCache;
     private final Cache<String, Boolean> negativeLookupCache;
+    // the roles that are being loaded, so that concurrent requests for the same roles share a single load
+    private final Map<Set<String>, ListenableFuture<Role>> loadingRoles = new ConcurrentHashMap<>();
+    private final CacheUsageStats roleCacheStats = new CacheUsageStats();
+    private final ThreadPool threadPool;
     private final ThreadContext threadContext;
     private final AtomicLong numInvalidation = new AtomicLong();
     private final List<BiConsumer<Set<String>, ActionListener<RoleRetrievalResult>>> builtInRoleProviders;
@@ -99,7 +108,7 @@ public class CompositeRolesStore extends AbstractComponent {
     public CompositeRolesStore(Settings settings, FileRolesStore fileRolesStore, NativeRolesStore nativeRolesStore,
                                ReservedRolesStore reservedRolesStore, NativePrivilegeStore privilegeStore,
                                List<BiConsumer<Set<String>, ActionListener<RoleRetrievalResult>>> rolesProviders,
-                               ThreadContext threadContext, XPackLicenseState licenseState) {
+                               ThreadPool threadPool, XPackLicenseState licenseState) {
         super(settings);
         this.fileRolesStore = fileRolesStore;
         fileRolesStore.addListener(this::invalidate);
@@ -112,7 +121,8 @@ public class CompositeRolesStore extends AbstractComponent {
             builder.setMaximumWeight(cacheSize);
         }
         this.roleCache = builder.build();
-        this.threadContext = threadContext;
+        this.threadPool = threadPool;
+        this.threadContext = threadPool.getThreadContext();
         CacheBuilder<String, Boolean> nlcBuilder = CacheBuilder.builder();
         final int nlcCacheSize = NEGATIVE_LOOKUP_CACHE_SIZE_SETTING.get(settings);
         if (nlcCacheSize >= 0) {
@@ -135,48 +145,78 @@ public class CompositeRolesStore extends AbstractComponent {
         Role existing = roleCache.get(roleNames);
         if (existing != null) {
             roleActionListener.onResponse(existing);
+            return;
+        }
+        final ListenableFuture<Role> loadingRole = new ListenableFuture<>();
+        final ListenableFuture<Role> inflightRole = loadingRoles.putIfAbsent(roleNames, loadingRole);
+        if (inflightRole != null) {
+            // another request is loading the same roles already, wait for it instead of loading them again. The waiting
+            // requests are forked so that they don't run one after the other on the thread that completes the load
+            roleCacheStats.onCoalesced();
+            inflightRole.addListener(roleActionListener, threadPool.executor(ThreadPool.Names.GENERIC), threadContext);
         } else {
-            final long invalidationCounter = numInvalidation.get();
-            roleDescriptors(roleNames, ActionListener.wrap(
-                    rolesRetrievalResult -> {
-                        final boolean missingRoles = rolesRetrievalResult.getMissingRoles().isEmpty() == false;
-                        if (missingRoles) {
-                            logger.debug("Could not find roles with names {}", rolesRetrievalResult.getMissingRoles());
-                        }
+            loadingRole.addListener(roleActionListener, EsExecutors.newDirectExecutorService(), threadContext);
+            final long startTime = System.nanoTime();
+            try {
+                buildRole(roleNames, fieldPermissionsCache, ActionListener.wrap(role -> {
+                    roleCacheStats.onLoad(startTime);
+                    loadingRoles.remove(roleNames, loadingRole);
+                    loadingRole.onResponse(role);
+                }, e -> {
+                    loadingRoles.remove(roleNames, loadingRole);
+                    loadingRole.onFailure(e);
+                }));
+            } catch (Exception e) {
+                // the load failed before it could notify the listener, the waiting requests must not wait for it forever
+                loadingRoles.remove(roleNames, loadingRole);
+                if (loadingRole.isDone() == false) {
+                    loadingRole.onFailure(e);
+                }
+            }
+        }
+    }
 
-                        final Set<RoleDescriptor> effectiveDescriptors;
-                        if (licenseState.isDocumentAndFieldLevelSecurityAllowed()) {
-                            effectiveDescriptors = rolesRetrievalResult.getRoleDescriptors();
-                        } else {
-                            effectiveDescriptors = rolesRetrievalResult.getRoleDescriptors().stream()
-                                    .filter((rd) -> rd.isUsingDocumentOrFieldLevelSecurity() == false)
-                                    .collect(Collectors.toSet());
-                        }
-                        logger.trace("Building role from descriptors [{}] for names [{}]", effectiveDescriptors, roleNames);
-                        buildRoleFromDescriptors(effectiveDescriptors, fieldPermissionsCache, privilegeStore, ActionListener.wrap(role -> {
-                            if (role != null && rolesRetrievalResult.isSuccess()) {
-                                try (ReleasableLock ignored = readLock.acquire()) {
-                                    /* this is kinda spooky. We use a read/write lock to ensure we don't modify the cache if we hold
-                                     * the write lock (fetching stats for instance - which is kinda overkill?) but since we fetching
-                                     * stuff in an async fashion we need to make sure that if the cache got invalidated since we
-                                     * started the request we don't put a potential stale result in the cache, hence the
-                                     * numInvalidation.get() comparison to the number of invalidation when we started. we just try to
-                                     * be on the safe side and don't cache potentially stale results
-                                     */
-                                    if (invalidationCounter == numInvalidation.get()) {
-                                        roleCache.computeIfAbsent(roleNames, (s) -> role);
-                                    }
-                                }
+    private void buildRole(Set<String> roleNames, FieldPermissionsCache fieldPermissionsCache, ActionListener<Role> roleActionListener) {
+        final long invalidationCounter = numInvalidation.get();
+        roleDescriptors(roleNames, ActionListener.wrap(
+                rolesRetrievalResult -> {
+                    final boolean missingRoles = rolesRetrievalResult.getMissingRoles().isEmpty() == false;
+                    if (missingRoles) {
+                        logger.debug("Could not find roles with names {}", rolesRetrievalResult.getMissingRoles());
+                    }
 
-                                for (String missingRole : rolesRetrievalResult.getMissingRoles()) {
-                                    negativeLookupCache.computeIfAbsent(missingRole, s -> Boolean.TRUE);
+                    final Set<RoleDescriptor> effectiveDescriptors;
+                    if (licenseState.isDocumentAndFieldLevelSecurityAllowed()) {
+                        effectiveDescriptors = rolesRetrievalResult.getRoleDescriptors();
+                    } else {
+                        effectiveDescriptors = rolesRetrievalResult.getRoleDescriptors().stream()
+                                .filter((rd) -> rd.isUsingDocumentOrFieldLevelSecurity() == false)
+                                .collect(Collectors.toSet());
+                    }
+                    logger.trace("Building role from descriptors [{}] for names [{}]", effectiveDescriptors, roleNames);
+                    buildRoleFromDescriptors(effectiveDescriptors, fieldPermissionsCache, privilegeStore, ActionListener.wrap(role -> {
+                        if (role != null && rolesRetrievalResult.isSuccess()) {
+                            try (ReleasableLock ignored = readLock.acquire()) {
+                                /* this is kinda spooky. We use a read/write lock to ensure we don't modify the cache if we hold
+                                 * the write lock (fetching stats for instance - which is kinda overkill?) but since we fetching
+                                 * stuff in an async fashion we need to make sure that if the cache got invalidated since we
+                                 * started the request we don't put a potential stale result in the cache, hence the
+                                 * numInvalidation.get() comparison to the number of invalidation when we started. we just try to
+                                 * be on the safe side and don't cache potentially stale results
+                                 */
+                                if (invalidationCounter == numInvalidation.get()) {
+                                    roleCache.computeIfAbsent(roleNames, (s) -> role);
                                 }
                             }
-                            roleActionListener.onResponse(role);
-                        }, roleActionListener::onFailure));
-                    },
-                    roleActionListener::onFailure));
-        }
+
+                            for (String missingRole : rolesRetrievalResult.getMissingRoles()) {
+                                negativeLookupCache.computeIfAbsent(missingRole, s -> Boolean.TRUE);
+                            }
+                        }
+                        roleActionListener.onResponse(role);
+                    }, roleActionListener::onFailure));
+                },
+                roleActionListener::onFailure));
     }
 
     private void roleDescriptors(Set<String> roleNames, ActionListener<RolesRetrievalResult> rolesResultListener) {
@@ -318,6 +358,8 @@ public class CompositeRolesStore extends AbstractComponent {
 
     public void invalidateAll() {
         numInvalidation.incrementAndGet();
+        // requests that come in after the invalidation must not wait for loads that might return stale roles
+        loadingRoles.clear();
         negativeLookupCache.invalidateAll();
         try (ReleasableLock ignored = readLock.acquire()) {
             roleCache.invalidateAll();
@@ -337,6 +379,7 @@ public class CompositeRolesStore extends AbstractComponent {
                 }
             }
         }
+        loadingRoles.keySet().removeIf(key -> key.contains(role));
         negativeLookupCache.invalidate(role);
     }
 
@@ -353,13 +396,16 @@ public class CompositeRolesStore extends AbstractComponent {
                 }
             }
         }
+        loadingRoles.keySet().removeIf(key -> Sets.haveEmptyIntersection(key, roles) == false);
 
         roles.forEach(negativeLookupCache::invalidate);
     }
 
     public void usageStats(ActionListener<Map<String, Object>> listener) {
-        final Map<String, Object> usage = new HashMap<>(2);
+        final Map<String, Object> usage = new HashMap<>(4);
         usage.put("file", fileRolesStore.usageStats());
+        usage.put("cache", roleCacheStats.toMap(roleCache));
+        usage.put("negative_lookup_cache", CacheUsageStats.toMapWithoutLoads(negativeLookupCache));
         nativeRolesStore.usageStats(ActionListener.wrap(map -> {
             usage.put("native", map);
             listener.onResponse(usage);
@@ -0,0 +1,57 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.security.support;
+
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.metrics.MeanMetric;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the loads of a security cache, so that they can be reported together with the hits, misses and evictions of the
+ * cache in the usage stats. Requests that wait for the in-flight load of another request instead of loading the same entry
+ * again are counted as coalesced.
+ */
+public final class CacheUsageStats {
+
+    private final MeanMetric loads = new MeanMetric();
+    private final CounterMetric coalesced = new CounterMetric();
+
+    /**
+     * Records a load that started at the given {@link System#nanoTime()}
+     */
+    public void onLoad(long startTimeInNanos) {
+        loads.inc(Math.max(0L, System.nanoTime() - startTimeInNanos));
+    }
+
+    public void onCoalesced() {
+        coalesced.inc();
+    }
+
+    public Map<String, Object> toMap(Cache<?, ?> cache) {
+        final Map<String, Object> stats = toMapWithoutLoads(cache);
+        stats.put("loads", loads.count());
+        stats.put("load_time_in_millis", TimeUnit.NANOSECONDS.toMillis(loads.sum()));
+        stats.put("coalesced", coalesced.count());
+        return stats;
+    }
+
+    /**
+     * The size, hits, misses and evictions of a cache whose entries are not loaded through a {@link CacheUsageStats}
+     */
+    public static Map<String, Object> toMapWithoutLoads(Cache<?, ?> cache) {
+        final Map<String, Object> stats = new HashMap<>();
+        final Cache.CacheStats cacheStats = cache.stats();
+        stats.put("size", cache.count());
+        stats.put("hits", cacheStats.getHits());
+        stats.put("misses", cacheStats.getMisses());
+        stats.put("evictions", cacheStats.getEvictions());
+        return stats;
+    }
+}
@@ -30,15 +30,18 @@ import org.junit.Before;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.Collections.emptyMap;
 import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
@@ -567,6 +570,71 @@ public class CachingUsernamePasswordRealmTests extends ESTestCase {
         assertEquals(1, lookupCounter.get());
     }
 
+    @SuppressWarnings("unchecked")
+    public void testUsageStatsCountLoadsAndCoalescedRequests() throws Exception {
+        final List<ActionListener<AuthenticationResult>> pendingAuthentications = new ArrayList<>();
+        final List<ActionListener<User>> pendingLookups = new ArrayList<>();
+        RealmConfig config = new RealmConfig("test_realm", Settings.EMPTY, globalSettings, TestEnvironment.newEnvironment(globalSettings),
+                new ThreadContext(Settings.EMPTY));
+        final CachingUsernamePasswordRealm realm = new CachingUsernamePasswordRealm("test", config, threadPool) {
+            @Override
+            protected void doAuthenticate(UsernamePasswordToken token, ActionListener<AuthenticationResult> listener) {
+                pendingAuthentications.add(listener);
+            }
+
+            @Override
+            protected void doLookupUser(String username, ActionListener<User> listener) {
+                pendingLookups.add(listener);
+            }
+        };
+
+        PlainActionFuture<Map<String, Object>> statsFuture = new PlainActionFuture<>();
+        realm.usageStats(statsFuture);
+        Map<String, Object> cacheStats = (Map<String, Object>) statsFuture.get().get("cache");
+        assertThat(cacheStats.keySet(), containsInAnyOrder("size", "hits", "misses", "evictions", "loads", "load_time_in_millis",
+                "coalesced"));
+        assertThat(cacheStats.get("size"), is(0));
+        assertThat(cacheStats.get("loads"), is(0L));
+        assertThat(cacheStats.get("coalesced"), is(0L));
+
+        // the second request for the same user waits for the load of the first one
+        final SecureString password = new SecureString("pass");
+        PlainActionFuture<AuthenticationResult> first = new PlainActionFuture<>();
+        realm.authenticate(new UsernamePasswordToken("a", password), first);
+        PlainActionFuture<AuthenticationResult> second = new PlainActionFuture<>();
+        realm.authenticate(new UsernamePasswordToken("a", password), second);
+        PlainActionFuture<User> firstLookup = new PlainActionFuture<>();
+        realm.lookupUser("b", firstLookup);
+        PlainActionFuture<User> secondLookup = new PlainActionFuture<>();
+        realm.lookupUser("b", secondLookup);
+        assertThat(pendingAuthentications.size(), is(1));
+        assertThat(pendingLookups.size(), is(1));
+
+        pendingAuthentications.get(0).onResponse(AuthenticationResult.success(new User("a", "r1")));
+        pendingLookups.get(0).onResponse(new User("b", "r1"));
+        assertThat(first.get().isAuthenticated(), is(true));
+        assertThat(second.get().isAuthenticated(), is(true));
+        assertThat(firstLookup.get().principal(), is("b"));
+        assertThat(secondLookup.get().principal(), is("b"));
+
+        // a completed entry is a plain cache hit
+        PlainActionFuture<AuthenticationResult> third = new PlainActionFuture<>();
+        realm.authenticate(new UsernamePasswordToken("a", password), third);
+        assertThat(third.get().isAuthenticated(), is(true));
+        assertThat(pendingAuthentications.size(), is(1));
+
+        statsFuture = new PlainActionFuture<>();
+        realm.usageStats(statsFuture);
+        cacheStats = (Map<String, Object>) statsFuture.get().get("cache");
+        assertThat(cacheStats.get("size"), is(2));
+        assertThat(cacheStats.get("hits"), is(3L));
+        assertThat(cacheStats.get("misses"), is(2L));
+        assertThat(cacheStats.get("evictions"), is(0L));
+        assertThat(cacheStats.get("loads"), is(2L));
+        assertThat(cacheStats.get("coalesced"), is(2L));
+        assertThat((Long) cacheStats.get("load_time_in_millis"), greaterThanOrEqualTo(0L));
+    }
+
     public void testAuthenticateDisabled() throws Exception {
         final Settings settings = Settings.builder()
             .put(CachingUsernamePasswordRealmSettings.AUTHC_ENABLED_SETTING.getKey(), false)
@@ -27,7 +27,12 @@ import org.elasticsearch.xpack.security.support.SecurityIndexManager;
 import java.util.List;
 import java.util.Set;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 
 public class AuthorizedIndicesTests extends ESTestCase {
 
@@ -109,4 +114,63 @@ public class AuthorizedIndicesTests extends ESTestCase {
         List<String> list = authorizedIndices.get();
         assertThat(list, containsInAnyOrder("an-index", "another-index", SecurityIndexManager.SECURITY_INDEX_NAME));
     }
+
+    public void testMatchAndContains() {
+        User user = new User("test user", "role");
+        Role role = Role.builder("role").add(IndexPrivilege.ALL, "logs-*", "metrics").build();
+        Settings indexSettings = Settings.builder().put("index.version.created", Version.CURRENT).build();
+        MetaData.Builder builder = MetaData.builder();
+        for (String index : new String[] { "logs-2", "logs-1", "logs", "metrics", "metrics-1", "other" }) {
+            builder.put(new IndexMetaData.Builder(index).settings(indexSettings).numberOfShards(1).numberOfReplicas(0).build(), true);
+        }
+        AuthorizedIndices authorizedIndices = new AuthorizedIndices(user, role, SearchAction.NAME, builder.build());
+        assertThat(authorizedIndices.get(), contains("logs-1", "logs-2", "metrics"));
+        assertTrue(authorizedIndices.contains("logs-1"));
+        assertFalse(authorizedIndices.contains("logs"));
+        assertFalse(authorizedIndices.contains("other"));
+        assertThat(authorizedIndices.match("logs-*"), contains("logs-1", "logs-2"));
+        assertThat(authorizedIndices.match("log*"), contains("logs-1", "logs-2"));
+        assertThat(authorizedIndices.match("*"), contains("logs-1", "logs-2", "metrics"));
+        assertThat(authorizedIndices.match("*-2"), contains("logs-2"));
+        assertThat(authorizedIndices.match("l*s"), empty());
+        assertThat(authorizedIndices.match("z*"), empty());
+    }
+
+    public void testAuthorizedIndicesAreCachedPerMetaDataVersion() {
+        User user = new User("test user", "role");
+        Role role = Role.builder("role").add(IndexPrivilege.ALL, "*").build();
+        Settings indexSettings = Settings.builder().put("index.version.created", Version.CURRENT).build();
+        MetaData metaData = MetaData.builder()
+                .put(new IndexMetaData.Builder("an-index").settings(indexSettings).numberOfShards(1).numberOfReplicas(0).build(), true)
+                .build();
+        AuthorizedIndicesCache cache = new AuthorizedIndicesCache(Settings.EMPTY);
+
+        List<String> list = new AuthorizedIndices(user, role, SearchAction.NAME, metaData, cache).get();
+        assertThat(list, contains("an-index"));
+        assertThat(new AuthorizedIndices(user, role, SearchAction.NAME, metaData, cache).get(), sameInstance(list));
+        assertThat(cache.count(), equalTo(1));
+        // an equal copy of the metadata, as received with a later cluster state that didn't change the metadata, hits the cache
+        assertThat(new AuthorizedIndices(user, role, SearchAction.NAME, MetaData.builder(metaData).build(), cache).get(),
+                sameInstance(list));
+
+        // other actions and roles are cached separately
+        Role otherRole = Role.builder("other_role").add(IndexPrivilege.ALL, "*").build();
+        assertThat(new AuthorizedIndices(user, otherRole, SearchAction.NAME, metaData, cache).get(), not(sameInstance(list)));
+        assertThat(new AuthorizedIndices(user, role, "indices:data/read/get", metaData, cache).get(), not(sameInstance(list)));
+        assertThat(cache.count(), equalTo(3));
+
+        // a metadata change, which comes with a new metadata version, recomputes the authorized indices
+        MetaData newMetaData = MetaData.builder(metaData)
+                .version(metaData.version() + 1)
+                .put(new IndexMetaData.Builder("another-index").settings(indexSettings).numberOfShards(1).numberOfReplicas(0).build(), true)
+                .build();
+        assertThat(new AuthorizedIndices(user, role, SearchAction.NAME, newMetaData, cache).get(),
+                contains("an-index", "another-index"));
+        assertThat(cache.count(), equalTo(3));
+
+        AuthorizedIndicesCache disabledCache = new AuthorizedIndicesCache(
+                Settings.builder().put(AuthorizedIndicesCache.CACHE_SIZE_SETTING.getKey(), 0).build());
+        assertThat(new AuthorizedIndices(user, role, SearchAction.NAME, metaData, disabledCache).get(), contains("an-index"));
+        assertThat(disabledCache.count(), equalTo(0));
+    }
 }
@@ -17,7 +17,6 @@ import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.settings.Settings;
-import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
@@ -26,6 +25,8 @@ import org.elasticsearch.license.License.OperationMode;
 import org.elasticsearch.license.TestUtils.UpdatableLicenseState;
 import org.elasticsearch.license.XPackLicenseState;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportRequest;
 import org.elasticsearch.xpack.core.XPackSettings;
 import org.elasticsearch.xpack.core.security.action.saml.SamlAuthenticateAction;
@@ -43,6 +44,8 @@ import org.elasticsearch.xpack.core.security.authz.privilege.IndexPrivilege;
 import org.elasticsearch.xpack.core.security.authz.store.ReservedRolesStore;
 import org.elasticsearch.xpack.core.security.authz.store.RoleRetrievalResult;
 import org.elasticsearch.xpack.security.support.SecurityIndexManager;
+import org.junit.After;
+import org.junit.Before;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -53,6 +56,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -61,13 +65,18 @@ import java.util.function.Predicate;
 import static org.elasticsearch.mock.orig.Mockito.times;
 import static org.elasticsearch.mock.orig.Mockito.verifyNoMoreInteractions;
 import static org.hamcrest.Matchers.anyOf;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anySetOf;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
@@ -79,6 +88,18 @@ public class CompositeRolesStoreTests extends ESTestCase {
             .put(XPackSettings.SECURITY_ENABLED.getKey(), true)
             .build();
 
+    private ThreadPool threadPool;
+
+    @Before
+    public void createThreadPool() {
+        threadPool = new TestThreadPool(getTestName());
+    }
+
+    @After
+    public void terminateThreadPool() {
+        terminate(threadPool);
+    }
+
     public void testRolesWhenDlsFlsUnlicensed() throws IOException {
         XPackLicenseState licenseState = mock(XPackLicenseState.class);
         when(licenseState.isDocumentAndFieldLevelSecurityAllowed()).thenReturn(false);
@@ -126,7 +147,7 @@ public class CompositeRolesStoreTests extends ESTestCase {
         when(fileRolesStore.roleDescriptors(Collections.singleton("no_fls_dls"))).thenReturn(Collections.singleton(noFlsDlsRole));
         CompositeRolesStore compositeRolesStore = new CompositeRolesStore(Settings.EMPTY, fileRolesStore, nativeRolesStore,
                 reservedRolesStore, mock(NativePrivilegeStore.class), Collections.emptyList(),
-                new ThreadContext(Settings.EMPTY), licenseState);
+                threadPool, licenseState);
 
         FieldPermissionsCache fieldPermissionsCache = new FieldPermissionsCache(Settings.EMPTY);
         PlainActionFuture<Role> roleFuture = new PlainActionFuture<>();
@@ -192,7 +213,7 @@ public class CompositeRolesStoreTests extends ESTestCase {
         when(fileRolesStore.roleDescriptors(Collections.singleton("no_fls_dls"))).thenReturn(Collections.singleton(noFlsDlsRole));
         CompositeRolesStore compositeRolesStore = new CompositeRolesStore(Settings.EMPTY, fileRolesStore, nativeRolesStore,
                 reservedRolesStore, mock(NativePrivilegeStore.class), Collections.emptyList(),
-                new ThreadContext(Settings.EMPTY), licenseState);
+                threadPool, licenseState);
 
         FieldPermissionsCache fieldPermissionsCache = new FieldPermissionsCache(Settings.EMPTY);
         PlainActionFuture<Role> roleFuture = new PlainActionFuture<>();
@@ -227,7 +248,7 @@ public class CompositeRolesStoreTests extends ESTestCase {
 
         final CompositeRolesStore compositeRolesStore =
                 new CompositeRolesStore(SECURITY_ENABLED_SETTINGS, fileRolesStore, nativeRolesStore, reservedRolesStore,
-                        mock(NativePrivilegeStore.class), Collections.emptyList(), new ThreadContext(SECURITY_ENABLED_SETTINGS),
+                        mock(NativePrivilegeStore.class), Collections.emptyList(), threadPool,
                         new XPackLicenseState(SECURITY_ENABLED_SETTINGS));
         verify(fileRolesStore).addListener(any(Consumer.class)); // adds a listener in ctor
 
@@ -261,6 +282,95 @@ public class CompositeRolesStoreTests extends ESTestCase {
         verifyNoMoreInteractions(fileRolesStore, reservedRolesStore, nativeRolesStore);
     }
 
+    public void testConcurrentRequestsForSameRolesShareLoad() {
+        final FileRolesStore fileRolesStore = mock(FileRolesStore.class);
+        doCallRealMethod().when(fileRolesStore).accept(any(Set.class), any(ActionListener.class));
+        final NativeRolesStore nativeRolesStore = mock(NativeRolesStore.class);
+        doCallRealMethod().when(nativeRolesStore).accept(any(Set.class), any(ActionListener.class));
+        when(fileRolesStore.roleDescriptors(anySetOf(String.class))).thenReturn(Collections.emptySet());
+        final AtomicReference<ActionListener<RoleRetrievalResult>> nativeListener = new AtomicReference<>();
+        doAnswer((invocationOnMock) -> {
+            nativeListener.set((ActionListener<RoleRetrievalResult>) invocationOnMock.getArguments()[1]);
+            return null;
+        }).when(nativeRolesStore).getRoleDescriptors(isA(Set.class), any(ActionListener.class));
+
+        final CompositeRolesStore compositeRolesStore =
+                new CompositeRolesStore(SECURITY_ENABLED_SETTINGS, fileRolesStore, nativeRolesStore, new ReservedRolesStore(),
+                        mock(NativePrivilegeStore.class), Collections.emptyList(), threadPool,
+                        new XPackLicenseState(SECURITY_ENABLED_SETTINGS));
+
+        final Set<String> roleNames = Collections.singleton("native_role");
+        final FieldPermissionsCache fieldPermissionsCache = new FieldPermissionsCache(Settings.EMPTY);
+        final PlainActionFuture<Role> first = new PlainActionFuture<>();
+        compositeRolesStore.roles(roleNames, fieldPermissionsCache, first);
+        final PlainActionFuture<Role> second = new PlainActionFuture<>();
+        final AtomicReference<String> secondThread = new AtomicReference<>();
+        compositeRolesStore.roles(roleNames, fieldPermissionsCache, ActionListener.wrap(role -> {
+            secondThread.set(Thread.currentThread().getName());
+            second.onResponse(role);
+        }, second::onFailure));
+        // the second request waits for the load of the first one
+        verify(nativeRolesStore).getRoleDescriptors(isA(Set.class), any(ActionListener.class));
+        assertFalse(first.isDone());
+        assertFalse(second.isDone());
+
+        nativeListener.get().onResponse(RoleRetrievalResult.success(
+            Collections.singleton(new RoleDescriptor("native_role", new String[] { "monitor" }, null, null))));
+        final Role role = first.actionGet();
+        assertThat(second.actionGet(), sameInstance(role));
+        // waiting requests don't run on the thread that completed the load
+        assertThat(secondThread.get(), containsString("[" + ThreadPool.Names.GENERIC + "]"));
+
+        final PlainActionFuture<Role> cached = new PlainActionFuture<>();
+        compositeRolesStore.roles(roleNames, fieldPermissionsCache, cached);
+        assertThat(cached.actionGet(), sameInstance(role));
+        verify(nativeRolesStore).getRoleDescriptors(isA(Set.class), any(ActionListener.class));
+
+        doAnswer((invocationOnMock) -> {
+            ((ActionListener<Map<String, Object>>) invocationOnMock.getArguments()[0]).onResponse(Collections.emptyMap());
+            return null;
+        }).when(nativeRolesStore).usageStats(any(ActionListener.class));
+        final PlainActionFuture<Map<String, Object>> usageFuture = new PlainActionFuture<>();
+        compositeRolesStore.usageStats(usageFuture);
+        final Map<String, Object> usage = usageFuture.actionGet();
+        final Map<String, Object> cacheStats = (Map<String, Object>) usage.get("cache");
+        assertThat(cacheStats.get("size"), equalTo(1));
+        // both requests missed the cache before the load completed, the third one hit it
+        assertThat(cacheStats.get("hits"), equalTo(1L));
+        assertThat(cacheStats.get("misses"), equalTo(2L));
+        assertThat(cacheStats.get("evictions"), equalTo(0L));
+        assertThat(cacheStats.get("loads"), equalTo(1L));
+        assertThat(cacheStats.get("coalesced"), equalTo(1L));
+        assertThat((Long) cacheStats.get("load_time_in_millis"), greaterThanOrEqualTo(0L));
+        final Map<String, Object> negativeLookupStats = (Map<String, Object>) usage.get("negative_lookup_cache");
+        assertThat(negativeLookupStats.keySet(), containsInAnyOrder("size", "hits", "misses", "evictions"));
+        assertThat(negativeLookupStats.get("size"), equalTo(0));
+        assertThat(negativeLookupStats.get("misses"), equalTo(1L));
+    }
+
+    public void testFailedLoadIsNotShared() {
+        final ReservedRolesStore reservedRolesStore = mock(ReservedRolesStore.class);
+        doThrow(new IllegalStateException("failed to load roles")).when(reservedRolesStore)
+            .accept(any(Set.class), any(ActionListener.class));
+
+        final CompositeRolesStore compositeRolesStore =
+                new CompositeRolesStore(SECURITY_ENABLED_SETTINGS, mock(FileRolesStore.class), mock(NativeRolesStore.class),
+                        reservedRolesStore, mock(NativePrivilegeStore.class), Collections.emptyList(), threadPool,
+                        new XPackLicenseState(SECURITY_ENABLED_SETTINGS));
+
+        final Set<String> roleNames = Collections.singleton("native_role");
+        final FieldPermissionsCache fieldPermissionsCache = new FieldPermissionsCache(Settings.EMPTY);
+        final PlainActionFuture<Role> first = new PlainActionFuture<>();
+        compositeRolesStore.roles(roleNames, fieldPermissionsCache, first);
+        expectThrows(IllegalStateException.class, first::actionGet);
+
+        // the load failed before it could notify its listener, so the next request loads the roles again instead of waiting
+        final PlainActionFuture<Role> second = new PlainActionFuture<>();
+        compositeRolesStore.roles(roleNames, fieldPermissionsCache, second);
+        expectThrows(IllegalStateException.class, second::actionGet);
+        verify(reservedRolesStore, times(2)).accept(any(Set.class), any(ActionListener.class));
+    }
+
     public void testNegativeLookupsCacheDisabled() {
         final FileRolesStore fileRolesStore = mock(FileRolesStore.class);
         doCallRealMethod().when(fileRolesStore).accept(any(Set.class), any(ActionListener.class));
@@ -278,7 +388,7 @@ public class CompositeRolesStoreTests extends ESTestCase {
             .put("xpack.security.authz.store.roles.negative_lookup_cache.max_size", 0)
             .build();
         final CompositeRolesStore compositeRolesStore = new CompositeRolesStore(settings, fileRolesStore, nativeRolesStore,
-            reservedRolesStore, mock(NativePrivilegeStore.class), Collections.emptyList(), new ThreadContext(settings),
+            reservedRolesStore, mock(NativePrivilegeStore.class), Collections.emptyList(), threadPool,
             new XPackLicenseState(settings));
         verify(fileRolesStore).addListener(any(Consumer.class)); // adds a listener in ctor
 
@@ -313,7 +423,7 @@ public class CompositeRolesStoreTests extends ESTestCase {
 
         final CompositeRolesStore compositeRolesStore =
             new CompositeRolesStore(SECURITY_ENABLED_SETTINGS, fileRolesStore, nativeRolesStore, reservedRolesStore,
-                mock(NativePrivilegeStore.class), Collections.emptyList(), new ThreadContext(SECURITY_ENABLED_SETTINGS),
+                mock(NativePrivilegeStore.class), Collections.emptyList(), threadPool,
                 new XPackLicenseState(SECURITY_ENABLED_SETTINGS));
         verify(fileRolesStore).addListener(any(Consumer.class)); // adds a listener in ctor
 
@@ -392,7 +502,7 @@ public class CompositeRolesStoreTests extends ESTestCase {
         final CompositeRolesStore compositeRolesStore =
                 new CompositeRolesStore(SECURITY_ENABLED_SETTINGS, fileRolesStore, nativeRolesStore, reservedRolesStore,
                                 mock(NativePrivilegeStore.class), Arrays.asList(inMemoryProvider1, inMemoryProvider2),
-                                new ThreadContext(SECURITY_ENABLED_SETTINGS), new XPackLicenseState(SECURITY_ENABLED_SETTINGS));
+                                threadPool, new XPackLicenseState(SECURITY_ENABLED_SETTINGS));
 
         final Set<String> roleNames = Sets.newHashSet("roleA", "roleB", "unknown");
         PlainActionFuture<Role> future = new PlainActionFuture<>();
@@ -597,7 +707,7 @@ public class CompositeRolesStoreTests extends ESTestCase {
         final CompositeRolesStore compositeRolesStore =
             new CompositeRolesStore(SECURITY_ENABLED_SETTINGS, fileRolesStore, nativeRolesStore, reservedRolesStore,
                                     mock(NativePrivilegeStore.class), Arrays.asList(inMemoryProvider1, failingProvider),
-                                    new ThreadContext(SECURITY_ENABLED_SETTINGS), new XPackLicenseState(SECURITY_ENABLED_SETTINGS));
+                                    threadPool, new XPackLicenseState(SECURITY_ENABLED_SETTINGS));
 
         final Set<String> roleNames = Sets.newHashSet("roleA", "roleB", "unknown");
         PlainActionFuture<Role> future = new PlainActionFuture<>();
@@ -640,7 +750,7 @@ public class CompositeRolesStoreTests extends ESTestCase {
         xPackLicenseState.update(randomFrom(OperationMode.BASIC, OperationMode.GOLD, OperationMode.STANDARD), true, null);
         CompositeRolesStore compositeRolesStore = new CompositeRolesStore(
             Settings.EMPTY, fileRolesStore, nativeRolesStore, reservedRolesStore, mock(NativePrivilegeStore.class),
-            Arrays.asList(inMemoryProvider), new ThreadContext(Settings.EMPTY), xPackLicenseState);
+            Arrays.asList(inMemoryProvider), threadPool, xPackLicenseState);
 
         Set<String> roleNames = Sets.newHashSet("roleA");
         PlainActionFuture<Role> future = new PlainActionFuture<>();
@@ -653,7 +763,7 @@ public class CompositeRolesStoreTests extends ESTestCase {
 
         compositeRolesStore = new CompositeRolesStore(
             Settings.EMPTY, fileRolesStore, nativeRolesStore, reservedRolesStore, mock(NativePrivilegeStore.class),
-            Arrays.asList(inMemoryProvider), new ThreadContext(Settings.EMPTY), xPackLicenseState);
+            Arrays.asList(inMemoryProvider), threadPool, xPackLicenseState);
         // these licenses allow custom role providers
         xPackLicenseState.update(randomFrom(OperationMode.PLATINUM, OperationMode.TRIAL), true, null);
         roleNames = Sets.newHashSet("roleA");
@@ -668,7 +778,7 @@ public class CompositeRolesStoreTests extends ESTestCase {
         // license expired, don't allow custom role providers
         compositeRolesStore = new CompositeRolesStore(
             Settings.EMPTY, fileRolesStore, nativeRolesStore, reservedRolesStore, mock(NativePrivilegeStore.class),
-            Arrays.asList(inMemoryProvider), new ThreadContext(Settings.EMPTY), xPackLicenseState);
+            Arrays.asList(inMemoryProvider), threadPool, xPackLicenseState);
         xPackLicenseState.update(randomFrom(OperationMode.PLATINUM, OperationMode.TRIAL), false, null);
         roleNames = Sets.newHashSet("roleA");
         future = new PlainActionFuture<>();
@@ -693,7 +803,7 @@ public class CompositeRolesStoreTests extends ESTestCase {
         doCallRealMethod().when(nativeRolesStore).accept(any(Set.class), any(ActionListener.class));
         CompositeRolesStore compositeRolesStore = new CompositeRolesStore(
                 Settings.EMPTY, fileRolesStore, nativeRolesStore, reservedRolesStore,
-                mock(NativePrivilegeStore.class), Collections.emptyList(), new ThreadContext(Settings.EMPTY),
+                mock(NativePrivilegeStore.class), Collections.emptyList(), threadPool,
                 new XPackLicenseState(SECURITY_ENABLED_SETTINGS)) {
             @Override
             public void invalidateAll() {
@@ -745,7 +855,7 @@ public class CompositeRolesStoreTests extends ESTestCase {
         doCallRealMethod().when(nativeRolesStore).accept(any(Set.class), any(ActionListener.class));
         CompositeRolesStore compositeRolesStore = new CompositeRolesStore(SECURITY_ENABLED_SETTINGS,
                 fileRolesStore, nativeRolesStore, reservedRolesStore,
-                mock(NativePrivilegeStore.class), Collections.emptyList(), new ThreadContext(SECURITY_ENABLED_SETTINGS),
+                mock(NativePrivilegeStore.class), Collections.emptyList(), threadPool,
                 new XPackLicenseState(SECURITY_ENABLED_SETTINGS)) {
             @Override
             public void invalidateAll() {
@@ -17,6 +17,7 @@ import org.elasticsearch.xpack.sql.expression.UnresolvedAttribute;
 import org.elasticsearch.xpack.sql.expression.function.Function;
 import org.elasticsearch.xpack.sql.expression.function.FunctionAttribute;
 import org.elasticsearch.xpack.sql.expression.function.Functions;
+import org.elasticsearch.xpack.sql.expression.function.aggregate.AggregateFunctionAttribute;
 import org.elasticsearch.xpack.sql.expression.function.Score;
 import org.elasticsearch.xpack.sql.expression.function.scalar.ScalarFunction;
 import org.elasticsearch.xpack.sql.expression.predicate.operator.comparison.In;
@@ -225,7 +226,8 @@ final class Verifier {
      * (because the expression gets resolved little by little without being pushed down,
      * without the Analyzer modifying anything.
      * 2a. HAVING also requires an Aggregate function
-     * 3. composite agg (used for GROUP BY) allows ordering only on the group keys
+     * 3. composite agg (used for GROUP BY) allows ordering only on the group keys, ordering on an aggregate
+     * is done on the returned groups and thus requires the aggregate to be selected
      */
     private static boolean checkGroupBy(LogicalPlan p, Set<Failure> localFailures,
             Map<String, Function> resolvedFunctions, Set<LogicalPlan> groupingFailures) {
@@ -254,9 +256,13 @@ final class Verifier {
                 Map<Expression, Node<?>> missing = new LinkedHashMap<>();
                 o.order().forEach(oe -> {
                     Expression e = oe.child();
-                    // cannot order by aggregates (not supported by composite)
-                    if (Functions.isAggregate(e)) {
-                        missing.put(e, oe);
+                    // aggregates are not supported by composite, the groups are sorted once returned so the
+                    // aggregate needs to be one of the selected columns
+                    if (Functions.isAggregate(e) || e instanceof AggregateFunctionAttribute) {
+                        if (a.aggregates().stream().anyMatch(as -> Expressions.equalsAsAttribute(e, as)
+                                || (as instanceof Alias && Expressions.equalsAsAttribute(e, ((Alias) as).child()))) == false) {
+                            missing.put(e, oe);
+                        }
                         return;
                     }
 
@@ -22,6 +22,7 @@ import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.aggregations.Aggregation;
 import org.elasticsearch.search.aggregations.Aggregations;
 import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation.Bucket;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregation;
 import org.elasticsearch.search.aggregations.bucket.filter.Filters;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.xpack.sql.SqlIllegalArgumentException;
@@ -38,6 +39,7 @@ import org.elasticsearch.xpack.sql.expression.gen.pipeline.HitExtractorInput;
 import org.elasticsearch.xpack.sql.expression.gen.pipeline.Pipe;
 import org.elasticsearch.xpack.sql.expression.gen.pipeline.ReferenceInput;
 import org.elasticsearch.xpack.sql.querydsl.agg.Aggs;
+import org.elasticsearch.xpack.sql.querydsl.container.AggregateSort;
 import org.elasticsearch.xpack.sql.querydsl.container.ComputedRef;
 import org.elasticsearch.xpack.sql.querydsl.container.GlobalCountRef;
 import org.elasticsearch.xpack.sql.querydsl.container.GroupByRef;
@@ -45,6 +47,9 @@ import org.elasticsearch.xpack.sql.querydsl.container.MetricAggRef;
 import org.elasticsearch.xpack.sql.querydsl.container.QueryContainer;
 import org.elasticsearch.xpack.sql.querydsl.container.ScriptFieldRef;
 import org.elasticsearch.xpack.sql.querydsl.container.SearchHitFieldRef;
+import org.elasticsearch.xpack.sql.querydsl.container.Sort;
+import org.elasticsearch.xpack.sql.querydsl.container.Sort.Direction;
+import org.elasticsearch.xpack.sql.querydsl.container.Sort.Missing;
 import org.elasticsearch.xpack.sql.session.Configuration;
 import org.elasticsearch.xpack.sql.session.Rows;
 import org.elasticsearch.xpack.sql.session.SchemaRowSet;
@@ -53,8 +58,11 @@ import org.elasticsearch.xpack.sql.util.StringUtils;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Set;
 
 import static java.util.Collections.singletonList;
@@ -99,6 +107,13 @@ public class Querier {
         if (query.isAggsOnly()) {
             if (query.aggs().useImplicitGroupBy()) {
                 l = new ImplicitGroupActionListener(listener, client, timeout, schema, query, search);
+            } else if (query.sort().stream().anyMatch(AggregateSort.class::isInstance)) {
+                if (query.limit() > LocalAggregationSorterListener.MAXIMUM_SIZE) {
+                    listener.onFailure(new SqlIllegalArgumentException("The maximum LIMIT for aggregate sorting is [{}], received [{}]",
+                            LocalAggregationSorterListener.MAXIMUM_SIZE, query.limit()));
+                    return;
+                }
+                l = new LocalAggregationSorterListener(listener, client, timeout, schema, query, search);
             } else {
                 l = new CompositeActionListener(listener, client, timeout, schema, query, search);
             }
@@ -236,6 +251,97 @@ public class Querier {
         }
     }
 
+    /**
+     * Dedicated listener for group-by queries ordered on an aggregate. The composite aggregation can only be ordered by its keys,
+     * so all its pages are retrieved and only the top groups (as many as the query limit) are kept while paging.
+     */
+    static class LocalAggregationSorterListener extends BaseAggActionListener {
+
+        // the maximum number of groups that are sorted locally
+        static final int MAXIMUM_SIZE = 65535;
+
+        private final int size;
+        private final Comparator<List<?>> comparator;
+        // the head of the queue is the last of the top groups, so it is the one replaced by better groups
+        private final PriorityQueue<List<?>> topGroups;
+
+        LocalAggregationSorterListener(ActionListener<SchemaRowSet> listener, Client client, TimeValue keepAlive, Schema schema,
+                QueryContainer query, SearchRequest request) {
+            super(listener, client, keepAlive, schema, query, request);
+
+            List<AggregateSort> sorts = new ArrayList<>();
+            for (Sort sort : query.sort()) {
+                if (sort instanceof AggregateSort) {
+                    sorts.add((AggregateSort) sort);
+                }
+            }
+            this.size = query.limit() < 0 ? MAXIMUM_SIZE : query.limit();
+            this.comparator = rowComparator(sorts);
+            this.topGroups = new PriorityQueue<>(Math.max(1, Math.min(size, 1024)), comparator.reversed());
+        }
+
+        @Override
+        protected void handleResponse(SearchResponse response, ActionListener<SchemaRowSet> listener) {
+            CompositeAggregation composite = CompositeAggregationCursor.getComposite(response);
+            if (composite != null) {
+                List<BucketExtractor> extractors = initBucketExtractors(response);
+                for (CompositeAggregation.Bucket bucket : composite.getBuckets()) {
+                    Object[] values = new Object[extractors.size()];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = extractors.get(i).extract(bucket);
+                    }
+                    List<?> row = Arrays.asList(values);
+                    if (topGroups.size() < size) {
+                        topGroups.add(row);
+                    } else if (query.limit() < 0) {
+                        throw new SqlIllegalArgumentException("Cannot sort more than [{}] groups on an aggregate; use a LIMIT",
+                                MAXIMUM_SIZE);
+                    } else if (comparator.compare(row, topGroups.peek()) < 0) {
+                        topGroups.poll();
+                        topGroups.add(row);
+                    }
+                }
+
+                // a null after-key means there are no more groups
+                if (composite.afterKey() != null) {
+                    CompositeAggregationCursor.updateCompositeAfterKey(response, request.source());
+                    client.search(request, this);
+                    return;
+                }
+            }
+
+            List<List<?>> rows = new ArrayList<>(topGroups);
+            rows.sort(comparator);
+            listener.onResponse(Rows.of(schema, rows));
+        }
+
+        private static Comparator<List<?>> rowComparator(List<AggregateSort> sorts) {
+            return (left, right) -> {
+                for (AggregateSort sort : sorts) {
+                    int result = compare(left.get(sort.column()), right.get(sort.column()), sort);
+                    if (result != 0) {
+                        return result;
+                    }
+                }
+                return 0;
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        private static int compare(Object left, Object right, AggregateSort sort) {
+            if (left == null || right == null) {
+                if (left == right) {
+                    return 0;
+                }
+                // nulls are placed first or last regardless of the direction
+                boolean nullsFirst = sort.missing() == Missing.FIRST;
+                return (left == null) == nullsFirst ? -1 : 1;
+            }
+            int result = ((Comparable<Object>) left).compareTo(right);
+            return sort.direction() == Direction.DESC ? -result : result;
+        }
+    }
+
     abstract static class BaseAggActionListener extends BaseActionListener {
         final QueryContainer query;
         final SearchRequest request;
@@ -17,6 +17,7 @@ import org.elasticsearch.search.sort.ScriptSortBuilder.ScriptSortType;
 import org.elasticsearch.search.sort.SortBuilder;
 import org.elasticsearch.xpack.sql.expression.Attribute;
 import org.elasticsearch.xpack.sql.expression.FieldAttribute;
+import org.elasticsearch.xpack.sql.querydsl.container.AggregateSort;
 import org.elasticsearch.xpack.sql.querydsl.container.AttributeSort;
 import org.elasticsearch.xpack.sql.querydsl.container.QueryContainer;
 import org.elasticsearch.xpack.sql.querydsl.container.ScoreSort;
@@ -73,7 +74,9 @@ public abstract class SourceGenerator {
 
         // set page size
         if (size != null) {
-            int sz = container.limit() > 0 ? Math.min(container.limit(), size) : size;
+            // groups ordered on an aggregate are all retrieved and sorted locally, so the limit doesn't bound their pages
+            boolean sortedOnAggregate = container.sort().stream().anyMatch(AggregateSort.class::isInstance);
+            int sz = container.limit() > 0 && sortedOnAggregate == false ? Math.min(container.limit(), size) : size;
 
             if (source.size() == -1) {
                 source.size(sz);
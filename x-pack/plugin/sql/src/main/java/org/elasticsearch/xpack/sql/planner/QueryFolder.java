@@ -19,6 +19,7 @@ import org.elasticsearch.xpack.sql.expression.function.Function;
 import org.elasticsearch.xpack.sql.expression.function.Functions;
 import org.elasticsearch.xpack.sql.expression.function.ScoreAttribute;
 import org.elasticsearch.xpack.sql.expression.function.aggregate.AggregateFunction;
+import org.elasticsearch.xpack.sql.expression.function.aggregate.AggregateFunctionAttribute;
 import org.elasticsearch.xpack.sql.expression.function.aggregate.CompoundNumericAggregate;
 import org.elasticsearch.xpack.sql.expression.function.aggregate.Count;
 import org.elasticsearch.xpack.sql.expression.function.aggregate.InnerAggregate;
@@ -45,6 +46,7 @@ import org.elasticsearch.xpack.sql.querydsl.agg.AggFilter;
 import org.elasticsearch.xpack.sql.querydsl.agg.Aggs;
 import org.elasticsearch.xpack.sql.querydsl.agg.GroupByKey;
 import org.elasticsearch.xpack.sql.querydsl.agg.LeafAgg;
+import org.elasticsearch.xpack.sql.querydsl.container.AggregateSort;
 import org.elasticsearch.xpack.sql.querydsl.container.AttributeSort;
 import org.elasticsearch.xpack.sql.querydsl.container.ComputedRef;
 import org.elasticsearch.xpack.sql.querydsl.container.GlobalCountRef;
@@ -65,6 +67,7 @@ import org.elasticsearch.xpack.sql.util.Check;
 
 import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
 import java.util.concurrent.atomic.AtomicReference;
@@ -427,6 +430,23 @@ class QueryFolder extends RuleExecutor<PhysicalPlan> {
                 EsQueryExec exec = (EsQueryExec) plan.child();
                 QueryContainer qContainer = exec.queryContainer();
 
+                // ordering on an aggregate cannot be done by the composite aggregation, so all the groups are
+                // sorted on the returned columns instead
+                if (qContainer.aggs().groups().isEmpty() == false && plan.order().stream()
+                        .anyMatch(o -> ((NamedExpression) o.child()).toAttribute() instanceof AggregateFunctionAttribute)) {
+                    for (Order order : plan.order()) {
+                        Attribute attr = ((NamedExpression) order.child()).toAttribute();
+                        int column = columnIndex(exec.output(), qContainer.aliases(), attr);
+                        if (column < 0) {
+                            throw new PlanningException("Cannot order by [{}] together with an aggregate, it needs to be selected",
+                                    Expressions.name(order.child()));
+                        }
+                        qContainer = qContainer.sort(new AggregateSort(column, Direction.from(order.direction()),
+                                Missing.from(order.nullsPosition())));
+                    }
+                    return exec.with(qContainer);
+                }
+
                 for (Order order : plan.order()) {
                     Direction direction = Direction.from(order.direction());
                     Missing missing = Missing.from(order.nullsPosition());
@@ -479,6 +499,18 @@ class QueryFolder extends RuleExecutor<PhysicalPlan> {
             }
             return plan;
         }
+
+        private static int columnIndex(List<Attribute> output, Map<Attribute, Attribute> aliases, Attribute attr) {
+            Attribute resolved = aliases.getOrDefault(attr, attr);
+            for (int i = 0; i < output.size(); i++) {
+                Attribute column = output.get(i);
+                Attribute resolvedColumn = aliases.getOrDefault(column, column);
+                if (column.id().equals(attr.id()) || resolvedColumn.id().equals(attr.id()) || resolvedColumn.id().equals(resolved.id())) {
+                    return i;
+                }
+            }
+            return -1;
+        }
     }
 
 
@@ -0,0 +1,50 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.sql.querydsl.container;
+
+import java.util.Objects;
+
+/**
+ * Sorting of the groups of an aggregation query on one of its columns.
+ * Since the composite aggregation can only be ordered by its keys, the groups are sorted once they are returned.
+ */
+public class AggregateSort extends Sort {
+
+    private final int column;
+
+    public AggregateSort(int column, Direction direction, Missing missing) {
+        super(direction, missing);
+        this.column = column;
+    }
+
+    /**
+     * Index of the column (in the query container) to sort on
+     */
+    public int column() {
+        return column;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(column, direction(), missing());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+
+        AggregateSort other = (AggregateSort) obj;
+        return Objects.equals(direction(), other.direction())
+                && Objects.equals(missing(), other.missing())
+                && column == other.column;
+    }
+}
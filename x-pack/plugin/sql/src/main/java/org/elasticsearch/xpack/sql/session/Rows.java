@@ -39,6 +39,18 @@ public abstract class Rows {
         return new ListRowSetCursor(schema, values);
     }
 
+    public static SchemaRowSet of(Schema schema, List<List<?>> values) {
+        if (values.isEmpty()) {
+            return empty(schema);
+        }
+
+        if (values.size() == 1) {
+            return singleton(schema, values.get(0).toArray());
+        }
+
+        return new ListRowSetCursor(schema, values);
+    }
+
     public static SchemaRowSet singleton(List<Attribute> attrs, Object... values) {
         return singleton(schema(attrs), values);
     }
@@ -200,9 +200,9 @@ public class VerifierErrorMessagesTests extends ESTestCase {
                 verify("SELECT unsupported FROM test"));
     }
 
-    public void testGroupByOrderByNonKey() {
-        assertEquals("1:52: Cannot order by non-grouped column [a], expected [bool]",
-                verify("SELECT AVG(int) a FROM test GROUP BY bool ORDER BY a"));
+    public void testGroupByOrderBySelectedAggregateAllowed() {
+        assertNotNull(accepted("SELECT AVG(int) a FROM test GROUP BY bool ORDER BY a"));
+        assertNotNull(accepted("SELECT bool, AVG(int) FROM test GROUP BY bool ORDER BY AVG(int) DESC LIMIT 10"));
     }
 
     public void testGroupByOrderByFunctionOverKey() {
@@ -0,0 +1,213 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.sql.execution.search;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchAction;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregation;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.sql.SqlIllegalArgumentException;
+import org.elasticsearch.xpack.sql.execution.search.Querier.LocalAggregationSorterListener;
+import org.elasticsearch.xpack.sql.querydsl.agg.Aggs;
+import org.elasticsearch.xpack.sql.querydsl.agg.GroupByColumnKey;
+import org.elasticsearch.xpack.sql.querydsl.container.AggregateSort;
+import org.elasticsearch.xpack.sql.querydsl.container.GroupByRef;
+import org.elasticsearch.xpack.sql.querydsl.container.GroupByRef.Property;
+import org.elasticsearch.xpack.sql.querydsl.container.QueryContainer;
+import org.elasticsearch.xpack.sql.querydsl.container.Sort.Direction;
+import org.elasticsearch.xpack.sql.querydsl.container.Sort.Missing;
+import org.elasticsearch.xpack.sql.session.SchemaRowSet;
+import org.elasticsearch.xpack.sql.type.DataType;
+import org.elasticsearch.xpack.sql.type.Schema;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class QuerierTests extends ESTestCase {
+
+    @SuppressWarnings("unchecked")
+    public void testAggregateSortingPagesIndependentlyOfLimit() {
+        int pageSize = randomIntBetween(5, 20);
+        int limit = randomIntBetween(1, pageSize - 1);
+        int numGroups = randomIntBetween(pageSize + 1, pageSize * 5);
+        int numPages = (numGroups + pageSize - 1) / pageSize;
+
+        QueryContainer container = aggregateSortContainer(limit);
+        SearchRequest request = new SearchRequest("index").source(SourceGenerator.sourceBuilder(container, null, pageSize));
+
+        List<Integer> pageSizes = new ArrayList<>();
+        Client client = mock(Client.class);
+        doAnswer(invocation -> {
+            SearchRequest search = (SearchRequest) invocation.getArguments()[0];
+            ActionListener<SearchResponse> listener = (ActionListener<SearchResponse>) invocation.getArguments()[1];
+            pageSizes.add(compositeSize(search));
+            // the doc count of group i is i, so the last groups are the top ones
+            int from = (pageSizes.size() - 1) * pageSize;
+            int to = Math.min(from + pageSize, numGroups);
+            listener.onResponse(compositeResponse(from, to, to < numGroups));
+            return null;
+        }).when(client).search(any(SearchRequest.class), any(ActionListener.class));
+
+        PlainActionFuture<SchemaRowSet> future = new PlainActionFuture<>();
+        client.search(request, new LocalAggregationSorterListener(future, client, TimeValue.timeValueMinutes(1), schema(), container,
+            request));
+
+        SchemaRowSet rowSet = future.actionGet();
+        // the limit only bounds the sorted groups, every page has the regular page size
+        assertEquals(numPages, pageSizes.size());
+        for (int size : pageSizes) {
+            assertEquals(pageSize, size);
+        }
+        assertEquals(limit, rowSet.size());
+        for (int i = 0; i < limit; i++) {
+            assertEquals("group" + (numGroups - 1 - i), rowSet.column(0));
+            assertEquals((long) (numGroups - 1 - i), rowSet.column(1));
+            rowSet.advanceRow();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testAggregateSortingRejectsLimitAboveMaximum() {
+        Client client = mock(Client.class);
+        when(client.prepareSearch("index")).thenReturn(new SearchRequestBuilder(client, SearchAction.INSTANCE));
+        Querier querier = new Querier(client, TimeValue.timeValueMinutes(1), TimeValue.timeValueMinutes(1), null, 10);
+
+        PlainActionFuture<SchemaRowSet> future = new PlainActionFuture<>();
+        querier.query(schema(), aggregateSortContainer(LocalAggregationSorterListener.MAXIMUM_SIZE + 1), "index", future);
+
+        SqlIllegalArgumentException e = expectThrows(SqlIllegalArgumentException.class, future::actionGet);
+        assertEquals("The maximum LIMIT for aggregate sorting is [65535], received [65536]", e.getMessage());
+        verify(client, never()).search(any(SearchRequest.class), any(ActionListener.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testAggregateSortingWithoutLimitFailsOnTooManyGroups() {
+        int pageSize = 10000;
+        int numGroups = LocalAggregationSorterListener.MAXIMUM_SIZE + 1;
+        QueryContainer container = aggregateSortContainer(-1);
+        SearchRequest request = new SearchRequest("index").source(SourceGenerator.sourceBuilder(container, null, pageSize));
+
+        int[] pages = new int[1];
+        Client client = mock(Client.class);
+        doAnswer(invocation -> {
+            ActionListener<SearchResponse> listener = (ActionListener<SearchResponse>) invocation.getArguments()[1];
+            int from = pages[0]++ * pageSize;
+            int to = Math.min(from + pageSize, numGroups);
+            listener.onResponse(compositeResponse(from, to, to < numGroups));
+            return null;
+        }).when(client).search(any(SearchRequest.class), any(ActionListener.class));
+
+        PlainActionFuture<SchemaRowSet> future = new PlainActionFuture<>();
+        client.search(request, new LocalAggregationSorterListener(future, client, TimeValue.timeValueMinutes(1), schema(), container,
+            request));
+
+        SqlIllegalArgumentException e = expectThrows(SqlIllegalArgumentException.class, future::actionGet);
+        assertEquals("Cannot sort more than [65535] groups on an aggregate; use a LIMIT", e.getMessage());
+        // the groups are only counted once they are retrieved, so every page is fetched until the one that overflows
+        assertEquals((numGroups + pageSize - 1) / pageSize, pages[0]);
+    }
+
+    // GROUP BY key ORDER BY COUNT(*) DESC LIMIT limit
+    private static QueryContainer aggregateSortContainer(int limit) {
+        return new QueryContainer()
+            .addGroups(singletonList(new GroupByColumnKey("1", "key")))
+            .with(Arrays.asList(new GroupByRef("1"), new GroupByRef("1", Property.COUNT, null)))
+            .sort(new AggregateSort(1, Direction.DESC, Missing.LAST))
+            .withLimit(limit);
+    }
+
+    private static Schema schema() {
+        return new Schema(Arrays.asList("key", "count"), Arrays.asList(DataType.KEYWORD, DataType.LONG));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compositeSize(SearchRequest request) {
+        AggregationBuilder composite = request.source().aggregations().getAggregatorFactories().iterator().next();
+        Map<String, Object> group = (Map<String, Object>) XContentHelper.convertToMap(JsonXContent.jsonXContent,
+            Strings.toString(composite), false).get(Aggs.ROOT_GROUP_NAME);
+        return (Integer) ((Map<String, Object>) group.get("composite")).get("size");
+    }
+
+    private static SearchResponse compositeResponse(int from, int to, boolean hasMore) {
+        List<CompositeAggregation.Bucket> buckets = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            buckets.add(new GroupBucket("group" + i, i));
+        }
+        CompositeAggregation composite = mock(CompositeAggregation.class);
+        when(composite.getName()).thenReturn(Aggs.ROOT_GROUP_NAME);
+        doAnswer(invocation -> buckets).when(composite).getBuckets();
+        when(composite.afterKey()).thenReturn(hasMore ? singletonMap("1", "group" + (to - 1)) : null);
+
+        SearchResponse response = mock(SearchResponse.class);
+        when(response.getAggregations()).thenReturn(new Aggregations(singletonList(composite)));
+        when(response.getHits()).thenReturn(new SearchHits(new SearchHit[0], 0, 0));
+        return response;
+    }
+
+    /**
+     * A plain bucket rather than a mock, as the overflow test creates tens of thousands of them
+     */
+    private static class GroupBucket implements CompositeAggregation.Bucket {
+
+        private final String key;
+        private final long docCount;
+
+        GroupBucket(String key, long docCount) {
+            this.key = key;
+            this.docCount = docCount;
+        }
+
+        @Override
+        public Map<String, Object> getKey() {
+            return singletonMap("1", key);
+        }
+
+        @Override
+        public String getKeyAsString() {
+            return key;
+        }
+
+        @Override
+        public long getDocCount() {
+            return docCount;
+        }
+
+        @Override
+        public Aggregations getAggregations() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
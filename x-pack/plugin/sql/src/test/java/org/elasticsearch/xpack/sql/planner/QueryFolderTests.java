@@ -15,6 +15,9 @@ import org.elasticsearch.xpack.sql.parser.SqlParser;
 import org.elasticsearch.xpack.sql.plan.physical.EsQueryExec;
 import org.elasticsearch.xpack.sql.plan.physical.LocalExec;
 import org.elasticsearch.xpack.sql.plan.physical.PhysicalPlan;
+import org.elasticsearch.xpack.sql.querydsl.container.AggregateSort;
+import org.elasticsearch.xpack.sql.querydsl.container.Sort.Direction;
+import org.elasticsearch.xpack.sql.querydsl.container.Sort.Missing;
 import org.elasticsearch.xpack.sql.session.EmptyExecutable;
 import org.elasticsearch.xpack.sql.type.EsField;
 import org.elasticsearch.xpack.sql.type.TypesTests;
@@ -24,6 +27,7 @@ import org.junit.BeforeClass;
 import java.util.Map;
 import java.util.TimeZone;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.startsWith;
 
 public class QueryFolderTests extends ESTestCase {
@@ -65,6 +69,16 @@ public class QueryFolderTests extends ESTestCase {
         assertThat(ee.output().get(0).toString(), startsWith("keyword{f}#"));
     }
 
+    public void testOrderByAggregateSortsReturnedGroups() {
+        PhysicalPlan p = plan("SELECT keyword, COUNT(*) c FROM test GROUP BY keyword ORDER BY c DESC, keyword LIMIT 10");
+        assertEquals(EsQueryExec.class, p.getClass());
+        EsQueryExec ee = (EsQueryExec) p;
+        assertEquals(10, ee.queryContainer().limit());
+        assertThat(ee.queryContainer().sort(), contains(
+                new AggregateSort(1, Direction.DESC, Missing.FIRST),
+                new AggregateSort(0, Direction.ASC, Missing.LAST)));
+    }
+
     public void testFoldingOfIsNull() {
         PhysicalPlan p = plan("SELECT keyword FROM test WHERE (keyword IS NOT NULL) IS NULL");
         assertEquals(LocalExec.class, p.getClass());
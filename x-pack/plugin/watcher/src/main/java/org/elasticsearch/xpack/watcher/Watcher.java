@@ -121,6 +121,7 @@ import org.elasticsearch.xpack.watcher.input.http.HttpInput;
 import org.elasticsearch.xpack.watcher.input.http.HttpInputFactory;
 import org.elasticsearch.xpack.watcher.input.none.NoneInputFactory;
 import org.elasticsearch.xpack.watcher.input.search.SearchInput;
+import org.elasticsearch.xpack.watcher.input.search.SearchInputCoalescer;
 import org.elasticsearch.xpack.watcher.input.search.SearchInputFactory;
 import org.elasticsearch.xpack.watcher.input.simple.SimpleInput;
 import org.elasticsearch.xpack.watcher.input.simple.SimpleInputFactory;
@@ -493,6 +494,7 @@ public class Watcher extends Plugin implements ActionPlugin, ScriptPlugin, Reloa
         settings.add(Setting.simpleString("xpack.watcher.actions.bulk.default_timeout", Setting.Property.NodeScope));
         settings.add(Setting.simpleString("xpack.watcher.index.rest.direct_access", Setting.Property.NodeScope));
         settings.add(Setting.simpleString("xpack.watcher.input.search.default_timeout", Setting.Property.NodeScope));
+        settings.add(SearchInputCoalescer.COALESCE_SETTING);
         settings.add(Setting.simpleString("xpack.watcher.transform.search.default_timeout", Setting.Property.NodeScope));
         settings.add(Setting.simpleString("xpack.watcher.execution.scroll.timeout", Setting.Property.NodeScope));
         settings.add(WatcherLifeCycleService.SETTING_REQUIRE_MANUAL_START);
@@ -15,6 +15,9 @@ import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.client.Client;
@@ -34,6 +37,7 @@ import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.index.engine.DocumentMissingException;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 import org.elasticsearch.xpack.core.watcher.actions.ActionWrapper;
 import org.elasticsearch.xpack.core.watcher.actions.ActionWrapperResult;
 import org.elasticsearch.xpack.core.watcher.common.stats.Counters;
@@ -61,9 +65,11 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -230,10 +236,10 @@ public class ExecutionService extends AbstractComponent {
         final LinkedList<TriggeredWatch> triggeredWatches = new LinkedList<>();
         final LinkedList<TriggeredExecutionContext> contexts = new LinkedList<>();
 
+        Set<String> existingWatchIds = findExistingWatchIds(events);
         DateTime now = new DateTime(clock.millis(), UTC);
         for (TriggerEvent event : events) {
-            GetResponse response = getWatch(event.jobName());
-            if (response.isExists() == false) {
+            if (existingWatchIds.contains(event.jobName()) == false) {
                 logger.warn("unable to find watch [{}] in watch index, perhaps it has been deleted", event.jobName());
                 continue;
             }
@@ -489,6 +495,39 @@ public class ExecutionService extends AbstractComponent {
         logger.debug("triggered execution of [{}] watches", counter);
     }
 
+    /**
+     * Checks which of the watches of the given events exist with a single multi get request, instead of getting every watch
+     * on its own, as all the watches that are triggered in the same tick are passed together
+     * @param events The trigger events of the watches to check
+     * @return The ids of the watches that exist
+     */
+    private Set<String> findExistingWatchIds(Iterable<TriggerEvent> events) {
+        MultiGetRequest request = new MultiGetRequest().preference(Preference.LOCAL.type()).realtime(true);
+        for (TriggerEvent event : events) {
+            request.add(new MultiGetRequest.Item(Watch.INDEX, Watch.DOC_TYPE, event.jobName())
+                .fetchSourceContext(FetchSourceContext.DO_NOT_FETCH_SOURCE));
+        }
+        Set<String> ids = new HashSet<>();
+        if (request.getItems().isEmpty()) {
+            return ids;
+        }
+
+        MultiGetResponse response;
+        try (ThreadContext.StoredContext ignore = stashWithOrigin(client.threadPool().getThreadContext(), WATCHER_ORIGIN)) {
+            PlainActionFuture<MultiGetResponse> future = PlainActionFuture.newFuture();
+            client.multiGet(request, future);
+            response = future.actionGet();
+        }
+        for (MultiGetItemResponse itemResponse : response.getResponses()) {
+            if (itemResponse.isFailed()) {
+                logger.warn("failed to get watch [{}]: [{}]", itemResponse.getId(), itemResponse.getFailure().getMessage());
+            } else if (itemResponse.getResponse().isExists()) {
+                ids.add(itemResponse.getId());
+            }
+        }
+        return ids;
+    }
+
     /**
      * Gets a watch but in a synchronous way, so that no async calls need to be built
      * @param id The id of watch
@@ -11,6 +11,7 @@ import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.unit.TimeValue;
@@ -28,6 +29,7 @@ import org.elasticsearch.xpack.core.watcher.watch.Payload;
 import org.elasticsearch.xpack.watcher.support.XContentFilterKeysUtils;
 import org.elasticsearch.xpack.watcher.support.search.WatcherSearchTemplateRequest;
 import org.elasticsearch.xpack.watcher.support.search.WatcherSearchTemplateService;
+import org.elasticsearch.xpack.watcher.trigger.schedule.ScheduleTriggerEvent;
 
 import java.util.Map;
 
@@ -45,13 +47,21 @@ public class ExecutableSearchInput extends ExecutableInput<SearchInput, SearchIn
     private final Client client;
     private final WatcherSearchTemplateService searchTemplateService;
     private final TimeValue timeout;
+    @Nullable
+    private final SearchInputCoalescer coalescer;
 
     public ExecutableSearchInput(SearchInput input, Client client, WatcherSearchTemplateService searchTemplateService,
                                  TimeValue defaultTimeout) {
+        this(input, client, searchTemplateService, defaultTimeout, null);
+    }
+
+    public ExecutableSearchInput(SearchInput input, Client client, WatcherSearchTemplateService searchTemplateService,
+                                 TimeValue defaultTimeout, @Nullable SearchInputCoalescer coalescer) {
         super(input);
         this.client = client;
         this.searchTemplateService = searchTemplateService;
         this.timeout = input.getTimeout() != null ? input.getTimeout() : defaultTimeout;
+        this.coalescer = coalescer;
     }
 
     @Override
@@ -74,8 +84,14 @@ public class ExecutableSearchInput extends ExecutableInput<SearchInput, SearchIn
         }
 
         SearchRequest searchRequest = searchTemplateService.toSearchRequest(request);
-        final SearchResponse response = ClientHelper.executeWithHeaders(ctx.watch().status().getHeaders(), ClientHelper.WATCHER_ORIGIN,
-                client, () -> client.search(searchRequest).actionGet(timeout));
+        final Map<String, String> headers = ctx.watch().status().getHeaders();
+        final SearchResponse response;
+        if (coalescer != null && ctx.triggerEvent() instanceof ScheduleTriggerEvent) {
+            response = coalescer.search(ctx.triggerEvent().triggeredTime().getMillis(), headers, searchRequest, timeout,
+                () -> search(headers, searchRequest));
+        } else {
+            response = search(headers, searchRequest);
+        }
 
         if (logger.isDebugEnabled()) {
             logger.debug("[{}] found [{}] hits", ctx.id(), response.getHits().getTotalHits());
@@ -99,4 +115,9 @@ public class ExecutableSearchInput extends ExecutableInput<SearchInput, SearchIn
 
         return new SearchInput.Result(request, payload);
     }
+
+    private SearchResponse search(Map<String, String> headers, SearchRequest searchRequest) {
+        return ClientHelper.executeWithHeaders(headers, ClientHelper.WATCHER_ORIGIN, client,
+            () -> client.search(searchRequest).actionGet(timeout));
+    }
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.watcher.input.search;
+
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares the responses of identical searches of search inputs of watches that are triggered in the same tick. Searches are
+ * identical if they have the same request, run with the same headers and belong to trigger events with the same triggered
+ * time. A search is only shared while it is running: watches whose identical search starts while it runs wait for its
+ * response instead of running it again, and it is forgotten as soon as it completed, so no responses are retained.
+ */
+public class SearchInputCoalescer {
+
+    public static final Setting<Boolean> COALESCE_SETTING =
+        Setting.boolSetting("xpack.watcher.input.search.coalesce", true, Setting.Property.NodeScope);
+
+    private final Map<Key, PlainActionFuture<SearchResponse>> inFlightSearches = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the response of an identical search of the same tick if one is running, or runs the given search otherwise
+     */
+    public SearchResponse search(long triggeredTime, Map<String, String> headers, SearchRequest request, TimeValue timeout,
+                                 CheckedSupplier<SearchResponse, Exception> search) throws Exception {
+        Key key = new Key(triggeredTime, headers, request);
+        PlainActionFuture<SearchResponse> future = PlainActionFuture.newFuture();
+        PlainActionFuture<SearchResponse> existing = inFlightSearches.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing.actionGet(timeout);
+        }
+        try {
+            SearchResponse response = search.get();
+            future.onResponse(response);
+            return response;
+        } catch (Exception e) {
+            future.onFailure(e);
+            throw e;
+        } finally {
+            // the searches that are waiting hold on to the future themselves
+            inFlightSearches.remove(key, future);
+        }
+    }
+
+    // for testing only
+    int size() {
+        return inFlightSearches.size();
+    }
+
+    private static final class Key {
+
+        private final long triggeredTime;
+        private final Map<String, String> headers;
+        private final SearchRequest request;
+
+        Key(long triggeredTime, Map<String, String> headers, SearchRequest request) {
+            this.triggeredTime = triggeredTime;
+            this.headers = headers;
+            this.request = request;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return triggeredTime == key.triggeredTime &&
+                Objects.equals(headers, key.headers) &&
+                Objects.equals(request, key.request);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(triggeredTime, headers, request);
+        }
+    }
+}
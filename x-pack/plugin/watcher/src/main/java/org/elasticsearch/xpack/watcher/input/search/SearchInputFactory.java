@@ -21,12 +21,14 @@ public class SearchInputFactory extends InputFactory<SearchInput, SearchInput.Re
     private final Client client;
     private final TimeValue defaultTimeout;
     private final WatcherSearchTemplateService searchTemplateService;
+    private final SearchInputCoalescer coalescer;
 
     public SearchInputFactory(Settings settings, Client client, NamedXContentRegistry xContentRegistry,
                               ScriptService scriptService) {
         this.client = client;
         this.defaultTimeout = settings.getAsTime("xpack.watcher.input.search.default_timeout", TimeValue.timeValueMinutes(1));
         this.searchTemplateService = new WatcherSearchTemplateService(settings, scriptService, xContentRegistry);
+        this.coalescer = SearchInputCoalescer.COALESCE_SETTING.get(settings) ? new SearchInputCoalescer() : null;
     }
 
     @Override
@@ -41,6 +43,6 @@ public class SearchInputFactory extends InputFactory<SearchInput, SearchInput.Re
 
     @Override
     public ExecutableSearchInput createExecutable(SearchInput input) {
-        return new ExecutableSearchInput(input, client, searchTemplateService, defaultTimeout);
+        return new ExecutableSearchInput(input, client, searchTemplateService, defaultTimeout, coalescer);
     }
 }
@@ -78,7 +78,8 @@ public class TransportWatcherStatsAction extends TransportNodesAction<WatcherSta
             statsResponse.setQueuedWatches(executionService.queuedWatches());
         }
         if (request.includeStats()) {
-            Counters stats = Counters.merge(Arrays.asList(triggerService.stats(), executionService.executionTimes()));
+            Counters stats = Counters.merge(Arrays.asList(triggerService.stats(), triggerService.engineStats(),
+                executionService.executionTimes()));
             statsResponse.setStats(stats);
         }
         statsResponse.setWatchesCount(triggerService.count());
@@ -23,6 +23,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import static java.util.Collections.unmodifiableMap;
 import static org.elasticsearch.xpack.core.watcher.support.Exceptions.illegalArgument;
@@ -139,6 +140,14 @@ public class TriggerService extends AbstractComponent {
         return counters;
     }
 
+    /**
+     * Returns statistics of the trigger engines about how they trigger watches, like how late watches are triggered
+     * @return a set of counters containing statistics
+     */
+    public Counters engineStats() {
+        return Counters.merge(engines.values().stream().map(TriggerEngine::stats).collect(Collectors.toList()));
+    }
+
     /**
      * Adds the given job to the trigger service. If there is already a registered job in this service with the
      * same job ID, the newly added job will replace the old job (the old job will not be triggered anymore)
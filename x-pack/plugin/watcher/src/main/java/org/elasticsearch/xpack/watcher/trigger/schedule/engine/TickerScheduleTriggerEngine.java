@@ -5,11 +5,14 @@
  */
 package org.elasticsearch.xpack.watcher.trigger.schedule.engine;
 
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.node.Node;
+import org.elasticsearch.xpack.core.watcher.common.stats.Counters;
 import org.elasticsearch.xpack.core.watcher.trigger.TriggerEvent;
 import org.elasticsearch.xpack.core.watcher.watch.Watch;
 import org.elasticsearch.xpack.watcher.trigger.schedule.Schedule;
@@ -22,28 +25,39 @@ import org.joda.time.DateTime;
 import java.time.Clock;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.NavigableSet;
+import java.util.TreeSet;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.elasticsearch.common.settings.Setting.positiveTimeSetting;
 import static org.joda.time.DateTimeZone.UTC;
 
+/**
+ * A {@link ScheduleTriggerEngine} that checks for due schedules on every tick of a ticker thread. The active schedules are
+ * kept in a queue that is ordered by their next scheduled time, so that a tick only looks at the schedules that are due
+ * instead of all schedules, and adding or removing a schedule takes logarithmic time.
+ */
 public class TickerScheduleTriggerEngine extends ScheduleTriggerEngine {
 
     public static final Setting<TimeValue> TICKER_INTERVAL_SETTING =
         positiveTimeSetting("xpack.watcher.trigger.schedule.ticker.tick_interval", TimeValue.timeValueMillis(500), Property.NodeScope);
 
     private final TimeValue tickInterval;
-    private volatile Map<String, ActiveSchedule> schedules;
+    // both guarded by this
+    private final Map<String, ActiveSchedule> schedules = new HashMap<>();
+    private final NavigableSet<ActiveSchedule> queue = new TreeSet<>(ActiveSchedule.BY_SCHEDULED_TIME);
+    private final MeanMetric triggerLag = new MeanMetric();
+    private final AtomicLong maxTriggerLag = new AtomicLong();
     private Ticker ticker;
 
     public TickerScheduleTriggerEngine(Settings settings, ScheduleRegistry scheduleRegistry, Clock clock) {
         super(settings, scheduleRegistry, clock);
         this.tickInterval = TICKER_INTERVAL_SETTING.get(settings);
-        this.schedules = new ConcurrentHashMap<>();
         this.ticker = new Ticker(Node.NODE_DATA_SETTING.get(settings));
     }
 
@@ -57,8 +71,8 @@ public class TickerScheduleTriggerEngine extends ScheduleTriggerEngine {
                 schedules.put(job.id(), new ActiveSchedule(job.id(), trigger.getSchedule(), startTime));
             }
         }
-        // why are we calling putAll() here instead of assigning a brand
-        // new concurrent hash map you may ask yourself over here
+        // why are we adding the schedules here instead of clearing
+        // out the existing ones you may ask yourself over here
         // This requires some explanation how TriggerEngine.start() is
         // invoked, when a reload due to the cluster state listener is done
         // If the watches index does not exist, and new document is stored,
@@ -66,46 +80,93 @@ public class TickerScheduleTriggerEngine extends ScheduleTriggerEngine {
         // this method. The index operation however will run at the same time
         // as the reload, so if we clean out the old data structure here,
         // that can lead to that one watch not being triggered
-        this.schedules.putAll(schedules);
+        schedules.values().forEach(this::put);
     }
 
     @Override
     public void stop() {
-        schedules.clear();
+        clear();
         ticker.close();
     }
 
     @Override
     public synchronized void pauseExecution() {
-        schedules.clear();
+        clear();
     }
 
     @Override
     public void add(Watch watch) {
         assert watch.trigger() instanceof ScheduleTrigger;
         ScheduleTrigger trigger = (ScheduleTrigger) watch.trigger();
-        schedules.put(watch.id(), new ActiveSchedule(watch.id(), trigger.getSchedule(), clock.millis()));
+        put(new ActiveSchedule(watch.id(), trigger.getSchedule(), clock.millis()));
     }
 
     @Override
-    public boolean remove(String jobId) {
-        return schedules.remove(jobId) != null;
+    public synchronized boolean remove(String jobId) {
+        ActiveSchedule schedule = schedules.remove(jobId);
+        if (schedule == null) {
+            return false;
+        }
+        queue.remove(schedule);
+        return true;
+    }
+
+    private synchronized void put(ActiveSchedule schedule) {
+        ActiveSchedule previous = schedules.put(schedule.name, schedule);
+        if (previous != null) {
+            queue.remove(previous);
+        }
+        enqueue(schedule);
+    }
+
+    private synchronized void clear() {
+        schedules.clear();
+        queue.clear();
+    }
+
+    private void enqueue(ActiveSchedule schedule) {
+        assert Thread.holdsLock(this);
+        // schedules that will never fire again, like cron expressions in the past, are only kept so that they can be removed
+        if (schedule.scheduledTime > -1) {
+            queue.add(schedule);
+        }
+    }
+
+    /**
+     * Takes all schedules whose scheduled time is the same or before the given time out of the queue, computes their next
+     * scheduled time and puts them back into the queue.
+     *
+     * @return the names of the due schedules and their scheduled times
+     */
+    private synchronized List<Tuple<String, Long>> pollDueSchedules(long triggeredTime) {
+        List<Tuple<String, Long>> dueSchedules = new ArrayList<>();
+        while (queue.isEmpty() == false && queue.first().scheduledTime <= triggeredTime) {
+            ActiveSchedule schedule = queue.pollFirst();
+            // the scheduled time is the sort key, so it may only be changed while the schedule is not queued
+            long scheduledTime = schedule.check(triggeredTime);
+            enqueue(schedule);
+            if (scheduledTime > 0) {
+                dueSchedules.add(new Tuple<>(schedule.name, scheduledTime));
+            }
+        }
+        return dueSchedules;
     }
 
     void checkJobs() {
         long triggeredTime = clock.millis();
         List<TriggerEvent> events = new ArrayList<>();
-        for (ActiveSchedule schedule : schedules.values()) {
-            long scheduledTime = schedule.check(triggeredTime);
-            if (scheduledTime > 0) {
-                logger.debug("triggered job [{}] at [{}] (scheduled time was [{}])", schedule.name,
-                    new DateTime(triggeredTime, UTC), new DateTime(scheduledTime, UTC));
-                events.add(new ScheduleTriggerEvent(schedule.name, new DateTime(triggeredTime, UTC),
-                    new DateTime(scheduledTime, UTC)));
-                if (events.size() >= 1000) {
-                    notifyListeners(events);
-                    events.clear();
-                }
+        for (Tuple<String, Long> dueSchedule : pollDueSchedules(triggeredTime)) {
+            String name = dueSchedule.v1();
+            long scheduledTime = dueSchedule.v2();
+            logger.debug("triggered job [{}] at [{}] (scheduled time was [{}])", name,
+                new DateTime(triggeredTime, UTC), new DateTime(scheduledTime, UTC));
+            long lag = Math.max(0, triggeredTime - scheduledTime);
+            triggerLag.inc(lag);
+            maxTriggerLag.accumulateAndGet(lag, Math::max);
+            events.add(new ScheduleTriggerEvent(name, new DateTime(triggeredTime, UTC), new DateTime(scheduledTime, UTC)));
+            if (events.size() >= 1000) {
+                notifyListeners(events);
+                events.clear();
             }
         }
         if (events.isEmpty() == false) {
@@ -113,17 +174,35 @@ public class TickerScheduleTriggerEngine extends ScheduleTriggerEngine {
         }
     }
 
+    /**
+     * Returns how many schedules were triggered and how late they were triggered compared to their scheduled time.
+     */
+    @Override
+    public Counters stats() {
+        Counters counters = new Counters();
+        counters.inc("trigger.schedule.lag.total", triggerLag.count());
+        counters.inc("trigger.schedule.lag.total_time_in_ms", triggerLag.sum());
+        counters.inc("trigger.schedule.lag.max_in_ms", maxTriggerLag.get());
+        synchronized (this) {
+            counters.inc("trigger.schedule.queued", queue.size());
+        }
+        return counters;
+    }
+
     protected void notifyListeners(List<TriggerEvent> events) {
         consumers.forEach(consumer -> consumer.accept(events));
     }
 
     static class ActiveSchedule {
 
+        static final Comparator<ActiveSchedule> BY_SCHEDULED_TIME =
+            Comparator.<ActiveSchedule>comparingLong(schedule -> schedule.scheduledTime).thenComparing(schedule -> schedule.name);
+
         private final String name;
         private final Schedule schedule;
         private final long startTime;
 
-        private volatile long scheduledTime;
+        private long scheduledTime;
 
         ActiveSchedule(String name, Schedule schedule, long startTime) {
             this.name = name;
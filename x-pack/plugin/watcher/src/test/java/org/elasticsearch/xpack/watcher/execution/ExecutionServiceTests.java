@@ -8,8 +8,13 @@ package org.elasticsearch.xpack.watcher.execution;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.action.update.UpdateResponse;
@@ -897,6 +902,35 @@ public class ExecutionServiceTests extends ESTestCase {
         verify(ctx).abortBeforeExecution(eq(ExecutionState.NOT_EXECUTED_ALREADY_QUEUED), eq("Watch is already queued in thread pool"));
     }
 
+    public void testProcessEventsGetsWatchesWithSingleMultiGet() throws Exception {
+        doAnswer(invocation -> {
+            MultiGetRequest request = (MultiGetRequest) invocation.getArguments()[0];
+            ActionListener<MultiGetResponse> listener = (ActionListener) invocation.getArguments()[1];
+            MultiGetItemResponse[] items = new MultiGetItemResponse[request.getItems().size()];
+            for (int i = 0; i < items.length; i++) {
+                MultiGetRequest.Item item = request.getItems().get(i);
+                boolean exists = item.id().equals("_exists");
+                GetResult result = new GetResult(item.index(), item.type(), item.id(), exists ? 1 : -1, exists, null, null);
+                items[i] = new MultiGetItemResponse(new GetResponse(result), null);
+            }
+            listener.onResponse(new MultiGetResponse(items));
+            return null;
+        }).when(client).multiGet(any(), any());
+        when(triggeredWatchStore.putAll(any())).thenReturn(new BulkResponse(new BulkItemResponse[0], 0));
+
+        DateTime now = new DateTime(clock.millis(), UTC);
+        executionService.processEventsSync(asList(new ScheduleTriggerEvent("_exists", now, now),
+            new ScheduleTriggerEvent("_missing", now, now)));
+
+        verify(client, times(1)).multiGet(any(), any());
+        verify(client, never()).get(any(), any());
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(triggeredWatchStore).putAll(captor.capture());
+        List<TriggeredWatch> triggeredWatches = captor.getValue();
+        assertThat(triggeredWatches, hasSize(1));
+        assertThat(triggeredWatches.get(0).id().watchId(), is("_exists"));
+    }
+
     public void testExecuteWatchNotFound() throws Exception {
         Watch watch = mock(Watch.class);
         when(watch.id()).thenReturn("_id");
@@ -0,0 +1,109 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.watcher.input.search;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+
+public class SearchInputCoalescerTests extends ESTestCase {
+
+    private static final TimeValue TIMEOUT = TimeValue.timeValueSeconds(10);
+
+    private final SearchInputCoalescer coalescer = new SearchInputCoalescer();
+    private final AtomicInteger searches = new AtomicInteger();
+    private final SearchResponse response = mock(SearchResponse.class);
+    private final CheckedSupplier<SearchResponse, Exception> search = () -> {
+        searches.incrementAndGet();
+        return response;
+    };
+    private final Map<String, String> headers = Collections.singletonMap("_key", "_value");
+
+    private static SearchRequest newRequest(String index) {
+        return new SearchRequest(index).source(new SearchSourceBuilder().query(QueryBuilders.termQuery("_field", "_value")));
+    }
+
+    public void testIdenticalRunningSearchesOfTheSameTickAreShared() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicReference<Object> sharedResponse = new AtomicReference<>();
+        final Thread thread = new Thread(() -> {
+            try {
+                sharedResponse.set(coalescer.search(1000, headers, newRequest("idx"), TIMEOUT, () -> {
+                    started.countDown();
+                    release.await();
+                    return search.get();
+                }));
+            } catch (Exception e) {
+                sharedResponse.set(e);
+            }
+        });
+        thread.start();
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertThat(coalescer.size(), is(1));
+
+        // searches with other headers, requests or triggered times are not shared
+        coalescer.search(1000, Collections.emptyMap(), newRequest("idx"), TIMEOUT, search);
+        coalescer.search(1000, headers, newRequest("other"), TIMEOUT, search);
+        coalescer.search(2000, headers, newRequest("idx"), TIMEOUT, search);
+        assertThat(searches.get(), is(3));
+
+        // an identical search waits for the running one
+        final AtomicReference<Object> waitingResponse = new AtomicReference<>();
+        final Thread waiting = new Thread(() -> {
+            try {
+                waitingResponse.set(coalescer.search(1000, headers, newRequest("idx"), TIMEOUT, search));
+            } catch (Exception e) {
+                waitingResponse.set(e);
+            }
+        });
+        waiting.start();
+        assertBusy(() -> assertThat(waiting.getState(), is(Thread.State.TIMED_WAITING)));
+        release.countDown();
+        thread.join();
+        waiting.join();
+        assertThat(sharedResponse.get(), sameInstance(response));
+        assertThat(waitingResponse.get(), sameInstance(response));
+        assertThat(searches.get(), is(4));
+        assertThat(coalescer.size(), is(0));
+    }
+
+    public void testCompletedSearchesAreNotRetained() throws Exception {
+        assertThat(coalescer.search(1000, headers, newRequest("idx"), TIMEOUT, search), sameInstance(response));
+        assertThat(coalescer.size(), is(0));
+        assertThat(coalescer.search(1000, headers, newRequest("idx"), TIMEOUT, search), sameInstance(response));
+        assertThat(searches.get(), is(2));
+        assertThat(coalescer.size(), is(0));
+    }
+
+    public void testFailedSearchesAreNotShared() throws Exception {
+        ElasticsearchException e = expectThrows(ElasticsearchException.class,
+            () -> coalescer.search(1000, headers, newRequest("idx"), TIMEOUT, () -> {
+                throw new ElasticsearchException("_failure");
+            }));
+        assertThat(e.getMessage(), is("_failure"));
+        assertThat(coalescer.size(), is(0));
+
+        assertThat(coalescer.search(1000, headers, newRequest("idx"), TIMEOUT, search), sameInstance(response));
+        assertThat(searches.get(), is(1));
+    }
+}
@@ -79,6 +79,7 @@ public class TransportWatcherStatsActionTests extends ESTestCase {
         Counters secondTriggerServiceStats = new Counters();
         secondTriggerServiceStats.inc("foo.bar.baz", 1024);
         when(triggerService.stats()).thenReturn(firstTriggerServiceStats, secondTriggerServiceStats);
+        when(triggerService.engineStats()).thenReturn(new Counters());
 
         action = new TransportWatcherStatsAction(Settings.EMPTY, transportService, clusterService, threadPool, new
             ActionFilters(Collections.emptySet()), new IndexNameExpressionResolver(Settings.EMPTY), watcherLifeCycleService,
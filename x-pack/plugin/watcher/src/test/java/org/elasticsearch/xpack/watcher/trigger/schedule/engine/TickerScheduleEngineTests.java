@@ -7,7 +7,10 @@ package org.elasticsearch.xpack.watcher.trigger.schedule.engine;
 
 import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.node.Node;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.core.watcher.common.stats.Counters;
 import org.elasticsearch.xpack.core.watcher.trigger.TriggerEvent;
 import org.elasticsearch.xpack.core.watcher.watch.ClockMock;
 import org.elasticsearch.xpack.core.watcher.watch.Watch;
@@ -35,6 +38,8 @@ import java.util.function.Consumer;
 import static org.elasticsearch.xpack.watcher.trigger.schedule.Schedules.daily;
 import static org.elasticsearch.xpack.watcher.trigger.schedule.Schedules.interval;
 import static org.elasticsearch.xpack.watcher.trigger.schedule.Schedules.weekly;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
 import static org.joda.time.DateTimeZone.UTC;
 import static org.mockito.Mockito.mock;
@@ -254,6 +259,44 @@ public class TickerScheduleEngineTests extends ESTestCase {
         assertThat(counter.get(), is(2));
     }
 
+    public void testOnlyDueSchedulesAreTriggered() {
+        // no ticker thread, the jobs are checked by the test
+        Settings settings = Settings.builder().put(Node.NODE_DATA_SETTING.getKey(), false).build();
+        TickerScheduleTriggerEngine tickerEngine = new TickerScheduleTriggerEngine(settings, mock(ScheduleRegistry.class), clock);
+        List<String> triggered = new ArrayList<>();
+        tickerEngine.register(events -> events.forEach(event -> triggered.add(event.jobName())));
+        tickerEngine.start(Collections.singletonList(createWatch("fast", interval("1s"))));
+        tickerEngine.add(createWatch("slow", interval("10s")));
+        assertThat(tickerEngine.stats().get("trigger.schedule.queued"), is(2L));
+
+        tickerEngine.checkJobs();
+        assertThat(triggered, empty());
+
+        clock.fastForward(TimeValue.timeValueMillis(1500));
+        tickerEngine.checkJobs();
+        assertThat(triggered, contains("fast"));
+        Counters stats = tickerEngine.stats();
+        assertThat(stats.get("trigger.schedule.lag.total"), is(1L));
+        assertThat(stats.get("trigger.schedule.lag.total_time_in_ms"), is(500L));
+        assertThat(stats.get("trigger.schedule.lag.max_in_ms"), is(500L));
+        assertThat(stats.get("trigger.schedule.queued"), is(2L));
+
+        assertThat(tickerEngine.remove("fast"), is(true));
+        assertThat(tickerEngine.remove("fast"), is(false));
+        triggered.clear();
+        clock.fastForward(TimeValue.timeValueSeconds(9));
+        tickerEngine.checkJobs();
+        assertThat(triggered, contains("slow"));
+        stats = tickerEngine.stats();
+        assertThat(stats.get("trigger.schedule.lag.total"), is(2L));
+        assertThat(stats.get("trigger.schedule.lag.total_time_in_ms"), is(1000L));
+        assertThat(stats.get("trigger.schedule.queued"), is(1L));
+
+        tickerEngine.pauseExecution();
+        assertThat(tickerEngine.stats().get("trigger.schedule.queued"), is(0L));
+        tickerEngine.stop();
+    }
+
     private Watch createWatch(String name, Schedule schedule) {
         return new Watch(name, new ScheduleTrigger(schedule), new ExecutableNoneInput(),
                 InternalAlwaysCondition.INSTANCE, null, null,